@@ -1,9 +1,15 @@
 package com.kallasoft.avondale.component;
 
+import java.awt.AlphaComposite;
 import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
 import java.awt.Paint;
+import java.awt.Transparency;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
@@ -11,12 +17,13 @@ import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Dimension2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 import java.beans.PropertyChangeEvent;
-import java.util.ArrayList;
-import java.util.List;
 
 import javax.swing.JComponent;
 
@@ -25,6 +32,8 @@ import com.kallasoft.avondale.Spacer;
 import com.kallasoft.avondale.component.border.ComponentBorder;
 import com.kallasoft.avondale.component.model.ComponentModel;
 import com.kallasoft.avondale.component.painter.ComponentPainter;
+import com.kallasoft.avondale.component.snapshot.ComponentSnapshot;
+import com.kallasoft.avondale.event.ListenerArray;
 import com.kallasoft.avondale.event.ValidationEvent;
 import com.kallasoft.avondale.event.ValidationListener;
 import com.kallasoft.avondale.panel.ComponentPanel;
@@ -38,6 +47,7 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 	protected Rectangle2D minBounds;
 	protected Rectangle2D bounds;
 	protected Rectangle2D maxBounds;
+	private Rectangle2D repaintBounds;
 
 	private boolean opaque = true;
 	private boolean enabled = true;
@@ -47,12 +57,17 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 	private boolean focusable = true;
 	private boolean mouseOver = false;
 	private boolean mousePressed = false;
+	private boolean offscreenBufferEnabled = false;
+	private boolean offscreenBufferValid = false;
 
 	private boolean keyNotificationEnabled = true;
 	private boolean mouseNotificationEnabled = true;
 	private boolean mouseMotionNotificationEnabled = true;
 	private boolean mouseWheelNotificationEnabled = true;
 	private boolean validationNotificationEnabled = true;
+	private boolean componentPanelOffsetValid = false;
+	private double componentPanelOffsetX;
+	private double componentPanelOffsetY;
 
 	private Spacer padding;
 	private ComponentBorder border;
@@ -65,12 +80,17 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 	private ToolTip toolTip;
 	private ContainerComponent parentComponent;
 	private transient ComponentPanel componentPanel;
-
-	private transient List<KeyListener> keyListenerList;
-	private transient List<MouseListener> mouseListenerList;
-	private transient List<MouseMotionListener> mouseMotionListenerList;
-	private transient List<MouseWheelListener> mouseWheelListenerList;
-	private transient List<ValidationListener> validationListenerList;
+	private transient Image offscreenBuffer;
+	private transient ComponentSnapshot snapshot;
+	private double offscreenBufferScaleX;
+	private double offscreenBufferScaleY;
+	private Rectangle2D offscreenBufferBounds;
+
+	private transient ListenerArray<KeyListener> keyListenerArray;
+	private transient ListenerArray<MouseListener> mouseListenerArray;
+	private transient ListenerArray<MouseMotionListener> mouseMotionListenerArray;
+	private transient ListenerArray<MouseWheelListener> mouseWheelListenerArray;
+	private transient ListenerArray<ValidationListener> validationListenerArray;
 
 	public AbstractComponent(ComponentModel componentModel)
 	{
@@ -81,13 +101,15 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 		bounds = new Rectangle2D.Double();
 		maxBounds = new Rectangle2D.Double(Double.MAX_VALUE, Double.MAX_VALUE,
 				Double.MAX_VALUE, Double.MAX_VALUE);
+		repaintBounds = new Rectangle2D.Double();
+		offscreenBufferBounds = new Rectangle2D.Double();
 
 		/* Initialize the listener lists */
-		keyListenerList = new ArrayList<KeyListener>(0);
-		mouseListenerList = new ArrayList<MouseListener>(0);
-		mouseMotionListenerList = new ArrayList<MouseMotionListener>(0);
-		mouseWheelListenerList = new ArrayList<MouseWheelListener>(0);
-		validationListenerList = new ArrayList<ValidationListener>(0);
+		keyListenerArray = ListenerArray.empty();
+		mouseListenerArray = ListenerArray.empty();
+		mouseMotionListenerArray = ListenerArray.empty();
+		mouseWheelListenerArray = ListenerArray.empty();
+		validationListenerArray = ListenerArray.empty();
 
 		/* Set the componentModel */
 		setComponentModel(componentModel);
@@ -103,6 +125,7 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 	public void propertyChange(PropertyChangeEvent evt)
 	{
 		/* React to model changes by repainting self */
+		invalidateOffscreenBuffer();
 		repaint();
 	}
 
@@ -122,7 +145,8 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 		firePropertyChangeEvent(this, VIRTUAL_PROPERTY_NAME, oldVirtual,
 				isVirtual());
 
-		/* Repaint the component */
+		/* Discard the cached rendering and repaint the component */
+		invalidateOffscreenBuffer();
 		repaint();
 	}
 
@@ -142,7 +166,8 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 		firePropertyChangeEvent(this, ENABLED_PROPERTY_NAME, oldEnabled,
 				isEnabled());
 
-		/* Repaint the component */
+		/* Discard the cached rendering and repaint the component */
+		invalidateOffscreenBuffer();
 		repaint();
 	}
 
@@ -182,10 +207,32 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 		firePropertyChangeEvent(this, OPAQUE_PROPERTY_NAME, oldOpaque,
 				isOpaque());
 
-		/* Repaint the component */
+		/* Discard the cached rendering and repaint the component */
+		invalidateOffscreenBuffer();
 		repaint();
 	}
 
+	public boolean isOffscreenBufferEnabled()
+	{
+		return offscreenBufferEnabled;
+	}
+
+	public void setOffscreenBufferEnabled(boolean offscreenBufferEnabled)
+	{
+		boolean oldOffscreenBufferEnabled = isOffscreenBufferEnabled();
+
+		if (oldOffscreenBufferEnabled == offscreenBufferEnabled)
+			return;
+
+		this.offscreenBufferEnabled = offscreenBufferEnabled;
+		firePropertyChangeEvent(this, OFFSCREEN_BUFFER_ENABLED_PROPERTY_NAME,
+				oldOffscreenBufferEnabled, isOffscreenBufferEnabled());
+
+		/* Release the buffer, it is recreated the next time it is needed */
+		if (!isOffscreenBufferEnabled())
+			releaseOffscreenBuffer();
+	}
+
 	public boolean isFocusable()
 	{
 		return focusable;
@@ -226,6 +273,9 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 		this.focused = focused;
 		firePropertyChangeEvent(this, FOCUSED_PROPERTY_NAME, oldFocused,
 				isFocused());
+
+		/* Painters draw the focus, discard the cached rendering */
+		invalidateOffscreenBuffer();
 	}
 
 	public boolean isMouseOver()
@@ -243,6 +293,9 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 		this.mouseOver = mouseOver;
 		firePropertyChangeEvent(this, MOUSE_OVER_PROPERTY_NAME, oldMouseOver,
 				isMouseOver());
+
+		/* Painters draw the mouse over state, discard the cached rendering */
+		invalidateOffscreenBuffer();
 	}
 
 	public boolean isMousePressed()
@@ -260,11 +313,25 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 		this.mousePressed = mousePressed;
 		firePropertyChangeEvent(this, MOUSE_PRESSED_PROPERTY_NAME, oldMousePressed,
 				isMousePressed());
+
+		/* Painters draw the mouse pressed state, discard the cached rendering */
+		invalidateOffscreenBuffer();
 	}
 
 	public boolean contains(double x, double y)
 	{
-		return (isVisible() && getBounds().contains(x, y));
+		if (!isVisible())
+			return false;
+
+		/*
+		 * Same test as Rectangle2D.contains(x, y) performed directly against
+		 * the bounds so no rectangle needs to be created.
+		 */
+		double componentX = getX();
+		double componentY = getY();
+
+		return (x >= componentX && y >= componentY
+				&& x < componentX + getWidth() && y < componentY + getHeight());
 	}
 
 	public boolean contains(Point2D location)
@@ -279,7 +346,7 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 
 	public double getCenterX()
 	{
-		return (getX() + getWidth()) / 2;
+		return getX() + (getWidth() / 2);
 	}
 
 	public double getY()
@@ -289,12 +356,21 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 
 	public double getCenterY()
 	{
-		return (getY() + getHeight()) / 2;
+		return getY() + (getHeight() / 2);
 	}
 
 	public Point2D getLocation()
 	{
-		return new Point2D.Double(getX(), getY());
+		return getLocation(null);
+	}
+
+	public Point2D getLocation(Point2D location)
+	{
+		if (location == null)
+			location = new Point2D.Double();
+
+		location.setLocation(getX(), getY());
+		return location;
 	}
 
 	public double getWidth()
@@ -309,7 +385,14 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 
 	public Dimension2D getSize()
 	{
-		Dimension size = new Dimension();
+		return getSize(null);
+	}
+
+	public Dimension2D getSize(Dimension2D size)
+	{
+		if (size == null)
+			size = new Dimension();
+
 		size.setSize(getWidth(), getHeight());
 		return size;
 	}
@@ -330,7 +413,8 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 		firePropertyChangeEvent(this, PADDING_PROPERTY_NAME, oldPadding,
 				getPadding());
 
-		/* Repaint the component */
+		/* Discard the cached rendering and repaint the component */
+		invalidateOffscreenBuffer();
 		repaint();
 	}
 
@@ -350,7 +434,8 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 		firePropertyChangeEvent(this, BACKGROUND_PAINT_PROPERTY_NAME,
 				oldBackgroundPaint, getBackgroundPaint());
 
-		/* Repaint the component */
+		/* Discard the cached rendering and repaint the component */
+		invalidateOffscreenBuffer();
 		repaint();
 	}
 
@@ -370,7 +455,8 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 		firePropertyChangeEvent(this, FOREGROUND_PAINT_PROPERTY_NAME,
 				oldForegroundPaint, getForegroundPaint());
 
-		/* Repaint the component */
+		/* Discard the cached rendering and repaint the component */
+		invalidateOffscreenBuffer();
 		repaint();
 	}
 
@@ -390,7 +476,11 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 		firePropertyChangeEvent(this, COMPONENT_BORDER_PROPERTY_NAME,
 				oldBorder, getComponentBorder());
 
-		/* Repaint the component */
+		/* The border width is part of the preferred bounds */
+		fireComponentBoundsChanged();
+
+		/* Discard the cached rendering and repaint the component */
+		invalidateOffscreenBuffer();
 		repaint();
 	}
 
@@ -410,7 +500,8 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 		firePropertyChangeEvent(this, COMPONENT_PAINTER_PROPERTY_NAME,
 				oldComponentPainter, getComponentPainter());
 
-		/* Repaint the component */
+		/* Discard the cached rendering and repaint the component */
+		invalidateOffscreenBuffer();
 		repaint();
 	}
 
@@ -456,7 +547,8 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 		firePropertyChangeEvent(this, COMPONENT_MODEL_PROPERTY_NAME,
 				oldComponentModel, getComponentModel());
 
-		/* Repaint the component */
+		/* Discard the cached rendering and repaint the component */
+		invalidateOffscreenBuffer();
 		repaint();
 	}
 
@@ -544,6 +636,62 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 		this.parentComponent = parentComponent;
 		firePropertyChangeEvent(this, PARENT_COMPONENT_PROPERTY_NAME,
 				oldParentComponent, getParentComponent());
+
+		/* A new parent means a new location on the componentPanel */
+		invalidateComponentPanelOffset();
+	}
+
+	public double getComponentPanelOffsetX()
+	{
+		validateComponentPanelOffset();
+		return componentPanelOffsetX;
+	}
+
+	public double getComponentPanelOffsetY()
+	{
+		validateComponentPanelOffset();
+		return componentPanelOffsetY;
+	}
+
+	public void invalidateComponentPanelOffset()
+	{
+		componentPanelOffsetValid = false;
+	}
+
+	protected boolean isComponentPanelOffsetValid()
+	{
+		return componentPanelOffsetValid;
+	}
+
+	/**
+	 * Used to recalculate the cached <code>ComponentPanel</code> offset from
+	 * the parent's cached offset, so only the ancestors that are themselves
+	 * invalid are visited. Because validating an offset validates every
+	 * ancestor first, an invalid offset implies every descendant's offset is
+	 * invalid too, which lets invalidation stop as soon as it reaches a
+	 * component that is already invalid.
+	 */
+	protected void validateComponentPanelOffset()
+	{
+		if (componentPanelOffsetValid)
+			return;
+
+		ContainerComponent parentComponent = getParentComponent();
+
+		if (parentComponent == null)
+		{
+			componentPanelOffsetX = 0;
+			componentPanelOffsetY = 0;
+		}
+		else
+		{
+			componentPanelOffsetX = parentComponent.getComponentPanelOffsetX()
+					+ parentComponent.getX();
+			componentPanelOffsetY = parentComponent.getComponentPanelOffsetY()
+					+ parentComponent.getY();
+		}
+
+		componentPanelOffsetValid = true;
 	}
 
 	public ComponentPanel getComponentPanel()
@@ -602,7 +750,7 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 
 	public void repaint()
 	{
-		repaint(getPreferredBounds());
+		repaint(getPreferredBounds(repaintBounds));
 	}
 
 	public void repaint(double x, double y, double width, double height)
@@ -628,11 +776,10 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 				return;
 
 			/*
-			 * We use the floor/ceil here to make sure the rouding error from
-			 * double to int doesn't loose important repaint bounds information.
+			 * Let the componentPanel know which root component the region
+			 * belongs to so anything it has cached for it can be discarded.
 			 */
-			componentPanel.repaint((int) Math.floor(x), (int) Math.floor(y),
-					(int) Math.ceil(width), (int) Math.ceil(height));
+			componentPanel.repaintRootComponent(this, x, y, width, height);
 		}
 		else
 		{
@@ -672,7 +819,7 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 
 	public boolean containsKeyListener(KeyListener keyListener)
 	{
-		return keyListenerList.contains(keyListener);
+		return keyListenerArray.contains(keyListener);
 	}
 
 	public void addKeyListener(KeyListener keyListener)
@@ -686,32 +833,32 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 			return;
 
 		if (!containsKeyListener(keyListener))
-			keyListenerList.add(index, keyListener);
+			keyListenerArray = keyListenerArray.add(index, keyListener);
 	}
 
 	public int getKeyListenerCount()
 	{
-		return keyListenerList.size();
+		return keyListenerArray.size();
 	}
 
 	public int getIndexOfKeyListener(KeyListener keyListener)
 	{
-		return keyListenerList.indexOf(keyListener);
+		return keyListenerArray.indexOf(keyListener);
 	}
 
 	public KeyListener getKeyListener(int index)
 	{
-		return keyListenerList.get(index);
+		return keyListenerArray.get(index);
 	}
 
 	public KeyListener[] getKeyListeners()
 	{
-		return keyListenerList.toArray(new KeyListener[getKeyListenerCount()]);
+		return keyListenerArray.toArray(new KeyListener[getKeyListenerCount()]);
 	}
 
 	public void removeKeyListener(int index)
 	{
-		keyListenerList.remove(index);
+		keyListenerArray = keyListenerArray.remove(index);
 	}
 
 	public void removeKeyListener(KeyListener keyListener)
@@ -727,7 +874,7 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 
 	public void removeKeyListeners()
 	{
-		keyListenerList.clear();
+		keyListenerArray = ListenerArray.empty();
 	}
 
 	public boolean isMouseNotificationEnabled()
@@ -749,7 +896,7 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 
 	public boolean containsMouseListener(MouseListener mouseListener)
 	{
-		return mouseListenerList.contains(mouseListener);
+		return mouseListenerArray.contains(mouseListener);
 	}
 
 	public void addMouseListener(MouseListener mouseListener)
@@ -763,33 +910,33 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 			return;
 
 		if (!containsMouseListener(mouseListener))
-			mouseListenerList.add(index, mouseListener);
+			mouseListenerArray = mouseListenerArray.add(index, mouseListener);
 	}
 
 	public int getMouseListenerCount()
 	{
-		return mouseListenerList.size();
+		return mouseListenerArray.size();
 	}
 
 	public int getIndexOfMouseListener(MouseListener mouseListener)
 	{
-		return mouseListenerList.indexOf(mouseListener);
+		return mouseListenerArray.indexOf(mouseListener);
 	}
 
 	public MouseListener getMouseListener(int index)
 	{
-		return mouseListenerList.get(index);
+		return mouseListenerArray.get(index);
 	}
 
 	public MouseListener[] getMouseListeners()
 	{
-		return mouseListenerList
+		return mouseListenerArray
 				.toArray(new MouseListener[getMouseListenerCount()]);
 	}
 
 	public void removeMouseListener(int index)
 	{
-		mouseListenerList.remove(index);
+		mouseListenerArray = mouseListenerArray.remove(index);
 	}
 
 	public void removeMouseListener(MouseListener mouseListener)
@@ -805,7 +952,7 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 
 	public void removeMouseListeners()
 	{
-		mouseListenerList.clear();
+		mouseListenerArray = ListenerArray.empty();
 	}
 
 	public boolean isMouseMotionNotificationEnabled()
@@ -830,7 +977,7 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 	public boolean containsMouseMotionListener(
 			MouseMotionListener mouseMotionListener)
 	{
-		return mouseMotionListenerList.contains(mouseMotionListener);
+		return mouseMotionListenerArray.contains(mouseMotionListener);
 	}
 
 	public void addMouseMotionListener(MouseMotionListener mouseMotionListener)
@@ -846,34 +993,35 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 			return;
 
 		if (!containsMouseMotionListener(mouseMotionListener))
-			mouseMotionListenerList.add(index, mouseMotionListener);
+			mouseMotionListenerArray = mouseMotionListenerArray.add(
+					index, mouseMotionListener);
 	}
 
 	public int getMouseMotionListenerCount()
 	{
-		return mouseMotionListenerList.size();
+		return mouseMotionListenerArray.size();
 	}
 
 	public int getIndexOfMouseMotionListener(
 			MouseMotionListener mouseMotionListener)
 	{
-		return mouseMotionListenerList.indexOf(mouseMotionListener);
+		return mouseMotionListenerArray.indexOf(mouseMotionListener);
 	}
 
 	public MouseMotionListener getMouseMotionListener(int index)
 	{
-		return mouseMotionListenerList.get(index);
+		return mouseMotionListenerArray.get(index);
 	}
 
 	public MouseMotionListener[] getMouseMotionListeners()
 	{
-		return mouseMotionListenerList
+		return mouseMotionListenerArray
 				.toArray(new MouseMotionListener[getMouseMotionListenerCount()]);
 	}
 
 	public void removeMouseMotionListener(int index)
 	{
-		mouseMotionListenerList.remove(index);
+		mouseMotionListenerArray = mouseMotionListenerArray.remove(index);
 	}
 
 	public void removeMouseMotionListener(
@@ -890,7 +1038,7 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 
 	public void removeMouseMotionListeners()
 	{
-		mouseMotionListenerList.clear();
+		mouseMotionListenerArray = ListenerArray.empty();
 	}
 
 	public boolean isMouseWheelNotificationEnabled()
@@ -915,7 +1063,7 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 	public boolean containsMouseWheelListener(
 			MouseWheelListener mouseWheelListener)
 	{
-		return mouseWheelListenerList.contains(mouseWheelListener);
+		return mouseWheelListenerArray.contains(mouseWheelListener);
 	}
 
 	public void addMouseWheelListener(MouseWheelListener mouseWheelListener)
@@ -930,34 +1078,35 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 			return;
 
 		if (!containsMouseWheelListener(mouseWheelListener))
-			mouseWheelListenerList.add(index, mouseWheelListener);
+			mouseWheelListenerArray = mouseWheelListenerArray.add(
+					index, mouseWheelListener);
 	}
 
 	public int getMouseWheelListenerCount()
 	{
-		return mouseWheelListenerList.size();
+		return mouseWheelListenerArray.size();
 	}
 
 	public int getIndexOfMouseWheelListener(
 			MouseWheelListener mouseWheelListener)
 	{
-		return mouseWheelListenerList.indexOf(mouseWheelListener);
+		return mouseWheelListenerArray.indexOf(mouseWheelListener);
 	}
 
 	public MouseWheelListener getMouseWheelListener(int index)
 	{
-		return mouseWheelListenerList.get(index);
+		return mouseWheelListenerArray.get(index);
 	}
 
 	public MouseWheelListener[] getMouseWheelListeners()
 	{
-		return mouseWheelListenerList
+		return mouseWheelListenerArray
 				.toArray(new MouseWheelListener[getMouseWheelListenerCount()]);
 	}
 
 	public void removeMouseWheelListener(int index)
 	{
-		mouseWheelListenerList.remove(index);
+		mouseWheelListenerArray = mouseWheelListenerArray.remove(index);
 	}
 
 	public void removeMouseWheelListener(MouseWheelListener mouseWheelListener)
@@ -973,7 +1122,7 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 
 	public void removeMouseWheelListeners()
 	{
-		mouseWheelListenerList.clear();
+		mouseWheelListenerArray = ListenerArray.empty();
 	}
 
 	public boolean isValidationNotificationEnabled()
@@ -998,7 +1147,7 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 	public boolean containsValidationListener(
 			ValidationListener validationListener)
 	{
-		return validationListenerList.contains(validationListener);
+		return validationListenerArray.contains(validationListener);
 	}
 
 	public void addValidationListener(ValidationListener validationListener)
@@ -1013,34 +1162,35 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 			return;
 
 		if (!containsValidationListener(validationListener))
-			validationListenerList.add(index, validationListener);
+			validationListenerArray = validationListenerArray.add(
+					index, validationListener);
 	}
 
 	public int getValidationListenerCount()
 	{
-		return validationListenerList.size();
+		return validationListenerArray.size();
 	}
 
 	public int getIndexOfValidationListener(
 			ValidationListener validationListener)
 	{
-		return validationListenerList.indexOf(validationListener);
+		return validationListenerArray.indexOf(validationListener);
 	}
 
 	public ValidationListener getValidationListener(int index)
 	{
-		return validationListenerList.get(index);
+		return validationListenerArray.get(index);
 	}
 
 	public ValidationListener[] getValidationListeners()
 	{
-		return validationListenerList
+		return validationListenerArray
 				.toArray(new ValidationListener[getValidationListenerCount()]);
 	}
 
 	public void removeValidationListener(int index)
 	{
-		validationListenerList.remove(index);
+		validationListenerArray = validationListenerArray.remove(index);
 	}
 
 	public void removeValidationListener(ValidationListener validationListener)
@@ -1056,60 +1206,309 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 
 	public void removeValidationListeners()
 	{
-		validationListenerList.clear();
-	}
-
-	// public VolatileImage renderOffscreenBuffer(Graphics2D g2d, VolatileImage
-	// offscreenBuffer)
-	// {
-	// int attempts = 0;
-	// VolatileImage currentOffscreenBuffer = null;
-	// GraphicsConfiguration graphicsConfiguration =
-	// g2d.getDeviceConfiguration();
-	//		
-	// do
-	// {
-	// /* If the offscreen buffer passed in is null or incompatible with this
-	// * graphicsConfiguration, then that means we need to recreate it,
-	// otherwise
-	// * just use it as he current buffer.
-	// */
-	// if(offscreenBuffer == null ||
-	// offscreenBuffer.validate(graphicsConfiguration) ==
-	// VolatileImage.IMAGE_INCOMPATIBLE)
-	// {
-	// Rectangle2D preferredBounds = getPreferredBounds();
-	// int width = (int)Math.ceil(preferredBounds.getWidth());
-	// int height = (int)Math.ceil(preferredBounds.getHeight());
-	// currentOffscreenBuffer =
-	// graphicsConfiguration.createCompatibleVolatileImage(width, height);
-	// offscreenBuffer = currentOffscreenBuffer;
-	// }
-	// else
-	// currentOffscreenBuffer = offscreenBuffer;
-	//			
-	// /* Now that we have the buffer squared away, render to it */
-	// /* Double buffering wasn't enabled, so render the old fashion way */
-	// Graphics2D scratchG2D = currentOffscreenBuffer.createGraphics();
-	// paintComponent(scratchG2D);
-	// scratchG2D.dispose();
-	//	
-	// scratchG2D = currentOffscreenBuffer.createGraphics();
-	// paintBorder(scratchG2D);
-	// scratchG2D.dispose();
-	//			
-	// /* If the contents were lost for some reason start the whole
-	// * process over, but don't try more than 3 times before giving
-	// * up.
-	// */
-	// attempts++;
-	// } while(attempts < 3 && currentOffscreenBuffer.contentsLost());
-	//		
-	// /* Incase the caller needs a reference to the buffer that was created
-	// * and rendered to, return it.
-	// */
-	// return currentOffscreenBuffer;
-	// }
+		validationListenerArray = ListenerArray.empty();
+	}
+
+	public void invalidateOffscreenBuffer()
+	{
+		offscreenBufferValid = false;
+	}
+
+	public ComponentSnapshot getSnapshot()
+	{
+		/* Snapshots always hold the laid out state */
+		if (!isValid())
+			validate();
+
+		if (snapshot == null)
+			snapshot = createSnapshot();
+
+		return snapshot;
+	}
+
+	public void invalidateSnapshot()
+	{
+		/*
+		 * A cached snapshot always holds the cached snapshots of its children,
+		 * so once a component without a snapshot is reached every ancestor
+		 * above it is already without one as well.
+		 */
+		if (snapshot == null)
+			return;
+
+		snapshot = null;
+
+		ContainerComponent parentComponent = getParentComponent();
+
+		if (parentComponent != null)
+			parentComponent.invalidateSnapshot();
+	}
+
+	/**
+	 * Used to take a new snapshot of this component, called by
+	 * {@link #getSnapshot()} when there is no cached snapshot.
+	 * 
+	 * @return a new snapshot of this component.
+	 */
+	protected ComponentSnapshot createSnapshot()
+	{
+		return new ComponentSnapshot(this, null);
+	}
+
+	/**
+	 * Overridden to discard the cached snapshot on every property change,
+	 * every change to the state of a component is reported through here.
+	 */
+	@Override
+	protected void firePropertyChangeEvent(Object source, String propertyName,
+			Object oldValue, Object newValue)
+	{
+		invalidateSnapshot();
+		super.firePropertyChangeEvent(source, propertyName, oldValue,
+				newValue);
+	}
+
+	/**
+	 * Used to paint this component (its component and border) to
+	 * <code>g2d</code> from the offscreen buffer, rendering the buffer first
+	 * if it was invalidated, if it was rendered for a different scale or size
+	 * or if its contents were lost.
+	 * <p>
+	 * The buffer is a <code>VolatileImage</code> when painting to a screen
+	 * device so the copy can be accelerated, and a <code>BufferedImage</code>
+	 * otherwise. The buffer is rendered at the scale of <code>g2d</code> so
+	 * it is copied pixel for pixel. It is only used when painting for the
+	 * screen at the scale of the <code>ComponentPanel</code>, everything else
+	 * (the overview, tiles, exports and zoom snapshots) paints at scales of
+	 * its own and would only throw the buffer away over and over again, so in
+	 * those cases and when <code>g2d</code> is rotated or sheared the
+	 * component is painted directly instead.
+	 * 
+	 * @param g2d
+	 *            The context, translated to the top left corner of this
+	 *            component, to paint to.
+	 */
+	protected void paintOffscreenBuffer(Graphics2D g2d)
+	{
+		AffineTransform transform = g2d.getTransform();
+
+		if (!isOffscreenBufferScale(g2d)
+				|| (transform.getType() & (AffineTransform.TYPE_GENERAL_ROTATION
+						| AffineTransform.TYPE_QUADRANT_ROTATION | AffineTransform.TYPE_FLIP)) != 0)
+		{
+			paintComponent(g2d);
+			paintBorder(g2d);
+			return;
+		}
+
+		int attempts = 0;
+		boolean contentsLost;
+		double scaleX = transform.getScaleX();
+		double scaleY = transform.getScaleY();
+		Rectangle2D preferredBounds = getPreferredBounds(repaintBounds);
+
+		/*
+		 * The buffer holds the preferred bounds (this component and its
+		 * border) in the coordinate space of this component.
+		 */
+		double x = preferredBounds.getX() - getX();
+		double y = preferredBounds.getY() - getY();
+		double width = preferredBounds.getWidth();
+		double height = preferredBounds.getHeight();
+		int bufferWidth = (int) Math.ceil(width * scaleX);
+		int bufferHeight = (int) Math.ceil(height * scaleY);
+
+		if (bufferWidth <= 0 || bufferHeight <= 0)
+			return;
+
+		/* A buffer rendered for a different scale or size is no longer valid */
+		if (offscreenBufferScaleX != scaleX || offscreenBufferScaleY != scaleY
+				|| offscreenBufferBounds.getX() != x
+				|| offscreenBufferBounds.getY() != y
+				|| offscreenBufferBounds.getWidth() != width
+				|| offscreenBufferBounds.getHeight() != height)
+			offscreenBufferValid = false;
+
+		GraphicsConfiguration graphicsConfiguration = g2d
+				.getDeviceConfiguration();
+
+		do
+		{
+			/*
+			 * If the buffer doesn't exist yet, is the wrong size or is
+			 * incompatible with this graphicsConfiguration, then that means we
+			 * need to recreate it.
+			 */
+			if (offscreenBuffer == null
+					|| offscreenBuffer.getWidth(null) != bufferWidth
+					|| offscreenBuffer.getHeight(null) != bufferHeight)
+			{
+				releaseOffscreenBuffer();
+				offscreenBuffer = createOffscreenBuffer(graphicsConfiguration,
+						bufferWidth, bufferHeight);
+			}
+			else if (offscreenBuffer instanceof VolatileImage)
+			{
+				int status = ((VolatileImage) offscreenBuffer)
+						.validate(graphicsConfiguration);
+
+				if (status == VolatileImage.IMAGE_INCOMPATIBLE)
+				{
+					releaseOffscreenBuffer();
+					offscreenBuffer = createOffscreenBuffer(
+							graphicsConfiguration, bufferWidth, bufferHeight);
+				}
+				else if (status == VolatileImage.IMAGE_RESTORED)
+					offscreenBufferValid = false;
+			}
+
+			if (!offscreenBufferValid)
+			{
+				renderOffscreenBuffer(g2d, x, y, scaleX, scaleY);
+
+				offscreenBufferValid = true;
+				offscreenBufferScaleX = scaleX;
+				offscreenBufferScaleY = scaleY;
+				offscreenBufferBounds.setRect(x, y, width, height);
+			}
+
+			/*
+			 * Copy the buffer pixel for pixel by undoing the scale of g2d for
+			 * the duration of the copy.
+			 */
+			g2d.translate(x, y);
+			g2d.scale(1 / scaleX, 1 / scaleY);
+			g2d.drawImage(offscreenBuffer, 0, 0, null);
+			g2d.setTransform(transform);
+
+			/*
+			 * If the contents were lost for some reason start the whole process
+			 * over, but don't try more than 3 times before giving up.
+			 */
+			contentsLost = (offscreenBuffer instanceof VolatileImage && ((VolatileImage) offscreenBuffer)
+					.contentsLost());
+
+			if (contentsLost)
+				offscreenBufferValid = false;
+
+			attempts++;
+		} while (attempts < 3 && contentsLost);
+	}
+
+	/**
+	 * Used to determine if <code>g2d</code> paints for the screen at the scale
+	 * of the <code>ComponentPanel</code> this component is in, the only case
+	 * the offscreen buffer is kept for.
+	 * 
+	 * @param g2d
+	 *            The context being painted to.
+	 * @return <code>true</code> if the offscreen buffer should be used to
+	 *         paint to <code>g2d</code>, otherwise <code>false</code>.
+	 */
+	protected boolean isOffscreenBufferScale(Graphics2D g2d)
+	{
+		ComponentPanel componentPanel = getComponentPanel();
+
+		if (componentPanel == null)
+			return false;
+
+		GraphicsConfiguration graphicsConfiguration = g2d
+				.getDeviceConfiguration();
+
+		if (graphicsConfiguration.getDevice().getType() != GraphicsDevice.TYPE_RASTER_SCREEN)
+			return false;
+
+		/*
+		 * The panel scale is applied on top of the default transform of the
+		 * screen (e.g. for high resolution displays).
+		 */
+		AffineTransform defaultTransform = graphicsConfiguration
+				.getDefaultTransform();
+		AffineTransform transform = g2d.getTransform();
+		double scale = componentPanel.getScale();
+
+		return (transform.getScaleX() == scale * defaultTransform.getScaleX() && transform
+				.getScaleY() == scale * defaultTransform.getScaleY());
+	}
+
+	/**
+	 * Used to render the component and border of this component into the
+	 * offscreen buffer.
+	 * 
+	 * @param g2d
+	 *            The context the buffer will be painted to, used for its
+	 *            rendering hints.
+	 * @param x
+	 *            The x coordinate, in the coordinate space of this component,
+	 *            of the top left corner of the buffer.
+	 * @param y
+	 *            The y coordinate of the top left corner of the buffer.
+	 * @param scaleX
+	 *            The horizontal scale to render at.
+	 * @param scaleY
+	 *            The vertical scale to render at.
+	 */
+	protected void renderOffscreenBuffer(Graphics2D g2d, double x, double y,
+			double scaleX, double scaleY)
+	{
+		Graphics2D bufferG2D = (Graphics2D) offscreenBuffer.getGraphics();
+
+		/* Clear the buffer to fully transparent */
+		bufferG2D.setComposite(AlphaComposite.Clear);
+		bufferG2D.fillRect(0, 0, offscreenBuffer.getWidth(null),
+				offscreenBuffer.getHeight(null));
+		bufferG2D.setComposite(AlphaComposite.SrcOver);
+
+		bufferG2D.setRenderingHints(g2d.getRenderingHints());
+		bufferG2D.scale(scaleX, scaleY);
+		bufferG2D.translate(-x, -y);
+
+		paintComponent(bufferG2D);
+		paintBorder(bufferG2D);
+		bufferG2D.dispose();
+	}
+
+	/**
+	 * Used to create a new, translucent offscreen buffer.
+	 * 
+	 * @param graphicsConfiguration
+	 *            The configuration of the device the buffer is painted to.
+	 * @param width
+	 *            The width of the buffer in pixels.
+	 * @param height
+	 *            The height of the buffer in pixels.
+	 * @return a <code>VolatileImage</code> for screen devices, otherwise a
+	 *         <code>BufferedImage</code>.
+	 */
+	protected Image createOffscreenBuffer(
+			GraphicsConfiguration graphicsConfiguration, int width, int height)
+	{
+		offscreenBufferValid = false;
+
+		if (graphicsConfiguration == null)
+			return new BufferedImage(width, height,
+					BufferedImage.TYPE_INT_ARGB_PRE);
+
+		if (GraphicsEnvironment.isHeadless()
+				|| graphicsConfiguration.getDevice().getType() != GraphicsDevice.TYPE_RASTER_SCREEN)
+			return graphicsConfiguration.createCompatibleImage(width, height,
+					Transparency.TRANSLUCENT);
+
+		return graphicsConfiguration.createCompatibleVolatileImage(width,
+				height, Transparency.TRANSLUCENT);
+	}
+
+	/**
+	 * Used to release the offscreen buffer and any resources it holds.
+	 */
+	protected void releaseOffscreenBuffer()
+	{
+		if (offscreenBuffer != null)
+			offscreenBuffer.flush();
+
+		offscreenBuffer = null;
+		offscreenBufferValid = false;
+	}
 
 	/**
 	 * Helper method used to create a <code>MouseEvent</code> that represents
@@ -1153,6 +1552,22 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 						.isPopupTrigger(), evt.getButton());
 	}
 
+	/**
+	 * Used to notify the parent component that the preferred bounds of this
+	 * component have changed so it can keep any bounds-based bookkeeping (like
+	 * its <code>SpatialIndex</code>) up to date. The parent is called directly
+	 * instead of listening for <code>PropertyChangeEvent</code>s so the
+	 * bookkeeping stays correct even when property change notification is
+	 * disabled on this component.
+	 */
+	protected void fireComponentBoundsChanged()
+	{
+		ContainerComponent parentComponent = getParentComponent();
+
+		if (parentComponent != null)
+			parentComponent.componentBoundsChanged(this);
+	}
+
 	protected void fireKeyEvent(KeyEvent evt)
 	{
 		/* Ignore the event if any of the criteria below are true */
@@ -1160,10 +1575,12 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 			return;
 
 		/* Deliver the event to each listener as long as it isn't consumed */
-		for (int i = 0, size = getKeyListenerCount(); !evt.isConsumed()
+		ListenerArray<KeyListener> keyListeners = keyListenerArray;
+
+		for (int i = 0, size = keyListeners.size(); !evt.isConsumed()
 				&& i < size; i++)
 		{
-			KeyListener keyListener = getKeyListener(i);
+			KeyListener keyListener = keyListeners.get(i);
 
 			switch (evt.getID())
 			{
@@ -1189,10 +1606,12 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 			return;
 
 		/* Deliver the event to each listener as long as it isn't consumed */
-		for (int i = 0, size = getMouseListenerCount(); !evt.isConsumed()
+		ListenerArray<MouseListener> mouseListeners = mouseListenerArray;
+
+		for (int i = 0, size = mouseListeners.size(); !evt.isConsumed()
 				&& i < size; i++)
 		{
-			MouseListener mouseListener = getMouseListener(i);
+			MouseListener mouseListener = mouseListeners.get(i);
 
 			switch (evt.getID())
 			{
@@ -1227,10 +1646,12 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 			return;
 
 		/* Deliver the event to each listener as long as it isn't consumed */
-		for (int i = 0, size = getMouseMotionListenerCount(); !evt.isConsumed()
+		ListenerArray<MouseMotionListener> mouseMotionListeners = mouseMotionListenerArray;
+
+		for (int i = 0, size = mouseMotionListeners.size(); !evt.isConsumed()
 				&& i < size; i++)
 		{
-			MouseMotionListener mouseMotionListener = getMouseMotionListener(i);
+			MouseMotionListener mouseMotionListener = mouseMotionListeners.get(i);
 
 			switch (evt.getID())
 			{
@@ -1253,9 +1674,11 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 			return;
 
 		/* Deliver the event to each listener as long as it isn't consumed */
-		for (int i = 0, size = getMouseWheelListenerCount(); !evt.isConsumed()
+		ListenerArray<MouseWheelListener> mouseWheelListeners = mouseWheelListenerArray;
+
+		for (int i = 0, size = mouseWheelListeners.size(); !evt.isConsumed()
 				&& i < size; i++)
-			getMouseWheelListener(i).mouseWheelMoved(evt);
+			mouseWheelListeners.get(i).mouseWheelMoved(evt);
 	}
 
 	protected void fireValidationEvent(ValidationEvent evt)
@@ -1263,9 +1686,11 @@ public abstract class AbstractComponent extends AbstractPropertyChangeSupport
 		if (evt == null || !isValidationNotificationEnabled())
 			return;
 
-		for (int i = 0, size = getValidationListenerCount(); i < size; i++)
+		ListenerArray<ValidationListener> validationListeners = validationListenerArray;
+
+		for (int i = 0, size = validationListeners.size(); i < size; i++)
 		{
-			ValidationListener validationListener = getValidationListener(i);
+			ValidationListener validationListener = validationListeners.get(i);
 
 			switch (evt.getEventType())
 			{
@@ -1,13 +1,19 @@
 package com.kallasoft.avondale.component;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import com.kallasoft.avondale.component.connection.Connection;
 import com.kallasoft.avondale.component.event.ConnectedComponentEvent;
 import com.kallasoft.avondale.component.event.ConnectedComponentListener;
 import com.kallasoft.avondale.component.event.DefaultConnectedComponentEvent;
 import com.kallasoft.avondale.component.model.ComponentModel;
+import com.kallasoft.avondale.event.ListenerArray;
 
 public abstract class AbstractConnectedComponent extends
 		DefaultResizableComponent implements ConnectedComponent
@@ -15,7 +21,9 @@ public abstract class AbstractConnectedComponent extends
 	private boolean connectedComponentNotificationEnabled = true;
 	private List<Connection> inboundConnectionList;
 	private List<Connection> outboundConnectionList;
-	private transient List<ConnectedComponentListener> connectedComponentListenerList;
+	private Set<Connection> inboundConnectionSet;
+	private Set<Connection> outboundConnectionSet;
+	private transient ListenerArray<ConnectedComponentListener> connectedComponentListenerArray;
 
 	public AbstractConnectedComponent(ComponentModel componentModel)
 	{
@@ -23,13 +31,14 @@ public abstract class AbstractConnectedComponent extends
 		
 		inboundConnectionList = new ArrayList<Connection>(0);
 		outboundConnectionList = new ArrayList<Connection>(0);
-		connectedComponentListenerList = new ArrayList<ConnectedComponentListener>(
-				0);
+		inboundConnectionSet = new HashSet<Connection>(0);
+		outboundConnectionSet = new HashSet<Connection>(0);
+		connectedComponentListenerArray = ListenerArray.empty();
 	}
 
 	public boolean containsInboundConnection(Connection inboundConnection)
 	{
-		return inboundConnectionList.contains(inboundConnection);
+		return inboundConnectionSet.contains(inboundConnection);
 	}
 
 	public void addInboundConnection(Connection inboundConnection)
@@ -43,20 +52,70 @@ public abstract class AbstractConnectedComponent extends
 			throw new IllegalArgumentException(
 					"inboundConnection cannot be null");
 
-		if (!containsInboundConnection(inboundConnection))
+		/* Nothing changes if the connection is already attached */
+		if (!inboundConnectionSet.add(inboundConnection))
+			return;
+
+		inboundConnectionList.add(index, inboundConnection);
+
+		if (inboundConnection.getDestinationComponent() != this)
+			inboundConnection.setDestinationComponent(this);
+
+		fireConnectedComponentEvent(new DefaultConnectedComponentEvent(this,
+				ConnectedComponentEvent.EventType.INBOUND_CONNECTION_ADDED,
+				inboundConnection));
+
+		/* Repaint the component */
+		repaint();
+	}
+
+	public void addInboundConnections(
+			Collection<? extends Connection> inboundConnections)
+	{
+		if (inboundConnections == null)
+			return;
+
+		List<Connection> addedConnectionList = new ArrayList<Connection>(
+				inboundConnections.size());
+
+		/*
+		 * Add all the connections to this component before updating any of
+		 * them, so the calls the connections make back to this component find
+		 * them already attached and return immediately.
+		 */
+		for (Iterator<? extends Connection> iterator = inboundConnections
+				.iterator(); iterator.hasNext();)
 		{
-			inboundConnectionList.add(index, inboundConnection);
+			Connection connection = iterator.next();
 
-			if (inboundConnection.getDestinationComponent() != this)
-				inboundConnection.setDestinationComponent(this);
+			if (connection == null)
+				throw new IllegalArgumentException(
+						"inboundConnections cannot contain null");
 
-			fireConnectedComponentEvent(new DefaultConnectedComponentEvent(
-					this,
-					ConnectedComponentEvent.EventType.INBOUND_CONNECTION_ADDED,
-					inboundConnection));
+			if (inboundConnectionSet.add(connection))
+			{
+				inboundConnectionList.add(connection);
+				addedConnectionList.add(connection);
+			}
 		}
 
-		/* Repaint the component */
+		if (addedConnectionList.isEmpty())
+			return;
+
+		for (int i = 0, size = addedConnectionList.size(); i < size; i++)
+		{
+			Connection connection = addedConnectionList.get(i);
+
+			if (connection.getDestinationComponent() != this)
+				connection.setDestinationComponent(this);
+		}
+
+		fireConnectedComponentEvent(new DefaultConnectedComponentEvent(this,
+				ConnectedComponentEvent.EventType.INBOUND_CONNECTION_ADDED,
+				addedConnectionList.toArray(new Connection[addedConnectionList
+						.size()])));
+
+		/* Repaint the component once for all the connections */
 		repaint();
 	}
 
@@ -67,6 +126,9 @@ public abstract class AbstractConnectedComponent extends
 
 	public int getIndexOfInboundConnection(Connection inboundConnection)
 	{
+		if (!containsInboundConnection(inboundConnection))
+			return -1;
+
 		return inboundConnectionList.indexOf(inboundConnection);
 	}
 
@@ -87,6 +149,8 @@ public abstract class AbstractConnectedComponent extends
 
 		if (connection != null)
 		{
+			inboundConnectionSet.remove(connection);
+
 			/* Only clear the destinationComponent if it's this component */
 			if (connection.getDestinationComponent() == this)
 				connection.setDestinationComponent(null);
@@ -112,9 +176,63 @@ public abstract class AbstractConnectedComponent extends
 			removeInboundConnection(index);
 	}
 
+	public void removeInboundConnections(
+			Collection<? extends Connection> inboundConnections)
+	{
+		if (inboundConnections == null)
+			return;
+
+		Set<Connection> removedConnectionSet = new LinkedHashSet<Connection>();
+
+		for (Iterator<? extends Connection> iterator = inboundConnections
+				.iterator(); iterator.hasNext();)
+		{
+			Connection connection = iterator.next();
+
+			if (connection != null && inboundConnectionSet.remove(connection))
+				removedConnectionSet.add(connection);
+		}
+
+		if (removedConnectionSet.isEmpty())
+			return;
+
+		/*
+		 * Rebuild the list in a single pass instead of removing the
+		 * connections one at a time, which would shift the list once for
+		 * every connection removed.
+		 */
+		List<Connection> connectionList = new ArrayList<Connection>(
+				inboundConnectionSet.size());
+
+		for (int i = 0, size = inboundConnectionList.size(); i < size; i++)
+		{
+			Connection connection = inboundConnectionList.get(i);
+
+			if (!removedConnectionSet.contains(connection))
+				connectionList.add(connection);
+		}
+
+		inboundConnectionList = connectionList;
+		detachInboundConnections(removedConnectionSet,
+				ConnectedComponentEvent.EventType.INBOUND_CONNECTION_REMOVED);
+	}
+
+	public void removeInboundConnections()
+	{
+		if (inboundConnectionList.isEmpty())
+			return;
+
+		List<Connection> removedConnectionList = inboundConnectionList;
+
+		inboundConnectionList = new ArrayList<Connection>(0);
+		inboundConnectionSet.clear();
+		detachInboundConnections(removedConnectionList,
+				ConnectedComponentEvent.EventType.ALL_INBOUND_CONNECTIONS_REMOVED);
+	}
+
 	public boolean containsOutboundConnection(Connection outboundConnection)
 	{
-		return outboundConnectionList.contains(outboundConnection);
+		return outboundConnectionSet.contains(outboundConnection);
 	}
 
 	public void addOutboundConnection(Connection outboundConnection)
@@ -128,20 +246,70 @@ public abstract class AbstractConnectedComponent extends
 			throw new IllegalArgumentException(
 					"outboundConnection cannot be null");
 
-		if (!containsOutboundConnection(outboundConnection))
+		/* Nothing changes if the connection is already attached */
+		if (!outboundConnectionSet.add(outboundConnection))
+			return;
+
+		outboundConnectionList.add(index, outboundConnection);
+
+		if (outboundConnection.getSourceComponent() != this)
+			outboundConnection.setSourceComponent(this);
+
+		fireConnectedComponentEvent(new DefaultConnectedComponentEvent(this,
+				ConnectedComponentEvent.EventType.OUTBOUND_CONNECTION_ADDED,
+				outboundConnection));
+
+		/* Repaint the component */
+		repaint();
+	}
+
+	public void addOutboundConnections(
+			Collection<? extends Connection> outboundConnections)
+	{
+		if (outboundConnections == null)
+			return;
+
+		List<Connection> addedConnectionList = new ArrayList<Connection>(
+				outboundConnections.size());
+
+		/*
+		 * Add all the connections to this component before updating any of
+		 * them, so the calls the connections make back to this component find
+		 * them already attached and return immediately.
+		 */
+		for (Iterator<? extends Connection> iterator = outboundConnections
+				.iterator(); iterator.hasNext();)
 		{
-			outboundConnectionList.add(index, outboundConnection);
+			Connection connection = iterator.next();
 
-			if (outboundConnection.getSourceComponent() != this)
-				outboundConnection.setSourceComponent(this);
+			if (connection == null)
+				throw new IllegalArgumentException(
+						"outboundConnections cannot contain null");
 
-			fireConnectedComponentEvent(new DefaultConnectedComponentEvent(
-					this,
-					ConnectedComponentEvent.EventType.OUTBOUND_CONNECTION_ADDED,
-					outboundConnection));
+			if (outboundConnectionSet.add(connection))
+			{
+				outboundConnectionList.add(connection);
+				addedConnectionList.add(connection);
+			}
 		}
 
-		/* Repaint the component */
+		if (addedConnectionList.isEmpty())
+			return;
+
+		for (int i = 0, size = addedConnectionList.size(); i < size; i++)
+		{
+			Connection connection = addedConnectionList.get(i);
+
+			if (connection.getSourceComponent() != this)
+				connection.setSourceComponent(this);
+		}
+
+		fireConnectedComponentEvent(new DefaultConnectedComponentEvent(this,
+				ConnectedComponentEvent.EventType.OUTBOUND_CONNECTION_ADDED,
+				addedConnectionList.toArray(new Connection[addedConnectionList
+						.size()])));
+
+		/* Repaint the component once for all the connections */
 		repaint();
 	}
 
@@ -152,6 +320,9 @@ public abstract class AbstractConnectedComponent extends
 
 	public int getIndexOfOutboundConnection(Connection outboundConnection)
 	{
+		if (!containsOutboundConnection(outboundConnection))
+			return -1;
+
 		return outboundConnectionList.indexOf(outboundConnection);
 	}
 
@@ -172,6 +343,8 @@ public abstract class AbstractConnectedComponent extends
 
 		if (connection != null)
 		{
+			outboundConnectionSet.remove(connection);
+
 			/* Only clear the sourceComponent if it's this component */
 			if (connection.getSourceComponent() == this)
 				connection.setSourceComponent(null);
@@ -197,6 +370,60 @@ public abstract class AbstractConnectedComponent extends
 			removeOutboundConnection(index);
 	}
 
+	public void removeOutboundConnections(
+			Collection<? extends Connection> outboundConnections)
+	{
+		if (outboundConnections == null)
+			return;
+
+		Set<Connection> removedConnectionSet = new LinkedHashSet<Connection>();
+
+		for (Iterator<? extends Connection> iterator = outboundConnections
+				.iterator(); iterator.hasNext();)
+		{
+			Connection connection = iterator.next();
+
+			if (connection != null && outboundConnectionSet.remove(connection))
+				removedConnectionSet.add(connection);
+		}
+
+		if (removedConnectionSet.isEmpty())
+			return;
+
+		/*
+		 * Rebuild the list in a single pass instead of removing the
+		 * connections one at a time, which would shift the list once for
+		 * every connection removed.
+		 */
+		List<Connection> connectionList = new ArrayList<Connection>(
+				outboundConnectionSet.size());
+
+		for (int i = 0, size = outboundConnectionList.size(); i < size; i++)
+		{
+			Connection connection = outboundConnectionList.get(i);
+
+			if (!removedConnectionSet.contains(connection))
+				connectionList.add(connection);
+		}
+
+		outboundConnectionList = connectionList;
+		detachOutboundConnections(removedConnectionSet,
+				ConnectedComponentEvent.EventType.OUTBOUND_CONNECTION_REMOVED);
+	}
+
+	public void removeOutboundConnections()
+	{
+		if (outboundConnectionList.isEmpty())
+			return;
+
+		List<Connection> removedConnectionList = outboundConnectionList;
+
+		outboundConnectionList = new ArrayList<Connection>(0);
+		outboundConnectionSet = new HashSet<Connection>(0);
+		detachOutboundConnections(removedConnectionList,
+				ConnectedComponentEvent.EventType.ALL_OUTBOUND_CONNECTIONS_REMOVED);
+	}
+
 	public boolean isConnectedComponentNotificationEnabled()
 	{
 		return connectedComponentNotificationEnabled;
@@ -219,7 +446,7 @@ public abstract class AbstractConnectedComponent extends
 	public boolean containsConnectedComponentListener(
 			ConnectedComponentListener connectedComponentListener)
 	{
-		return connectedComponentListenerList
+		return connectedComponentListenerArray
 				.contains(connectedComponentListener);
 	}
 
@@ -237,36 +464,37 @@ public abstract class AbstractConnectedComponent extends
 			return;
 
 		if (!containsConnectedComponentListener(connectedComponentListener))
-			connectedComponentListenerList.add(index,
-					connectedComponentListener);
+			connectedComponentListenerArray = connectedComponentListenerArray.add(
+					index, connectedComponentListener);
 	}
 
 	public int getConnectedComponentListenerCount()
 	{
-		return connectedComponentListenerList.size();
+		return connectedComponentListenerArray.size();
 	}
 
 	public int getIndexOfConnectedComponentListener(
 			ConnectedComponentListener connectedComponentListener)
 	{
-		return connectedComponentListenerList
+		return connectedComponentListenerArray
 				.indexOf(connectedComponentListener);
 	}
 
 	public ConnectedComponentListener getConnectedComponentListener(int index)
 	{
-		return connectedComponentListenerList.get(index);
+		return connectedComponentListenerArray.get(index);
 	}
 
 	public ConnectedComponentListener[] getConnectedComponentListeners()
 	{
-		return connectedComponentListenerList
+		return connectedComponentListenerArray
 				.toArray(new ConnectedComponentListener[getConnectedComponentListenerCount()]);
 	}
 
 	public void removeConnectedComponentListener(int index)
 	{
-		connectedComponentListenerList.remove(index);
+		connectedComponentListenerArray = connectedComponentListenerArray
+				.remove(index);
 	}
 
 	public void removeConnectedComponentListener(
@@ -283,7 +511,7 @@ public abstract class AbstractConnectedComponent extends
 
 	public void removeConnectedComponentListeners()
 	{
-		connectedComponentListenerList.clear();
+		connectedComponentListenerArray = ListenerArray.empty();
 	}
 
 	protected void fireConnectedComponentEvent(ConnectedComponentEvent evt)
@@ -291,40 +519,92 @@ public abstract class AbstractConnectedComponent extends
 		if (evt == null || !isConnectedComponentNotificationEnabled())
 			return;
 
-		for (int i = 0, size = getConnectedComponentListenerCount(); i < size; i++)
+		ListenerArray<ConnectedComponentListener> connectedComponentListeners = connectedComponentListenerArray;
+
+		for (int i = 0, size = connectedComponentListeners.size(); i < size; i++)
 		{
 			switch (evt.getEventType())
 			{
 				case INBOUND_CONNECTION_ADDED:
-					getConnectedComponentListener(i)
+					connectedComponentListeners.get(i)
 							.inboundConnectionAdded(evt);
 					break;
 
 				case INBOUND_CONNECTION_REMOVED:
-					getConnectedComponentListener(i).inboundConnectionRemoved(
+					connectedComponentListeners.get(i).inboundConnectionRemoved(
 							evt);
 					break;
 
 				case ALL_INBOUND_CONNECTIONS_REMOVED:
-					getConnectedComponentListener(i)
+					connectedComponentListeners.get(i)
 							.allInboundConnectionsRemoved(evt);
 					break;
 
 				case OUTBOUND_CONNECTION_ADDED:
-					getConnectedComponentListener(i).outboundConnectionAdded(
+					connectedComponentListeners.get(i).outboundConnectionAdded(
 							evt);
 					break;
 
 				case OUTBOUND_CONNECTION_REMOVED:
-					getConnectedComponentListener(i).outboundConnectionRemoved(
+					connectedComponentListeners.get(i).outboundConnectionRemoved(
 							evt);
 					break;
 
 				case ALL_OUTBOUND_CONNECTIONS_REMOVED:
-					getConnectedComponentListener(i)
+					connectedComponentListeners.get(i)
 							.allOutboundConnectionsRemoved(evt);
 					break;
 			}
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Used to clear this component from the destination end of the given
+	 * connections, which have already been removed from this component, then
+	 * fire a single event for all of them and repaint once.
+	 */
+	private void detachInboundConnections(Collection<Connection> connections,
+			ConnectedComponentEvent.EventType eventType)
+	{
+		Connection[] removedConnections = connections
+				.toArray(new Connection[connections.size()]);
+
+		for (int i = 0; i < removedConnections.length; i++)
+		{
+			/* Only clear the destinationComponent if it's this component */
+			if (removedConnections[i].getDestinationComponent() == this)
+				removedConnections[i].setDestinationComponent(null);
+		}
+
+		fireConnectedComponentEvent(new DefaultConnectedComponentEvent(this,
+				eventType, removedConnections));
+
+		/* Repaint the component once for all the connections */
+		repaint();
+	}
+
+	/**
+	 * Used to clear this component from the source end of the given
+	 * connections, which have already been removed from this component, then
+	 * fire a single event for all of them and repaint once.
+	 */
+	private void detachOutboundConnections(Collection<Connection> connections,
+			ConnectedComponentEvent.EventType eventType)
+	{
+		Connection[] removedConnections = connections
+				.toArray(new Connection[connections.size()]);
+
+		for (int i = 0; i < removedConnections.length; i++)
+		{
+			/* Only clear the sourceComponent if it's this component */
+			if (removedConnections[i].getSourceComponent() == this)
+				removedConnections[i].setSourceComponent(null);
+		}
+
+		fireConnectedComponentEvent(new DefaultConnectedComponentEvent(this,
+				eventType, removedConnections));
+
+		/* Repaint the component once for all the connections */
+		repaint();
+	}
+}
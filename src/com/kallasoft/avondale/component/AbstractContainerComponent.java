@@ -2,22 +2,43 @@ package com.kallasoft.avondale.component;
 
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.kallasoft.avondale.component.event.ContainerComponentEvent;
 import com.kallasoft.avondale.component.event.ContainerComponentListener;
 import com.kallasoft.avondale.component.event.DefaultContainerComponentEvent;
+import com.kallasoft.avondale.component.index.RTreeSpatialIndex;
+import com.kallasoft.avondale.component.index.SpatialIndex;
 import com.kallasoft.avondale.component.layout.ContainerLayout;
+import com.kallasoft.avondale.component.layout.IncrementalContainerLayout;
 import com.kallasoft.avondale.component.model.ComponentModel;
+import com.kallasoft.avondale.component.snapshot.ComponentSnapshot;
+import com.kallasoft.avondale.event.ListenerArray;
 
 public abstract class AbstractContainerComponent extends
 		DefaultConnectedComponent implements ContainerComponent
 {
 	private boolean containerLayoutEnabled = true;
 	private boolean containerComponentNotificationEnabled = true;
+	private boolean spatialEventDispatchEnabled = true;
+	private boolean componentIndexMapValid = true;
+	private int updateDepth = 0;
 	private ContainerLayout containerLayout;
+	private SpatialIndex spatialIndex;
 	private List<Component> componentList;
-	private transient List<ContainerComponentListener> containerComponentListenerList;
+	private transient Map<Component, Integer> componentIndexMap;
+	private transient Comparator<Component> componentIndexComparator;
+	private transient Set<Component> updateAddedComponentSet;
+	private transient Set<Component> updateRemovedComponentSet;
+	private transient ListenerArray<ContainerComponentListener> containerComponentListenerArray;
 
 	public AbstractContainerComponent(ComponentModel componentModel,
 			ContainerComponent parentComponent)
@@ -25,9 +46,13 @@ public abstract class AbstractContainerComponent extends
 		super(componentModel);
 
 		componentList = new ArrayList<Component>(0);
-		containerComponentListenerList = new ArrayList<ContainerComponentListener>(
-				0);
+		componentIndexMap = new HashMap<Component, Integer>(0);
+		componentIndexComparator = new ComponentIndexComparator();
+		updateAddedComponentSet = new LinkedHashSet<Component>(0);
+		updateRemovedComponentSet = new LinkedHashSet<Component>(0);
+		containerComponentListenerArray = ListenerArray.empty();
 
+		setSpatialIndex(new RTreeSpatialIndex());
 		setParentComponent(parentComponent);
 	}
 
@@ -60,6 +85,13 @@ public abstract class AbstractContainerComponent extends
 		if (oldLayout == containerLayout)
 			return;
 
+		/* Incremental layouts start over with the children of this container */
+		if (oldLayout instanceof IncrementalContainerLayout)
+			((IncrementalContainerLayout) oldLayout).invalidateLayout(this);
+		if (containerLayout instanceof IncrementalContainerLayout)
+			((IncrementalContainerLayout) containerLayout)
+					.invalidateLayout(this);
+
 		this.containerLayout = containerLayout;
 		firePropertyChangeEvent(this, CONTAINER_LAYOUT_PROPERTY_NAME,
 				oldLayout, getContainerLayout());
@@ -68,9 +100,115 @@ public abstract class AbstractContainerComponent extends
 		invalidate();
 	}
 
+	public SpatialIndex getSpatialIndex()
+	{
+		return spatialIndex;
+	}
+
+	public void setSpatialIndex(SpatialIndex spatialIndex)
+	{
+		SpatialIndex oldSpatialIndex = getSpatialIndex();
+
+		if (oldSpatialIndex == spatialIndex)
+			return;
+
+		this.spatialIndex = spatialIndex;
+
+		/* Populate the new index with the existing children */
+		if (this.spatialIndex != null)
+		{
+			this.spatialIndex.removeComponents();
+
+			for (int i = 0, size = getComponentCount(); i < size; i++)
+				this.spatialIndex.addComponent(getComponent(i));
+		}
+
+		firePropertyChangeEvent(this, SPATIAL_INDEX_PROPERTY_NAME,
+				oldSpatialIndex, getSpatialIndex());
+	}
+
+	public void componentBoundsChanged(Component component)
+	{
+		SpatialIndex spatialIndex = getSpatialIndex();
+
+		if (component == null)
+			return;
+
+		if (spatialIndex != null)
+			spatialIndex.updateComponent(component);
+
+		IncrementalContainerLayout incrementalContainerLayout = getIncrementalContainerLayout();
+
+		/*
+		 * The child only invalidates this container when it was valid itself,
+		 * and a child that was moved but never painted or laid out again stays
+		 * invalid. An incremental layout doesn't validate the children either,
+		 * so this container has to be invalidated here whenever the change
+		 * affects its layout, no matter the state of the child.
+		 */
+		if (incrementalContainerLayout != null
+				&& incrementalContainerLayout.componentBoundsChanged(this,
+						component))
+			invalidate();
+	}
+
+	public boolean isSpatialEventDispatchEnabled()
+	{
+		return spatialEventDispatchEnabled;
+	}
+
+	public void setSpatialEventDispatchEnabled(
+			boolean spatialEventDispatchEnabled)
+	{
+		boolean oldSpatialEventDispatchEnabled = isSpatialEventDispatchEnabled();
+
+		if (oldSpatialEventDispatchEnabled == spatialEventDispatchEnabled)
+			return;
+
+		this.spatialEventDispatchEnabled = spatialEventDispatchEnabled;
+		firePropertyChangeEvent(this,
+				SPATIAL_EVENT_DISPATCH_ENABLED_PROPERTY_NAME,
+				oldSpatialEventDispatchEnabled, isSpatialEventDispatchEnabled());
+	}
+
+	@Override
+	public void setLocation(double x, double y)
+	{
+		double oldX = getX();
+		double oldY = getY();
+
+		super.setLocation(x, y);
+
+		if (getX() != oldX || getY() != oldY)
+			invalidateChildComponentPanelOffsets();
+	}
+
+	@Override
+	public void setBounds(double x, double y, double width, double height)
+	{
+		double oldX = getX();
+		double oldY = getY();
+
+		super.setBounds(x, y, width, height);
+
+		if (getX() != oldX || getY() != oldY)
+			invalidateChildComponentPanelOffsets();
+	}
+
+	@Override
+	public void invalidateComponentPanelOffset()
+	{
+		/* If this offset is already invalid so are all the children's */
+		if (!isComponentPanelOffsetValid())
+			return;
+
+		super.invalidateComponentPanelOffset();
+		invalidateChildComponentPanelOffsets();
+	}
+
 	public boolean containsComponent(Component component)
 	{
-		return componentList.contains(component);
+		return getComponentIndexMap().containsKey(component);
 	}
 
 	public void addComponent(Component component)
@@ -108,6 +246,37 @@ public abstract class AbstractContainerComponent extends
 		component.setComponentPanel(null);
 
 		componentList.add(index, component);
+
+		/*
+		 * Appending keeps the index map valid, inserting shifts the index of
+		 * every following component so the map is rebuilt on next use.
+		 */
+		if (componentIndexMapValid && index == componentList.size() - 1)
+			componentIndexMap.put(component, index);
+		else
+			componentIndexMapValid = false;
+
+		if (spatialIndex != null)
+			spatialIndex.addComponent(component);
+
+		IncrementalContainerLayout incrementalContainerLayout = getIncrementalContainerLayout();
+
+		if (incrementalContainerLayout != null)
+			incrementalContainerLayout.componentAdded(this, component);
+
+		/* The snapshot of this container holds the list of its children */
+		invalidateSnapshot();
+
+		/*
+		 * During a batch update the event, revalidation and repaint are
+		 * deferred until endUpdate() is called.
+		 */
+		if (isUpdating())
+		{
+			updateAddedComponentSet.add(component);
+			return;
+		}
+
 		fireContainerComponentEvent(new DefaultContainerComponentEvent(this,
 				ContainerComponentEvent.EventType.COMPONENT_ADDED, component));
 
@@ -116,6 +285,25 @@ public abstract class AbstractContainerComponent extends
 		repaint();
 	}
 
+	public void addComponents(Collection<? extends Component> components)
+	{
+		if (components == null)
+			return;
+
+		beginUpdate();
+
+		try
+		{
+			for (Iterator<? extends Component> iterator = components
+					.iterator(); iterator.hasNext();)
+				addComponent(iterator.next());
+		}
+		finally
+		{
+			endUpdate();
+		}
+	}
+
 	public int getComponentCount()
 	{
 		return componentList.size();
@@ -123,7 +311,8 @@ public abstract class AbstractContainerComponent extends
 
 	public int getIndexOfComponent(Component component)
 	{
-		return componentList.indexOf(component);
+		Integer index = getComponentIndexMap().get(component);
+		return (index == null ? -1 : index.intValue());
 	}
 
 	public Component getComponent(int index)
@@ -134,13 +323,33 @@ public abstract class AbstractContainerComponent extends
 	public Component[] getComponentsAtLocation(double x, double y)
 	{
 		List<Component> list = new ArrayList<Component>(0);
+		SpatialIndex spatialIndex = getSpatialIndex();
 
-		for (int i = 0, size = getComponentCount(); i < size; i++)
+		if (spatialIndex == null)
 		{
-			Component component = getComponent(i);
+			for (int i = 0, size = getComponentCount(); i < size; i++)
+			{
+				Component component = getComponent(i);
 
-			if (component.contains(x, y))
-				list.add(component);
+				if (component.contains(x, y))
+					list.add(component);
+			}
+		}
+		else
+		{
+			/*
+			 * The index only narrows down the candidates by their bounds, the
+			 * components themselves still decide if they contain the point.
+			 */
+			spatialIndex.getComponentsAtLocation(x, y, list);
+
+			for (int i = list.size() - 1; i > -1; i--)
+			{
+				if (!list.get(i).contains(x, y))
+					list.remove(i);
+			}
+
+			sortComponentsByIndex(list);
 		}
 
 		return list.toArray(new Component[list.size()]);
@@ -148,48 +357,38 @@ public abstract class AbstractContainerComponent extends
 
 	public Component getComponentAtLocationRecursively(double x, double y)
 	{
+		Component[] components = getComponentsAtLocation(x, y);
 		Component component = null;
 
-		for (int i = 0, size = getComponentCount(); component == null
-				&& i < size; i++)
+		for (int i = 0; component == null && i < components.length; i++)
 		{
-			Component currentComponent = getComponent(i);
+			Component currentComponent = components[i];
 
 			/*
-			 * First check to see if currentComponent contains the coordinates
+			 * Now check if the currentComponent is an instance of
+			 * ContainerComponent, in which case one of it's children could
+			 * contain the coordinates
 			 */
-			if (currentComponent.contains(x, y))
+			if (currentComponent instanceof ContainerComponent)
 			{
 				/*
-				 * Now check if the currentComponent is an instance of
-				 * ContainerComponent, in which case one of it's children could
-				 * contain the coordinates
-				 */
-				if (currentComponent instanceof ContainerComponent)
-				{
-					/*
-					 * Adjust the coordinates to the coordinate space of the
-					 * child components.
-					 */
-					x -= getX();
-					y -= getY();
-
-					/*
-					 * We need to recursively check the currentComponent to see
-					 * if any of it's children contains this coordinate.
-					 */
-					component = ((ContainerComponent) currentComponent)
-							.getComponentAtLocationRecursively(x, y);
-				}
-
-				/*
-				 * None of the child components contained the coordinates, so
-				 * the only component that contains these coordinates is the
-				 * currentComponent.
+				 * We need to recursively check the currentComponent to see if
+				 * any of it's children contains this coordinate, adjusting the
+				 * coordinates to the coordinate space of it's children.
 				 */
-				if (component == null)
-					component = currentComponent;
+				component = ((ContainerComponent) currentComponent)
+						.getComponentAtLocationRecursively(x
+								- currentComponent.getX(), y
+								- currentComponent.getY());
 			}
+
+			/*
+			 * None of the child components contained the coordinates, so the
+			 * only component that contains these coordinates is the
+			 * currentComponent.
+			 */
+			if (component == null)
+				component = currentComponent;
 		}
 
 		return component;
@@ -201,13 +400,33 @@ public abstract class AbstractContainerComponent extends
 
 		if (bounds != null && bounds.getWidth() > 0 && bounds.getHeight() > 0)
 		{
-			for (int i = 0, size = getComponentCount(); i < size; i++)
+			SpatialIndex spatialIndex = getSpatialIndex();
+
+			if (spatialIndex == null)
 			{
-				Component component = getComponent(i);
+				for (int i = 0, size = getComponentCount(); i < size; i++)
+				{
+					Component component = getComponent(i);
 
-				if (bounds.contains(component.getX(), component.getY(),
-						component.getWidth(), component.getHeight()))
-					list.add(component);
+					if (bounds.contains(component.getX(), component.getY(),
+							component.getWidth(), component.getHeight()))
+						list.add(component);
+				}
+			}
+			else
+			{
+				spatialIndex.getComponentsIntersectingBounds(bounds, list);
+
+				for (int i = list.size() - 1; i > -1; i--)
+				{
+					Component component = list.get(i);
+
+					if (!bounds.contains(component.getX(), component.getY(),
+							component.getWidth(), component.getHeight()))
+						list.remove(i);
+				}
+
+				sortComponentsByIndex(list);
 			}
 		}
 
@@ -226,8 +445,38 @@ public abstract class AbstractContainerComponent extends
 		if (component == null)
 			return;
 
+		/* Removing from the end keeps the index map valid */
+		if (componentIndexMapValid && index == componentList.size())
+			componentIndexMap.remove(component);
+		else
+			componentIndexMapValid = false;
+
+		if (spatialIndex != null)
+			spatialIndex.removeComponent(component);
+
+		IncrementalContainerLayout incrementalContainerLayout = getIncrementalContainerLayout();
+
+		if (incrementalContainerLayout != null)
+			incrementalContainerLayout.componentRemoved(this, component);
+
+		invalidateSnapshot();
+
 		/* Clear the parent property */
 		component.setParentComponent(null);
+
+		/*
+		 * During a batch update the event, revalidation and repaint are
+		 * deferred until endUpdate() is called. A component that is added and
+		 * removed within the same batch is never reported at all.
+		 */
+		if (isUpdating())
+		{
+			if (!updateAddedComponentSet.remove(component))
+				updateRemovedComponentSet.add(component);
+
+			return;
+		}
+
 		fireContainerComponentEvent(new DefaultContainerComponentEvent(this,
 				ContainerComponentEvent.EventType.COMPONENT_REMOVED, component));
 
@@ -247,6 +496,79 @@ public abstract class AbstractContainerComponent extends
 			removeComponent(index);
 	}
 
+	public void removeComponents(Collection<? extends Component> components)
+	{
+		if (components == null)
+			return;
+
+		beginUpdate();
+
+		try
+		{
+			for (Iterator<? extends Component> iterator = components
+					.iterator(); iterator.hasNext();)
+				removeComponent(iterator.next());
+		}
+		finally
+		{
+			endUpdate();
+		}
+	}
+
+	public void beginUpdate()
+	{
+		updateDepth++;
+	}
+
+	public void endUpdate() throws IllegalStateException
+	{
+		if (updateDepth == 0)
+			throw new IllegalStateException(
+					"endUpdate() was called without a matching beginUpdate()");
+
+		/* Only the outermost endUpdate() ends the batch */
+		if (--updateDepth > 0)
+			return;
+
+		boolean changed = false;
+
+		if (!updateRemovedComponentSet.isEmpty())
+		{
+			Component[] components = updateRemovedComponentSet
+					.toArray(new Component[updateRemovedComponentSet.size()]);
+			updateRemovedComponentSet.clear();
+			changed = true;
+
+			fireContainerComponentEvent(new DefaultContainerComponentEvent(
+					this, ContainerComponentEvent.EventType.COMPONENT_REMOVED,
+					components));
+		}
+
+		if (!updateAddedComponentSet.isEmpty())
+		{
+			Component[] components = updateAddedComponentSet
+					.toArray(new Component[updateAddedComponentSet.size()]);
+			updateAddedComponentSet.clear();
+			changed = true;
+
+			fireContainerComponentEvent(new DefaultContainerComponentEvent(
+					this, ContainerComponentEvent.EventType.COMPONENT_ADDED,
+					components));
+		}
+
+		/* Revalidate and repaint the component once for the whole batch */
+		if (changed)
+		{
+			revalidate();
+			repaint();
+		}
+	}
+
+	public boolean isUpdating()
+	{
+		return (updateDepth > 0);
+	}
+
 	public boolean isContainerComponentNotificationEnabled()
 	{
 		return containerComponentNotificationEnabled;
@@ -270,7 +592,7 @@ public abstract class AbstractContainerComponent extends
 	public boolean containsContainerComponentListener(
 			ContainerComponentListener containerComponentListener)
 	{
-		return containerComponentListenerList
+		return containerComponentListenerArray
 				.contains(containerComponentListener);
 	}
 
@@ -288,36 +610,37 @@ public abstract class AbstractContainerComponent extends
 			return;
 
 		if (!containsContainerComponentListener(containerComponentListener))
-			containerComponentListenerList.add(index,
-					containerComponentListener);
+			containerComponentListenerArray = containerComponentListenerArray.add(
+					index, containerComponentListener);
 	}
 
 	public int getContainerComponentListenerCount()
 	{
-		return containerComponentListenerList.size();
+		return containerComponentListenerArray.size();
 	}
 
 	public int getIndexOfContainerComponentListener(
 			ContainerComponentListener containerComponentListener)
 	{
-		return containerComponentListenerList
+		return containerComponentListenerArray
 				.indexOf(containerComponentListener);
 	}
 
 	public ContainerComponentListener getContainerComponentListener(int index)
 	{
-		return containerComponentListenerList.get(index);
+		return containerComponentListenerArray.get(index);
 	}
 
 	public ContainerComponentListener[] getContainerComponentListeners()
 	{
-		return containerComponentListenerList
+		return containerComponentListenerArray
 				.toArray(new ContainerComponentListener[getContainerComponentListenerCount()]);
 	}
 
 	public void removeContainerComponentListener(int index)
 	{
-		containerComponentListenerList.remove(index);
+		containerComponentListenerArray = containerComponentListenerArray
+				.remove(index);
 	}
 
 	public void removeContainerComponentListener(
@@ -334,7 +657,7 @@ public abstract class AbstractContainerComponent extends
 
 	public void removeContainerComponentListeners()
 	{
-		containerComponentListenerList.clear();
+		containerComponentListenerArray = ListenerArray.empty();
 	}
 
 	protected void fireContainerComponentEvent(ContainerComponentEvent evt)
@@ -342,18 +665,109 @@ public abstract class AbstractContainerComponent extends
 		if (evt == null || !isContainerComponentNotificationEnabled())
 			return;
 
-		for (int i = 0, size = getContainerComponentListenerCount(); i < size; i++)
+		ListenerArray<ContainerComponentListener> containerComponentListeners = containerComponentListenerArray;
+
+		for (int i = 0, size = containerComponentListeners.size(); i < size; i++)
 		{
 			switch (evt.getEventType())
 			{
 				case COMPONENT_ADDED:
-					getContainerComponentListener(i).componentsAdded(evt);
+					containerComponentListeners.get(i).componentsAdded(evt);
 					break;
 
 				case COMPONENT_REMOVED:
-					getContainerComponentListener(i).componentsRemoved(evt);
+					containerComponentListeners.get(i).componentsRemoved(evt);
 					break;
 			}
 		}
 	}
+
+	/**
+	 * Used to get the layout of this container if it needs to be told about
+	 * every change to the children.
+	 *
+	 * @return the incremental layout of this container, or <code>null</code>
+	 *         if the layout isn't incremental.
+	 */
+	protected IncrementalContainerLayout getIncrementalContainerLayout()
+	{
+		ContainerLayout containerLayout = getContainerLayout();
+
+		if (containerLayout instanceof IncrementalContainerLayout)
+			return (IncrementalContainerLayout) containerLayout;
+
+		return null;
+	}
+
+	/**
+	 * Used to invalidate the cached <code>ComponentPanel</code> offsets of
+	 * the children of this container (and their descendants) after this
+	 * container has moved.
+	 */
+	protected void invalidateChildComponentPanelOffsets()
+	{
+		for (int i = 0, size = getComponentCount(); i < size; i++)
+			getComponent(i).invalidateComponentPanelOffset();
+	}
+
+	/**
+	 * Overridden to include the snapshots of the children, reusing the cached
+	 * snapshot of every child that didn't change.
+	 */
+	@Override
+	protected ComponentSnapshot createSnapshot()
+	{
+		ComponentSnapshot[] childSnapshots = new ComponentSnapshot[componentList
+				.size()];
+
+		for (int i = 0; i < childSnapshots.length; i++)
+			childSnapshots[i] = componentList.get(i).getSnapshot();
+
+		return new ComponentSnapshot(this, childSnapshots);
+	}
+
+	/**
+	 * Used to sort a list of this container's children into the order they
+	 * appear in this container (their z-order), lowest index first.
+	 * 
+	 * @param components
+	 *            The list of child components to sort.
+	 */
+	protected void sortComponentsByIndex(List<Component> components)
+	{
+		if (components.size() > 1)
+			Collections.sort(components, componentIndexComparator);
+	}
+
+	private Map<Component, Integer> getComponentIndexMap()
+	{
+		if (!componentIndexMapValid)
+		{
+			componentIndexMap.clear();
+
+			for (int i = 0, size = componentList.size(); i < size; i++)
+				componentIndexMap.put(componentList.get(i), i);
+
+			componentIndexMapValid = true;
+		}
+
+		return componentIndexMap;
+	}
+
+	/**
+	 * A class used to provide a <code>Comparator</code> that orders child
+	 * components by their index within this container.
+	 * 
+	 * @author Riyad Kalla
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private class ComponentIndexComparator implements Comparator<Component>
+	{
+		public int compare(Component component1, Component component2)
+		{
+			return getIndexOfComponent(component1)
+					- getIndexOfComponent(component2);
+		}
+	}
 }
\ No newline at end of file
@@ -66,6 +66,7 @@ public abstract class AbstractResizableComponent extends DefaultComponent
 		bounds.setRect(x, y, getWidth(), getHeight());
 		firePropertyChangeEvent(this, LOCATION_PROPERTY_NAME, oldLocation,
 				getLocation());
+		fireComponentBoundsChanged();
 	}
 
 	public void setLocation(Point2D location)
@@ -84,6 +85,7 @@ public abstract class AbstractResizableComponent extends DefaultComponent
 		Dimension2D oldSize = getSize();
 		bounds.setRect(getX(), getY(), width, height);
 		firePropertyChangeEvent(this, SIZE_PROPERTY_NAME, oldSize, getSize());
+		fireComponentBoundsChanged();
 	}
 
 	public void setSize(Dimension2D size)
@@ -115,6 +117,7 @@ public abstract class AbstractResizableComponent extends DefaultComponent
 		bounds.setRect(x, y, width, height);
 		firePropertyChangeEvent(this, BOUNDS_PROPERTY_NAME, oldBounds,
 				getBounds());
+		fireComponentBoundsChanged();
 	}
 
 	public void setBounds(Rectangle2D bounds)
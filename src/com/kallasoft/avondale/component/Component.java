@@ -3,6 +3,7 @@ package com.kallasoft.avondale.component;
 import java.awt.Cursor;
 import java.awt.Graphics2D;
 import java.awt.Paint;
+import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
@@ -20,6 +21,7 @@ import com.kallasoft.avondale.Spacer;
 import com.kallasoft.avondale.component.border.ComponentBorder;
 import com.kallasoft.avondale.component.model.ComponentModel;
 import com.kallasoft.avondale.component.painter.ComponentPainter;
+import com.kallasoft.avondale.component.snapshot.ComponentSnapshot;
 import com.kallasoft.avondale.event.ValidationListener;
 import com.kallasoft.avondale.panel.ComponentPanel;
 import com.kallasoft.avondale.tooltip.ToolTip;
@@ -42,6 +44,7 @@ public interface Component extends PropertyChangeListener,
 	public static final String ENABLED_PROPERTY_NAME = "enabled";
 	public static final String VISIBLE_PROPERTY_NAME = "visible";
 	public static final String OPAQUE_PROPERTY_NAME = "opaque";
+	public static final String OFFSCREEN_BUFFER_ENABLED_PROPERTY_NAME = "offscreenBufferEnabled";
 
 	public static final String FOCUSABLE_PROPERTY_NAME = "focusable";
 	public static final String FOCUSED_PROPERTY_NAME = "focused";
@@ -66,6 +69,55 @@ public interface Component extends PropertyChangeListener,
 	public static final String MOUSE_WHEEL_NOTIFICATION_ENABLED_PROPERTY_NAME = "mouseWheelNotificationEnabled";
 	public static final String VALIDATION_NOTIFICATION_ENABLED_PROPERTY_NAME = "validationNotificationEnabled";
 
+	/**
+	 * Enum used to describe how much detail components are painted with. The
+	 * <code>ComponentPanel</code> picks the level based on its scale and
+	 * passes it down to the components as a rendering hint, so every
+	 * component painted into the same context uses the same level.
+	 * <ul>
+	 * <li><code>FULL</code> - components are painted normally.</li>
+	 * <li><code>REDUCED</code> - borders are skipped and connections are
+	 * drawn as thin lines.</li>
+	 * <li><code>PROXY</code> - components are painted as filled rectangles
+	 * and the children of containers that only cover a few pixels on screen
+	 * are skipped.</li>
+	 * </ul>
+	 */
+	public static enum LevelOfDetail
+	{
+		FULL, REDUCED, PROXY;
+
+		public static final RenderingHints.Key RENDERING_HINT_KEY = new LevelOfDetailKey();
+
+		/**
+		 * Used to get the level of detail set on <code>g2d</code>.
+		 * 
+		 * @param g2d
+		 *            The context being painted to.
+		 * @return the level of detail, or <code>FULL</code> if none was set.
+		 */
+		public static LevelOfDetail getLevelOfDetail(Graphics2D g2d)
+		{
+			Object levelOfDetail = g2d.getRenderingHint(RENDERING_HINT_KEY);
+			return (levelOfDetail instanceof LevelOfDetail ? (LevelOfDetail) levelOfDetail
+					: FULL);
+		}
+
+		private static class LevelOfDetailKey extends RenderingHints.Key
+		{
+			public LevelOfDetailKey()
+			{
+				super(0);
+			}
+
+			@Override
+			public boolean isCompatibleValue(Object value)
+			{
+				return (value instanceof LevelOfDetail);
+			}
+		}
+	}
+
 	public boolean isVirtual();
 
 	public void setVirtual(boolean virtual);
@@ -112,20 +164,65 @@ public interface Component extends PropertyChangeListener,
 
 	public Point2D getLocation();
 
+	/**
+	 * Used to store the location of this component into <code>location</code>
+	 * and return it. This is the allocation-free alternative to
+	 * {@link #getLocation()} for code paths that are called frequently.
+	 *
+	 * @param location
+	 *            The object to store the location in, if <code>null</code> a
+	 *            new one is allocated.
+	 * @return <code>location</code>, or the newly allocated object.
+	 */
+	public Point2D getLocation(Point2D location);
+
 	public double getWidth();
 
 	public double getHeight();
 
 	public Dimension2D getSize();
 
+	/**
+	 * Used to store the size of this component into <code>size</code> and
+	 * return it.
+	 *
+	 * @param size
+	 *            The object to store the size in, if <code>null</code> a new
+	 *            one is allocated.
+	 * @return <code>size</code>, or the newly allocated object.
+	 */
+	public Dimension2D getSize(Dimension2D size);
+
 	public Spacer getPadding();
 
 	public void setPadding(Spacer padding);
 
 	public Rectangle2D getBounds();
 
+	/**
+	 * Used to store the bounds of this component into <code>bounds</code> and
+	 * return it.
+	 *
+	 * @param bounds
+	 *            The object to store the bounds in, if <code>null</code> a new
+	 *            one is allocated.
+	 * @return <code>bounds</code>, or the newly allocated object.
+	 */
+	public Rectangle2D getBounds(Rectangle2D bounds);
+
 	public Rectangle2D getPreferredBounds();
 
+	/**
+	 * Used to store the preferred bounds of this component (its bounds
+	 * including the border) into <code>preferredBounds</code> and return it.
+	 *
+	 * @param preferredBounds
+	 *            The object to store the preferred bounds in, if
+	 *            <code>null</code> a new one is allocated.
+	 * @return <code>preferredBounds</code>, or the newly allocated object.
+	 */
+	public Rectangle2D getPreferredBounds(Rectangle2D preferredBounds);
+
 //	public Rectangle2D getVisibleBounds();
 
 	public Paint getBackgroundPaint();
@@ -170,6 +267,36 @@ public interface Component extends PropertyChangeListener,
 
 	public void setParentComponent(ContainerComponent component);
 
+	/**
+	 * Used to get the x offset that converts a coordinate in the coordinate
+	 * space of this component's parent into the coordinate space of the
+	 * <code>ComponentPanel</code>, in other words the sum of the x locations
+	 * of all of this component's ancestors. The offset is cached and only
+	 * recalculated after {@link #invalidateComponentPanelOffset()}.
+	 *
+	 * @return the x offset of this component's parent on the
+	 *         <code>ComponentPanel</code>.
+	 */
+	public double getComponentPanelOffsetX();
+
+	/**
+	 * Used to get the y offset that converts a coordinate in the coordinate
+	 * space of this component's parent into the coordinate space of the
+	 * <code>ComponentPanel</code>.
+	 *
+	 * @return the y offset of this component's parent on the
+	 *         <code>ComponentPanel</code>.
+	 * @see #getComponentPanelOffsetX()
+	 */
+	public double getComponentPanelOffsetY();
+
+	/**
+	 * Used to discard the cached <code>ComponentPanel</code> offset of this
+	 * component (and of all of its descendants) because an ancestor moved or
+	 * this component was given a new parent.
+	 */
+	public void invalidateComponentPanelOffset();
+
 	public ComponentPanel getComponentPanel();
 
 	public void setComponentPanel(ComponentPanel componentPanel);
@@ -188,6 +315,54 @@ public interface Component extends PropertyChangeListener,
 
 	public void paintComponent(Graphics2D g2d);
 
+	public boolean isOffscreenBufferEnabled();
+
+	/**
+	 * Used to enable or disable the offscreen buffer of this component. When
+	 * enabled, the output of {@link #paintComponent(Graphics2D)} and
+	 * {@link #paintBorder(Graphics2D)} is rendered once into an image and that
+	 * image is copied to the screen on every following paint until
+	 * {@link #invalidateOffscreenBuffer()} is called. This is worth enabling
+	 * for components with expensive <code>ComponentPainter</code>s
+	 * (gradients, text, etc.).
+	 *
+	 * @param offscreenBufferEnabled
+	 *            <code>true</code> to cache the rendering of this component,
+	 *            otherwise <code>false</code>.
+	 */
+	public void setOffscreenBufferEnabled(boolean offscreenBufferEnabled);
+
+	/**
+	 * Used to discard the contents of the offscreen buffer so the component is
+	 * rendered again the next time it is painted. Every setter of a property
+	 * that affects how this component looks calls this method, custom
+	 * painters that depend on other state must call it themselves when that
+	 * state changes.
+	 */
+	public void invalidateOffscreenBuffer();
+
+	/**
+	 * Used to get an immutable snapshot of this component (and, for a
+	 * container, of everything inside of it) that can be read from any thread.
+	 * The component is validated first. The snapshot is cached until this
+	 * component or one of its descendants changes, so calling this repeatedly
+	 * is cheap and unchanged subtrees are shared between snapshots.
+	 * <p>
+	 * Must be called on the thread that owns the component (the event
+	 * dispatch thread).
+	 * 
+	 * @return the snapshot of the current state of this component.
+	 */
+	public ComponentSnapshot getSnapshot();
+
+	/**
+	 * Used to discard the cached snapshot of this component and of all of its
+	 * ancestors. Every property change does this already, subclasses with
+	 * state that isn't a property (e.g. the line of a connection) call this
+	 * when it changes.
+	 */
+	public void invalidateSnapshot();
+
 	public void repaint();
 
 	public void repaint(double x, double y, double width, double height);
@@ -1,5 +1,7 @@
 package com.kallasoft.avondale.component;
 
+import java.util.Collection;
+
 import com.kallasoft.avondale.component.connection.Connection;
 import com.kallasoft.avondale.component.event.ConnectedComponentListener;
 
@@ -13,6 +15,17 @@ public interface ConnectedComponent extends ResizableComponent
 
 	public void addInboundConnection(int index, Connection inboundConnection);
 
+	/**
+	 * Used to add all of the given connections to this component, firing a
+	 * single <code>INBOUND_CONNECTION_ADDED</code> event for all of them.
+	 * Connections already attached to this component are ignored.
+	 *
+	 * @param inboundConnections
+	 *            The connections to add.
+	 */
+	public void addInboundConnections(
+			Collection<? extends Connection> inboundConnections);
+
 	public int getInboundConnectionCount();
 
 	public int getIndexOfInboundConnection(Connection inboundConnection);
@@ -25,12 +38,39 @@ public interface ConnectedComponent extends ResizableComponent
 
 	public void removeInboundConnection(Connection inboundConnection);
 
+	/**
+	 * Used to remove all of the given connections from this component, firing
+	 * a single <code>INBOUND_CONNECTION_REMOVED</code> event for all of them.
+	 *
+	 * @param inboundConnections
+	 *            The connections to remove.
+	 */
+	public void removeInboundConnections(
+			Collection<? extends Connection> inboundConnections);
+
+	/**
+	 * Used to remove every inbound connection from this component, firing a
+	 * single <code>ALL_INBOUND_CONNECTIONS_REMOVED</code> event.
+	 */
+	public void removeInboundConnections();
+
 	public boolean containsOutboundConnection(Connection outboundConnection);
 
 	public void addOutboundConnection(Connection outboundConnection);
 
 	public void addOutboundConnection(int index, Connection outboundConnection);
 
+	/**
+	 * Used to add all of the given connections to this component, firing a
+	 * single <code>OUTBOUND_CONNECTION_ADDED</code> event for all of them.
+	 * Connections already attached to this component are ignored.
+	 *
+	 * @param outboundConnections
+	 *            The connections to add.
+	 */
+	public void addOutboundConnections(
+			Collection<? extends Connection> outboundConnections);
+
 	public int getOutboundConnectionCount();
 
 	public int getIndexOfOutboundConnection(Connection outboundConnection);
@@ -43,6 +83,22 @@ public interface ConnectedComponent extends ResizableComponent
 
 	public void removeOutboundConnection(Connection outboundConnection);
 
+	/**
+	 * Used to remove all of the given connections from this component, firing
+	 * a single <code>OUTBOUND_CONNECTION_REMOVED</code> event for all of them.
+	 *
+	 * @param outboundConnections
+	 *            The connections to remove.
+	 */
+	public void removeOutboundConnections(
+			Collection<? extends Connection> outboundConnections);
+
+	/**
+	 * Used to remove every outbound connection from this component, firing a
+	 * single <code>ALL_OUTBOUND_CONNECTIONS_REMOVED</code> event.
+	 */
+	public void removeOutboundConnections();
+
 	public boolean isConnectedComponentNotificationEnabled();
 
 	public void setConnectedComponentNotificationEnabled(
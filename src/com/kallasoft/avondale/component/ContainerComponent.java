@@ -2,8 +2,10 @@ package com.kallasoft.avondale.component;
 
 import java.awt.Graphics2D;
 import java.awt.geom.Rectangle2D;
+import java.util.Collection;
 
 import com.kallasoft.avondale.component.event.ContainerComponentListener;
+import com.kallasoft.avondale.component.index.SpatialIndex;
 import com.kallasoft.avondale.component.layout.ContainerLayout;
 
 public interface ContainerComponent extends ConnectedComponent
@@ -11,6 +13,14 @@ public interface ContainerComponent extends ConnectedComponent
 	public static final String CONTAINER_LAYOUT_ENALBED_PROPERTY_NAME = "containerLayoutEnabled";
 	public static final String CONTAINER_LAYOUT_PROPERTY_NAME = "containerLayout";
 	public static final String CONTAINER_COMPONENT_NOTIFICATION_ENABLED_PROPERTY_NAME = "containerComponentNotificationEnabled";
+	public static final String SPATIAL_INDEX_PROPERTY_NAME = "spatialIndex";
+	public static final String SPATIAL_EVENT_DISPATCH_ENABLED_PROPERTY_NAME = "spatialEventDispatchEnabled";
+
+	/**
+	 * The size, in pixels on screen, a container must have for its children to
+	 * be painted when painting at the <code>PROXY</code> level of detail.
+	 */
+	public static final double PROXY_CHILDREN_MINIMUM_SIZE = 16;
 
 	public boolean isContainerLayoutEnabled();
 
@@ -24,12 +34,33 @@ public interface ContainerComponent extends ConnectedComponent
 
 	public void paintChildren(Graphics2D g2d);
 
+	public SpatialIndex getSpatialIndex();
+
+	public void setSpatialIndex(SpatialIndex spatialIndex);
+
+	public void componentBoundsChanged(Component component);
+
+	public boolean isSpatialEventDispatchEnabled();
+
+	public void setSpatialEventDispatchEnabled(
+			boolean spatialEventDispatchEnabled);
+
 	public boolean containsComponent(Component component);
 
 	public void addComponent(Component component);
 
 	public void addComponent(int index, Component component);
 
+	/**
+	 * Used to add all of the given components to the end of this container as
+	 * a single batch update.
+	 *
+	 * @param components
+	 *            The components to add.
+	 * @see #beginUpdate()
+	 */
+	public void addComponents(Collection<? extends Component> components);
+
 	public int getComponentCount();
 
 	public int getIndexOfComponent(Component component);
@@ -48,6 +79,39 @@ public interface ContainerComponent extends ConnectedComponent
 
 	public void removeComponent(Component component);
 
+	/**
+	 * Used to remove all of the given components from this container as a
+	 * single batch update.
+	 *
+	 * @param components
+	 *            The components to remove.
+	 * @see #beginUpdate()
+	 */
+	public void removeComponents(Collection<? extends Component> components);
+
+	/**
+	 * Used to start a batch update of this container's children. Until the
+	 * matching call to {@link #endUpdate()}, adding and removing children
+	 * does not fire <code>ContainerComponentEvent</code>s, revalidate or
+	 * repaint this container. Calls can be nested, only the outermost
+	 * <code>endUpdate()</code> ends the batch.
+	 */
+	public void beginUpdate();
+
+	/**
+	 * Used to end a batch update of this container's children started with
+	 * {@link #beginUpdate()}. When the outermost batch ends a single
+	 * <code>COMPONENT_REMOVED</code> and a single <code>COMPONENT_ADDED</code>
+	 * event are fired containing every component removed and added during
+	 * the batch, then the container is revalidated and repainted once.
+	 *
+	 * @throws IllegalStateException
+	 *             if there is no batch update in progress.
+	 */
+	public void endUpdate() throws IllegalStateException;
+
+	public boolean isUpdating();
+
 	public boolean isContainerComponentNotificationEnabled();
 
 	public void setContainerComponentNotificationEnabled(
@@ -3,6 +3,7 @@ package com.kallasoft.avondale.component;
 import java.awt.Color;
 import java.awt.Cursor;
 import java.awt.Graphics2D;
+import java.awt.Paint;
 import java.awt.Shape;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
@@ -48,6 +49,20 @@ import com.kallasoft.avondale.tooltip.ToolTipManager;
  */
 public class DefaultComponent extends AbstractComponent
 {
+	/**
+	 * Scratch rectangle {@link #hitClip(Graphics2D)} tests the clip with, one
+	 * for every painting thread since tiles are painted by several threads at
+	 * once.
+	 */
+	private static final ThreadLocal<Rectangle2D> HIT_CLIP_BOUNDS = new ThreadLocal<Rectangle2D>()
+	{
+		@Override
+		protected Rectangle2D initialValue()
+		{
+			return new Rectangle2D.Double();
+		}
+	};
+
 	private boolean valid = false;
 	private Cursor oldCursor;
 
@@ -192,13 +207,27 @@ public class DefaultComponent extends AbstractComponent
 
 	public Rectangle2D getBounds()
 	{
-		return new Rectangle2D.Double(getX(), getY(), getWidth(), getHeight());
+		return getBounds(null);
+	}
+
+	public Rectangle2D getBounds(Rectangle2D bounds)
+	{
+		if (bounds == null)
+			bounds = new Rectangle2D.Double();
+
+		bounds.setRect(getX(), getY(), getWidth(), getHeight());
+		return bounds;
 	}
 
 	public Rectangle2D getPreferredBounds()
+	{
+		return getPreferredBounds(null);
+	}
+
+	public Rectangle2D getPreferredBounds(Rectangle2D preferredBounds)
 	{
 		ComponentBorder border = getComponentBorder();
-		Rectangle2D bounds = getBounds();
+		Rectangle2D bounds = getBounds(preferredBounds);
 
 		/* Add the border width to the repaint bounds of this component */
 		if (border != null)
@@ -303,17 +332,15 @@ public class DefaultComponent extends AbstractComponent
 		if (!isValid())
 			return;
 
-		ContainerComponent parentComponent = getParentComponent();
-
 		/*
 		 * When this child's state becomes invalid (most likely do to a position
 		 * change) that change implicitly invalidates the layout of the parent
 		 * component, so we must set that here.
 		 */
-		if (parentComponent != null)
-			parentComponent.invalidate();
+		invalidateParentComponent();
 
 		valid = false;
+		invalidateSnapshot();
 		fireValidationEvent(new DefaultValidationEvent(this,
 				ValidationEvent.EventType.INVALIDATED));
 	}
@@ -330,23 +357,48 @@ public class DefaultComponent extends AbstractComponent
 		if (!isValid())
 			validate();
 
-		Rectangle2D clipBounds = g2d.getClipBounds();
-
 		/*
 		 * If the bounds of this component don't intersect the current clip then
 		 * there is nothing to paint.
 		 */
-		if (!clipBounds.intersects(getPreferredBounds()))
+		if (!hitClip(g2d))
 			return;
 
-		/* Paint the component */
-		paintComponent(g2d);
+		paintComponentAndBorder(g2d);
+	}
 
-		/* Paint the component border */
-		paintBorder(g2d);
+	/**
+	 * Used to paint the component and the border of this component once
+	 * {@link #paint(Graphics2D)} determined it is visible, valid and
+	 * intersects the clip. Containers call this directly after making the same
+	 * checks themselves so they aren't made twice.
+	 * 
+	 * @param g2d
+	 *            The context, translated to the top left corner of this
+	 *            component, to paint to.
+	 */
+	protected void paintComponentAndBorder(Graphics2D g2d)
+	{
+		LevelOfDetail levelOfDetail = LevelOfDetail.getLevelOfDetail(g2d);
+
+		/*
+		 * Paint the component and the component border, from the offscreen
+		 * buffer if it is enabled, or a simplified version of them when zoomed
+		 * out far enough.
+		 */
+		if (levelOfDetail != LevelOfDetail.FULL)
+			paintLevelOfDetail(g2d, levelOfDetail);
+		else if (isOffscreenBufferEnabled())
+			paintOffscreenBuffer(g2d);
+		else
+		{
+			paintComponent(g2d);
+			paintBorder(g2d);
+		}
 
 		if (ComponentPanel.DEBUG)
 		{
+			Rectangle2D clipBounds = g2d.getClipBounds();
 			g2d.setColor(Color.RED);
 			clipBounds.setRect(clipBounds.getX(), clipBounds.getY(), clipBounds
 					.getWidth() - 1, clipBounds.getHeight() - 1);
@@ -354,6 +406,86 @@ public class DefaultComponent extends AbstractComponent
 		}
 	}
 
+	/**
+	 * Used to invalidate the parent of this component when this component
+	 * becomes invalid. Containers override this to leave their parent alone
+	 * when their layout is scheduled with a <code>LayoutScheduler</code>.
+	 */
+	protected void invalidateParentComponent()
+	{
+		ContainerComponent parentComponent = getParentComponent();
+
+		if (parentComponent != null)
+			parentComponent.invalidate();
+	}
+
+	/**
+	 * Used to determine if the preferred bounds of this component intersect
+	 * the current clip of <code>g2d</code>. The bounds are rounded out to whole
+	 * pixels and tested with <code>Graphics.hitClip</code> so neither the clip
+	 * nor the bounds need to be allocated for every paint.
+	 * <p>
+	 * Components are painted with <code>g2d</code> translated to their top
+	 * left corner, so the bounds are moved into that coordinate space before
+	 * testing them against the clip.
+	 *
+	 * @param g2d
+	 *            The context being painted to.
+	 * @return <code>true</code> if this component might intersect the clip
+	 *         and should be painted, otherwise <code>false</code>.
+	 */
+	protected boolean hitClip(Graphics2D g2d)
+	{
+		Rectangle2D preferredBounds = getPreferredBounds(HIT_CLIP_BOUNDS.get());
+		double componentX = getX();
+		double componentY = getY();
+		int x = (int) Math.floor(preferredBounds.getX() - componentX);
+		int y = (int) Math.floor(preferredBounds.getY() - componentY);
+
+		return g2d.hitClip(x, y, (int) Math.ceil(preferredBounds.getMaxX()
+				- componentX)
+				- x, (int) Math.ceil(preferredBounds.getMaxY() - componentY)
+				- y);
+	}
+
+	/**
+	 * Used to paint a simplified version of this component when the level of
+	 * detail is lower than <code>FULL</code>. At the <code>REDUCED</code>
+	 * level the component is painted without its border, at the
+	 * <code>PROXY</code> level it is painted as a rectangle filled with its
+	 * background paint.
+	 * 
+	 * @param g2d
+	 *            The context, translated to the top left corner of this
+	 *            component, to paint to.
+	 * @param levelOfDetail
+	 *            The level of detail to paint at.
+	 */
+	protected void paintLevelOfDetail(Graphics2D g2d,
+			LevelOfDetail levelOfDetail)
+	{
+		if (levelOfDetail != LevelOfDetail.PROXY)
+		{
+			paintComponent(g2d);
+			return;
+		}
+
+		Paint backgroundPaint = getBackgroundPaint();
+
+		if (!isOpaque() || backgroundPaint == null)
+			return;
+
+		/*
+		 * At this level the component only covers a few pixels, so rounding
+		 * its size up to whole units doesn't show and saves creating a shape.
+		 */
+		Paint oldPaint = g2d.getPaint();
+		g2d.setPaint(backgroundPaint);
+		g2d.fillRect(0, 0, (int) Math.ceil(getWidth()), (int) Math
+				.ceil(getHeight()));
+		g2d.setPaint(oldPaint);
+	}
+
 	/* TODO: Javadoc the logic behind these methods */
 	public void processKeyEvent(KeyEvent evt)
 	{
@@ -1,7 +1,11 @@
 package com.kallasoft.avondale.component;
 
+import java.awt.geom.Rectangle2D;
+
+import com.kallasoft.avondale.component.connection.ConnectionTracker;
 import com.kallasoft.avondale.component.model.ComponentModel;
 import com.kallasoft.avondale.component.painter.DefaultComponentPainter;
+import com.kallasoft.avondale.panel.ComponentPanel;
 
 public class DefaultConnectedComponent extends AbstractConnectedComponent
 {
@@ -16,6 +20,45 @@ public class DefaultConnectedComponent extends AbstractConnectedComponent
 		setComponentPainter(DefaultComponentPainter.getInstance());
 	}
 
+	@Override
+	public void setLocation(double x, double y)
+	{
+		double oldX = getX();
+		double oldY = getY();
+
+		super.setLocation(x, y);
+
+		if (getX() != oldX || getY() != oldY)
+			trackConnections(oldX, oldY, getWidth(), getHeight());
+	}
+
+	@Override
+	public void setSize(double width, double height)
+	{
+		double oldWidth = getWidth();
+		double oldHeight = getHeight();
+
+		super.setSize(width, height);
+
+		if (getWidth() != oldWidth || getHeight() != oldHeight)
+			trackConnections(getX(), getY(), oldWidth, oldHeight);
+	}
+
+	@Override
+	public void setBounds(double x, double y, double width, double height)
+	{
+		double oldX = getX();
+		double oldY = getY();
+		double oldWidth = getWidth();
+		double oldHeight = getHeight();
+
+		super.setBounds(x, y, width, height);
+
+		if (getX() != oldX || getY() != oldY || getWidth() != oldWidth
+				|| getHeight() != oldHeight)
+			trackConnections(oldX, oldY, oldWidth, oldHeight);
+	}
+
 	@Override
 	public void validate()
 	{
@@ -57,4 +100,50 @@ public class DefaultConnectedComponent extends AbstractConnectedComponent
 
 		super.invalidate();
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Used to let the <code>ComponentPanel</code>'s
+	 * <code>ConnectionTracker</code> know the connections of this component
+	 * need to be updated after it moved or was resized. Without a tracker the
+	 * connections are only invalidated and get updated whenever they are next
+	 * validated. The routed connections this component crossed on its way are
+	 * updated as well.
+	 * <p>
+	 * If the location changed the connections of all the descendants are
+	 * updated too.
+	 *
+	 * @param oldX
+	 *            The x coordinate before the change.
+	 * @param oldY
+	 *            The y coordinate before the change.
+	 * @param oldWidth
+	 *            The width before the change.
+	 * @param oldHeight
+	 *            The height before the change.
+	 */
+	protected void trackConnections(double oldX, double oldY, double oldWidth,
+			double oldHeight)
+	{
+		ComponentPanel componentPanel = getComponentPanel();
+		ConnectionTracker connectionTracker = (componentPanel == null ? null
+				: componentPanel.getConnectionTracker());
+
+		if (connectionTracker == null)
+			return;
+
+		if (getX() != oldX || getY() != oldY)
+			connectionTracker.componentMoved(this);
+		else
+			connectionTracker.componentResized(this);
+
+		/* The border didn't change, so the old preferred bounds follow */
+		Rectangle2D oldPreferredBounds = getPreferredBounds(null);
+		oldPreferredBounds.setRect(oldPreferredBounds.getX() + oldX - getX(),
+				oldPreferredBounds.getY() + oldY - getY(), oldPreferredBounds
+						.getWidth()
+						+ oldWidth - getWidth(), oldPreferredBounds.getHeight()
+						+ oldHeight - getHeight());
+
+		connectionTracker.componentBoundsChanged(this, oldPreferredBounds);
+	}
+}
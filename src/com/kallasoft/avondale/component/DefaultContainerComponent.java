@@ -4,16 +4,25 @@ import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
+import com.kallasoft.avondale.component.index.SpatialIndex;
 import com.kallasoft.avondale.component.layout.ContainerLayout;
+import com.kallasoft.avondale.component.layout.LayoutScheduler;
 import com.kallasoft.avondale.component.model.ComponentModel;
 import com.kallasoft.avondale.component.painter.DefaultComponentPainter;
 import com.kallasoft.avondale.component.util.ComponentUtils;
 import com.kallasoft.avondale.panel.ComponentPanel;
+import com.kallasoft.avondale.panel.ComponentPanelState;
 
 public class DefaultContainerComponent extends AbstractContainerComponent
 {
+	private Rectangle2D validatedBounds;
+
 	public DefaultContainerComponent()
 	{
 		this(null);
@@ -67,6 +76,55 @@ public class DefaultContainerComponent extends AbstractContainerComponent
 		/* Layout the container to bring it's state back to valid */
 		layoutContainer();
 		super.validate();
+
+		Rectangle2D preferredBounds = getPreferredBounds();
+
+		if (preferredBounds.equals(validatedBounds))
+			return;
+
+		validatedBounds = preferredBounds;
+
+		/*
+		 * With a LayoutScheduler the parentComponent wasn't invalidated along
+		 * with this container, it only needs to be laid out again now that the
+		 * bounds of this container turned out to be different from the last
+		 * time it was validated.
+		 */
+		if (getLayoutScheduler() == null)
+			return;
+
+		ContainerComponent parentComponent = getParentComponent();
+
+		if (parentComponent != null)
+			parentComponent.invalidate();
+		else if (isRootComponent())
+		{
+			ComponentPanel componentPanel = getComponentPanel();
+
+			if (componentPanel != null)
+				componentPanel.revalidate();
+		}
+	}
+
+	/**
+	 * When this container is on a <code>ComponentPanel</code> with a
+	 * <code>LayoutScheduler</code>, it is only invalidated and scheduled here
+	 * and laid out along with every other container that changed once the
+	 * current event has been dispatched.
+	 */
+	@Override
+	public void revalidate()
+	{
+		LayoutScheduler layoutScheduler = getLayoutScheduler();
+
+		if (layoutScheduler == null)
+		{
+			super.revalidate();
+			return;
+		}
+
+		invalidate();
+		layoutScheduler.scheduleLayout(this);
 	}
 
 	@Override
@@ -82,17 +140,32 @@ public class DefaultContainerComponent extends AbstractContainerComponent
 		if (!isValid())
 			validate();
 
-		Rectangle2D clipBounds = g2d.getClipBounds();
-
 		/*
 		 * If the bounds of this component don't intersect the current clip then
 		 * there is nothing to paint.
 		 */
-		if (!clipBounds.intersects(getPreferredBounds()))
+		if (!hitClip(g2d))
 			return;
 
-		/* Delegate to the super paint implementation */
-		super.paint(g2d);
+		/*
+		 * Paint the component and border without going through super.paint,
+		 * which would make the same checks again.
+		 */
+		paintComponentAndBorder(g2d);
+
+		/*
+		 * Zoomed far out, the children of a container that only covers a few
+		 * pixels on screen can't be told apart, so they aren't painted at all.
+		 */
+		if (!isRootComponent()
+				&& LevelOfDetail.getLevelOfDetail(g2d) == LevelOfDetail.PROXY)
+		{
+			AffineTransform transform = g2d.getTransform();
+
+			if (getWidth() * Math.abs(transform.getScaleX()) < PROXY_CHILDREN_MINIMUM_SIZE
+					|| getHeight() * Math.abs(transform.getScaleY()) < PROXY_CHILDREN_MINIMUM_SIZE)
+				return;
+		}
 
 		/* Now paint the children of this component */
 		paintChildren(g2d);
@@ -128,13 +201,26 @@ public class DefaultContainerComponent extends AbstractContainerComponent
 		/* Translate the event to the coordinate space of this parent component */
 		evt.translatePoint(-(int) getX(), -(int) getY());
 
+		List<Component> targetComponents = getMouseEventTargetComponents(evt);
+
 		/*
-		 * Deliver the event to all the children components first to see if they
-		 * can handle it, stopping if it is consumed. Deliver in reverse order
-		 * to honor the component's z-ordering.
+		 * Deliver the event to the children components first to see if they can
+		 * handle it, stopping if it is consumed. The target components are
+		 * already sorted top-most first, if there are none we fall back to
+		 * delivering to every child in reverse order to honor the component's
+		 * z-ordering.
 		 */
-		for (int i = getComponentCount() - 1; !evt.isConsumed() && i > -1; i--)
-			getComponent(i).processMouseEvent(evt);
+		if (targetComponents == null)
+		{
+			for (int i = getComponentCount() - 1; !evt.isConsumed() && i > -1; i--)
+				getComponent(i).processMouseEvent(evt);
+		}
+		else
+		{
+			for (int i = 0, size = targetComponents.size(); !evt.isConsumed()
+					&& i < size; i++)
+				targetComponents.get(i).processMouseEvent(evt);
+		}
 
 		/* Restore the original coordinate space of the event */
 		evt.translatePoint((int) getX(), (int) getY());
@@ -157,13 +243,26 @@ public class DefaultContainerComponent extends AbstractContainerComponent
 		/* Translate the event to the coordinate space of this parent component */
 		evt.translatePoint(-(int) getX(), -(int) getY());
 
+		List<Component> targetComponents = getMouseEventTargetComponents(evt);
+
 		/*
-		 * Deliver the event to all the children components first to see if they
-		 * can handle it, stopping if it is consumed. Deliver in reverse order
-		 * to honor the component's z-ordering.
+		 * Deliver the event to the children components first to see if they can
+		 * handle it, stopping if it is consumed. The target components are
+		 * already sorted top-most first, if there are none we fall back to
+		 * delivering to every child in reverse order to honor the component's
+		 * z-ordering.
 		 */
-		for (int i = getComponentCount() - 1; !evt.isConsumed() && i > -1; i--)
-			getComponent(i).processMouseMotionEvent(evt);
+		if (targetComponents == null)
+		{
+			for (int i = getComponentCount() - 1; !evt.isConsumed() && i > -1; i--)
+				getComponent(i).processMouseMotionEvent(evt);
+		}
+		else
+		{
+			for (int i = 0, size = targetComponents.size(); !evt.isConsumed()
+					&& i < size; i++)
+				targetComponents.get(i).processMouseMotionEvent(evt);
+		}
 
 		/* Restore the original coordinate space of the event */
 		evt.translatePoint((int) getX(), (int) getY());
@@ -186,13 +285,26 @@ public class DefaultContainerComponent extends AbstractContainerComponent
 		/* Translate the event to the coordinate space of this parent component */
 		evt.translatePoint(-(int) getX(), -(int) getY());
 
+		List<Component> targetComponents = getMouseEventTargetComponents(evt);
+
 		/*
-		 * Deliver the event to all the children components first to see if they
-		 * can handle it, stopping if it is consumed. Deliver in reverse order
-		 * to honor the component's z-ordering.
+		 * Deliver the event to the children components first to see if they can
+		 * handle it, stopping if it is consumed. The target components are
+		 * already sorted top-most first, if there are none we fall back to
+		 * delivering to every child in reverse order to honor the component's
+		 * z-ordering.
 		 */
-		for (int i = getComponentCount() - 1; !evt.isConsumed() && i > -1; i--)
-			getComponent(i).processMouseWheelEvent(evt);
+		if (targetComponents == null)
+		{
+			for (int i = getComponentCount() - 1; !evt.isConsumed() && i > -1; i--)
+				getComponent(i).processMouseWheelEvent(evt);
+		}
+		else
+		{
+			for (int i = 0, size = targetComponents.size(); !evt.isConsumed()
+					&& i < size; i++)
+				targetComponents.get(i).processMouseWheelEvent(evt);
+		}
 
 		/* Restore the original coordinate space of the event */
 		evt.translatePoint((int) getX(), (int) getY());
@@ -205,6 +317,76 @@ public class DefaultContainerComponent extends AbstractContainerComponent
 			super.processMouseWheelEvent(evt);
 	}
 
+	/**
+	 * Used to determine which children of this container a mouse event needs
+	 * to be delivered to, using the container's <code>SpatialIndex</code> to
+	 * avoid visiting every child for every event. The event is expected to
+	 * already be translated into the coordinate space of the children.
+	 * <p>
+	 * Events that require the cursor to be over a component (ENTERED, PRESSED,
+	 * CLICKED, MOVED and wheel events) are delivered to the children under the
+	 * cursor. Events that don't (EXITED, RELEASED, DRAGGED and MOVED when the
+	 * cursor leaves a component) are delivered to the child that is, or
+	 * contains, the component recorded in the <code>ComponentPanelState</code>
+	 * as being moused over or pressed.
+	 *
+	 * @param evt
+	 *            The event being dispatched.
+	 * @return the children to deliver the event to, sorted top-most first, or
+	 *         <code>null</code> if spatial dispatch is not possible and the
+	 *         event should be delivered to every child.
+	 */
+	protected List<Component> getMouseEventTargetComponents(MouseEvent evt)
+	{
+		SpatialIndex spatialIndex = getSpatialIndex();
+		ComponentPanel componentPanel = getComponentPanel();
+
+		if (!isSpatialEventDispatchEnabled() || spatialIndex == null
+				|| componentPanel == null)
+			return null;
+
+		ComponentPanelState componentPanelState = componentPanel
+				.getComponentPanelState();
+
+		if (componentPanelState == null)
+			return null;
+
+		List<Component> targetComponents = new ArrayList<Component>(4);
+
+		switch (evt.getID())
+		{
+			case MouseEvent.MOUSE_ENTERED:
+			case MouseEvent.MOUSE_PRESSED:
+			case MouseEvent.MOUSE_CLICKED:
+			case MouseEvent.MOUSE_MOVED:
+			case MouseEvent.MOUSE_WHEEL:
+				spatialIndex.getComponentsAtLocation(evt.getX(), evt.getY(),
+						targetComponents);
+
+				/* Top-most (last painted) components get the event first */
+				sortComponentsByIndex(targetComponents);
+				Collections.reverse(targetComponents);
+				break;
+		}
+
+		switch (evt.getID())
+		{
+			case MouseEvent.MOUSE_MOVED:
+			case MouseEvent.MOUSE_EXITED:
+				addMouseEventTargetComponent(targetComponents,
+						componentPanelState.getMousedOverComponent());
+				break;
+
+			case MouseEvent.MOUSE_RELEASED:
+			case MouseEvent.MOUSE_DRAGGED:
+				addMouseEventTargetComponent(targetComponents,
+						componentPanelState.getMousePressedComponent());
+				break;
+		}
+
+		return targetComponents;
+	}
+
 	public void layoutContainer()
 	{
 		/*
@@ -214,6 +396,22 @@ public class DefaultContainerComponent extends AbstractContainerComponent
 		if (!isContainerLayoutEnabled() || isValid())
 			return;
 
+		ContainerLayout containerLayout = getContainerLayout();
+
+		/*
+		 * With a LayoutScheduler the invalid child containers are either laid
+		 * out before this one (deepest first) or validated by the layout as it
+		 * needs them, and validate() takes care of the parentComponent, so only
+		 * the layout of this container itself is left to run.
+		 */
+		if (getLayoutScheduler() != null)
+		{
+			if (containerLayout != null)
+				containerLayout.layoutContainer(this);
+
+			return;
+		}
+
 		/*
 		 * First try and layout all the children, if they are valid they will
 		 * return immediately, but since they can effect the layout of this
@@ -228,7 +426,6 @@ public class DefaultContainerComponent extends AbstractContainerComponent
 				((ContainerComponent) component).layoutContainer();
 		}
 
-		ContainerLayout containerLayout = getContainerLayout();
 		ContainerComponent parentComponent = getParentComponent();
 
 		/*
@@ -264,7 +461,17 @@ public class DefaultContainerComponent extends AbstractContainerComponent
 	{
 		Rectangle clipBounds = g2d.getClipBounds();
 		Rectangle2D newClipBounds = getPreferredBounds();
-		Rectangle2D.intersect(clipBounds, newClipBounds, newClipBounds);
+
+		/*
+		 * The graphics are already translated to the top left corner of this
+		 * component, so move the bounds into that coordinate space first.
+		 */
+		newClipBounds.setRect(newClipBounds.getX() - getX(), newClipBounds
+				.getY()
+				- getY(), newClipBounds.getWidth(), newClipBounds.getHeight());
+
+		if (clipBounds != null)
+			Rectangle2D.intersect(clipBounds, newClipBounds, newClipBounds);
 
 		/*
 		 * The clip is defined as the intersection between the existing clip and
@@ -275,36 +482,113 @@ public class DefaultContainerComponent extends AbstractContainerComponent
 		g2d.setClip(newClipBounds);
 
 		/*
-		 * Translate the 0,0 point to the parent's x/y coordinate before
-		 * painting the children. We do this here to put the coordinate space in
-		 * conjunction with the coordinate space of the child components (where
-		 * 0,0 is the top left of this (it's parent's component).
+		 * The 0,0 point is already the top left corner of this component, which
+		 * is the coordinate space of the child components.
 		 */
-		g2d.translate(getX(), getY());
+		SpatialIndex spatialIndex = getSpatialIndex();
+		Rectangle childClipBounds = (spatialIndex == null ? null : g2d
+				.getClipBounds());
 
-		for (int i = 0, size = getComponentCount(); i < size; i++)
+		if (childClipBounds == null)
+		{
+			for (int i = 0, size = getComponentCount(); i < size; i++)
+				paintChild(g2d, getComponent(i));
+		}
+		else
 		{
-			Component component = getComponent(i);
-
 			/*
-			 * Translate the 0,0 point of the Graphics2D context to the X/Y
-			 * coordinate of the component so it paints from it's top left
-			 * corner which is 0,0.
+			 * The clip is now in the coordinate space of the children, so ask
+			 * the index for only the children that intersect it instead of
+			 * asking every child to paint and reject itself. The results are
+			 * sorted back into index order to keep the z-ordering intact.
 			 */
-			g2d.translate(component.getX(), component.getY());
+			List<Component> components = new ArrayList<Component>();
+			spatialIndex.getComponentsIntersectingBounds(childClipBounds,
+					components);
+			sortComponentsByIndex(components);
 
-			/* Paint the component where 0,0 is it's top left corner */
-			component.paint(g2d);
-
-			/*
-			 * Return the translated Graphics2D coordinate space back to that of
-			 * the parent component's
-			 */
-			g2d.translate(-component.getX(), -component.getY());
+			for (int i = 0, size = components.size(); i < size; i++)
+				paintChild(g2d, components.get(i));
 		}
 
-		/* Restore the original 0,0 point and clipBounds */
-		g2d.translate(-getX(), -getY());
+		/* Restore the original clipBounds */
 		g2d.setClip(clipBounds);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Used to paint a single child of this container. The Graphics2D context is
+	 * expected to be in the coordinate space of the children.
+	 *
+	 * @param g2d
+	 *            The context to paint the child to.
+	 * @param component
+	 *            The child to paint.
+	 */
+	protected void paintChild(Graphics2D g2d, Component component)
+	{
+		/*
+		 * Translate the 0,0 point of the Graphics2D context to the X/Y
+		 * coordinate of the component so it paints from it's top left corner
+		 * which is 0,0.
+		 */
+		g2d.translate(component.getX(), component.getY());
+
+		/* Paint the component where 0,0 is it's top left corner */
+		component.paint(g2d);
+
+		/*
+		 * Return the translated Graphics2D coordinate space back to that of the
+		 * parent component's
+		 */
+		g2d.translate(-component.getX(), -component.getY());
+	}
+
+	/**
+	 * When this container is on a <code>ComponentPanel</code> with a
+	 * <code>LayoutScheduler</code>, the layout of this container is scheduled
+	 * instead of invalidating the parentComponent right away. The
+	 * parentComponent is only invalidated once this container has been laid
+	 * out and its bounds actually changed (see <code>validate()</code>).
+	 */
+	@Override
+	protected void invalidateParentComponent()
+	{
+		LayoutScheduler layoutScheduler = getLayoutScheduler();
+
+		if (layoutScheduler == null)
+			super.invalidateParentComponent();
+		else
+			layoutScheduler.scheduleLayout(this);
+	}
+
+	/**
+	 * Used to get the <code>LayoutScheduler</code> of the
+	 * <code>ComponentPanel</code> this container is on.
+	 *
+	 * @return the layout scheduler, or <code>null</code> if this container
+	 *         isn't on a panel or the panel doesn't schedule layouts.
+	 */
+	private LayoutScheduler getLayoutScheduler()
+	{
+		ComponentPanel componentPanel = getComponentPanel();
+
+		return (componentPanel == null ? null : componentPanel
+				.getLayoutScheduler());
+	}
+
+	/**
+	 * Used to add the child of this container that either is or contains
+	 * <code>component</code> to the end of <code>targetComponents</code>, if
+	 * it is not already there.
+	 */
+	private void addMouseEventTargetComponent(
+			List<Component> targetComponents, Component component)
+	{
+		/* Walk up the hierarchy until we find the child of this container */
+		while (component != null && component.getParentComponent() != this)
+			component = component.getParentComponent();
+
+		if (component != null && !targetComponents.contains(component))
+			targetComponents.add(component);
+	}
+}
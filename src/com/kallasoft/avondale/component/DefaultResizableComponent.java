@@ -7,6 +7,8 @@ import com.kallasoft.avondale.component.painter.DefaultComponentPainter;
 
 public class DefaultResizableComponent extends AbstractResizableComponent
 {
+	private Rectangle2D repaintBounds;
+
 	public DefaultResizableComponent()
 	{
 		this(null);
@@ -15,6 +17,7 @@ public class DefaultResizableComponent extends AbstractResizableComponent
 	public DefaultResizableComponent(ComponentModel componentModel)
 	{
 		super(componentModel);
+		repaintBounds = new Rectangle2D.Double();
 		setComponentPainter(DefaultComponentPainter.getInstance());
 	}
 
@@ -28,7 +31,11 @@ public class DefaultResizableComponent extends AbstractResizableComponent
 			return;
 
 		/* Remember the original bounds */
-		Rectangle2D oldPreferredBounds = getPreferredBounds();
+		Rectangle2D oldPreferredBounds = getPreferredBounds(repaintBounds);
+		double oldMinX = oldPreferredBounds.getMinX();
+		double oldMinY = oldPreferredBounds.getMinY();
+		double oldMaxX = oldPreferredBounds.getMaxX();
+		double oldMaxY = oldPreferredBounds.getMaxY();
 
 		super.setLocation(x, y);
 
@@ -40,9 +47,7 @@ public class DefaultResizableComponent extends AbstractResizableComponent
 		invalidate();
 
 		/* Repaint the union of the old location and the new location */
-		Rectangle2D preferredBounds = getPreferredBounds();
-		Rectangle2D.union(preferredBounds, oldPreferredBounds, preferredBounds);
-		repaint(preferredBounds);
+		repaintUnion(oldMinX, oldMinY, oldMaxX, oldMaxY);
 	}
 
 	@Override
@@ -55,7 +60,11 @@ public class DefaultResizableComponent extends AbstractResizableComponent
 			return;
 
 		/* Remember the original bounds */
-		Rectangle2D oldPreferredBounds = getPreferredBounds();
+		Rectangle2D oldPreferredBounds = getPreferredBounds(repaintBounds);
+		double oldMinX = oldPreferredBounds.getMinX();
+		double oldMinY = oldPreferredBounds.getMinY();
+		double oldMaxX = oldPreferredBounds.getMaxX();
+		double oldMaxY = oldPreferredBounds.getMaxY();
 
 		super.setSize(width, height);
 
@@ -67,9 +76,7 @@ public class DefaultResizableComponent extends AbstractResizableComponent
 		invalidate();
 
 		/* Repaint the union of the old size and the new size */
-		Rectangle2D preferredBounds = getPreferredBounds();
-		Rectangle2D.union(preferredBounds, oldPreferredBounds, preferredBounds);
-		repaint(preferredBounds);
+		repaintUnion(oldMinX, oldMinY, oldMaxX, oldMaxY);
 	}
 
 	@Override
@@ -83,7 +90,11 @@ public class DefaultResizableComponent extends AbstractResizableComponent
 			return;
 
 		/* Remember the original bounds */
-		Rectangle2D oldPreferredBounds = getPreferredBounds();
+		Rectangle2D oldPreferredBounds = getPreferredBounds(repaintBounds);
+		double oldMinX = oldPreferredBounds.getMinX();
+		double oldMinY = oldPreferredBounds.getMinY();
+		double oldMaxX = oldPreferredBounds.getMaxX();
+		double oldMaxY = oldPreferredBounds.getMaxY();
 
 		super.setBounds(x, y, width, height);
 
@@ -95,8 +106,20 @@ public class DefaultResizableComponent extends AbstractResizableComponent
 		invalidate();
 
 		/* Repaint the union of the old bounds and the new bounds */
-		Rectangle2D preferredBounds = getPreferredBounds();
-		Rectangle2D.union(preferredBounds, oldPreferredBounds, preferredBounds);
+		repaintUnion(oldMinX, oldMinY, oldMaxX, oldMaxY);
+	}
+
+	/**
+	 * Used to repaint the union of the given (old) preferred bounds and the
+	 * current preferred bounds of this component, reusing the same scratch
+	 * rectangle instead of allocating one for each bounds change.
+	 */
+	private void repaintUnion(double oldMinX, double oldMinY, double oldMaxX,
+			double oldMaxY)
+	{
+		Rectangle2D preferredBounds = getPreferredBounds(repaintBounds);
+		preferredBounds.add(oldMinX, oldMinY);
+		preferredBounds.add(oldMaxX, oldMaxY);
 		repaint(preferredBounds);
 	}
-}
\ No newline at end of file
+}
@@ -3,7 +3,7 @@ package com.kallasoft.avondale.component;
 import java.awt.Color;
 
 import com.kallasoft.avondale.component.border.LineComponentBorder;
-import com.kallasoft.avondale.component.layout.RootComponentLayout;
+import com.kallasoft.avondale.component.layout.IncrementalRootComponentLayout;
 import com.kallasoft.avondale.component.model.ComponentModel;
 import com.kallasoft.avondale.panel.ComponentPanel;
 
@@ -19,7 +19,7 @@ public class RootComponent extends DefaultContainerComponent
 		super(componentModel, null);
 
 		setOpaque(false);
-		setContainerLayout(RootComponentLayout.getInstace());
+		setContainerLayout(new IncrementalRootComponentLayout());
 
 		if (ComponentPanel.DEBUG)
 			setComponentBorder(new LineComponentBorder(Color.RED));
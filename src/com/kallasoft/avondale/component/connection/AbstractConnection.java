@@ -7,6 +7,8 @@ import java.util.logging.Logger;
 import com.kallasoft.avondale.component.ConnectedComponent;
 import com.kallasoft.avondale.component.DefaultComponent;
 import com.kallasoft.avondale.component.model.ComponentModel;
+import com.kallasoft.avondale.component.snapshot.ComponentSnapshot;
+import com.kallasoft.avondale.component.snapshot.ConnectionSnapshot;
 
 public abstract class AbstractConnection extends DefaultComponent implements
 		Connection
@@ -156,4 +158,13 @@ public abstract class AbstractConnection extends DefaultComponent implements
 		firePropertyChangeEvent(this, DESTINATION_COMPONENT_PROPERTY_NAME,
 				oldDestinationComponent, getDestinationComponent());
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Overridden to include the end points and the line of this connection.
+	 */
+	@Override
+	protected ComponentSnapshot createSnapshot()
+	{
+		return new ConnectionSnapshot(this);
+	}
+}
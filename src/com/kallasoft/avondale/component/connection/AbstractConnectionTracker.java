@@ -0,0 +1,214 @@
+package com.kallasoft.avondale.component.connection;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.swing.SwingUtilities;
+
+import com.kallasoft.avondale.component.Component;
+import com.kallasoft.avondale.component.ConnectedComponent;
+import com.kallasoft.avondale.component.ContainerComponent;
+import com.kallasoft.avondale.component.index.SpatialIndex;
+import com.kallasoft.avondale.panel.ComponentPanel;
+
+/**
+ * Abstract class used to provide a basic implementation of the
+ * <code>ConnectionTracker</code> interface.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public abstract class AbstractConnectionTracker implements ConnectionTracker
+{
+	private boolean validationPending = false;
+	private Set<Connection> pendingConnectionSet;
+	private Runnable validationHandler;
+
+	public AbstractConnectionTracker()
+	{
+		pendingConnectionSet = new LinkedHashSet<Connection>();
+		validationHandler = new ValidationHandler();
+	}
+
+	public void componentMoved(Component component)
+	{
+		if (component == null)
+			return;
+
+		/*
+		 * Moving a component moves all of its descendants on the panel as
+		 * well, so walk the whole subtree (without recursion, trees can be
+		 * deep) collecting their connections.
+		 */
+		List<Component> componentStack = new ArrayList<Component>();
+		componentStack.add(component);
+
+		while (!componentStack.isEmpty())
+		{
+			Component currentComponent = componentStack.remove(componentStack
+					.size() - 1);
+
+			addPendingConnections(currentComponent);
+
+			if (currentComponent instanceof ContainerComponent)
+			{
+				ContainerComponent containerComponent = (ContainerComponent) currentComponent;
+
+				for (int i = 0, size = containerComponent.getComponentCount(); i < size; i++)
+					componentStack.add(containerComponent.getComponent(i));
+			}
+		}
+	}
+
+	public void componentResized(Component component)
+	{
+		if (component != null)
+			addPendingConnections(component);
+	}
+
+	public void componentBoundsChanged(Component component,
+			Rectangle2D oldPreferredBounds)
+	{
+		ComponentPanel componentPanel = (component == null ? null : component
+				.getComponentPanel());
+
+		if (componentPanel == null)
+			return;
+
+		Rectangle2D preferredBounds = component.getPreferredBounds(null);
+		List<Component> connectionList = new ArrayList<Component>();
+
+		/*
+		 * Routes are in ComponentPanel coordinates, so routed connections are
+		 * children of a root component (usually the connection root). Their
+		 * bounds are indexed in the coordinate space of that root, so look
+		 * for both bounds of the component in every root.
+		 */
+		for (int i = 0, count = componentPanel.getRootComponentCount(); i < count; i++)
+		{
+			ContainerComponent rootComponent = componentPanel
+					.getRootComponent(i);
+			SpatialIndex spatialIndex = rootComponent.getSpatialIndex();
+			double offsetX = component.getComponentPanelOffsetX()
+					- rootComponent.getComponentPanelOffsetX()
+					- rootComponent.getX();
+			double offsetY = component.getComponentPanelOffsetY()
+					- rootComponent.getComponentPanelOffsetY()
+					- rootComponent.getY();
+
+			if (spatialIndex == null)
+			{
+				for (int j = 0, size = rootComponent.getComponentCount(); j < size; j++)
+					connectionList.add(rootComponent.getComponent(j));
+
+				continue;
+			}
+
+			if (oldPreferredBounds != null)
+				spatialIndex.getComponentsIntersectingBounds(oldPreferredBounds
+						.getX()
+						+ offsetX, oldPreferredBounds.getY() + offsetY,
+						oldPreferredBounds.getWidth(), oldPreferredBounds
+								.getHeight(), connectionList);
+
+			spatialIndex.getComponentsIntersectingBounds(preferredBounds.getX()
+					+ offsetX, preferredBounds.getY() + offsetY,
+					preferredBounds.getWidth(), preferredBounds.getHeight(),
+					connectionList);
+		}
+
+		for (int i = 0, size = connectionList.size(); i < size; i++)
+		{
+			Component connection = connectionList.get(i);
+
+			if (connection instanceof RoutedConnection)
+				addPendingConnection((RoutedConnection) connection);
+		}
+	}
+
+	public synchronized boolean containsPendingConnection(Connection connection)
+	{
+		return pendingConnectionSet.contains(connection);
+	}
+
+	public synchronized void addPendingConnection(Connection connection)
+	{
+		if (connection == null || !pendingConnectionSet.add(connection))
+			return;
+
+		/* Schedule a single validation pass for everything that is pending */
+		if (!validationPending)
+		{
+			validationPending = true;
+			SwingUtilities.invokeLater(validationHandler);
+		}
+	}
+
+	public synchronized int getPendingConnectionCount()
+	{
+		return pendingConnectionSet.size();
+	}
+
+	public void validatePendingConnections()
+	{
+		Connection[] connections;
+
+		synchronized (this)
+		{
+			validationPending = false;
+
+			if (pendingConnectionSet.isEmpty())
+				return;
+
+			connections = pendingConnectionSet
+					.toArray(new Connection[pendingConnectionSet.size()]);
+			pendingConnectionSet.clear();
+		}
+
+		/*
+		 * The connection may still be considered valid (e.g. when only an
+		 * ancestor of one of its components moved), so force it to
+		 * recalculate its geometry.
+		 */
+		for (int i = 0; i < connections.length; i++)
+		{
+			connections[i].invalidate();
+			connections[i].validate();
+		}
+	}
+
+	public synchronized void removePendingConnections()
+	{
+		pendingConnectionSet.clear();
+	}
+
+	protected void addPendingConnections(Component component)
+	{
+		if (!(component instanceof ConnectedComponent))
+			return;
+
+		ConnectedComponent connectedComponent = (ConnectedComponent) component;
+
+		for (int i = 0, size = connectedComponent.getInboundConnectionCount(); i < size; i++)
+			addPendingConnection(connectedComponent.getInboundConnection(i));
+
+		for (int i = 0, size = connectedComponent.getOutboundConnectionCount(); i < size; i++)
+			addPendingConnection(connectedComponent.getOutboundConnection(i));
+	}
+
+	/**
+	 * Class used to validate the pending connections on the event dispatch
+	 * thread.
+	 */
+	private class ValidationHandler implements Runnable
+	{
+		public void run()
+		{
+			validatePendingConnections();
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.kallasoft.avondale.component.connection;
+
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+
+/**
+ * Interface used to describe an algorithm that finds a path for a
+ * <code>RoutedConnection</code> around the components in its way.
+ * <p>
+ * A router only works with coordinates, all the points and obstacles are
+ * given in the coordinate space of the <code>ComponentPanel</code>, so
+ * routers are stateless and a single instance can be shared by any number of
+ * connections.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public interface ConnectionRouter
+{
+	/**
+	 * Used to get how far a route keeps away from the obstacles it goes
+	 * around. Obstacles closer than this to the straight way between the two
+	 * ends of a connection are the ones that need to be passed to
+	 * {@link #routeConnection(double, double, double, double, List)}.
+	 *
+	 * @return the distance kept between a route and the obstacles.
+	 */
+	public double getRoutingMargin();
+
+	/**
+	 * Used to find a path from <code>startX,startY</code> to
+	 * <code>endX,endY</code> that stays clear of the obstacles.
+	 *
+	 * @param startX
+	 *            The x coordinate the route starts at.
+	 * @param startY
+	 *            The y coordinate the route starts at.
+	 * @param endX
+	 *            The x coordinate the route ends at.
+	 * @param endY
+	 *            The y coordinate the route ends at.
+	 * @param obstacleList
+	 *            The bounds of the components the route should go around.
+	 * @return the points of the route as <code>x,y</code> pairs, the start
+	 *         and end points included. Never <code>null</code>, a router that
+	 *         can't find its way around the obstacles returns a route through
+	 *         them.
+	 */
+	public double[] routeConnection(double startX, double startY, double endX,
+			double endY, List<Rectangle2D> obstacleList);
+}
@@ -0,0 +1,74 @@
+package com.kallasoft.avondale.component.connection;
+
+import java.awt.geom.Rectangle2D;
+
+import com.kallasoft.avondale.component.Component;
+
+/**
+ * Interface used to describe a tracker that keeps the geometry of
+ * <code>Connection</code>s in sync with the components they connect.
+ * <p>
+ * When a component moves or is resized, only the connections attached to it
+ * (and, for a move, the connections attached to any of its descendants) are
+ * scheduled for validation. Scheduled connections are collected in a set so a
+ * connection whose ends both moved is only updated once, and they are all
+ * validated together once the current event has been dispatched. The
+ * repaints that result are coalesced by the <code>ComponentPanel</code>'s
+ * <code>DirtyRegionManager</code>.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ * @see com.kallasoft.avondale.panel.ComponentPanel
+ */
+public interface ConnectionTracker
+{
+	/**
+	 * Used to schedule the connections of <code>component</code>, and those
+	 * of all of its descendants, for validation after it has moved.
+	 *
+	 * @param component
+	 *            The component whose location changed.
+	 */
+	public void componentMoved(Component component);
+
+	/**
+	 * Used to schedule the connections of <code>component</code> for
+	 * validation after it has been resized. The descendants of a resized
+	 * component don't move, so their connections are left alone.
+	 *
+	 * @param component
+	 *            The component whose size changed.
+	 */
+	public void componentResized(Component component);
+
+	/**
+	 * Used to schedule the <code>RoutedConnection</code>s whose bounds
+	 * <code>component</code> crossed when its bounds changed, either where it
+	 * was or where it is now, so they can route around it or take the way it
+	 * freed up. Routes the component didn't come near are left alone.
+	 *
+	 * @param component
+	 *            The component whose bounds changed.
+	 * @param oldPreferredBounds
+	 *            The preferred bounds of the component before the change, in
+	 *            the coordinate space of its parent.
+	 */
+	public void componentBoundsChanged(Component component,
+			Rectangle2D oldPreferredBounds);
+
+	public boolean containsPendingConnection(Connection connection);
+
+	public void addPendingConnection(Connection connection);
+
+	public int getPendingConnectionCount();
+
+	/**
+	 * Used to immediately validate every pending connection. This is called
+	 * automatically once per event dispatch cycle and should only be called
+	 * from the event dispatch thread.
+	 */
+	public void validatePendingConnections();
+
+	public void removePendingConnections();
+}
@@ -1,18 +1,24 @@
 package com.kallasoft.avondale.component.connection;
 
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.Paint;
 import java.awt.Shape;
+import java.awt.Stroke;
 import java.awt.geom.Line2D;
-import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 
 import com.kallasoft.avondale.component.ConnectedComponent;
 import com.kallasoft.avondale.component.model.ComponentModel;
 import com.kallasoft.avondale.component.painter.DefaultConnectionPainter;
-import com.kallasoft.avondale.component.util.ComponentUtils;
 
 public class DefaultConnection extends AbstractConnection
 {
+	/* A zero width stroke draws the thinnest line the device can draw */
+	private static final Stroke LEVEL_OF_DETAIL_STROKE = new BasicStroke(0);
+
 	private Line2D line;
+	private Rectangle2D repaintBounds;
 
 	public DefaultConnection()
 	{
@@ -34,6 +40,7 @@ public class DefaultConnection extends AbstractConnection
 			ConnectedComponent destinationComponent)
 	{
 		super(componentModel, sourceComponent, destinationComponent);
+		repaintBounds = new Rectangle2D.Double();
 		setComponentPainter(DefaultConnectionPainter.getInstance());
 	}
 
@@ -53,13 +60,19 @@ public class DefaultConnection extends AbstractConnection
 	}
 
 	@Override
-	public Rectangle2D getBounds()
+	public Rectangle2D getBounds(Rectangle2D bounds)
 	{
 		double connectionWidth = getConnectionWidth();
 
+		if (bounds == null)
+			bounds = new Rectangle2D.Double();
+
 		/* Get the bounds from the line if possible */
-		Rectangle2D bounds = (line == null ? new Rectangle2D.Double() : line
-				.getBounds2D());
+		if (line == null)
+			bounds.setRect(0, 0, 0, 0);
+		else
+			bounds.setFrameFromDiagonal(line.getX1(), line.getY1(), line
+					.getX2(), line.getY2());
 
 		/*
 		 * Since a line has no area inside of it, we factor in the width of the
@@ -72,6 +85,31 @@ public class DefaultConnection extends AbstractConnection
 		return bounds;
 	}
 
+	/**
+	 * Overridden to draw the connection as the thinnest possible line at any
+	 * level of detail lower than <code>FULL</code>, regardless of its
+	 * connection stroke.
+	 */
+	@Override
+	protected void paintLevelOfDetail(Graphics2D g2d,
+			LevelOfDetail levelOfDetail)
+	{
+		if (line == null)
+			return;
+
+		Paint oldPaint = g2d.getPaint();
+		Stroke oldStroke = g2d.getStroke();
+		Paint backgroundPaint = getBackgroundPaint();
+
+		if (backgroundPaint != null)
+			g2d.setPaint(backgroundPaint);
+
+		g2d.setStroke(LEVEL_OF_DETAIL_STROKE);
+		g2d.draw(line);
+		g2d.setStroke(oldStroke);
+		g2d.setPaint(oldPaint);
+	}
+
 	@Override
 	public Shape getComponentShape()
 	{
@@ -94,32 +132,40 @@ public class DefaultConnection extends AbstractConnection
 		if (sourceComponent == null || destinationComponent == null)
 			return;
 
-		Rectangle2D oldPreferredBounds = getPreferredBounds();
+		Rectangle2D oldPreferredBounds = getPreferredBounds(repaintBounds);
+		double oldMinX = oldPreferredBounds.getMinX();
+		double oldMinY = oldPreferredBounds.getMinY();
+		double oldMaxX = oldPreferredBounds.getMaxX();
+		double oldMaxY = oldPreferredBounds.getMaxY();
 		
-		/* Find the center of the source and destination components */
-		Point2D sourceCenterLocation = ComponentUtils
-				.getLocationOnComponentPanel(sourceComponent, sourceComponent
-						.getCenterX(), sourceComponent.getCenterY());
-		Point2D destinationCenterLocation = ComponentUtils
-				.getLocationOnComponentPanel(destinationComponent,
-						destinationComponent.getCenterX(), destinationComponent
-								.getCenterY());
-
 		if (line == null)
 			line = new Line2D.Double();
 
 		/* Connections are always drawn from the center of a component to the
-		 * center of a another.
+		 * center of a another. The centers are converted to the coordinate
+		 * space of the ComponentPanel using each component's cached offset.
 		 */
-		line.setLine(sourceCenterLocation.getX(), sourceCenterLocation.getY(),
-				destinationCenterLocation.getX(), destinationCenterLocation
-						.getY());
+		line.setLine(sourceComponent.getComponentPanelOffsetX()
+				+ sourceComponent.getCenterX(), sourceComponent
+				.getComponentPanelOffsetY()
+				+ sourceComponent.getCenterY(), destinationComponent
+				.getComponentPanelOffsetX()
+				+ destinationComponent.getCenterX(), destinationComponent
+				.getComponentPanelOffsetY()
+				+ destinationComponent.getCenterY());
 		
 		super.validate();
 
+		/* The line isn't a property, so drop the snapshot holding the old one */
+		invalidateSnapshot();
+
+		/* The bounds of a connection follow its line */
+		fireComponentBoundsChanged();
+
 		/* Calculate the repaint area which is the union of the old bounds and the new one. */
-		Rectangle2D preferredBounds = getPreferredBounds();
-		Rectangle2D.union(preferredBounds, oldPreferredBounds, preferredBounds);
+		Rectangle2D preferredBounds = getPreferredBounds(repaintBounds);
+		preferredBounds.add(oldMinX, oldMinY);
+		preferredBounds.add(oldMaxX, oldMaxY);
 
 		/* Repaint the connection */
 		repaint(preferredBounds);
@@ -0,0 +1,16 @@
+package com.kallasoft.avondale.component.connection;
+
+/**
+ * Default implementation of the <code>ConnectionTracker</code> interface.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class DefaultConnectionTracker extends AbstractConnectionTracker
+{
+	public DefaultConnectionTracker()
+	{
+		/* Default constructor */
+	}
+}
@@ -0,0 +1,459 @@
+package com.kallasoft.avondale.component.connection;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class used to route connections along horizontal and vertical segments
+ * only, keeping them <code>routingMargin</code> away from the obstacles.
+ * <p>
+ * A straight or single bend route is used whenever one is clear. Otherwise
+ * the route is searched for (A*) on a sparse grid made of the lines through
+ * both ends of the connection and along the margins of every obstacle, the
+ * only places a shortest orthogonal route ever needs to turn. Every bend
+ * costs <code>bendCost</code> on top of the length, so of two routes of about
+ * the same length the one with fewer bends wins.
+ * <p>
+ * If there is no way around the obstacles (e.g. one end is inside an
+ * obstacle) or the grid would be too large, the route falls back to the
+ * single bend route through the obstacles.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class OrthogonalConnectionRouter implements ConnectionRouter
+{
+	public static final double DEFAULT_ROUTING_MARGIN = 8;
+	public static final double DEFAULT_BEND_COST = 16;
+
+	/**
+	 * Most grid points searched before giving up on going around. The search
+	 * keeps about 30 bytes per grid point, this keeps a single route to about
+	 * 2MB (around 120 obstacles across and down).
+	 */
+	private static final int MAXIMUM_GRID_SIZE = 1 << 16;
+
+	private static ConnectionRouter instance;
+
+	private final double routingMargin;
+	private final double bendCost;
+
+	public static synchronized ConnectionRouter getInstance()
+	{
+		if (instance == null)
+			instance = new OrthogonalConnectionRouter();
+
+		return instance;
+	}
+
+	public OrthogonalConnectionRouter()
+	{
+		this(DEFAULT_ROUTING_MARGIN, DEFAULT_BEND_COST);
+	}
+
+	public OrthogonalConnectionRouter(double routingMargin, double bendCost)
+			throws IllegalArgumentException
+	{
+		if (routingMargin < 0)
+			throw new IllegalArgumentException("routingMargin ("
+					+ routingMargin + ") must be >= 0");
+		if (bendCost < 0)
+			throw new IllegalArgumentException("bendCost (" + bendCost
+					+ ") must be >= 0");
+
+		this.routingMargin = routingMargin;
+		this.bendCost = bendCost;
+	}
+
+	public double getRoutingMargin()
+	{
+		return routingMargin;
+	}
+
+	public double getBendCost()
+	{
+		return bendCost;
+	}
+
+	public double[] routeConnection(double startX, double startY, double endX,
+			double endY, List<Rectangle2D> obstacleList)
+	{
+		int obstacleCount = obstacleList.size();
+		double[] minX = new double[obstacleCount];
+		double[] minY = new double[obstacleCount];
+		double[] maxX = new double[obstacleCount];
+		double[] maxY = new double[obstacleCount];
+
+		/* Grow the obstacles by the margin, routes may run along their edges */
+		for (int i = 0; i < obstacleCount; i++)
+		{
+			Rectangle2D obstacle = obstacleList.get(i);
+			minX[i] = obstacle.getMinX() - routingMargin;
+			minY[i] = obstacle.getMinY() - routingMargin;
+			maxX[i] = obstacle.getMaxX() + routingMargin;
+			maxY[i] = obstacle.getMaxY() + routingMargin;
+		}
+
+		/* No route is shorter than a straight or single bend one */
+		if (startX == endX || startY == endY)
+		{
+			if (isClear(startX, startY, endX, endY, minX, minY, maxX, maxY))
+				return new double[] { startX, startY, endX, endY };
+		}
+		else if (isClear(startX, startY, endX, startY, minX, minY, maxX, maxY)
+				&& isClear(endX, startY, endX, endY, minX, minY, maxX, maxY))
+			return new double[] { startX, startY, endX, startY, endX, endY };
+		else if (isClear(startX, startY, startX, endY, minX, minY, maxX, maxY)
+				&& isClear(startX, endY, endX, endY, minX, minY, maxX, maxY))
+			return new double[] { startX, startY, startX, endY, endX, endY };
+
+		double[] route = searchGrid(startX, startY, endX, endY, minX, minY,
+				maxX, maxY);
+
+		if (route != null)
+			return route;
+
+		if (startX == endX || startY == endY)
+			return new double[] { startX, startY, endX, endY };
+
+		return new double[] { startX, startY, endX, startY, endX, endY };
+	}
+
+	/**
+	 * Used to check if the horizontal or vertical segment from
+	 * <code>x1,y1</code> to <code>x2,y2</code> stays out of the inside of
+	 * every (grown) obstacle. Touching an obstacle's edge is fine.
+	 */
+	private boolean isClear(double x1, double y1, double x2, double y2,
+			double[] minX, double[] minY, double[] maxX, double[] maxY)
+	{
+		double lowX = Math.min(x1, x2);
+		double highX = Math.max(x1, x2);
+		double lowY = Math.min(y1, y2);
+		double highY = Math.max(y1, y2);
+
+		for (int i = 0; i < minX.length; i++)
+		{
+			boolean crossesX = (lowX == highX ? lowX > minX[i]
+					&& lowX < maxX[i] : lowX < maxX[i] && highX > minX[i]);
+			boolean crossesY = (lowY == highY ? lowY > minY[i]
+					&& lowY < maxY[i] : lowY < maxY[i] && highY > minY[i]);
+
+			if (crossesX && crossesY)
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Used to search the cheapest route on the grid of the lines through both
+	 * ends and along the edges of the grown obstacles.
+	 *
+	 * @return the route, or <code>null</code> if there is none or the grid is
+	 *         too large.
+	 */
+	private double[] searchGrid(double startX, double startY, double endX,
+			double endY, double[] minX, double[] minY, double[] maxX,
+			double[] maxY)
+	{
+		double[] gridX = createGridLines(startX, endX, minX, maxX);
+		double[] gridY = createGridLines(startY, endY, minY, maxY);
+		int columnCount = gridX.length;
+		int rowCount = gridY.length;
+
+		if ((long) columnCount * rowCount > MAXIMUM_GRID_SIZE)
+			return null;
+
+		/*
+		 * Mark the grid points inside the obstacles, and the grid segments
+		 * going right or down from a point that cross an obstacle. Grid lines
+		 * run along every obstacle edge, so a segment is either entirely
+		 * inside an obstacle or entirely outside of it.
+		 */
+		int pointCount = columnCount * rowCount;
+		boolean[] blockedPoints = new boolean[pointCount];
+		boolean[] blockedRight = new boolean[pointCount];
+		boolean[] blockedDown = new boolean[pointCount];
+
+		for (int k = 0; k < minX.length; k++)
+		{
+			int left = Arrays.binarySearch(gridX, minX[k]);
+			int right = Arrays.binarySearch(gridX, maxX[k]);
+			int top = Arrays.binarySearch(gridY, minY[k]);
+			int bottom = Arrays.binarySearch(gridY, maxY[k]);
+
+			for (int row = top; row <= bottom; row++)
+			{
+				for (int column = left; column <= right; column++)
+				{
+					int point = row * columnCount + column;
+					boolean insideX = (column > left && column < right);
+					boolean insideY = (row > top && row < bottom);
+
+					if (insideX && insideY)
+						blockedPoints[point] = true;
+					if (insideY && column < right)
+						blockedRight[point] = true;
+					if (insideX && row < bottom)
+						blockedDown[point] = true;
+				}
+			}
+		}
+
+		int startPoint = Arrays.binarySearch(gridY, startY) * columnCount
+				+ Arrays.binarySearch(gridX, startX);
+		int endPoint = Arrays.binarySearch(gridY, endY) * columnCount
+				+ Arrays.binarySearch(gridX, endX);
+
+		/*
+		 * A search state is a grid point and the direction the route arrived
+		 * in (0 horizontal, 1 vertical), so changing direction can cost extra.
+		 */
+		double[] costs = new double[pointCount * 2];
+		int[] previousStates = new int[pointCount * 2];
+		boolean[] closedStates = new boolean[pointCount * 2];
+		StateQueue stateQueue = new StateQueue();
+
+		Arrays.fill(costs, Double.MAX_VALUE);
+
+		for (int direction = 0; direction < 2; direction++)
+		{
+			int state = startPoint * 2 + direction;
+			costs[state] = 0;
+			previousStates[state] = -1;
+			stateQueue.add(state, Math.abs(startX - endX)
+					+ Math.abs(startY - endY));
+		}
+
+		while (!stateQueue.isEmpty())
+		{
+			int state = stateQueue.remove();
+
+			if (closedStates[state])
+				continue;
+
+			closedStates[state] = true;
+
+			int point = state / 2;
+
+			if (point == endPoint)
+				return createRoute(state, previousStates, gridX, gridY);
+
+			int column = point % columnCount;
+			int row = point / columnCount;
+
+			for (int neighbor = 0; neighbor < 4; neighbor++)
+			{
+				int nextColumn = column;
+				int nextRow = row;
+				int nextDirection = (neighbor < 2 ? 0 : 1);
+				boolean blocked;
+
+				switch (neighbor)
+				{
+				case 0:
+					nextColumn--;
+					blocked = (nextColumn < 0 || blockedRight[point - 1]);
+					break;
+				case 1:
+					nextColumn++;
+					blocked = (nextColumn == columnCount || blockedRight[point]);
+					break;
+				case 2:
+					nextRow--;
+					blocked = (nextRow < 0 || blockedDown[point - columnCount]);
+					break;
+				default:
+					nextRow++;
+					blocked = (nextRow == rowCount || blockedDown[point]);
+					break;
+				}
+
+				if (blocked)
+					continue;
+
+				int nextPoint = nextRow * columnCount + nextColumn;
+
+				if (blockedPoints[nextPoint])
+					continue;
+
+				int nextState = nextPoint * 2 + nextDirection;
+				double cost = costs[state]
+						+ Math.abs(gridX[nextColumn] - gridX[column])
+						+ Math.abs(gridY[nextRow] - gridY[row])
+						+ (state % 2 == nextDirection ? 0 : bendCost);
+
+				if (cost >= costs[nextState])
+					continue;
+
+				costs[nextState] = cost;
+				previousStates[nextState] = state;
+				stateQueue.add(nextState, cost
+						+ Math.abs(gridX[nextColumn] - endX)
+						+ Math.abs(gridY[nextRow] - endY));
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Used to get the sorted, distinct coordinates of the grid lines along one
+	 * axis: both ends of the connection and both edges of every obstacle.
+	 */
+	private double[] createGridLines(double start, double end,
+			double[] minimums, double[] maximums)
+	{
+		double[] lines = new double[minimums.length * 2 + 2];
+		int lineCount = 0;
+
+		lines[0] = start;
+		lines[1] = end;
+		System.arraycopy(minimums, 0, lines, 2, minimums.length);
+		System.arraycopy(maximums, 0, lines, 2 + minimums.length,
+				maximums.length);
+		Arrays.sort(lines);
+
+		for (int i = 0; i < lines.length; i++)
+		{
+			if (lineCount == 0 || lines[i] != lines[lineCount - 1])
+				lines[lineCount++] = lines[i];
+		}
+
+		double[] distinctLines = new double[lineCount];
+		System.arraycopy(lines, 0, distinctLines, 0, lineCount);
+
+		return distinctLines;
+	}
+
+	/**
+	 * Used to walk back from the end state to the start, keeping only the
+	 * points where the route bends.
+	 */
+	private double[] createRoute(int endState, int[] previousStates,
+			double[] gridX, double[] gridY)
+	{
+		int columnCount = gridX.length;
+		int[] points = new int[16];
+		int pointCount = 0;
+
+		for (int state = endState; state != -1; state = previousStates[state])
+		{
+			int point = state / 2;
+
+			/* Drop the middle point of three in a row */
+			if (pointCount > 1)
+			{
+				int last = points[pointCount - 1];
+				int beforeLast = points[pointCount - 2];
+
+				if ((point % columnCount == last % columnCount && last
+						% columnCount == beforeLast % columnCount)
+						|| (point / columnCount == last / columnCount && last
+								/ columnCount == beforeLast / columnCount))
+					pointCount--;
+			}
+
+			if (pointCount == points.length)
+			{
+				int[] newPoints = new int[points.length * 2];
+				System.arraycopy(points, 0, newPoints, 0, pointCount);
+				points = newPoints;
+			}
+
+			points[pointCount++] = point;
+		}
+
+		/* The start point is last, reverse the order while converting */
+		if (pointCount == 1)
+			points[pointCount++] = points[0];
+
+		double[] route = new double[pointCount * 2];
+
+		for (int i = 0; i < pointCount; i++)
+		{
+			int point = points[pointCount - 1 - i];
+			route[i * 2] = gridX[point % columnCount];
+			route[i * 2 + 1] = gridY[point / columnCount];
+		}
+
+		return route;
+	}
+
+	/**
+	 * Class used as the priority queue of the search, a binary heap of states
+	 * ordered by their estimated total cost. States whose cost improves are
+	 * added again rather than moved up, the stale entries are skipped when
+	 * removed.
+	 */
+	private static class StateQueue
+	{
+		private int size = 0;
+		private int[] states = new int[64];
+		private double[] priorities = new double[64];
+
+		public boolean isEmpty()
+		{
+			return (size == 0);
+		}
+
+		public void add(int state, double priority)
+		{
+			if (size == states.length)
+			{
+				int[] newStates = new int[size * 2];
+				double[] newPriorities = new double[size * 2];
+				System.arraycopy(states, 0, newStates, 0, size);
+				System.arraycopy(priorities, 0, newPriorities, 0, size);
+				states = newStates;
+				priorities = newPriorities;
+			}
+
+			int index = size++;
+
+			/* Move the new entry up past every entry with a higher priority */
+			while (index > 0 && priorities[(index - 1) / 2] > priority)
+			{
+				int parent = (index - 1) / 2;
+				states[index] = states[parent];
+				priorities[index] = priorities[parent];
+				index = parent;
+			}
+
+			states[index] = state;
+			priorities[index] = priority;
+		}
+
+		public int remove()
+		{
+			int result = states[0];
+			int state = states[--size];
+			double priority = priorities[size];
+			int index = 0;
+
+			/* Move the last entry down from the top to where it belongs */
+			while (index * 2 + 1 < size)
+			{
+				int child = index * 2 + 1;
+
+				if (child + 1 < size && priorities[child + 1] < priorities[child])
+					child++;
+
+				if (priorities[child] >= priority)
+					break;
+
+				states[index] = states[child];
+				priorities[index] = priorities[child];
+				index = child;
+			}
+
+			states[index] = state;
+			priorities[index] = priority;
+
+			return result;
+		}
+	}
+}
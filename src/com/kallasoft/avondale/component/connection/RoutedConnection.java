@@ -0,0 +1,480 @@
+package com.kallasoft.avondale.component.connection;
+
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.kallasoft.avondale.component.Component;
+import com.kallasoft.avondale.component.ConnectedComponent;
+import com.kallasoft.avondale.component.ContainerComponent;
+import com.kallasoft.avondale.component.index.SpatialIndex;
+import com.kallasoft.avondale.component.model.ComponentModel;
+import com.kallasoft.avondale.component.painter.DefaultConnectionPainter;
+
+/**
+ * Class used to draw a connection along a path that goes around the
+ * components in its way instead of straight through them.
+ * <p>
+ * The path runs from the center of the source component to the center of the
+ * destination component and is found by a <code>ConnectionRouter</code>
+ * (orthogonal by default). The obstacles are the visible siblings of the two
+ * components, looked up in the <code>SpatialIndex</code> of their parents
+ * around the straight way between the two ends; the area searched grows to
+ * take in the obstacles found until no more are found, so detours are
+ * checked as well.
+ * <p>
+ * The route is cached along with the obstacles it was found for, validating
+ * the connection again only routes it again if one of its ends or one of
+ * those obstacles changed. The <code>ConnectionTracker</code> schedules the
+ * routed connections whose bounds a moved component crossed, where it was or
+ * where it is now, so moving a component doesn't touch the routes far away
+ * from it.
+ * <p>
+ * The route is kept in the coordinate space of the
+ * <code>ComponentPanel</code>, so a routed connection must be added directly
+ * to one of its root components (usually
+ * <code>CONNECTION_ROOT_COMPONENT</code>). The tracker only looks for routed
+ * connections there, one added to any other container is drawn in the wrong
+ * place and not routed again when the components around it move.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class RoutedConnection extends AbstractConnection
+{
+	public static final String CONNECTION_ROUTER_PROPERTY_NAME = "connectionRouter";
+
+	/* A zero width stroke draws the thinnest line the device can draw */
+	private static final Stroke LEVEL_OF_DETAIL_STROKE = new BasicStroke(0);
+
+	/**
+	 * Most times the area searched for obstacles is grown to take in the
+	 * obstacles already found.
+	 */
+	private static final int MAXIMUM_OBSTACLE_PASSES = 4;
+
+	private ConnectionRouter connectionRouter;
+
+	/** The points of the route as x,y pairs, in ComponentPanel coordinates */
+	private double[] route;
+	private GeneralPath path;
+	private Rectangle2D routeBounds;
+	private Set<Rectangle2D> routeObstacleSet;
+
+	private Rectangle2D repaintBounds;
+	private List<Component> componentList;
+
+	public RoutedConnection()
+	{
+		this(null);
+	}
+
+	public RoutedConnection(ComponentModel componentModel)
+	{
+		this(componentModel, null, null);
+	}
+
+	public RoutedConnection(ConnectedComponent sourceComponent,
+			ConnectedComponent destinationComponent)
+	{
+		this(null, sourceComponent, destinationComponent);
+	}
+
+	public RoutedConnection(ComponentModel componentModel,
+			ConnectedComponent sourceComponent,
+			ConnectedComponent destinationComponent)
+	{
+		super(componentModel, sourceComponent, destinationComponent);
+		repaintBounds = new Rectangle2D.Double();
+		routeBounds = new Rectangle2D.Double();
+		componentList = new ArrayList<Component>();
+		connectionRouter = OrthogonalConnectionRouter.getInstance();
+		setComponentPainter(DefaultConnectionPainter.getInstance());
+
+		/* The super constructor set the ends before there was a router */
+		revalidate();
+	}
+
+	public ConnectionRouter getConnectionRouter()
+	{
+		return connectionRouter;
+	}
+
+	public void setConnectionRouter(ConnectionRouter connectionRouter)
+			throws IllegalArgumentException
+	{
+		if (connectionRouter == null)
+			throw new IllegalArgumentException(
+					"connectionRouter cannot be null");
+
+		ConnectionRouter oldConnectionRouter = getConnectionRouter();
+
+		if (oldConnectionRouter == connectionRouter)
+			return;
+
+		this.connectionRouter = connectionRouter;
+		firePropertyChangeEvent(this, CONNECTION_ROUTER_PROPERTY_NAME,
+				oldConnectionRouter, getConnectionRouter());
+
+		/* Drop the cached route, the new router may route differently */
+		routeObstacleSet = null;
+		revalidate();
+	}
+
+	/**
+	 * Used to get the number of points on the route, including both ends.
+	 *
+	 * @return the number of points on the route, or 0 if it hasn't been
+	 *         routed yet.
+	 */
+	public int getRoutePointCount()
+	{
+		return (route == null ? 0 : route.length / 2);
+	}
+
+	public double getRoutePointX(int index)
+	{
+		return route[index * 2];
+	}
+
+	public double getRoutePointY(int index)
+	{
+		return route[index * 2 + 1];
+	}
+
+	/**
+	 * Overridden to hit-test the cached segments of the route.
+	 */
+	@Override
+	public boolean contains(double x, double y)
+	{
+		if (!isVisible() || route == null)
+			return false;
+
+		double width = getConnectionWidth();
+
+		/* Most points aren't anywhere near the route */
+		if (x < routeBounds.getMinX() - width
+				|| x > routeBounds.getMaxX() + width
+				|| y < routeBounds.getMinY() - width
+				|| y > routeBounds.getMaxY() + width)
+			return false;
+
+		for (int i = 2; i < route.length; i += 2)
+		{
+			if (Line2D.ptSegDist(route[i - 2], route[i - 1], route[i],
+					route[i + 1], x, y) <= width)
+				return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public Rectangle2D getBounds(Rectangle2D bounds)
+	{
+		double connectionWidth = getConnectionWidth();
+
+		if (bounds == null)
+			bounds = new Rectangle2D.Double();
+
+		/* Get the bounds from the route if possible */
+		if (route == null)
+			bounds.setRect(0, 0, 0, 0);
+		else
+			bounds.setRect(routeBounds);
+
+		/*
+		 * Since a route has no area inside of it, we factor in the width of
+		 * the line here.
+		 */
+		bounds.setRect(bounds.getX() - connectionWidth, bounds.getY()
+				- connectionWidth, bounds.getWidth() + (2 * connectionWidth),
+				bounds.getHeight() + (2 * connectionWidth));
+
+		return bounds;
+	}
+
+	/**
+	 * Overridden to draw the connection as the thinnest possible line at any
+	 * level of detail lower than <code>FULL</code>, regardless of its
+	 * connection stroke.
+	 */
+	@Override
+	protected void paintLevelOfDetail(Graphics2D g2d,
+			LevelOfDetail levelOfDetail)
+	{
+		if (path == null)
+			return;
+
+		Paint oldPaint = g2d.getPaint();
+		Stroke oldStroke = g2d.getStroke();
+		Paint backgroundPaint = getBackgroundPaint();
+
+		if (backgroundPaint != null)
+			g2d.setPaint(backgroundPaint);
+
+		g2d.setStroke(LEVEL_OF_DETAIL_STROKE);
+		g2d.draw(path);
+		g2d.setStroke(oldStroke);
+		g2d.setPaint(oldPaint);
+	}
+
+	@Override
+	public Shape getComponentShape()
+	{
+		return path;
+	}
+
+	@Override
+	public void validate()
+	{
+		/* If this component is already valid don't do anything */
+		if (isValid())
+			return;
+
+		ConnectedComponent sourceComponent = getSourceComponent();
+		ConnectedComponent destinationComponent = getDestinationComponent();
+
+		/*
+		 * Don't calculate anything if there aren't components on each end of
+		 * this connection, or while still being constructed.
+		 */
+		if (sourceComponent == null || destinationComponent == null
+				|| connectionRouter == null)
+			return;
+
+		/* Routes run between the centers, in ComponentPanel coordinates */
+		double startX = sourceComponent.getComponentPanelOffsetX()
+				+ sourceComponent.getCenterX();
+		double startY = sourceComponent.getComponentPanelOffsetY()
+				+ sourceComponent.getCenterY();
+		double endX = destinationComponent.getComponentPanelOffsetX()
+				+ destinationComponent.getCenterX();
+		double endY = destinationComponent.getComponentPanelOffsetY()
+				+ destinationComponent.getCenterY();
+
+		List<Rectangle2D> obstacleList = getObstacles(startX, startY, endX,
+				endY);
+		Set<Rectangle2D> obstacleSet = new HashSet<Rectangle2D>(obstacleList);
+
+		/* Nothing the route depends on changed, keep it */
+		if (route != null && route[0] == startX && route[1] == startY
+				&& route[route.length - 2] == endX
+				&& route[route.length - 1] == endY
+				&& obstacleSet.equals(routeObstacleSet))
+		{
+			super.validate();
+			return;
+		}
+
+		Rectangle2D oldPreferredBounds = getPreferredBounds(repaintBounds);
+		double oldMinX = oldPreferredBounds.getMinX();
+		double oldMinY = oldPreferredBounds.getMinY();
+		double oldMaxX = oldPreferredBounds.getMaxX();
+		double oldMaxY = oldPreferredBounds.getMaxY();
+
+		route = connectionRouter.routeConnection(startX, startY, endX, endY,
+				obstacleList);
+		routeObstacleSet = obstacleSet;
+
+		path = new GeneralPath(GeneralPath.WIND_NON_ZERO, route.length / 2);
+		path.moveTo((float) route[0], (float) route[1]);
+		routeBounds.setFrameFromDiagonal(route[0], route[1], route[0],
+				route[1]);
+
+		for (int i = 2; i < route.length; i += 2)
+		{
+			path.lineTo((float) route[i], (float) route[i + 1]);
+			routeBounds.add(route[i], route[i + 1]);
+		}
+
+		super.validate();
+
+		/* The route isn't a property, so drop the snapshot holding the old one */
+		invalidateSnapshot();
+
+		/* The bounds of a connection follow its route */
+		fireComponentBoundsChanged();
+
+		/* Calculate the repaint area which is the union of the old bounds and the new one. */
+		Rectangle2D preferredBounds = getPreferredBounds(repaintBounds);
+		preferredBounds.add(oldMinX, oldMinY);
+		preferredBounds.add(oldMaxX, oldMaxY);
+
+		/* Repaint the connection */
+		repaint(preferredBounds);
+	}
+
+	@Override
+	public void setSourceComponent(ConnectedComponent sourceComponent)
+	{
+		ConnectedComponent oldSourceComponent = getSourceComponent();
+
+		if (oldSourceComponent == sourceComponent)
+			return;
+
+		/* Delegate to the super implementation */
+		super.setSourceComponent(sourceComponent);
+
+		/* Revalidate and repaint the connection */
+		revalidate();
+		repaint();
+	}
+
+	@Override
+	public void setDestinationComponent(ConnectedComponent destinationComponent)
+	{
+		ConnectedComponent oldDestinationComponent = getDestinationComponent();
+
+		if (oldDestinationComponent == destinationComponent)
+			return;
+
+		/* Delegate to the super implementation */
+		super.setDestinationComponent(destinationComponent);
+
+		/* Revalidate and repaint the connection */
+		revalidate();
+		repaint();
+	}
+
+	/**
+	 * Used to find the bounds of the obstacles the route has to go around,
+	 * starting with the area between the two ends and growing it by the
+	 * obstacles found until no new ones turn up.
+	 *
+	 * @return the bounds of the obstacles in <code>ComponentPanel</code>
+	 *         coordinates.
+	 */
+	protected List<Rectangle2D> getObstacles(double startX, double startY,
+			double endX, double endY)
+	{
+		ConnectedComponent sourceComponent = getSourceComponent();
+		ConnectedComponent destinationComponent = getDestinationComponent();
+		ContainerComponent sourceParent = sourceComponent.getParentComponent();
+		ContainerComponent destinationParent = destinationComponent
+				.getParentComponent();
+		double margin = connectionRouter.getRoutingMargin();
+		List<Rectangle2D> obstacleList = new ArrayList<Rectangle2D>();
+		Rectangle2D region = new Rectangle2D.Double();
+
+		region.setFrameFromDiagonal(startX, startY, endX, endY);
+		region.setRect(region.getX() - margin, region.getY() - margin, region
+				.getWidth()
+				+ (2 * margin), region.getHeight() + (2 * margin));
+
+		for (int pass = 0; pass < MAXIMUM_OBSTACLE_PASSES; pass++)
+		{
+			obstacleList.clear();
+			addObstacles(sourceParent, region, obstacleList);
+
+			if (destinationParent != sourceParent)
+				addObstacles(destinationParent, region, obstacleList);
+
+			/* Routes around the obstacles found may run into others */
+			double minX = region.getMinX();
+			double minY = region.getMinY();
+			double maxX = region.getMaxX();
+			double maxY = region.getMaxY();
+
+			for (int i = 0, size = obstacleList.size(); i < size; i++)
+			{
+				Rectangle2D obstacle = obstacleList.get(i);
+				minX = Math.min(minX, obstacle.getMinX() - (2 * margin));
+				minY = Math.min(minY, obstacle.getMinY() - (2 * margin));
+				maxX = Math.max(maxX, obstacle.getMaxX() + (2 * margin));
+				maxY = Math.max(maxY, obstacle.getMaxY() + (2 * margin));
+			}
+
+			if (minX == region.getMinX() && minY == region.getMinY()
+					&& maxX == region.getMaxX() && maxY == region.getMaxY())
+				break;
+
+			region.setFrameFromDiagonal(minX, minY, maxX, maxY);
+		}
+
+		return obstacleList;
+	}
+
+	/**
+	 * Used to add the bounds of the visible children of
+	 * <code>containerComponent</code> intersecting <code>region</code>, other
+	 * than the ends of this connection and their ancestors, to
+	 * <code>obstacleList</code>.
+	 */
+	private void addObstacles(ContainerComponent containerComponent,
+			Rectangle2D region, List<Rectangle2D> obstacleList)
+	{
+		if (containerComponent == null)
+			return;
+
+		SpatialIndex spatialIndex = containerComponent.getSpatialIndex();
+		double offsetX = containerComponent.getComponentPanelOffsetX()
+				+ containerComponent.getX();
+		double offsetY = containerComponent.getComponentPanelOffsetY()
+				+ containerComponent.getY();
+
+		componentList.clear();
+
+		if (spatialIndex != null)
+			spatialIndex.getComponentsIntersectingBounds(region.getX()
+					- offsetX, region.getY() - offsetY, region.getWidth(),
+					region.getHeight(), componentList);
+		else
+		{
+			for (int i = 0, size = containerComponent.getComponentCount(); i < size; i++)
+				componentList.add(containerComponent.getComponent(i));
+		}
+
+		for (int i = 0, size = componentList.size(); i < size; i++)
+		{
+			Component component = componentList.get(i);
+
+			if (!component.isVisible() || isEndComponent(component))
+				continue;
+
+			Rectangle2D bounds = component.getPreferredBounds(null);
+			bounds.setRect(bounds.getX() + offsetX, bounds.getY() + offsetY,
+					bounds.getWidth(), bounds.getHeight());
+
+			if (bounds.intersects(region))
+				obstacleList.add(bounds);
+		}
+
+		componentList.clear();
+	}
+
+	/**
+	 * Used to determine if <code>component</code> is one of the ends of this
+	 * connection or contains one of them, either way the route has to go into
+	 * it rather than around it.
+	 */
+	private boolean isEndComponent(Component component)
+	{
+		for (Component end = getSourceComponent(); end != null; end = end
+				.getParentComponent())
+		{
+			if (end == component)
+				return true;
+		}
+
+		for (Component end = getDestinationComponent(); end != null; end = end
+				.getParentComponent())
+		{
+			if (end == component)
+				return true;
+		}
+
+		return false;
+	}
+}
@@ -9,21 +9,34 @@ public abstract class AbstractConnectedComponentEvent extends EventObject
 		implements ConnectedComponentEvent
 {
 	private EventType eventType;
-	private Connection connection;
+	private Connection[] connections;
 
 	public AbstractConnectedComponentEvent(ConnectedComponent source, EventType eventType,
 			Connection connection)
+	{
+		this(source, eventType, new Connection[] { connection });
+	}
+
+	public AbstractConnectedComponentEvent(ConnectedComponent source,
+			EventType eventType, Connection[] connections)
 	{
 		super(source);
 
 		if (eventType == null)
 			throw new IllegalArgumentException("eventType cannot be null");
 
-		if (connection == null)
-			throw new IllegalArgumentException("connection cannot be null");
-		
+		if (connections == null || connections.length == 0)
+			throw new IllegalArgumentException(
+					"connections cannot be null or empty");
+
+		for (int i = 0; i < connections.length; i++)
+		{
+			if (connections[i] == null)
+				throw new IllegalArgumentException("connection cannot be null");
+		}
+
 		this.eventType = eventType;
-		this.connection = connection;
+		this.connections = connections;
 	}
 	
 	@Override
@@ -39,6 +52,11 @@ public abstract class AbstractConnectedComponentEvent extends EventObject
 
 	public Connection getConnection()
 	{
-		return connection;
+		return connections[0];
+	}
+
+	public Connection[] getConnections()
+	{
+		return connections.clone();
 	}
 }
\ No newline at end of file
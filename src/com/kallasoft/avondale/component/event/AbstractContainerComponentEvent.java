@@ -9,21 +9,34 @@ public abstract class AbstractContainerComponentEvent extends EventObject
 		implements ContainerComponentEvent
 {
 	private EventType eventType;
-	private Component component;
+	private Component[] components;
 
 	public AbstractContainerComponentEvent(ContainerComponent source, EventType eventType,
 			Component component)
+	{
+		this(source, eventType, new Component[] { component });
+	}
+
+	public AbstractContainerComponentEvent(ContainerComponent source,
+			EventType eventType, Component[] components)
 	{
 		super(source);
 
 		if (eventType == null)
 			throw new IllegalArgumentException("eventType cannot be null");
-		
-		if(component == null)
-			throw new IllegalArgumentException("component cannot be null");
+
+		if (components == null || components.length == 0)
+			throw new IllegalArgumentException(
+					"components cannot be null or empty");
+
+		for (int i = 0; i < components.length; i++)
+		{
+			if (components[i] == null)
+				throw new IllegalArgumentException("component cannot be null");
+		}
 
 		this.eventType = eventType;
-		this.component = component;
+		this.components = components;
 	}
 	
 	@Override
@@ -39,6 +52,11 @@ public abstract class AbstractContainerComponentEvent extends EventObject
 
 	public Component getComponent()
 	{
-		return component;
+		return components[0];
+	}
+
+	public Component[] getComponents()
+	{
+		return components.clone();
 	}
 }
\ No newline at end of file
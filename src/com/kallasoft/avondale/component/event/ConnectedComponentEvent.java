@@ -14,5 +14,19 @@ public interface ConnectedComponentEvent
 	
 	public ConnectedComponent getSource();
 
+	/**
+	 * Used to get the first (or only) connection that was added or removed.
+	 *
+	 * @return the first connection this event is about.
+	 */
 	public Connection getConnection();
+
+	/**
+	 * Used to get all the connections that were added or removed. Events
+	 * fired by the bulk add and remove methods contain every connection
+	 * affected, other events contain a single connection.
+	 *
+	 * @return the connections this event is about.
+	 */
+	public Connection[] getConnections();
 }
\ No newline at end of file
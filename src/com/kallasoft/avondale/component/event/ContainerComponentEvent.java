@@ -14,5 +14,19 @@ public interface ContainerComponentEvent
 	
 	public ContainerComponent getSource();
 	
+	/**
+	 * Used to get the first (or only) component that was added or removed.
+	 *
+	 * @return the first component this event is about.
+	 */
 	public Component getComponent();
+
+	/**
+	 * Used to get all the components that were added or removed. Events fired
+	 * at the end of a batch update contain every component affected by the
+	 * batch, other events contain a single component.
+	 *
+	 * @return the components this event is about.
+	 */
+	public Component[] getComponents();
 }
\ No newline at end of file
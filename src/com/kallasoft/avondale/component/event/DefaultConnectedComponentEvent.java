@@ -13,4 +13,10 @@ public class DefaultConnectedComponentEvent extends
 	{
 		super(source, eventType, connection);
 	}
+
+	public DefaultConnectedComponentEvent(ConnectedComponent source,
+			EventType eventType, Connection[] connections)
+	{
+		super(source, eventType, connections);
+	}
 }
\ No newline at end of file
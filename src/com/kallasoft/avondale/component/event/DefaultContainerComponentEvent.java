@@ -13,4 +13,10 @@ public class DefaultContainerComponentEvent extends
 	{
 		super(source, eventType, component);
 	}
+
+	public DefaultContainerComponentEvent(ContainerComponent source,
+			EventType eventType, Component[] components)
+	{
+		super(source, eventType, components);
+	}
 }
\ No newline at end of file
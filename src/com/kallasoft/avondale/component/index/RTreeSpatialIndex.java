@@ -0,0 +1,661 @@
+package com.kallasoft.avondale.component.index;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.kallasoft.avondale.component.Component;
+
+/**
+ * Class used to provide an R-tree implementation of the
+ * <code>SpatialIndex</code> interface. Point and region queries against this
+ * index run in logarithmic time relative to the number of indexed components
+ * as long as the components are reasonably spread out, which is typically the
+ * case for diagrams.
+ * <p>
+ * Node overflow is handled using Guttman's quadratic split and underflowing
+ * nodes produced by removals are dissolved and their components reinserted.
+ * A map from each indexed component to the leaf node holding it is kept so
+ * removals and updates do not need to search the tree. Updates that keep a
+ * component inside the bounds of its current leaf node are performed in
+ * place, which makes the common case of dragging a component a short distance
+ * very cheap.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class RTreeSpatialIndex implements SpatialIndex
+{
+	public static final int DEFAULT_MAX_NODE_ENTRIES = 16;
+
+	private int maxNodeEntries;
+	private int minNodeEntries;
+	private Node root;
+	private Map<Component, Node> leafMap;
+	private Rectangle2D componentBounds;
+
+	public RTreeSpatialIndex()
+	{
+		this(DEFAULT_MAX_NODE_ENTRIES);
+	}
+
+	public RTreeSpatialIndex(int maxNodeEntries)
+	{
+		if (maxNodeEntries < 4)
+			throw new IllegalArgumentException("maxNodeEntries ("
+					+ maxNodeEntries + ") must be >= 4");
+
+		this.maxNodeEntries = maxNodeEntries;
+		this.minNodeEntries = Math.max(2, (int) (maxNodeEntries * 0.4));
+
+		root = new Node(true, maxNodeEntries);
+		leafMap = new HashMap<Component, Node>();
+		componentBounds = new Rectangle2D.Double();
+	}
+
+	public int getMaxNodeEntries()
+	{
+		return maxNodeEntries;
+	}
+
+	public boolean containsComponent(Component component)
+	{
+		return leafMap.containsKey(component);
+	}
+
+	public void addComponent(Component component)
+	{
+		if (component == null)
+			throw new NullPointerException("component cannot be null");
+
+		if (containsComponent(component))
+			return;
+
+		Rectangle2D bounds = component.getPreferredBounds(componentBounds);
+		insert(component, bounds.getX(), bounds.getY(), bounds.getMaxX(),
+				bounds.getMaxY());
+	}
+
+	public void updateComponent(Component component)
+	{
+		if (component == null)
+			return;
+
+		Node leaf = leafMap.get(component);
+
+		if (leaf == null)
+			return;
+
+		Rectangle2D bounds = component.getPreferredBounds(componentBounds);
+		double minX = bounds.getX();
+		double minY = bounds.getY();
+		double maxX = bounds.getMaxX();
+		double maxY = bounds.getMaxY();
+
+		/*
+		 * If the new bounds still fit inside of the leaf's current bounds, we
+		 * can simply update the entry in place and tighten the bounds of the
+		 * ancestors, otherwise the component needs to be reinserted so it
+		 * lands in a more appropriate leaf.
+		 */
+		if (leaf != root && !leaf.containsRect(minX, minY, maxX, maxY))
+		{
+			remove(component, leaf);
+			insert(component, minX, minY, maxX, maxY);
+		}
+		else
+		{
+			int index = leaf.indexOf(component);
+			leaf.setEntryBounds(index, minX, minY, maxX, maxY);
+
+			for (Node node = leaf; node != null; node = node.parent)
+			{
+				node.recalculateBounds();
+
+				if (node.parent != null)
+					node.parent.setEntryBounds(node.parent.indexOf(node),
+							node.minX, node.minY, node.maxX, node.maxY);
+			}
+		}
+	}
+
+	public void removeComponent(Component component)
+	{
+		if (component == null)
+			return;
+
+		Node leaf = leafMap.get(component);
+
+		if (leaf != null)
+			remove(component, leaf);
+	}
+
+	public void removeComponents()
+	{
+		root = new Node(true, maxNodeEntries);
+		leafMap.clear();
+	}
+
+	public int getComponentCount()
+	{
+		return leafMap.size();
+	}
+
+	public void getComponentsAtLocation(double x, double y,
+			List<Component> components)
+	{
+		search(x, y, x, y, components);
+	}
+
+	public void getComponentsIntersectingBounds(double x, double y,
+			double width, double height, List<Component> components)
+	{
+		if (width < 0 || height < 0)
+			return;
+
+		search(x, y, x + width, y + height, components);
+	}
+
+	public void getComponentsIntersectingBounds(Rectangle2D bounds,
+			List<Component> components)
+	{
+		getComponentsIntersectingBounds(bounds.getX(), bounds.getY(), bounds
+				.getWidth(), bounds.getHeight(), components);
+	}
+
+	private void search(double minX, double minY, double maxX, double maxY,
+			List<Component> components)
+	{
+		if (root.size == 0)
+			return;
+
+		/*
+		 * Walk the tree iteratively using an explicit stack, descending only
+		 * into the nodes whose bounds overlap the query region.
+		 */
+		Node[] stack = new Node[16];
+		int top = 0;
+		stack[top++] = root;
+
+		while (top > 0)
+		{
+			Node node = stack[--top];
+
+			for (int i = 0; i < node.size; i++)
+			{
+				if (node.entryMinX[i] > maxX || node.entryMaxX[i] < minX
+						|| node.entryMinY[i] > maxY
+						|| node.entryMaxY[i] < minY)
+					continue;
+
+				if (node.leaf)
+					components.add((Component) node.entries[i]);
+				else
+				{
+					if (top == stack.length)
+					{
+						Node[] newStack = new Node[stack.length * 2];
+						System.arraycopy(stack, 0, newStack, 0, stack.length);
+						stack = newStack;
+					}
+
+					stack[top++] = (Node) node.entries[i];
+				}
+			}
+		}
+	}
+
+	private void insert(Component component, double minX, double minY,
+			double maxX, double maxY)
+	{
+		Node leaf = chooseLeaf(minX, minY, maxX, maxY);
+		leaf.addEntry(component, minX, minY, maxX, maxY);
+		leafMap.put(component, leaf);
+
+		Node splitNode = null;
+
+		if (leaf.size > maxNodeEntries)
+			splitNode = split(leaf);
+
+		adjustTree(leaf, splitNode);
+	}
+
+	private Node chooseLeaf(double minX, double minY, double maxX, double maxY)
+	{
+		Node node = root;
+
+		while (!node.leaf)
+		{
+			int bestIndex = 0;
+			double bestEnlargement = Double.MAX_VALUE;
+			double bestArea = Double.MAX_VALUE;
+
+			/*
+			 * Descend into the child whose bounds need the least enlargement
+			 * to include the new entry, resolving ties with the smallest area.
+			 */
+			for (int i = 0; i < node.size; i++)
+			{
+				double area = area(node.entryMinX[i], node.entryMinY[i],
+						node.entryMaxX[i], node.entryMaxY[i]);
+				double enlargement = area(Math.min(minX, node.entryMinX[i]),
+						Math.min(minY, node.entryMinY[i]), Math.max(maxX,
+								node.entryMaxX[i]), Math.max(maxY,
+								node.entryMaxY[i]))
+						- area;
+
+				if (enlargement < bestEnlargement
+						|| (enlargement == bestEnlargement && area < bestArea))
+				{
+					bestIndex = i;
+					bestEnlargement = enlargement;
+					bestArea = area;
+				}
+			}
+
+			node = (Node) node.entries[bestIndex];
+		}
+
+		return node;
+	}
+
+	private void adjustTree(Node node, Node splitNode)
+	{
+		while (node != root)
+		{
+			Node parent = node.parent;
+			node.recalculateBounds();
+			parent.setEntryBounds(parent.indexOf(node), node.minX, node.minY,
+					node.maxX, node.maxY);
+
+			Node parentSplitNode = null;
+
+			if (splitNode != null)
+			{
+				splitNode.recalculateBounds();
+				parent.addEntry(splitNode, splitNode.minX, splitNode.minY,
+						splitNode.maxX, splitNode.maxY);
+
+				if (parent.size > maxNodeEntries)
+					parentSplitNode = split(parent);
+			}
+
+			node = parent;
+			splitNode = parentSplitNode;
+		}
+
+		node.recalculateBounds();
+
+		/* If the root was split, grow the tree by one level */
+		if (splitNode != null)
+		{
+			splitNode.recalculateBounds();
+
+			Node newRoot = new Node(false, maxNodeEntries);
+			newRoot.addEntry(root, root.minX, root.minY, root.maxX, root.maxY);
+			newRoot.addEntry(splitNode, splitNode.minX, splitNode.minY,
+					splitNode.maxX, splitNode.maxY);
+			newRoot.recalculateBounds();
+			root = newRoot;
+		}
+	}
+
+	/**
+	 * Used to split an overflowing node using Guttman's quadratic split. The
+	 * entries of <code>node</code> are distributed between itself and a new
+	 * sibling node which is returned.
+	 */
+	private Node split(Node node)
+	{
+		int size = node.size;
+		Object[] entries = node.entries.clone();
+		double[] entryMinX = node.entryMinX.clone();
+		double[] entryMinY = node.entryMinY.clone();
+		double[] entryMaxX = node.entryMaxX.clone();
+		double[] entryMaxY = node.entryMaxY.clone();
+		boolean[] assigned = new boolean[size];
+
+		/* Pick the two seeds that would waste the most area if grouped */
+		int seedA = 0;
+		int seedB = 1;
+		double worstWaste = -Double.MAX_VALUE;
+
+		for (int i = 0; i < size - 1; i++)
+		{
+			for (int j = i + 1; j < size; j++)
+			{
+				double waste = area(Math.min(entryMinX[i], entryMinX[j]), Math
+						.min(entryMinY[i], entryMinY[j]), Math.max(
+						entryMaxX[i], entryMaxX[j]), Math.max(entryMaxY[i],
+						entryMaxY[j]))
+						- area(entryMinX[i], entryMinY[i], entryMaxX[i],
+								entryMaxY[i])
+						- area(entryMinX[j], entryMinY[j], entryMaxX[j],
+								entryMaxY[j]);
+
+				if (waste > worstWaste)
+				{
+					worstWaste = waste;
+					seedA = i;
+					seedB = j;
+				}
+			}
+		}
+
+		Node sibling = new Node(node.leaf, maxNodeEntries);
+		sibling.parent = node.parent;
+		node.clearEntries();
+
+		assignEntry(node, entries, entryMinX, entryMinY, entryMaxX, entryMaxY,
+				seedA);
+		assignEntry(sibling, entries, entryMinX, entryMinY, entryMaxX,
+				entryMaxY, seedB);
+		assigned[seedA] = true;
+		assigned[seedB] = true;
+
+		int remaining = size - 2;
+
+		while (remaining > 0)
+		{
+			/*
+			 * If one group needs all the remaining entries to reach the
+			 * minimum fill, give them all to it.
+			 */
+			Node forcedNode = null;
+
+			if (node.size + remaining == minNodeEntries)
+				forcedNode = node;
+			else if (sibling.size + remaining == minNodeEntries)
+				forcedNode = sibling;
+
+			if (forcedNode != null)
+			{
+				for (int i = 0; i < size; i++)
+				{
+					if (!assigned[i])
+					{
+						assignEntry(forcedNode, entries, entryMinX, entryMinY,
+								entryMaxX, entryMaxY, i);
+						assigned[i] = true;
+					}
+				}
+
+				break;
+			}
+
+			/*
+			 * Pick the entry with the greatest preference for one group over
+			 * the other and assign it to the group needing less enlargement.
+			 */
+			int nextIndex = -1;
+			double nextDifference = -1;
+			double nextEnlargementA = 0;
+			double nextEnlargementB = 0;
+			double areaA = area(node.minX, node.minY, node.maxX, node.maxY);
+			double areaB = area(sibling.minX, sibling.minY, sibling.maxX,
+					sibling.maxY);
+
+			for (int i = 0; i < size; i++)
+			{
+				if (assigned[i])
+					continue;
+
+				double enlargementA = area(Math.min(node.minX, entryMinX[i]),
+						Math.min(node.minY, entryMinY[i]), Math.max(node.maxX,
+								entryMaxX[i]), Math.max(node.maxY,
+								entryMaxY[i]))
+						- areaA;
+				double enlargementB = area(Math
+						.min(sibling.minX, entryMinX[i]), Math.min(
+						sibling.minY, entryMinY[i]), Math.max(sibling.maxX,
+						entryMaxX[i]), Math.max(sibling.maxY, entryMaxY[i]))
+						- areaB;
+				double difference = Math.abs(enlargementA - enlargementB);
+
+				if (difference > nextDifference)
+				{
+					nextIndex = i;
+					nextDifference = difference;
+					nextEnlargementA = enlargementA;
+					nextEnlargementB = enlargementB;
+				}
+			}
+
+			Node target;
+
+			if (nextEnlargementA < nextEnlargementB)
+				target = node;
+			else if (nextEnlargementB < nextEnlargementA)
+				target = sibling;
+			else if (areaA != areaB)
+				target = (areaA < areaB ? node : sibling);
+			else
+				target = (node.size <= sibling.size ? node : sibling);
+
+			assignEntry(target, entries, entryMinX, entryMinY, entryMaxX,
+					entryMaxY, nextIndex);
+			assigned[nextIndex] = true;
+			remaining--;
+		}
+
+		return sibling;
+	}
+
+	private void assignEntry(Node node, Object[] entries, double[] entryMinX,
+			double[] entryMinY, double[] entryMaxX, double[] entryMaxY,
+			int index)
+	{
+		Object entry = entries[index];
+		node.addEntry(entry, entryMinX[index], entryMinY[index],
+				entryMaxX[index], entryMaxY[index]);
+		node.includeRect(entryMinX[index], entryMinY[index], entryMaxX[index],
+				entryMaxY[index]);
+
+		/* Keep the back references pointing at the node now holding entry */
+		if (node.leaf)
+			leafMap.put((Component) entry, node);
+		else
+			((Node) entry).parent = node;
+	}
+
+	private void remove(Component component, Node leaf)
+	{
+		leaf.removeEntry(leaf.indexOf(component));
+		leafMap.remove(component);
+
+		/*
+		 * Condense the tree, dissolving any node that dropped below the
+		 * minimum fill and collecting its components for reinsertion.
+		 */
+		List<Node> orphanedNodes = new ArrayList<Node>(0);
+		Node node = leaf;
+
+		while (node != root)
+		{
+			Node parent = node.parent;
+			int index = parent.indexOf(node);
+
+			if (node.size < minNodeEntries)
+			{
+				parent.removeEntry(index);
+				orphanedNodes.add(node);
+			}
+			else
+			{
+				node.recalculateBounds();
+				parent.setEntryBounds(index, node.minX, node.minY, node.maxX,
+						node.maxY);
+			}
+
+			node = parent;
+		}
+
+		root.recalculateBounds();
+
+		/* Shorten the tree if the root is left with a single child */
+		while (!root.leaf && root.size == 1)
+		{
+			root = (Node) root.entries[0];
+			root.parent = null;
+		}
+
+		if (!root.leaf && root.size == 0)
+			root = new Node(true, maxNodeEntries);
+
+		for (int i = 0, size = orphanedNodes.size(); i < size; i++)
+			reinsert(orphanedNodes.get(i));
+	}
+
+	private void reinsert(Node node)
+	{
+		for (int i = 0; i < node.size; i++)
+		{
+			if (node.leaf)
+			{
+				Component component = (Component) node.entries[i];
+				leafMap.remove(component);
+				insert(component, node.entryMinX[i], node.entryMinY[i],
+						node.entryMaxX[i], node.entryMaxY[i]);
+			}
+			else
+				reinsert((Node) node.entries[i]);
+		}
+	}
+
+	private static double area(double minX, double minY, double maxX,
+			double maxY)
+	{
+		return (maxX - minX) * (maxY - minY);
+	}
+
+	/**
+	 * Class used to represent a single node in the tree. Entries are stored in
+	 * parallel arrays so that traversing a node does not require touching the
+	 * bounds objects of every child.
+	 */
+	private static class Node
+	{
+		private boolean leaf;
+		private int size;
+		private double minX;
+		private double minY;
+		private double maxX;
+		private double maxY;
+		private Node parent;
+		private Object[] entries;
+		private double[] entryMinX;
+		private double[] entryMinY;
+		private double[] entryMaxX;
+		private double[] entryMaxY;
+
+		public Node(boolean leaf, int maxNodeEntries)
+		{
+			this.leaf = leaf;
+
+			/* One extra slot so a node can briefly overflow before splitting */
+			entries = new Object[maxNodeEntries + 1];
+			entryMinX = new double[maxNodeEntries + 1];
+			entryMinY = new double[maxNodeEntries + 1];
+			entryMaxX = new double[maxNodeEntries + 1];
+			entryMaxY = new double[maxNodeEntries + 1];
+
+			clearEntries();
+		}
+
+		public void addEntry(Object entry, double minX, double minY,
+				double maxX, double maxY)
+		{
+			entries[size] = entry;
+			setEntryBounds(size, minX, minY, maxX, maxY);
+
+			if (!leaf)
+				((Node) entry).parent = this;
+
+			size++;
+		}
+
+		public void removeEntry(int index)
+		{
+			int last = size - 1;
+
+			/* Order within a node is irrelevant so move the last entry down */
+			entries[index] = entries[last];
+			entryMinX[index] = entryMinX[last];
+			entryMinY[index] = entryMinY[last];
+			entryMaxX[index] = entryMaxX[last];
+			entryMaxY[index] = entryMaxY[last];
+			entries[last] = null;
+			size--;
+		}
+
+		public void clearEntries()
+		{
+			for (int i = 0; i < size; i++)
+				entries[i] = null;
+
+			size = 0;
+			minX = Double.MAX_VALUE;
+			minY = Double.MAX_VALUE;
+			maxX = -Double.MAX_VALUE;
+			maxY = -Double.MAX_VALUE;
+		}
+
+		public int indexOf(Object entry)
+		{
+			for (int i = 0; i < size; i++)
+			{
+				if (entries[i] == entry)
+					return i;
+			}
+
+			return -1;
+		}
+
+		public void setEntryBounds(int index, double minX, double minY,
+				double maxX, double maxY)
+		{
+			entryMinX[index] = minX;
+			entryMinY[index] = minY;
+			entryMaxX[index] = maxX;
+			entryMaxY[index] = maxY;
+		}
+
+		public boolean containsRect(double minX, double minY, double maxX,
+				double maxY)
+		{
+			return (minX >= this.minX && minY >= this.minY
+					&& maxX <= this.maxX && maxY <= this.maxY);
+		}
+
+		public void includeRect(double minX, double minY, double maxX,
+				double maxY)
+		{
+			if (minX < this.minX)
+				this.minX = minX;
+
+			if (minY < this.minY)
+				this.minY = minY;
+
+			if (maxX > this.maxX)
+				this.maxX = maxX;
+
+			if (maxY > this.maxY)
+				this.maxY = maxY;
+		}
+
+		public void recalculateBounds()
+		{
+			minX = Double.MAX_VALUE;
+			minY = Double.MAX_VALUE;
+			maxX = -Double.MAX_VALUE;
+			maxY = -Double.MAX_VALUE;
+
+			for (int i = 0; i < size; i++)
+				includeRect(entryMinX[i], entryMinY[i], entryMaxX[i],
+						entryMaxY[i]);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.kallasoft.avondale.component.index;
+
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+
+import com.kallasoft.avondale.component.Component;
+
+/**
+ * Interface used to describe a spatial index that can be applied to a
+ * <code>ContainerComponent</code> in order to quickly locate the child
+ * <code>Component</code>s that occupy a given point or region of its
+ * coordinate space without needing to check every child.
+ * <p>
+ * Components are indexed by their preferred bounds (the bounds including the
+ * border) in the coordinate space of their parent. The index only returns
+ * candidates whose indexed bounds match the query, callers are still
+ * responsible for performing any exact hit-testing (e.g.
+ * <code>Component.contains(x, y)</code>) and for ordering the results.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public interface SpatialIndex
+{
+	public boolean containsComponent(Component component);
+
+	/**
+	 * Used to add <code>component</code> to the index using its current
+	 * preferred bounds. If the component is already indexed this method does
+	 * nothing.
+	 *
+	 * @param component
+	 *            The <code>Component</code> to add to the index.
+	 */
+	public void addComponent(Component component);
+
+	/**
+	 * Used to bring the indexed bounds of <code>component</code> back in sync
+	 * with its current preferred bounds. This must be called whenever the
+	 * location, size or border of an indexed component changes.
+	 *
+	 * @param component
+	 *            The <code>Component</code> whose bounds have changed.
+	 */
+	public void updateComponent(Component component);
+
+	public void removeComponent(Component component);
+
+	public void removeComponents();
+
+	public int getComponentCount();
+
+	/**
+	 * Used to find all the indexed <code>Component</code>s whose bounds
+	 * contain the given point.
+	 *
+	 * @param x
+	 *            The x coordinate of the point.
+	 * @param y
+	 *            The y coordinate of the point.
+	 * @param components
+	 *            The list the matching <code>Component</code>s will be added
+	 *            to, in no particular order.
+	 */
+	public void getComponentsAtLocation(double x, double y,
+			List<Component> components);
+
+	/**
+	 * Used to find all the indexed <code>Component</code>s whose bounds
+	 * intersect the given region.
+	 *
+	 * @param x
+	 *            The x coordinate of the region.
+	 * @param y
+	 *            The y coordinate of the region.
+	 * @param width
+	 *            The width of the region.
+	 * @param height
+	 *            The height of the region.
+	 * @param components
+	 *            The list the matching <code>Component</code>s will be added
+	 *            to, in no particular order.
+	 */
+	public void getComponentsIntersectingBounds(double x, double y,
+			double width, double height, List<Component> components);
+
+	public void getComponentsIntersectingBounds(Rectangle2D bounds,
+			List<Component> components);
+}
@@ -0,0 +1,212 @@
+package com.kallasoft.avondale.component.layout;
+
+import java.awt.geom.Rectangle2D;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.kallasoft.avondale.component.Component;
+import com.kallasoft.avondale.component.ContainerComponent;
+
+/**
+ * Abstract class used to provide a basic implementation of the
+ * <code>IncrementalContainerLayout</code> interface for layouts that only
+ * depend on the extremes (the smallest or largest value) of a few values
+ * taken from the preferred bounds of every child, e.g. the left-most x
+ * coordinate or the right-most edge.
+ * <p>
+ * The values of every child are remembered along with the current extremes.
+ * When a child is added or changes, an extreme only moves if the child now
+ * goes past it. The children are only looked at again when the child that
+ * held an extreme is removed or moves back from it, as then there is no way
+ * to tell which child holds the new extreme without looking.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public abstract class AbstractIncrementalContainerLayout implements
+		IncrementalContainerLayout
+{
+	private boolean rescanRequired;
+	private boolean[] maximumValues;
+	private double[] extremeValues;
+	private ContainerComponent containerComponent;
+	private Map<Component, double[]> componentValueMap;
+
+	/**
+	 * Used to create a layout that tracks the extremes of
+	 * <code>maximumValues.length</code> values per child.
+	 *
+	 * @param maximumValues
+	 *            For every value, <code>true</code> if the largest value of
+	 *            all the children is tracked or <code>false</code> if the
+	 *            smallest is. The largest values never drop below 0.
+	 */
+	public AbstractIncrementalContainerLayout(boolean[] maximumValues)
+	{
+		this.maximumValues = maximumValues.clone();
+
+		rescanRequired = true;
+		extremeValues = new double[maximumValues.length];
+		componentValueMap = new HashMap<Component, double[]>();
+	}
+
+	public boolean layoutContainer(ContainerComponent containerComponent)
+	{
+		if (rescanRequired || this.containerComponent != containerComponent)
+			rescan(containerComponent);
+
+		return layoutContainer(containerComponent, extremeValues);
+	}
+
+	public void componentAdded(ContainerComponent containerComponent,
+			Component component)
+	{
+		if (rescanRequired || this.containerComponent != containerComponent)
+			return;
+
+		double[] values = new double[extremeValues.length];
+		getValues(component.getPreferredBounds(), values);
+		componentValueMap.put(component, values);
+
+		for (int i = 0; i < values.length; i++)
+		{
+			if (isBeyondExtreme(i, values[i]))
+				extremeValues[i] = values[i];
+		}
+	}
+
+	public void componentRemoved(ContainerComponent containerComponent,
+			Component component)
+	{
+		if (rescanRequired || this.containerComponent != containerComponent)
+			return;
+
+		double[] values = componentValueMap.remove(component);
+
+		if (values == null)
+			return;
+
+		for (int i = 0; !rescanRequired && i < values.length; i++)
+		{
+			if (values[i] == extremeValues[i])
+				rescanRequired = true;
+		}
+	}
+
+	public boolean componentBoundsChanged(
+			ContainerComponent containerComponent, Component component)
+	{
+		/* Nothing is known about the children, so anything can change */
+		if (rescanRequired || this.containerComponent != containerComponent)
+			return true;
+
+		double[] values = componentValueMap.get(component);
+
+		if (values == null)
+		{
+			componentAdded(containerComponent, component);
+			return true;
+		}
+
+		double[] oldValues = values.clone();
+		getValues(component.getPreferredBounds(), values);
+
+		boolean extremeChanged = false;
+
+		for (int i = 0; !rescanRequired && i < values.length; i++)
+		{
+			if (isBeyondExtreme(i, values[i]))
+			{
+				extremeValues[i] = values[i];
+				extremeChanged = true;
+			}
+			else if (oldValues[i] == extremeValues[i]
+					&& values[i] != oldValues[i])
+				rescanRequired = true;
+		}
+
+		return (extremeChanged || rescanRequired);
+	}
+
+	public void invalidateLayout(ContainerComponent containerComponent)
+	{
+		if (this.containerComponent != containerComponent)
+			return;
+
+		this.containerComponent = null;
+		rescanRequired = true;
+		componentValueMap.clear();
+	}
+
+	/**
+	 * Used to get the values tracked for a child from its preferred bounds.
+	 *
+	 * @param preferredBounds
+	 *            The preferred bounds of the child.
+	 * @param values
+	 *            The array to store the values in, in the same order as the
+	 *            <code>maximumValues</code> passed to the constructor.
+	 */
+	protected abstract void getValues(Rectangle2D preferredBounds,
+			double[] values);
+
+	/**
+	 * Used to lay out <code>containerComponent</code> given the current
+	 * extremes of the values of its children.
+	 *
+	 * @param containerComponent
+	 *            The container to lay out.
+	 * @param extremeValues
+	 *            The extremes of the values of all the children. Smallest
+	 *            values are <code>Double.MAX_VALUE</code> when there are no
+	 *            children. The array must not be modified.
+	 * @return <code>true</code> if any layout was changed or
+	 *         <code>false</code> if nothing changed.
+	 */
+	protected abstract boolean layoutContainer(
+			ContainerComponent containerComponent, double[] extremeValues);
+
+	/**
+	 * Used to look at every child of <code>containerComponent</code> again
+	 * and start tracking it.
+	 */
+	private void rescan(ContainerComponent containerComponent)
+	{
+		this.containerComponent = containerComponent;
+		componentValueMap.clear();
+
+		for (int i = 0; i < extremeValues.length; i++)
+			extremeValues[i] = (maximumValues[i] ? 0 : Double.MAX_VALUE);
+
+		Rectangle2D preferredBounds = new Rectangle2D.Double();
+
+		for (int i = 0, size = containerComponent.getComponentCount(); i < size; i++)
+		{
+			Component childComponent = containerComponent.getComponent(i);
+
+			/* Make sure the child is valid before using */
+			if (!childComponent.isValid())
+				childComponent.validate();
+
+			double[] values = new double[extremeValues.length];
+			getValues(childComponent.getPreferredBounds(preferredBounds),
+					values);
+			componentValueMap.put(childComponent, values);
+
+			for (int j = 0; j < values.length; j++)
+			{
+				if (isBeyondExtreme(j, values[j]))
+					extremeValues[j] = values[j];
+			}
+		}
+
+		rescanRequired = false;
+	}
+
+	private boolean isBeyondExtreme(int index, double value)
+	{
+		return (maximumValues[index] ? value > extremeValues[index]
+				: value < extremeValues[index]);
+	}
+}
@@ -0,0 +1,160 @@
+package com.kallasoft.avondale.component.layout;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import javax.swing.SwingUtilities;
+
+import com.kallasoft.avondale.component.ContainerComponent;
+
+/**
+ * Abstract class used to provide a basic implementation of the
+ * <code>LayoutScheduler</code> interface that keeps the scheduled containers
+ * in a queue ordered by their depth in the hierarchy.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public abstract class AbstractLayoutScheduler implements LayoutScheduler
+{
+	private boolean validating;
+	private boolean validationPending;
+	private Runnable validationHandler;
+	private Set<ContainerComponent> scheduledComponentSet;
+	private PriorityQueue<ScheduledLayout> scheduledLayoutQueue;
+
+	public AbstractLayoutScheduler()
+	{
+		validationHandler = new ValidationHandler();
+		scheduledComponentSet = new HashSet<ContainerComponent>();
+		scheduledLayoutQueue = new PriorityQueue<ScheduledLayout>(16,
+				new DepthComparator());
+	}
+
+	public boolean isLayoutScheduled(ContainerComponent containerComponent)
+	{
+		return scheduledComponentSet.contains(containerComponent);
+	}
+
+	public int getScheduledLayoutCount()
+	{
+		return scheduledComponentSet.size();
+	}
+
+	public void scheduleLayout(ContainerComponent containerComponent)
+	{
+		if (containerComponent == null
+				|| !scheduledComponentSet.add(containerComponent))
+			return;
+
+		scheduledLayoutQueue.add(new ScheduledLayout(containerComponent,
+				getDepth(containerComponent)));
+
+		/* Run the pass once the current event has been dispatched */
+		if (!validationPending)
+		{
+			validationPending = true;
+			SwingUtilities.invokeLater(validationHandler);
+		}
+	}
+
+	public void validateScheduledLayouts()
+	{
+		/*
+		 * Layouts validate the children they depend on themselves, so a pass
+		 * started from within a layout has nothing to add.
+		 */
+		if (validating)
+			return;
+
+		validating = true;
+
+		try
+		{
+			while (!scheduledLayoutQueue.isEmpty())
+			{
+				ContainerComponent containerComponent = scheduledLayoutQueue
+						.poll().containerComponent;
+				scheduledComponentSet.remove(containerComponent);
+
+				/*
+				 * The container may have been validated in the meantime by the
+				 * layout of one of its ancestors or by being painted.
+				 */
+				if (!containerComponent.isValid())
+					containerComponent.validate();
+			}
+		}
+		finally
+		{
+			validating = false;
+		}
+	}
+
+	/**
+	 * Used to get the depth of <code>containerComponent</code> in its
+	 * hierarchy, root components have a depth of 0.
+	 *
+	 * @param containerComponent
+	 *            The container to get the depth of.
+	 * @return the number of ancestors of the container.
+	 */
+	protected int getDepth(ContainerComponent containerComponent)
+	{
+		int depth = 0;
+		ContainerComponent parentComponent = containerComponent
+				.getParentComponent();
+
+		while (parentComponent != null)
+		{
+			depth++;
+			parentComponent = parentComponent.getParentComponent();
+		}
+
+		return depth;
+	}
+
+	/**
+	 * Class used to hold a scheduled container along with its depth at the
+	 * time it was scheduled.
+	 */
+	private static class ScheduledLayout
+	{
+		private ContainerComponent containerComponent;
+		private int depth;
+
+		public ScheduledLayout(ContainerComponent containerComponent, int depth)
+		{
+			this.containerComponent = containerComponent;
+			this.depth = depth;
+		}
+	}
+
+	/**
+	 * Class used to order the scheduled layouts deepest first.
+	 */
+	private static class DepthComparator implements
+			Comparator<ScheduledLayout>
+	{
+		public int compare(ScheduledLayout scheduledLayout1,
+				ScheduledLayout scheduledLayout2)
+		{
+			return scheduledLayout2.depth - scheduledLayout1.depth;
+		}
+	}
+
+	/**
+	 * Class used to run the scheduled layouts on the event dispatch thread.
+	 */
+	private class ValidationHandler implements Runnable
+	{
+		public void run()
+		{
+			validationPending = false;
+			validateScheduledLayouts();
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package com.kallasoft.avondale.component.layout;
+
+/**
+ * Default implementation of the <code>LayoutScheduler</code> interface.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class DefaultLayoutScheduler extends AbstractLayoutScheduler
+{
+	public DefaultLayoutScheduler()
+	{
+		super();
+	}
+}
@@ -29,7 +29,7 @@ public class FitToChildrenContainerLayout implements ContainerLayout
 		double oldY = containerComponent.getY();
 		double oldWidth = containerComponent.getWidth();
 		double oldHeight = containerComponent.getHeight();
-		Component[] components = containerComponent.getComponents();
+		Rectangle2D preferredBounds = new Rectangle2D.Double();
 
 		/* If there are no children, make the x/y bounds 0 */
 		if (containerComponent.getComponentCount() == 0)
@@ -38,15 +38,19 @@ public class FitToChildrenContainerLayout implements ContainerLayout
 			y = 0;
 		}
 
-		for (int i = 0; i < components.length; i++)
+		/*
+		 * Iterate the children directly and reuse the same rectangle for each
+		 * of their preferred bounds to avoid creating garbage on every pass.
+		 */
+		for (int i = 0, size = containerComponent.getComponentCount(); i < size; i++)
 		{
-			Component childComponent = components[i];
+			Component childComponent = containerComponent.getComponent(i);
 
 			/* Make sure the child is valid before using */
 			if (!childComponent.isValid())
 				childComponent.validate();
 
-			Rectangle2D preferredBounds = childComponent.getPreferredBounds();
+			childComponent.getPreferredBounds(preferredBounds);
 
 			value = preferredBounds.getX();
 
@@ -0,0 +1,54 @@
+package com.kallasoft.avondale.component.layout;
+
+import com.kallasoft.avondale.component.Component;
+import com.kallasoft.avondale.component.ContainerComponent;
+
+/**
+ * Interface used to describe a <code>ContainerLayout</code> that is told
+ * about every child that is added to, removed from or changes its bounds in
+ * the container it lays out, so it can keep its results up to date from the
+ * change to a single child instead of looking at every child again each time
+ * the container is laid out.
+ * <p>
+ * Because it keeps track of the children of a container, an instance of an
+ * incremental layout should only be set on a single container.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public interface IncrementalContainerLayout extends ContainerLayout
+{
+	public void componentAdded(ContainerComponent containerComponent,
+			Component component);
+
+	public void componentRemoved(ContainerComponent containerComponent,
+			Component component);
+
+	/**
+	 * Used to notify the layout that the preferred bounds of
+	 * <code>component</code>, a child of <code>containerComponent</code>,
+	 * have changed.
+	 *
+	 * @param containerComponent
+	 *            The container the layout is set on.
+	 * @param component
+	 *            The child whose preferred bounds changed.
+	 * @return <code>true</code> if the change can affect the layout of
+	 *         <code>containerComponent</code>, which then has to be laid out
+	 *         again, or <code>false</code> if it can't.
+	 */
+	public boolean componentBoundsChanged(ContainerComponent containerComponent,
+			Component component);
+
+	/**
+	 * Used to discard everything the layout knows about the children of
+	 * <code>containerComponent</code>, the next time the container is laid
+	 * out every child is looked at again. This is called when the layout is
+	 * set on or removed from a container.
+	 *
+	 * @param containerComponent
+	 *            The container the layout is set on or removed from.
+	 */
+	public void invalidateLayout(ContainerComponent containerComponent);
+}
@@ -0,0 +1,60 @@
+package com.kallasoft.avondale.component.layout;
+
+import java.awt.geom.Rectangle2D;
+
+import com.kallasoft.avondale.component.ContainerComponent;
+
+/**
+ * Incremental version of the <code>FitToChildrenContainerLayout</code>
+ * producing the same bounds, without looking at every child each time the
+ * container is laid out.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class IncrementalFitToChildrenContainerLayout extends
+		AbstractIncrementalContainerLayout
+{
+	private static final boolean[] MAXIMUM_VALUES = { false, false, true,
+			true };
+
+	public IncrementalFitToChildrenContainerLayout()
+	{
+		super(MAXIMUM_VALUES);
+	}
+
+	@Override
+	protected void getValues(Rectangle2D preferredBounds, double[] values)
+	{
+		values[0] = preferredBounds.getX();
+		values[1] = preferredBounds.getY();
+		values[2] = preferredBounds.getWidth();
+		values[3] = preferredBounds.getHeight();
+	}
+
+	@Override
+	protected boolean layoutContainer(ContainerComponent containerComponent,
+			double[] extremeValues)
+	{
+		double oldX = containerComponent.getX();
+		double oldY = containerComponent.getY();
+		double oldWidth = containerComponent.getWidth();
+		double oldHeight = containerComponent.getHeight();
+
+		/* If there are no children, make the x/y bounds 0 */
+		boolean empty = (containerComponent.getComponentCount() == 0);
+		double x = (empty ? 0 : extremeValues[0]);
+		double y = (empty ? 0 : extremeValues[1]);
+		double width = extremeValues[2];
+		double height = extremeValues[3];
+
+		containerComponent.setBounds(x, y, width, height);
+
+		/*
+		 * Determine if the layout changed at all and return true, otherwise
+		 * false
+		 */
+		return (x != oldX || y != oldY || width != oldWidth || height != oldHeight);
+	}
+}
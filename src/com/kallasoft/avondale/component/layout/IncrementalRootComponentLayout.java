@@ -0,0 +1,76 @@
+package com.kallasoft.avondale.component.layout;
+
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+
+import com.kallasoft.avondale.component.ContainerComponent;
+import com.kallasoft.avondale.panel.ComponentPanel;
+
+/**
+ * Incremental version of the <code>RootComponentLayout</code> producing the
+ * same size, without looking at every child each time the root component is
+ * laid out. Resizing the <code>ComponentPanel</code> only compares the
+ * tracked extent of the children with the new visible area.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class IncrementalRootComponentLayout extends
+		AbstractIncrementalContainerLayout
+{
+	private static final boolean[] MAXIMUM_VALUES = { true, true };
+
+	public IncrementalRootComponentLayout()
+	{
+		super(MAXIMUM_VALUES);
+	}
+
+	@Override
+	protected void getValues(Rectangle2D preferredBounds, double[] values)
+	{
+		values[0] = preferredBounds.getX() + preferredBounds.getWidth();
+		values[1] = preferredBounds.getY() + preferredBounds.getHeight();
+	}
+
+	@Override
+	protected boolean layoutContainer(ContainerComponent containerComponent,
+			double[] extremeValues)
+	{
+		double width = extremeValues[0];
+		double height = extremeValues[1];
+		double value = 0;
+
+		double oldWidth = containerComponent.getWidth();
+		double oldHeight = containerComponent.getHeight();
+
+		/*
+		 * Make sure the rootComponent atleast fills the visible area of the
+		 * componentPanel.
+		 */
+		ComponentPanel componentPanel = containerComponent.getComponentPanel();
+
+		if (componentPanel != null)
+		{
+			Rectangle visibleRectangle = componentPanel.getVisibleRect();
+
+			value = visibleRectangle.getWidth();
+
+			if (value > width)
+				width = value;
+
+			value = visibleRectangle.getHeight();
+
+			if (value > height)
+				height = value;
+		}
+
+		containerComponent.setSize(width, height);
+
+		/*
+		 * Determine if the layout changed at all and return true, otherwise
+		 * false
+		 */
+		return (width != oldWidth || height != oldHeight);
+	}
+}
@@ -0,0 +1,55 @@
+package com.kallasoft.avondale.component.layout;
+
+import com.kallasoft.avondale.component.ContainerComponent;
+
+/**
+ * Interface used to describe a scheduler that collects the
+ * <code>ContainerComponent</code>s whose layout became invalid and lays them
+ * out together, once per event dispatch cycle, instead of every change
+ * recursively laying out the container and everything above it.
+ * <p>
+ * Scheduled containers are laid out bottom-up, the deepest containers first,
+ * so by the time a container runs its <code>ContainerLayout</code> the
+ * layouts of its children are already done. A container only invalidates
+ * (and so schedules) its parent once its own bounds turned out to be
+ * different after being laid out, which stops the propagation as soon as a
+ * layout doesn't change anything.
+ * <p>
+ * Because of this a valid root component can still contain invalid
+ * containers until the scheduled layouts are run. Code that expects the whole
+ * hierarchy to be valid (e.g. before painting it on other threads) should
+ * call {@link #validateScheduledLayouts()} first.
+ * <p>
+ * Like the components themselves, a scheduler must only be used from the
+ * event dispatch thread.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ * @see com.kallasoft.avondale.panel.ComponentPanel#setLayoutScheduler(LayoutScheduler)
+ */
+public interface LayoutScheduler
+{
+	public boolean isLayoutScheduled(ContainerComponent containerComponent);
+
+	public int getScheduledLayoutCount();
+
+	/**
+	 * Used to schedule the layout of <code>containerComponent</code>. A
+	 * container that is already scheduled is only laid out once, and the
+	 * scheduled layouts are run automatically later on the event dispatch
+	 * thread.
+	 *
+	 * @param containerComponent
+	 *            The container whose layout is invalid.
+	 */
+	public void scheduleLayout(ContainerComponent containerComponent);
+
+	/**
+	 * Used to immediately lay out and validate every scheduled container,
+	 * deepest first. Containers scheduled while this runs are laid out as
+	 * part of the same pass. Calling this while a pass is already running
+	 * doesn't do anything.
+	 */
+	public void validateScheduledLayouts();
+}
@@ -0,0 +1,103 @@
+package com.kallasoft.avondale.component.layout.graph;
+
+import java.awt.geom.Point2D;
+
+/**
+ * Abstract class used to provide a basic implementation of the
+ * <code>GraphLayout</code> interface holding the spacing between nodes and
+ * the helper methods shared by the layouts.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public abstract class AbstractGraphLayout implements GraphLayout
+{
+	private final double horizontalSpacing;
+	private final double verticalSpacing;
+
+	public AbstractGraphLayout(double horizontalSpacing, double verticalSpacing)
+			throws IllegalArgumentException
+	{
+		if (horizontalSpacing < 0)
+			throw new IllegalArgumentException("horizontalSpacing ("
+					+ horizontalSpacing + ") must be >= 0");
+		if (verticalSpacing < 0)
+			throw new IllegalArgumentException("verticalSpacing ("
+					+ verticalSpacing + ") must be >= 0");
+
+		this.horizontalSpacing = horizontalSpacing;
+		this.verticalSpacing = verticalSpacing;
+	}
+
+	public double getHorizontalSpacing()
+	{
+		return horizontalSpacing;
+	}
+
+	public double getVerticalSpacing()
+	{
+		return verticalSpacing;
+	}
+
+	/**
+	 * Used to get the top left corner of the bounds of all the nodes, the
+	 * layouts keep the laid out graph anchored there so it doesn't jump away
+	 * from where the user was looking.
+	 *
+	 * @param graphSnapshot
+	 *            The graph being laid out.
+	 * @return the smallest x and y coordinate of all the nodes, or 0,0 if
+	 *         there are no nodes.
+	 */
+	protected Point2D getOrigin(GraphSnapshot graphSnapshot)
+	{
+		int nodeCount = graphSnapshot.getNodeCount();
+
+		if (nodeCount == 0)
+			return new Point2D.Double();
+
+		double x = Double.MAX_VALUE;
+		double y = Double.MAX_VALUE;
+
+		for (int i = 0; i < nodeCount; i++)
+		{
+			x = Math.min(x, graphSnapshot.getX(i));
+			y = Math.min(y, graphSnapshot.getY(i));
+		}
+
+		return new Point2D.Double(x, y);
+	}
+
+	/**
+	 * Used to turn the computed top left corners of the nodes into locations,
+	 * moving them so the top left corner of their bounds ends up at
+	 * <code>origin</code>.
+	 *
+	 * @param x
+	 *            The computed x coordinate of every node.
+	 * @param y
+	 *            The computed y coordinate of every node.
+	 * @param origin
+	 *            Where the top left corner of the laid out graph should be.
+	 * @return the new locations of the nodes.
+	 */
+	protected Point2D[] createLocations(double[] x, double[] y, Point2D origin)
+	{
+		double minX = Double.MAX_VALUE;
+		double minY = Double.MAX_VALUE;
+		Point2D[] locations = new Point2D[x.length];
+
+		for (int i = 0; i < x.length; i++)
+		{
+			minX = Math.min(minX, x[i]);
+			minY = Math.min(minY, y[i]);
+		}
+
+		for (int i = 0; i < x.length; i++)
+			locations[i] = new Point2D.Double(origin.getX() + x[i] - minX,
+					origin.getY() + y[i] - minY);
+
+		return locations;
+	}
+}
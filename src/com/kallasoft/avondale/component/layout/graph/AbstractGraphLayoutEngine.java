@@ -0,0 +1,292 @@
+package com.kallasoft.avondale.component.layout.graph;
+
+import java.awt.geom.Point2D;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.SwingUtilities;
+
+import com.kallasoft.avondale.component.ConnectedComponent;
+import com.kallasoft.avondale.component.ContainerComponent;
+
+/**
+ * Abstract class used to provide a basic implementation of the
+ * <code>GraphLayoutEngine</code> interface that runs the layouts on the
+ * threads of an <code>ExecutorService</code>.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public abstract class AbstractGraphLayoutEngine implements GraphLayoutEngine
+{
+	private ExecutorService executorService;
+	private int frameRate;
+
+	/**
+	 * The number of layouts started so far, which gives every layout a number
+	 * of its own, only accessed on the event dispatch thread. A cancelled
+	 * layout can keep running for a while, so numbers are never reused.
+	 */
+	private int layoutCount;
+
+	/**
+	 * The number of the latest layout started for every container, only
+	 * accessed on the event dispatch thread.
+	 */
+	private Map<ContainerComponent, Integer> layoutNumberMap;
+
+	/**
+	 * The latest layout started for every container, only accessed on the
+	 * event dispatch thread.
+	 */
+	private Map<ContainerComponent, Future<Point2D[]>> layoutFutureMap;
+
+	/**
+	 * @param frameRate
+	 *            The most intermediate locations of a
+	 *            <code>ProgressiveGraphLayout</code> applied per second, 0 to
+	 *            only apply the final locations.
+	 */
+	public AbstractGraphLayoutEngine(ExecutorService executorService,
+			int frameRate) throws IllegalArgumentException
+	{
+		if (executorService == null)
+			throw new IllegalArgumentException(
+					"executorService cannot be null");
+		if (frameRate < 0)
+			throw new IllegalArgumentException("frameRate (" + frameRate
+					+ ") must be >= 0");
+
+		this.executorService = executorService;
+		this.frameRate = frameRate;
+		layoutNumberMap = new HashMap<ContainerComponent, Integer>();
+		layoutFutureMap = new HashMap<ContainerComponent, Future<Point2D[]>>();
+	}
+
+	public ExecutorService getExecutorService()
+	{
+		return executorService;
+	}
+
+	public int getFrameRate()
+	{
+		return frameRate;
+	}
+
+	public Future<Point2D[]> layoutGraph(ContainerComponent containerComponent,
+			GraphLayout graphLayout) throws IllegalArgumentException
+	{
+		if (containerComponent == null)
+			throw new IllegalArgumentException(
+					"containerComponent cannot be null");
+		if (graphLayout == null)
+			throw new IllegalArgumentException("graphLayout cannot be null");
+
+		/* Lay the container out first so the snapshot has its final bounds */
+		if (!containerComponent.isValid())
+			containerComponent.validate();
+
+		/* A newer layout of the container supersedes the running one */
+		Future<Point2D[]> supersededFuture = layoutFutureMap
+				.get(containerComponent);
+
+		if (supersededFuture != null)
+			supersededFuture.cancel(true);
+
+		Integer layoutNumber = ++layoutCount;
+
+		LayoutFuture layoutFuture = new LayoutFuture(containerComponent,
+				new LayoutTask(new GraphSnapshot(containerComponent),
+						graphLayout, layoutNumber), layoutNumber);
+
+		layoutNumberMap.put(containerComponent, layoutNumber);
+		layoutFutureMap.put(containerComponent, layoutFuture);
+		executorService.execute(layoutFuture);
+
+		return layoutFuture;
+	}
+
+	public void dispose()
+	{
+		executorService.shutdown();
+	}
+
+	/**
+	 * Used to move the nodes of <code>graphSnapshot</code> to their new
+	 * locations, called on the event dispatch thread. The moves are made in a
+	 * single batch update of the container so it is only revalidated and
+	 * repainted once.
+	 *
+	 * @param graphSnapshot
+	 *            The graph that was laid out.
+	 * @param locations
+	 *            The new locations of the nodes.
+	 */
+	protected void applyLocations(GraphSnapshot graphSnapshot,
+			Point2D[] locations)
+	{
+		ContainerComponent containerComponent = graphSnapshot
+				.getContainerComponent();
+
+		containerComponent.beginUpdate();
+
+		try
+		{
+			for (int i = 0; i < locations.length; i++)
+			{
+				ConnectedComponent component = graphSnapshot.getComponent(i);
+
+				/* Skip what stays put or was moved elsewhere in the meantime */
+				if (locations[i] == null
+						|| component.getParentComponent() != containerComponent)
+					continue;
+
+				component.setLocation(locations[i].getX(), locations[i].getY());
+			}
+		}
+		finally
+		{
+			containerComponent.endUpdate();
+		}
+	}
+
+	/**
+	 * Class used to forget the layout of a container once it is done, whether
+	 * it completed, failed or was cancelled (even before it started), unless
+	 * a newer layout of the container was started in the meantime.
+	 */
+	private class LayoutFuture extends FutureTask<Point2D[]>
+	{
+		private ContainerComponent containerComponent;
+		private Integer layoutNumber;
+
+		public LayoutFuture(ContainerComponent containerComponent,
+				LayoutTask layoutTask, Integer layoutNumber)
+		{
+			super(layoutTask);
+
+			this.containerComponent = containerComponent;
+			this.layoutNumber = layoutNumber;
+		}
+
+		@Override
+		protected void done()
+		{
+			/*
+			 * A completed layout handed its result to the event dispatch
+			 * thread before this, so the result is applied first.
+			 */
+			SwingUtilities.invokeLater(new Runnable()
+			{
+				public void run()
+				{
+					if (!layoutNumber.equals(layoutNumberMap
+							.get(containerComponent)))
+						return;
+
+					layoutNumberMap.remove(containerComponent);
+					layoutFutureMap.remove(containerComponent);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Class used to run a layout on a thread of the
+	 * <code>ExecutorService</code> and hand its result back to the event
+	 * dispatch thread. Also observes progressive layouts to hand over their
+	 * intermediate locations.
+	 */
+	private class LayoutTask implements Callable<Point2D[]>,
+			GraphLayoutObserver
+	{
+		private GraphSnapshot graphSnapshot;
+		private GraphLayout graphLayout;
+		private Integer layoutNumber;
+
+		private long frameInterval;
+		private long lastFrameTime;
+
+		/**
+		 * Set while a frame waits to be applied on the event dispatch thread,
+		 * frames are skipped rather than queued up when it falls behind.
+		 */
+		private AtomicBoolean framePending;
+
+		public LayoutTask(GraphSnapshot graphSnapshot, GraphLayout graphLayout,
+				Integer layoutNumber)
+		{
+			this.graphSnapshot = graphSnapshot;
+			this.graphLayout = graphLayout;
+			this.layoutNumber = layoutNumber;
+
+			frameInterval = (frameRate == 0 ? 0 : 1000000000L / frameRate);
+			framePending = new AtomicBoolean();
+		}
+
+		public Point2D[] call() throws Exception
+		{
+			lastFrameTime = System.nanoTime();
+
+			final Point2D[] locations;
+
+			if (graphLayout instanceof ProgressiveGraphLayout)
+				locations = ((ProgressiveGraphLayout) graphLayout).layoutGraph(
+						graphSnapshot, this);
+			else
+				locations = graphLayout.layoutGraph(graphSnapshot);
+
+			/* An interrupted layout has no result to apply */
+			if (locations == null || Thread.currentThread().isInterrupted())
+				return null;
+
+			SwingUtilities.invokeLater(new Runnable()
+			{
+				public void run()
+				{
+					ContainerComponent containerComponent = graphSnapshot
+							.getContainerComponent();
+
+					/* A newer layout of the container supersedes this one */
+					if (!layoutNumber.equals(layoutNumberMap
+							.get(containerComponent)))
+						return;
+
+					applyLocations(graphSnapshot, locations);
+				}
+			});
+
+			return locations;
+		}
+
+		public boolean isFrameDue()
+		{
+			return (frameInterval > 0 && !framePending.get() && System
+					.nanoTime() - lastFrameTime >= frameInterval);
+		}
+
+		public void frameComputed(final Point2D[] locations)
+		{
+			lastFrameTime = System.nanoTime();
+			framePending.set(true);
+
+			SwingUtilities.invokeLater(new Runnable()
+			{
+				public void run()
+				{
+					framePending.set(false);
+
+					if (layoutNumber.equals(layoutNumberMap.get(graphSnapshot
+							.getContainerComponent())))
+						applyLocations(graphSnapshot, locations);
+				}
+			});
+		}
+	}
+}
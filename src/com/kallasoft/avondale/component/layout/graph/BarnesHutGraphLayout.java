@@ -0,0 +1,504 @@
+package com.kallasoft.avondale.component.layout.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Class used to lay out large graphs with the force-directed simulation of
+ * <code>ForceDirectedGraphLayout</code>, approximating the repulsion between
+ * the nodes with a Barnes-Hut quadtree.
+ * <p>
+ * Every iteration the node centers are sorted into a quadtree whose cells
+ * know the number of nodes in them and their center of mass. A cell that is
+ * far enough away from a node, compared to its size, pushes the node as if
+ * all of its nodes sat at its center of mass, so the repulsion costs
+ * <code>O(n log n)</code> per iteration instead of <code>O(n&sup2;)</code>.
+ * How far is far enough is controlled by <code>theta</code>: 0 computes the
+ * exact repulsion, larger values are faster and less accurate.
+ * <p>
+ * Once the tree is built it is only read, so the repulsion of large graphs is
+ * computed in parallel on the threads of an <code>ExecutorService</code>,
+ * every thread handling its own range of nodes.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class BarnesHutGraphLayout extends ForceDirectedGraphLayout
+{
+	public static final double DEFAULT_THETA = 0.8;
+
+	/**
+	 * Smallest graph whose repulsion is split across threads, smaller graphs
+	 * are done faster than the tasks can be handed out.
+	 */
+	private static final int PARALLEL_NODE_COUNT = 1024;
+
+	/**
+	 * Number of ranges the nodes are split into per processor, more ranges
+	 * than threads keep the threads busy when some ranges take longer.
+	 */
+	private static final int RANGES_PER_PROCESSOR = 4;
+
+	private static ExecutorService defaultExecutorService;
+
+	private final double theta;
+	private final ExecutorService executorService;
+
+	public BarnesHutGraphLayout()
+	{
+		this(DEFAULT_ITERATION_COUNT, DEFAULT_SPRING_LENGTH, DEFAULT_THETA);
+	}
+
+	public BarnesHutGraphLayout(int iterationCount, double springLength,
+			double theta) throws IllegalArgumentException
+	{
+		this(iterationCount, springLength, theta, getDefaultExecutorService());
+	}
+
+	/**
+	 * @param executorService
+	 *            The executor used to compute the repulsion in parallel, or
+	 *            <code>null</code> to compute it on the thread running the
+	 *            layout.
+	 */
+	public BarnesHutGraphLayout(int iterationCount, double springLength,
+			double theta, ExecutorService executorService)
+			throws IllegalArgumentException
+	{
+		super(iterationCount, springLength);
+
+		if (theta < 0)
+			throw new IllegalArgumentException("theta (" + theta
+					+ ") must be >= 0");
+
+		this.theta = theta;
+		this.executorService = executorService;
+	}
+
+	/**
+	 * Used to get the executor shared by the layouts that weren't given one,
+	 * it has a daemon thread for every processor.
+	 *
+	 * @return the shared executor.
+	 */
+	protected static synchronized ExecutorService getDefaultExecutorService()
+	{
+		if (defaultExecutorService == null)
+			defaultExecutorService = Executors.newFixedThreadPool(Runtime
+					.getRuntime().availableProcessors(),
+					new RepulsionThreadFactory());
+
+		return defaultExecutorService;
+	}
+
+	/**
+	 * Used to get how far away, compared to its size, a cell of the quadtree
+	 * must be from a node before its nodes are treated as one.
+	 *
+	 * @return the ratio of cell size to distance below which cells are
+	 *         approximated.
+	 */
+	public double getTheta()
+	{
+		return theta;
+	}
+
+	public ExecutorService getExecutorService()
+	{
+		return executorService;
+	}
+
+	/**
+	 * Overridden to approximate the repulsion with a quadtree and compute it
+	 * in parallel for large graphs. If the thread running the layout is
+	 * interrupted while waiting for the other threads, the interrupt status
+	 * is kept so the layout stops after this iteration.
+	 */
+	@Override
+	protected void applyRepulsion(double[] centerX, double[] centerY,
+			double[] displacementX, double[] displacementY)
+	{
+		int nodeCount = centerX.length;
+
+		if (nodeCount < 2)
+			return;
+
+		QuadTree quadTree = new QuadTree(centerX, centerY);
+
+		if (executorService == null || nodeCount < PARALLEL_NODE_COUNT)
+		{
+			quadTree.applyRepulsion(0, nodeCount, displacementX, displacementY);
+			return;
+		}
+
+		int rangeCount = Runtime.getRuntime().availableProcessors()
+				* RANGES_PER_PROCESSOR;
+		List<Future<?>> futureList = new ArrayList<Future<?>>(rangeCount);
+
+		/* Hand out every range but the first, which this thread does itself */
+		for (int i = 1; i < rangeCount; i++)
+			futureList.add(executorService.submit(new RepulsionTask(quadTree,
+					(int) ((long) nodeCount * i / rangeCount),
+					(int) ((long) nodeCount * (i + 1) / rangeCount),
+					displacementX, displacementY)));
+
+		quadTree.applyRepulsion(0, nodeCount / rangeCount, displacementX,
+				displacementY);
+
+		try
+		{
+			for (int i = 0, size = futureList.size(); i < size; i++)
+				futureList.get(i).get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException e)
+		{
+			Throwable cause = e.getCause();
+
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+
+			throw new IllegalStateException(cause);
+		}
+		finally
+		{
+			for (int i = 0, size = futureList.size(); i < size; i++)
+				futureList.get(i).cancel(true);
+		}
+	}
+
+	/**
+	 * Class used to hold the quadtree of one iteration in flat arrays indexed
+	 * by cell, so building it doesn't create an object per cell. A cell is
+	 * either internal, with up to 4 children, or a leaf holding one node, or
+	 * several nodes when they are too close together to split them up.
+	 */
+	private class QuadTree
+	{
+		/**
+		 * Value of <code>leafNodes</code> for internal cells and of
+		 * <code>cellChildren</code> for missing children.
+		 */
+		private static final int NONE = -1;
+
+		private double[] centerX;
+		private double[] centerY;
+		private double springLengthSquared;
+		private double thetaSquared;
+
+		private int cellCount;
+		private double[] cellCenterX;
+		private double[] cellCenterY;
+		private double[] cellHalfSizes;
+		private int[] cellNodeCounts;
+		private double[] cellSumX;
+		private double[] cellSumY;
+		private int[] cellChildren;
+		private int[] leafNodes;
+		private int[] nodeCells;
+
+		public QuadTree(double[] centerX, double[] centerY)
+		{
+			this.centerX = centerX;
+			this.centerY = centerY;
+			springLengthSquared = getSpringLength() * getSpringLength();
+			thetaSquared = theta * theta;
+
+			int nodeCount = centerX.length;
+			double minX = Double.MAX_VALUE;
+			double minY = Double.MAX_VALUE;
+			double maxX = -Double.MAX_VALUE;
+			double maxY = -Double.MAX_VALUE;
+
+			for (int i = 0; i < nodeCount; i++)
+			{
+				minX = Math.min(minX, centerX[i]);
+				minY = Math.min(minY, centerY[i]);
+				maxX = Math.max(maxX, centerX[i]);
+				maxY = Math.max(maxY, centerY[i]);
+			}
+
+			int capacity = nodeCount * 2 + 1;
+			cellCenterX = new double[capacity];
+			cellCenterY = new double[capacity];
+			cellHalfSizes = new double[capacity];
+			cellNodeCounts = new int[capacity];
+			cellSumX = new double[capacity];
+			cellSumY = new double[capacity];
+			cellChildren = new int[capacity * 4];
+			leafNodes = new int[capacity];
+			nodeCells = new int[nodeCount];
+
+			/* The root is a square around all the nodes, empty at first */
+			createCell((minX + maxX) / 2, (minY + maxY) / 2, Math.max(maxX
+					- minX, maxY - minY)
+					/ 2 + MINIMUM_DISTANCE, NONE);
+
+			for (int i = 0; i < nodeCount; i++)
+				insertNode(i);
+		}
+
+		/**
+		 * Used to add the repulsion felt by the nodes
+		 * <code>[startIndex, endIndex)</code> to their displacements. Only
+		 * reads the tree, so several threads can call it at once for
+		 * different ranges.
+		 */
+		public void applyRepulsion(int startIndex, int endIndex,
+				double[] displacementX, double[] displacementY)
+		{
+			int[] stack = new int[64];
+
+			for (int node = startIndex; node < endIndex; node++)
+			{
+				double x = centerX[node];
+				double y = centerY[node];
+				double forceX = 0;
+				double forceY = 0;
+				int stackSize = 0;
+
+				stack[stackSize++] = 0;
+
+				while (stackSize > 0)
+				{
+					int cell = stack[--stackSize];
+					int count = cellNodeCounts[cell];
+					double sumX = cellSumX[cell];
+					double sumY = cellSumY[cell];
+
+					/* A node doesn't push itself */
+					if (nodeCells[node] == cell)
+					{
+						count--;
+						sumX -= x;
+						sumY -= y;
+					}
+
+					if (count == 0)
+						continue;
+
+					double deltaX = x - sumX / count;
+					double deltaY = y - sumY / count;
+					double distanceSquared = deltaX * deltaX + deltaY * deltaY;
+
+					/*
+					 * Open internal cells that are too close for their size, or
+					 * that hold the node itself.
+					 */
+					if (leafNodes[cell] == NONE)
+					{
+						double halfSize = cellHalfSizes[cell];
+
+						if (4 * halfSize * halfSize >= thetaSquared
+								* distanceSquared
+								|| (Math.abs(x - cellCenterX[cell]) <= halfSize && Math
+										.abs(y - cellCenterY[cell]) <= halfSize))
+						{
+							if (stackSize + 4 > stack.length)
+							{
+								int[] newStack = new int[stack.length * 2];
+								System.arraycopy(stack, 0, newStack, 0,
+										stackSize);
+								stack = newStack;
+							}
+
+							for (int i = cell * 4, end = i + 4; i < end; i++)
+							{
+								if (cellChildren[i] != NONE)
+									stack[stackSize++] = cellChildren[i];
+							}
+
+							continue;
+						}
+					}
+
+					double distance = Math.max(MINIMUM_DISTANCE, Math
+							.sqrt(distanceSquared));
+					double force = count * springLengthSquared / distance;
+
+					forceX += deltaX / distance * force;
+					forceY += deltaY / distance * force;
+				}
+
+				displacementX[node] += forceX;
+				displacementY[node] += forceY;
+			}
+		}
+
+		private void insertNode(int node)
+		{
+			double x = centerX[node];
+			double y = centerY[node];
+			int cell = 0;
+
+			while (true)
+			{
+				cellNodeCounts[cell]++;
+				cellSumX[cell] += x;
+				cellSumY[cell] += y;
+
+				/* Only the root is ever empty */
+				if (cellNodeCounts[cell] == 1)
+				{
+					leafNodes[cell] = node;
+					nodeCells[node] = cell;
+					return;
+				}
+
+				if (leafNodes[cell] != NONE)
+				{
+					/* Nodes too close together share their leaf */
+					if (cellHalfSizes[cell] < MINIMUM_DISTANCE)
+					{
+						nodeCells[node] = cell;
+						return;
+					}
+
+					/* Split the leaf, moving its node down a level */
+					int leafNode = leafNodes[cell];
+					leafNodes[cell] = NONE;
+					nodeCells[leafNode] = createChild(cell, leafNode);
+				}
+
+				int index = cell * 4 + getQuadrant(cell, x, y);
+
+				if (cellChildren[index] == NONE)
+				{
+					nodeCells[node] = createChild(cell, node);
+					return;
+				}
+
+				cell = cellChildren[index];
+			}
+		}
+
+		private int getQuadrant(int cell, double x, double y)
+		{
+			return (x < cellCenterX[cell] ? 0 : 1)
+					+ (y < cellCenterY[cell] ? 0 : 2);
+		}
+
+		/**
+		 * Used to create the leaf holding <code>node</code> in the quadrant of
+		 * <code>parentCell</code> the node is in.
+		 */
+		private int createChild(int parentCell, int node)
+		{
+			int quadrant = getQuadrant(parentCell, centerX[node], centerY[node]);
+			double halfSize = cellHalfSizes[parentCell] / 2;
+			int cell = createCell(cellCenterX[parentCell]
+					+ ((quadrant & 1) == 0 ? -halfSize : halfSize),
+					cellCenterY[parentCell]
+							+ ((quadrant & 2) == 0 ? -halfSize : halfSize),
+					halfSize, node);
+
+			cellNodeCounts[cell] = 1;
+			cellSumX[cell] = centerX[node];
+			cellSumY[cell] = centerY[node];
+			cellChildren[parentCell * 4 + quadrant] = cell;
+
+			return cell;
+		}
+
+		private int createCell(double x, double y, double halfSize, int node)
+		{
+			if (cellCount == leafNodes.length)
+			{
+				int capacity = cellCount * 2;
+				cellCenterX = grow(cellCenterX, capacity);
+				cellCenterY = grow(cellCenterY, capacity);
+				cellHalfSizes = grow(cellHalfSizes, capacity);
+				cellSumX = grow(cellSumX, capacity);
+				cellSumY = grow(cellSumY, capacity);
+				cellNodeCounts = grow(cellNodeCounts, capacity);
+				cellChildren = grow(cellChildren, capacity * 4);
+				leafNodes = grow(leafNodes, capacity);
+			}
+
+			int cell = cellCount++;
+			cellCenterX[cell] = x;
+			cellCenterY[cell] = y;
+			cellHalfSizes[cell] = halfSize;
+			leafNodes[cell] = node;
+
+			for (int i = cell * 4, end = i + 4; i < end; i++)
+				cellChildren[i] = NONE;
+
+			return cell;
+		}
+
+		private double[] grow(double[] array, int capacity)
+		{
+			double[] newArray = new double[capacity];
+			System.arraycopy(array, 0, newArray, 0, array.length);
+
+			return newArray;
+		}
+
+		private int[] grow(int[] array, int capacity)
+		{
+			int[] newArray = new int[capacity];
+			System.arraycopy(array, 0, newArray, 0, array.length);
+
+			return newArray;
+		}
+	}
+
+	/**
+	 * Class used to compute the repulsion of one range of nodes on a thread of
+	 * the executor.
+	 */
+	private static class RepulsionTask implements Runnable
+	{
+		private QuadTree quadTree;
+		private int startIndex;
+		private int endIndex;
+		private double[] displacementX;
+		private double[] displacementY;
+
+		public RepulsionTask(QuadTree quadTree, int startIndex, int endIndex,
+				double[] displacementX, double[] displacementY)
+		{
+			this.quadTree = quadTree;
+			this.startIndex = startIndex;
+			this.endIndex = endIndex;
+			this.displacementX = displacementX;
+			this.displacementY = displacementY;
+		}
+
+		public void run()
+		{
+			quadTree.applyRepulsion(startIndex, endIndex, displacementX,
+					displacementY);
+		}
+	}
+
+	/**
+	 * Class used to create the daemon threads of the default executor, so
+	 * the shared executor doesn't keep the VM alive.
+	 */
+	private static class RepulsionThreadFactory implements ThreadFactory
+	{
+		private int threadCount = 0;
+
+		public synchronized Thread newThread(Runnable runnable)
+		{
+			Thread thread = new Thread(runnable, "BarnesHutGraphLayout-"
+					+ (++threadCount));
+			thread.setDaemon(true);
+
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.kallasoft.avondale.component.layout.graph;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Default implementation of the <code>GraphLayoutEngine</code> interface. By
+ * default the layouts are run one after the other on a single daemon thread.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class DefaultGraphLayoutEngine extends AbstractGraphLayoutEngine
+{
+	public DefaultGraphLayoutEngine()
+	{
+		this(Executors.newSingleThreadExecutor(new LayoutThreadFactory()));
+	}
+
+	public DefaultGraphLayoutEngine(ExecutorService executorService)
+	{
+		this(executorService, DEFAULT_FRAME_RATE);
+	}
+
+	public DefaultGraphLayoutEngine(ExecutorService executorService,
+			int frameRate)
+	{
+		super(executorService, frameRate);
+	}
+
+	/**
+	 * Class used to create the daemon thread of the default executor, so an
+	 * undisposed engine doesn't keep the VM alive.
+	 */
+	private static class LayoutThreadFactory implements ThreadFactory
+	{
+		private int threadCount = 0;
+
+		public synchronized Thread newThread(Runnable runnable)
+		{
+			Thread thread = new Thread(runnable, "GraphLayoutEngine-"
+					+ (++threadCount));
+			thread.setDaemon(true);
+
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,235 @@
+package com.kallasoft.avondale.component.layout.graph;
+
+import java.awt.geom.Point2D;
+import java.util.Random;
+
+/**
+ * Class used to lay out a graph by simulating the nodes as charged particles
+ * that push each other away and the edges as springs that pull connected
+ * nodes together (the Fruchterman-Reingold algorithm). The simulation starts
+ * from the current locations of the nodes, so laying out a graph that was
+ * only changed a little moves it only a little.
+ * <p>
+ * Every iteration computes the repulsion between every pair of nodes, which
+ * makes this layout best suited for graphs of up to a few thousand nodes. Use
+ * a <code>BarnesHutGraphLayout</code> for larger graphs.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class ForceDirectedGraphLayout extends AbstractGraphLayout implements
+		ProgressiveGraphLayout
+{
+	public static final int DEFAULT_ITERATION_COUNT = 200;
+	public static final double DEFAULT_SPRING_LENGTH = 96;
+
+	/**
+	 * Closest two node centers are allowed to get when computing forces, to
+	 * keep nodes on top of each other from producing infinite forces.
+	 */
+	protected static final double MINIMUM_DISTANCE = 0.01;
+
+	private final int iterationCount;
+	private final double springLength;
+
+	public ForceDirectedGraphLayout()
+	{
+		this(DEFAULT_ITERATION_COUNT, DEFAULT_SPRING_LENGTH);
+	}
+
+	public ForceDirectedGraphLayout(int iterationCount, double springLength)
+			throws IllegalArgumentException
+	{
+		super(DEFAULT_HORIZONTAL_SPACING, DEFAULT_VERTICAL_SPACING);
+
+		if (iterationCount < 1)
+			throw new IllegalArgumentException("iterationCount ("
+					+ iterationCount + ") must be >= 1");
+		if (springLength <= 0)
+			throw new IllegalArgumentException("springLength (" + springLength
+					+ ") must be > 0");
+
+		this.iterationCount = iterationCount;
+		this.springLength = springLength;
+	}
+
+	public int getIterationCount()
+	{
+		return iterationCount;
+	}
+
+	/**
+	 * Used to get the distance between the centers of two connected nodes at
+	 * which the attraction of the edge and the repulsion of the nodes cancel
+	 * each other out.
+	 *
+	 * @return the ideal edge length.
+	 */
+	public double getSpringLength()
+	{
+		return springLength;
+	}
+
+	public Point2D[] layoutGraph(GraphSnapshot graphSnapshot)
+	{
+		return layoutGraph(graphSnapshot, null);
+	}
+
+	public Point2D[] layoutGraph(GraphSnapshot graphSnapshot,
+			GraphLayoutObserver graphLayoutObserver)
+	{
+		int nodeCount = graphSnapshot.getNodeCount();
+		double[] centerX = new double[nodeCount];
+		double[] centerY = new double[nodeCount];
+		double[] displacementX = new double[nodeCount];
+		double[] displacementY = new double[nodeCount];
+
+		/*
+		 * Nodes on the exact same spot can't push each other apart, so they
+		 * are nudged a little, the same way every time.
+		 */
+		Random random = new Random(nodeCount);
+
+		for (int i = 0; i < nodeCount; i++)
+		{
+			centerX[i] = graphSnapshot.getX(i) + graphSnapshot.getWidth(i) / 2
+					+ random.nextDouble();
+			centerY[i] = graphSnapshot.getY(i) + graphSnapshot.getHeight(i)
+					/ 2 + random.nextDouble();
+		}
+
+		/*
+		 * The temperature limits how far a node can move in one iteration and
+		 * cools down linearly so the layout settles.
+		 */
+		double startTemperature = springLength * Math.sqrt(nodeCount);
+		Point2D origin = getOrigin(graphSnapshot);
+
+		for (int iteration = 0; iteration < iterationCount; iteration++)
+		{
+			if (Thread.currentThread().isInterrupted())
+				return null;
+
+			double temperature = startTemperature
+					* (1 - (double) iteration / iterationCount);
+
+			for (int i = 0; i < nodeCount; i++)
+			{
+				displacementX[i] = 0;
+				displacementY[i] = 0;
+			}
+
+			applyRepulsion(centerX, centerY, displacementX, displacementY);
+			applyAttraction(graphSnapshot, centerX, centerY, displacementX,
+					displacementY);
+
+			for (int i = 0; i < nodeCount; i++)
+			{
+				double length = Math.sqrt(displacementX[i] * displacementX[i]
+						+ displacementY[i] * displacementY[i]);
+
+				if (length < MINIMUM_DISTANCE)
+					continue;
+
+				double distance = Math.min(length, temperature);
+				centerX[i] += displacementX[i] / length * distance;
+				centerY[i] += displacementY[i] / length * distance;
+			}
+
+			if (graphLayoutObserver != null
+					&& iteration < iterationCount - 1
+					&& graphLayoutObserver.isFrameDue())
+				graphLayoutObserver.frameComputed(createLocations(
+						graphSnapshot, centerX, centerY, origin));
+		}
+
+		return createLocations(graphSnapshot, centerX, centerY, origin);
+	}
+
+	/**
+	 * Used to add the repulsion every node feels from every other node to the
+	 * displacement of the nodes. The repulsion between two nodes is
+	 * <code>springLength&sup2; / distance</code>.
+	 *
+	 * @param centerX
+	 *            The x coordinates of the node centers.
+	 * @param centerY
+	 *            The y coordinates of the node centers.
+	 * @param displacementX
+	 *            The x displacements to add the repulsion to.
+	 * @param displacementY
+	 *            The y displacements to add the repulsion to.
+	 */
+	protected void applyRepulsion(double[] centerX, double[] centerY,
+			double[] displacementX, double[] displacementY)
+	{
+		double springLengthSquared = springLength * springLength;
+
+		for (int i = 0; i < centerX.length; i++)
+		{
+			for (int j = i + 1; j < centerX.length; j++)
+			{
+				double deltaX = centerX[i] - centerX[j];
+				double deltaY = centerY[i] - centerY[j];
+				double distance = Math.max(MINIMUM_DISTANCE, Math.sqrt(deltaX
+						* deltaX + deltaY * deltaY));
+				double force = springLengthSquared / distance;
+
+				deltaX = deltaX / distance * force;
+				deltaY = deltaY / distance * force;
+				displacementX[i] += deltaX;
+				displacementY[i] += deltaY;
+				displacementX[j] -= deltaX;
+				displacementY[j] -= deltaY;
+			}
+		}
+	}
+
+	/**
+	 * Used to turn the simulated node centers back into the locations of the
+	 * top left corners of the nodes.
+	 */
+	private Point2D[] createLocations(GraphSnapshot graphSnapshot,
+			double[] centerX, double[] centerY, Point2D origin)
+	{
+		int nodeCount = graphSnapshot.getNodeCount();
+		double[] x = new double[nodeCount];
+		double[] y = new double[nodeCount];
+
+		for (int i = 0; i < nodeCount; i++)
+		{
+			x[i] = centerX[i] - graphSnapshot.getWidth(i) / 2;
+			y[i] = centerY[i] - graphSnapshot.getHeight(i) / 2;
+		}
+
+		return createLocations(x, y, origin);
+	}
+
+	/**
+	 * Used to add the pull of every edge to the displacement of the two nodes
+	 * it connects. The attraction is <code>distance&sup2; / springLength</code>.
+	 */
+	private void applyAttraction(GraphSnapshot graphSnapshot,
+			double[] centerX, double[] centerY, double[] displacementX,
+			double[] displacementY)
+	{
+		for (int i = 0, edgeCount = graphSnapshot.getEdgeCount(); i < edgeCount; i++)
+		{
+			int source = graphSnapshot.getEdgeSource(i);
+			int destination = graphSnapshot.getEdgeDestination(i);
+			double deltaX = centerX[source] - centerX[destination];
+			double deltaY = centerY[source] - centerY[destination];
+			double distance = Math.max(MINIMUM_DISTANCE, Math.sqrt(deltaX
+					* deltaX + deltaY * deltaY));
+			double force = distance * distance / springLength;
+
+			deltaX = deltaX / distance * force;
+			deltaY = deltaY / distance * force;
+			displacementX[source] -= deltaX;
+			displacementY[source] -= deltaY;
+			displacementX[destination] += deltaX;
+			displacementY[destination] += deltaY;
+		}
+	}
+}
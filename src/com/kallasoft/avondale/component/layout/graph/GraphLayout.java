@@ -0,0 +1,39 @@
+package com.kallasoft.avondale.component.layout.graph;
+
+import java.awt.geom.Point2D;
+
+/**
+ * Interface used to describe an algorithm that positions the nodes of a graph
+ * of <code>ConnectedComponent</code>s based on the connections between them.
+ * <p>
+ * Unlike a <code>ContainerLayout</code>, a graph layout never touches the
+ * components: it only reads a <code>GraphSnapshot</code> and returns the new
+ * locations, so it can run on a background thread for as long as it needs
+ * while the event dispatch thread stays responsive. Implementations are
+ * expected to be immutable so a single instance can be used by several
+ * threads at once.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ * @see GraphLayoutEngine
+ */
+public interface GraphLayout
+{
+	public static final double DEFAULT_HORIZONTAL_SPACING = 32;
+	public static final double DEFAULT_VERTICAL_SPACING = 48;
+
+	/**
+	 * Used to compute the new locations of the nodes of
+	 * <code>graphSnapshot</code>. Long running implementations should check
+	 * the interrupt status of the current thread and give up when it is set.
+	 *
+	 * @param graphSnapshot
+	 *            The graph to lay out.
+	 * @return the new location of the top left corner of every node, indexed
+	 *         by node, in the coordinate space of the container. An entry is
+	 *         <code>null</code> if the node should stay where it is. Returns
+	 *         <code>null</code> if the thread was interrupted.
+	 */
+	public Point2D[] layoutGraph(GraphSnapshot graphSnapshot);
+}
@@ -0,0 +1,60 @@
+package com.kallasoft.avondale.component.layout.graph;
+
+import java.awt.geom.Point2D;
+import java.util.concurrent.Future;
+
+import com.kallasoft.avondale.component.ContainerComponent;
+
+/**
+ * Interface used to describe an engine that runs <code>GraphLayout</code>s
+ * on background threads and applies their results to the components.
+ * <p>
+ * A layout is started on the event dispatch thread by taking a
+ * <code>GraphSnapshot</code> of the container, the layout then runs on a
+ * background thread for as long as it needs and the new locations are
+ * applied back on the event dispatch thread in a single batch update of the
+ * container. Components that were removed from the container in the
+ * meantime are left alone, and starting a new layout of a container
+ * supersedes the layouts of it that haven't been applied yet.
+ * <p>
+ * The intermediate locations of a <code>ProgressiveGraphLayout</code> are
+ * applied the same way while it runs, at most <code>frameRate</code> times a
+ * second, so large layouts can be watched as they settle.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public interface GraphLayoutEngine
+{
+	public static final int DEFAULT_FRAME_RATE = 30;
+
+	/**
+	 * Used to lay out the connected children of
+	 * <code>containerComponent</code> with <code>graphLayout</code>. Must be
+	 * called on the event dispatch thread.
+	 *
+	 * @param containerComponent
+	 *            The container whose children are laid out.
+	 * @param graphLayout
+	 *            The layout to run.
+	 * @return a future that completes with the computed locations, indexed
+	 *         like the nodes of the snapshot, once the layout is done. The
+	 *         locations are applied shortly after on the event dispatch
+	 *         thread. Cancelling the future while the layout is running
+	 *         (interrupting the thread) stops it without applying anything,
+	 *         starting a new layout of the same container cancels the one
+	 *         that is still running.
+	 * @throws IllegalArgumentException
+	 *             if <code>containerComponent</code> or
+	 *             <code>graphLayout</code> is <code>null</code>.
+	 */
+	public Future<Point2D[]> layoutGraph(ContainerComponent containerComponent,
+			GraphLayout graphLayout) throws IllegalArgumentException;
+
+	/**
+	 * Used to shut down the threads of this engine. Layouts that are already
+	 * running are finished, but no new layouts can be started.
+	 */
+	public void dispose();
+}
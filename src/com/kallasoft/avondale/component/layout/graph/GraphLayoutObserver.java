@@ -0,0 +1,38 @@
+package com.kallasoft.avondale.component.layout.graph;
+
+import java.awt.geom.Point2D;
+
+/**
+ * Interface used to describe an object interested in the intermediate results
+ * of a <code>ProgressiveGraphLayout</code> while it is still running, for
+ * example to animate the nodes towards their final locations.
+ * <p>
+ * Both methods are called on the thread running the layout.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public interface GraphLayoutObserver
+{
+	/**
+	 * Used by the layout to ask if it should hand over its current locations.
+	 * Creating the locations isn't free for large graphs, so layouts ask
+	 * before creating them.
+	 *
+	 * @return <code>true</code> if the observer wants the current locations,
+	 *         otherwise <code>false</code>.
+	 */
+	public boolean isFrameDue();
+
+	/**
+	 * Called by the layout with its current locations after
+	 * {@link #isFrameDue()} returned <code>true</code>.
+	 *
+	 * @param locations
+	 *            The current location of the top left corner of every node,
+	 *            indexed by node, in the same form as the final result of
+	 *            the layout. Owned by the observer from now on.
+	 */
+	public void frameComputed(Point2D[] locations);
+}
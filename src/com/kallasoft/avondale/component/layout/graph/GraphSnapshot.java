@@ -0,0 +1,226 @@
+package com.kallasoft.avondale.component.layout.graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.kallasoft.avondale.component.Component;
+import com.kallasoft.avondale.component.ConnectedComponent;
+import com.kallasoft.avondale.component.ContainerComponent;
+import com.kallasoft.avondale.component.connection.Connection;
+import com.kallasoft.avondale.component.snapshot.ComponentSnapshot;
+
+/**
+ * Class used to hold an immutable copy of the graph formed by the
+ * <code>ConnectedComponent</code> children of a container and the
+ * <code>Connection</code>s between them, so a <code>GraphLayout</code> can
+ * work on it from a background thread while the user keeps editing the
+ * hierarchy.
+ * <p>
+ * Every connected child of the container is a node, identified by its index.
+ * Every outbound connection between two different nodes is an edge, parallel
+ * connections are only recorded once. The geometry of the nodes is taken
+ * from the <code>ComponentSnapshot</code> of the container, so it is in the
+ * coordinate space of the container.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class GraphSnapshot
+{
+	private static final int[] EMPTY_NODES = new int[0];
+
+	private final ContainerComponent containerComponent;
+	private final ConnectedComponent[] components;
+	private final double[] x;
+	private final double[] y;
+	private final double[] width;
+	private final double[] height;
+	private final int[] edgeSources;
+	private final int[] edgeDestinations;
+	private final int[][] outboundNodes;
+	private final int[][] inboundNodes;
+
+	/**
+	 * Used to take a snapshot of the graph inside of
+	 * <code>containerComponent</code>, must be called on the thread that
+	 * owns the container (the event dispatch thread).
+	 *
+	 * @param containerComponent
+	 *            The container whose connected children are the nodes.
+	 */
+	public GraphSnapshot(ContainerComponent containerComponent)
+	{
+		ComponentSnapshot containerSnapshot = containerComponent.getSnapshot();
+		List<ComponentSnapshot> nodeSnapshotList = new ArrayList<ComponentSnapshot>();
+
+		for (int i = 0, size = containerSnapshot.getChildSnapshotCount(); i < size; i++)
+		{
+			ComponentSnapshot childSnapshot = containerSnapshot
+					.getChildSnapshot(i);
+
+			if (childSnapshot.getComponent() instanceof ConnectedComponent)
+				nodeSnapshotList.add(childSnapshot);
+		}
+
+		int nodeCount = nodeSnapshotList.size();
+		Map<Component, Integer> nodeIndexMap = new HashMap<Component, Integer>(
+				nodeCount * 2);
+
+		this.containerComponent = containerComponent;
+		components = new ConnectedComponent[nodeCount];
+		x = new double[nodeCount];
+		y = new double[nodeCount];
+		width = new double[nodeCount];
+		height = new double[nodeCount];
+
+		for (int i = 0; i < nodeCount; i++)
+		{
+			ComponentSnapshot nodeSnapshot = nodeSnapshotList.get(i);
+
+			components[i] = (ConnectedComponent) nodeSnapshot.getComponent();
+			x[i] = nodeSnapshot.getX();
+			y[i] = nodeSnapshot.getY();
+			width[i] = nodeSnapshot.getWidth();
+			height[i] = nodeSnapshot.getHeight();
+			nodeIndexMap.put(components[i], i);
+		}
+
+		/* Collect the edges, skipping loops and parallel connections */
+		Set<Long> edgeSet = new HashSet<Long>();
+		List<int[]> edgeList = new ArrayList<int[]>();
+		int[] outboundCounts = new int[nodeCount];
+		int[] inboundCounts = new int[nodeCount];
+
+		for (int i = 0; i < nodeCount; i++)
+		{
+			for (int j = 0, size = components[i].getOutboundConnectionCount(); j < size; j++)
+			{
+				Connection connection = components[i].getOutboundConnection(j);
+				Integer destination = nodeIndexMap.get(connection
+						.getDestinationComponent());
+
+				if (destination == null || destination.intValue() == i
+						|| !edgeSet.add((long) i * nodeCount + destination))
+					continue;
+
+				edgeList.add(new int[] { i, destination });
+				outboundCounts[i]++;
+				inboundCounts[destination]++;
+			}
+		}
+
+		edgeSources = new int[edgeList.size()];
+		edgeDestinations = new int[edgeList.size()];
+		outboundNodes = new int[nodeCount][];
+		inboundNodes = new int[nodeCount][];
+
+		for (int i = 0; i < nodeCount; i++)
+		{
+			outboundNodes[i] = (outboundCounts[i] == 0 ? EMPTY_NODES
+					: new int[outboundCounts[i]]);
+			inboundNodes[i] = (inboundCounts[i] == 0 ? EMPTY_NODES
+					: new int[inboundCounts[i]]);
+			outboundCounts[i] = 0;
+			inboundCounts[i] = 0;
+		}
+
+		for (int i = 0, size = edgeList.size(); i < size; i++)
+		{
+			int[] edge = edgeList.get(i);
+
+			edgeSources[i] = edge[0];
+			edgeDestinations[i] = edge[1];
+			outboundNodes[edge[0]][outboundCounts[edge[0]]++] = edge[1];
+			inboundNodes[edge[1]][inboundCounts[edge[1]]++] = edge[0];
+		}
+	}
+
+	/**
+	 * Used to get the container the snapshot was taken of as an identity
+	 * handle, it must not be read from a background thread.
+	 *
+	 * @return the container whose children are the nodes.
+	 */
+	public ContainerComponent getContainerComponent()
+	{
+		return containerComponent;
+	}
+
+	public int getNodeCount()
+	{
+		return components.length;
+	}
+
+	/**
+	 * Used to get the component of a node as an identity handle, it must not
+	 * be read from a background thread.
+	 *
+	 * @param node
+	 *            The index of the node.
+	 * @return the component the node was taken of.
+	 */
+	public ConnectedComponent getComponent(int node)
+	{
+		return components[node];
+	}
+
+	public double getX(int node)
+	{
+		return x[node];
+	}
+
+	public double getY(int node)
+	{
+		return y[node];
+	}
+
+	public double getWidth(int node)
+	{
+		return width[node];
+	}
+
+	public double getHeight(int node)
+	{
+		return height[node];
+	}
+
+	public int getEdgeCount()
+	{
+		return edgeSources.length;
+	}
+
+	public int getEdgeSource(int edge)
+	{
+		return edgeSources[edge];
+	}
+
+	public int getEdgeDestination(int edge)
+	{
+		return edgeDestinations[edge];
+	}
+
+	public int getOutboundNodeCount(int node)
+	{
+		return outboundNodes[node].length;
+	}
+
+	public int getOutboundNode(int node, int index)
+	{
+		return outboundNodes[node][index];
+	}
+
+	public int getInboundNodeCount(int node)
+	{
+		return inboundNodes[node].length;
+	}
+
+	public int getInboundNode(int node, int index)
+	{
+		return inboundNodes[node][index];
+	}
+}
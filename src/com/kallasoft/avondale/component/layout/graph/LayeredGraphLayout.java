@@ -0,0 +1,437 @@
+package com.kallasoft.avondale.component.layout.graph;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Class used to lay out a directed graph in horizontal layers so that most
+ * edges point down, the approach described by Sugiyama, Tagawa and Toda:
+ * <ol>
+ * <li>Cycles are broken by reversing the edges that point back to a node
+ * that is still being visited by a depth-first search.</li>
+ * <li>Every node is put in the layer below the lowest of its predecessors
+ * (longest path layering).</li>
+ * <li>Edges spanning several layers get a virtual node in every layer they
+ * cross, so they take part in the next steps.</li>
+ * <li>The nodes in every layer are ordered by the average position of their
+ * neighbors in the layer above, then in the layer below, a few times over to
+ * reduce the number of edge crossings.</li>
+ * <li>Every layer is placed left to right, pulled towards its neighbors and
+ * centered on the widest layer.</li>
+ * </ol>
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class LayeredGraphLayout extends AbstractGraphLayout
+{
+	public static final int DEFAULT_SWEEP_COUNT = 8;
+
+	private final int sweepCount;
+
+	public LayeredGraphLayout()
+	{
+		this(DEFAULT_HORIZONTAL_SPACING, DEFAULT_VERTICAL_SPACING,
+				DEFAULT_SWEEP_COUNT);
+	}
+
+	public LayeredGraphLayout(double horizontalSpacing, double verticalSpacing,
+			int sweepCount) throws IllegalArgumentException
+	{
+		super(horizontalSpacing, verticalSpacing);
+
+		if (sweepCount < 0)
+			throw new IllegalArgumentException("sweepCount (" + sweepCount
+					+ ") must be >= 0");
+
+		this.sweepCount = sweepCount;
+	}
+
+	/**
+	 * Used to get the number of times the layers are reordered from the top
+	 * down and from the bottom up to reduce edge crossings.
+	 *
+	 * @return the number of crossing reduction sweeps.
+	 */
+	public int getSweepCount()
+	{
+		return sweepCount;
+	}
+
+	public Point2D[] layoutGraph(GraphSnapshot graphSnapshot)
+	{
+		int nodeCount = graphSnapshot.getNodeCount();
+		int[][] edges = removeCycles(graphSnapshot);
+		int[] layers = assignLayers(nodeCount, edges);
+
+		/*
+		 * Split the edges spanning several layers with virtual nodes, which
+		 * are numbered after the real nodes and have no size.
+		 */
+		List<Integer> nodeLayerList = new ArrayList<Integer>();
+		List<List<Integer>> upperNodeList = new ArrayList<List<Integer>>();
+		List<List<Integer>> lowerNodeList = new ArrayList<List<Integer>>();
+
+		for (int i = 0; i < nodeCount; i++)
+			addNode(layers[i], nodeLayerList, upperNodeList, lowerNodeList);
+
+		for (int i = 0; i < edges.length; i++)
+		{
+			int upperNode = edges[i][0];
+
+			for (int layer = layers[edges[i][0]] + 1; layer < layers[edges[i][1]]; layer++)
+			{
+				int virtualNode = addNode(layer, nodeLayerList, upperNodeList,
+						lowerNodeList);
+				lowerNodeList.get(upperNode).add(virtualNode);
+				upperNodeList.get(virtualNode).add(upperNode);
+				upperNode = virtualNode;
+			}
+
+			lowerNodeList.get(upperNode).add(edges[i][1]);
+			upperNodeList.get(edges[i][1]).add(upperNode);
+		}
+
+		int totalNodeCount = nodeLayerList.size();
+		int layerCount = 0;
+
+		for (int i = 0; i < totalNodeCount; i++)
+			layerCount = Math.max(layerCount, nodeLayerList.get(i) + 1);
+
+		/* Start with the nodes ordered by index in every layer */
+		List<List<Integer>> layerList = new ArrayList<List<Integer>>(
+				layerCount);
+
+		for (int i = 0; i < layerCount; i++)
+			layerList.add(new ArrayList<Integer>());
+
+		for (int i = 0; i < totalNodeCount; i++)
+			layerList.get(nodeLayerList.get(i)).add(i);
+
+		double[] positions = new double[totalNodeCount];
+		double[] barycenters = new double[totalNodeCount];
+		updatePositions(layerList, positions);
+
+		for (int sweep = 0; sweep < sweepCount; sweep++)
+		{
+			if (Thread.currentThread().isInterrupted())
+				return null;
+
+			for (int i = 1; i < layerCount; i++)
+				orderLayer(layerList.get(i), upperNodeList, positions,
+						barycenters);
+			for (int i = layerCount - 2; i > -1; i--)
+				orderLayer(layerList.get(i), lowerNodeList, positions,
+						barycenters);
+		}
+
+		/* Place the nodes */
+		double[] width = new double[totalNodeCount];
+		double[] x = new double[totalNodeCount];
+		double[] y = new double[totalNodeCount];
+		double layerY = 0;
+
+		for (int i = 0; i < nodeCount; i++)
+			width[i] = graphSnapshot.getWidth(i);
+
+		for (int i = 0; i < layerCount; i++)
+		{
+			List<Integer> layer = layerList.get(i);
+			double layerHeight = 0;
+
+			for (int j = 0, size = layer.size(); j < size; j++)
+			{
+				int node = layer.get(j);
+				y[node] = layerY;
+
+				if (node < nodeCount)
+					layerHeight = Math.max(layerHeight, graphSnapshot
+							.getHeight(node));
+			}
+
+			layerY += layerHeight + getVerticalSpacing();
+			placeLayer(layer, width, x, null);
+		}
+
+		/* Pull every layer towards its neighbors, then center the layers */
+		for (int i = 1; i < layerCount; i++)
+			placeLayer(layerList.get(i), width, x, upperNodeList);
+		for (int i = layerCount - 2; i > -1; i--)
+			placeLayer(layerList.get(i), width, x, lowerNodeList);
+
+		centerLayers(layerList, width, x);
+
+		/* Leave the virtual nodes out of the result */
+		double[] nodeX = new double[nodeCount];
+		double[] nodeY = new double[nodeCount];
+		System.arraycopy(x, 0, nodeX, 0, nodeCount);
+		System.arraycopy(y, 0, nodeY, 0, nodeCount);
+
+		return createLocations(nodeX, nodeY, getOrigin(graphSnapshot));
+	}
+
+	/**
+	 * Used to get the edges of the graph with every edge that closes a cycle
+	 * reversed, found with a depth-first search from every node in index
+	 * order.
+	 *
+	 * @return the edges of the acyclic graph as source/destination pairs.
+	 */
+	private int[][] removeCycles(GraphSnapshot graphSnapshot)
+	{
+		int nodeCount = graphSnapshot.getNodeCount();
+		int[][] edges = new int[graphSnapshot.getEdgeCount()][];
+		int edgeIndex = 0;
+
+		/* 0 is unvisited, 1 is on the stack, 2 is done */
+		int[] states = new int[nodeCount];
+		int[] nodeStack = new int[nodeCount];
+		int[] childStack = new int[nodeCount];
+
+		for (int i = 0; i < nodeCount; i++)
+		{
+			if (states[i] != 0)
+				continue;
+
+			int depth = 0;
+			nodeStack[0] = i;
+			childStack[0] = 0;
+			states[i] = 1;
+
+			while (depth > -1)
+			{
+				int node = nodeStack[depth];
+
+				if (childStack[depth] == graphSnapshot
+						.getOutboundNodeCount(node))
+				{
+					states[node] = 2;
+					depth--;
+					continue;
+				}
+
+				int child = graphSnapshot.getOutboundNode(node,
+						childStack[depth]++);
+
+				if (states[child] == 1)
+					edges[edgeIndex++] = new int[] { child, node };
+				else
+				{
+					edges[edgeIndex++] = new int[] { node, child };
+
+					if (states[child] == 0)
+					{
+						states[child] = 1;
+						nodeStack[++depth] = child;
+						childStack[depth] = 0;
+					}
+				}
+			}
+		}
+
+		return edges;
+	}
+
+	/**
+	 * Used to put every node one layer below the lowest of its predecessors,
+	 * visiting the nodes in topological order.
+	 *
+	 * @return the layer of every node.
+	 */
+	private int[] assignLayers(int nodeCount, int[][] edges)
+	{
+		int[] layers = new int[nodeCount];
+		int[] inboundCounts = new int[nodeCount];
+		int[][] outboundNodes = new int[nodeCount][];
+		int[] outboundCounts = new int[nodeCount];
+
+		for (int i = 0; i < edges.length; i++)
+		{
+			outboundCounts[edges[i][0]]++;
+			inboundCounts[edges[i][1]]++;
+		}
+
+		for (int i = 0; i < nodeCount; i++)
+		{
+			outboundNodes[i] = new int[outboundCounts[i]];
+			outboundCounts[i] = 0;
+		}
+
+		for (int i = 0; i < edges.length; i++)
+			outboundNodes[edges[i][0]][outboundCounts[edges[i][0]]++] = edges[i][1];
+
+		int[] queue = new int[nodeCount];
+		int head = 0;
+		int tail = 0;
+
+		for (int i = 0; i < nodeCount; i++)
+		{
+			if (inboundCounts[i] == 0)
+				queue[tail++] = i;
+		}
+
+		while (head < tail)
+		{
+			int node = queue[head++];
+
+			for (int i = 0; i < outboundNodes[node].length; i++)
+			{
+				int child = outboundNodes[node][i];
+				layers[child] = Math.max(layers[child], layers[node] + 1);
+
+				if (--inboundCounts[child] == 0)
+					queue[tail++] = child;
+			}
+		}
+
+		return layers;
+	}
+
+	private int addNode(int layer, List<Integer> nodeLayerList,
+			List<List<Integer>> upperNodeList,
+			List<List<Integer>> lowerNodeList)
+	{
+		nodeLayerList.add(layer);
+		upperNodeList.add(new ArrayList<Integer>(2));
+		lowerNodeList.add(new ArrayList<Integer>(2));
+
+		return nodeLayerList.size() - 1;
+	}
+
+	/**
+	 * Used to store the index of every node within its layer.
+	 */
+	private void updatePositions(List<List<Integer>> layerList,
+			double[] positions)
+	{
+		for (int i = 0, size = layerList.size(); i < size; i++)
+			updateLayerPositions(layerList.get(i), positions);
+	}
+
+	private void updateLayerPositions(List<Integer> layer, double[] positions)
+	{
+		for (int i = 0, size = layer.size(); i < size; i++)
+			positions[layer.get(i)] = i;
+	}
+
+	/**
+	 * Used to sort the nodes of a layer by the average position of their
+	 * neighbors in the adjacent layer. Nodes without neighbors keep their
+	 * current position.
+	 */
+	private void orderLayer(List<Integer> layer,
+			List<List<Integer>> neighborNodeList, double[] positions,
+			final double[] barycenters)
+	{
+		for (int i = 0, size = layer.size(); i < size; i++)
+		{
+			int node = layer.get(i);
+			List<Integer> neighborNodes = neighborNodeList.get(node);
+
+			if (neighborNodes.isEmpty())
+			{
+				barycenters[node] = positions[node];
+				continue;
+			}
+
+			double sum = 0;
+
+			for (int j = 0, neighborCount = neighborNodes.size(); j < neighborCount; j++)
+				sum += positions[neighborNodes.get(j)];
+
+			barycenters[node] = sum / neighborNodes.size();
+		}
+
+		Collections.sort(layer, new Comparator<Integer>()
+		{
+			public int compare(Integer node1, Integer node2)
+			{
+				return Double.compare(barycenters[node1], barycenters[node2]);
+			}
+		});
+
+		updateLayerPositions(layer, positions);
+	}
+
+	/**
+	 * Used to place the nodes of a layer left to right in their current
+	 * order. When <code>neighborNodeList</code> is given every node is moved
+	 * right towards the average center of its neighbors, as far as the nodes
+	 * on its left allow.
+	 */
+	private void placeLayer(List<Integer> layer, double[] width, double[] x,
+			List<List<Integer>> neighborNodeList)
+	{
+		double minimumX = 0;
+
+		for (int i = 0, size = layer.size(); i < size; i++)
+		{
+			int node = layer.get(i);
+			double nodeX = minimumX;
+
+			if (neighborNodeList != null)
+			{
+				List<Integer> neighborNodes = neighborNodeList.get(node);
+
+				if (!neighborNodes.isEmpty())
+				{
+					double sum = 0;
+
+					for (int j = 0, neighborCount = neighborNodes.size(); j < neighborCount; j++)
+					{
+						int neighborNode = neighborNodes.get(j);
+						sum += x[neighborNode] + width[neighborNode] / 2;
+					}
+
+					nodeX = Math.max(minimumX, sum / neighborNodes.size()
+							- width[node] / 2);
+				}
+			}
+
+			x[node] = nodeX;
+			minimumX = nodeX + width[node] + getHorizontalSpacing();
+		}
+	}
+
+	/**
+	 * Used to center every layer on the center of the widest layer.
+	 */
+	private void centerLayers(List<List<Integer>> layerList, double[] width,
+			double[] x)
+	{
+		double[] centers = new double[layerList.size()];
+		double maximumWidth = 0;
+		double center = 0;
+
+		for (int i = 0, size = layerList.size(); i < size; i++)
+		{
+			List<Integer> layer = layerList.get(i);
+
+			if (layer.isEmpty())
+				continue;
+
+			int firstNode = layer.get(0);
+			int lastNode = layer.get(layer.size() - 1);
+			double layerWidth = x[lastNode] + width[lastNode] - x[firstNode];
+			centers[i] = x[firstNode] + layerWidth / 2;
+
+			if (layerWidth > maximumWidth)
+			{
+				maximumWidth = layerWidth;
+				center = centers[i];
+			}
+		}
+
+		for (int i = 0, size = layerList.size(); i < size; i++)
+		{
+			List<Integer> layer = layerList.get(i);
+
+			for (int j = 0, layerSize = layer.size(); j < layerSize; j++)
+				x[layer.get(j)] += center - centers[i];
+		}
+	}
+}
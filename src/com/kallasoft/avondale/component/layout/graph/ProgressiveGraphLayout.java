@@ -0,0 +1,32 @@
+package com.kallasoft.avondale.component.layout.graph;
+
+import java.awt.geom.Point2D;
+
+/**
+ * Interface used to describe a <code>GraphLayout</code> that improves the
+ * locations of the nodes step by step, like a simulation, and can hand its
+ * intermediate locations to a <code>GraphLayoutObserver</code> along the
+ * way.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public interface ProgressiveGraphLayout extends GraphLayout
+{
+	/**
+	 * Used to compute the new locations of the nodes of
+	 * <code>graphSnapshot</code>, offering the intermediate locations to
+	 * <code>graphLayoutObserver</code> after every step.
+	 *
+	 * @param graphSnapshot
+	 *            The graph to lay out.
+	 * @param graphLayoutObserver
+	 *            The observer of the intermediate locations, or
+	 *            <code>null</code> if there is none.
+	 * @return the new locations of the nodes as described by
+	 *         {@link GraphLayout#layoutGraph(GraphSnapshot)}.
+	 */
+	public Point2D[] layoutGraph(GraphSnapshot graphSnapshot,
+			GraphLayoutObserver graphLayoutObserver);
+}
@@ -0,0 +1,175 @@
+package com.kallasoft.avondale.component.layout.graph;
+
+import java.awt.geom.Point2D;
+
+/**
+ * Class used to lay out a graph as a forest of trees growing down, every
+ * parent centered above its children and the trees placed side by side.
+ * <p>
+ * The nodes without inbound edges are the roots, in index order. Every other
+ * node becomes a child of the first node that reaches it in a breadth-first
+ * search from the roots, so graphs that aren't trees are laid out along one
+ * of their spanning trees. Nodes that can't be reached from any root (those
+ * on a cycle) start a tree of their own.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class TreeGraphLayout extends AbstractGraphLayout
+{
+	public TreeGraphLayout()
+	{
+		this(DEFAULT_HORIZONTAL_SPACING, DEFAULT_VERTICAL_SPACING);
+	}
+
+	public TreeGraphLayout(double horizontalSpacing, double verticalSpacing)
+			throws IllegalArgumentException
+	{
+		super(horizontalSpacing, verticalSpacing);
+	}
+
+	public Point2D[] layoutGraph(GraphSnapshot graphSnapshot)
+	{
+		int nodeCount = graphSnapshot.getNodeCount();
+		int[] parents = new int[nodeCount];
+		int[] depths = new int[nodeCount];
+		int[] order = new int[nodeCount];
+		int orderCount = 0;
+		int maximumDepth = 0;
+
+		for (int i = 0; i < nodeCount; i++)
+			parents[i] = -2;
+
+		/*
+		 * Build the spanning forest breadth first, first from the real roots
+		 * and then from whatever is left. The breadth-first order lists every
+		 * parent before its children.
+		 */
+		for (int pass = 0; pass < 2; pass++)
+		{
+			for (int i = 0; i < nodeCount; i++)
+			{
+				if (parents[i] != -2
+						|| (pass == 0 && graphSnapshot.getInboundNodeCount(i) > 0))
+					continue;
+
+				int head = orderCount;
+				parents[i] = -1;
+				order[orderCount++] = i;
+
+				while (head < orderCount)
+				{
+					int node = order[head++];
+
+					for (int j = 0, size = graphSnapshot
+							.getOutboundNodeCount(node); j < size; j++)
+					{
+						int child = graphSnapshot.getOutboundNode(node, j);
+
+						if (parents[child] != -2)
+							continue;
+
+						parents[child] = node;
+						depths[child] = depths[node] + 1;
+						maximumDepth = Math.max(maximumDepth, depths[child]);
+						order[orderCount++] = child;
+					}
+				}
+			}
+		}
+
+		if (Thread.currentThread().isInterrupted())
+			return null;
+
+		/* Link the children of every node in breadth-first order */
+		int[] firstChildren = new int[nodeCount];
+		int[] nextSiblings = new int[nodeCount];
+		int[] lastChildren = new int[nodeCount];
+
+		for (int i = 0; i < nodeCount; i++)
+		{
+			firstChildren[i] = -1;
+			nextSiblings[i] = -1;
+		}
+
+		for (int i = 0; i < nodeCount; i++)
+		{
+			int node = order[i];
+			int parent = parents[node];
+
+			if (parent < 0)
+				continue;
+
+			if (firstChildren[parent] == -1)
+				firstChildren[parent] = node;
+			else
+				nextSiblings[lastChildren[parent]] = node;
+
+			lastChildren[parent] = node;
+		}
+
+		/* Measure every subtree bottom up, children before their parents */
+		double horizontalSpacing = getHorizontalSpacing();
+		double[] subtreeWidths = new double[nodeCount];
+		double[] childrenWidths = new double[nodeCount];
+		double[] levelHeights = new double[maximumDepth + 1];
+
+		for (int i = nodeCount - 1; i > -1; i--)
+		{
+			int node = order[i];
+			double childrenWidth = 0;
+
+			for (int child = firstChildren[node]; child != -1; child = nextSiblings[child])
+				childrenWidth += subtreeWidths[child]
+						+ (child == firstChildren[node] ? 0 : horizontalSpacing);
+
+			childrenWidths[node] = childrenWidth;
+			subtreeWidths[node] = Math.max(graphSnapshot.getWidth(node),
+					childrenWidth);
+			levelHeights[depths[node]] = Math.max(levelHeights[depths[node]],
+					graphSnapshot.getHeight(node));
+		}
+
+		double[] levelY = new double[maximumDepth + 1];
+
+		for (int i = 1; i <= maximumDepth; i++)
+			levelY[i] = levelY[i - 1] + levelHeights[i - 1]
+					+ getVerticalSpacing();
+
+		/*
+		 * Place every subtree top down: a node is centered in the space of its
+		 * subtree and its children share that space left to right.
+		 */
+		double[] lefts = new double[nodeCount];
+		double[] x = new double[nodeCount];
+		double[] y = new double[nodeCount];
+		double rootLeft = 0;
+
+		for (int i = 0; i < nodeCount; i++)
+		{
+			int node = order[i];
+
+			if (parents[node] < 0)
+			{
+				lefts[node] = rootLeft;
+				rootLeft += subtreeWidths[node] + horizontalSpacing;
+			}
+
+			x[node] = lefts[node]
+					+ (subtreeWidths[node] - graphSnapshot.getWidth(node)) / 2;
+			y[node] = levelY[depths[node]];
+
+			double childLeft = lefts[node]
+					+ (subtreeWidths[node] - childrenWidths[node]) / 2;
+
+			for (int child = firstChildren[node]; child != -1; child = nextSiblings[child])
+			{
+				lefts[child] = childLeft;
+				childLeft += subtreeWidths[child] + horizontalSpacing;
+			}
+		}
+
+		return createLocations(x, y, getOrigin(graphSnapshot));
+	}
+}
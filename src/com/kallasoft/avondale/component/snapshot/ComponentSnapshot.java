@@ -0,0 +1,222 @@
+package com.kallasoft.avondale.component.snapshot;
+
+import java.awt.Paint;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.kallasoft.avondale.component.Component;
+import com.kallasoft.avondale.component.border.ComponentBorder;
+import com.kallasoft.avondale.component.painter.ComponentPainter;
+
+/**
+ * Class used to hold an immutable copy of the geometry and paint attributes
+ * of a component and, for containers, the snapshots of its children.
+ * <p>
+ * Components are mutable and can only be read on the event dispatch thread.
+ * A snapshot is taken on that thread with {@link Component#getSnapshot()} and
+ * can then be handed to any number of background threads (e.g. for export,
+ * layout, search or analytics) that see one consistent version of the
+ * hierarchy while the user keeps editing it.
+ * <p>
+ * Taking a snapshot is cheap: every component caches its last snapshot and
+ * only a component that changed, and the containers above it, create a new
+ * one. Unchanged subtrees are shared between consecutive snapshots, so two
+ * snapshots can be compared subtree by subtree with <code>==</code>. For the
+ * same reason all coordinates are relative to the parent, like those of the
+ * component itself, so moving a container doesn't create new snapshots for
+ * everything inside of it.
+ * <p>
+ * The component a snapshot was taken of is available as an identity handle
+ * (e.g. to look up or select it again on the event dispatch thread), but it
+ * must not be read from a background thread.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class ComponentSnapshot
+{
+	private static final ComponentSnapshot[] EMPTY_SNAPSHOTS = new ComponentSnapshot[0];
+
+	private final Component component;
+	private final double x;
+	private final double y;
+	private final double width;
+	private final double height;
+	private final double preferredX;
+	private final double preferredY;
+	private final double preferredWidth;
+	private final double preferredHeight;
+	private final boolean visible;
+	private final boolean opaque;
+	private final boolean enabled;
+	private final Paint backgroundPaint;
+	private final Paint foregroundPaint;
+	private final ComponentBorder componentBorder;
+	private final ComponentPainter componentPainter;
+	private final List<ComponentSnapshot> childSnapshotList;
+
+	/**
+	 * Used to take a snapshot of <code>component</code>, must be called on the
+	 * thread that owns the component (the event dispatch thread).
+	 *
+	 * @param component
+	 *            The component to take the snapshot of.
+	 * @param childSnapshots
+	 *            The snapshots of the children of the component, in index
+	 *            order, can be <code>null</code>.
+	 */
+	public ComponentSnapshot(Component component,
+			ComponentSnapshot[] childSnapshots)
+	{
+		Rectangle2D preferredBounds = component.getPreferredBounds();
+
+		this.component = component;
+		x = component.getX();
+		y = component.getY();
+		width = component.getWidth();
+		height = component.getHeight();
+		preferredX = preferredBounds.getX();
+		preferredY = preferredBounds.getY();
+		preferredWidth = preferredBounds.getWidth();
+		preferredHeight = preferredBounds.getHeight();
+		visible = component.isVisible();
+		opaque = component.isOpaque();
+		enabled = component.isEnabled();
+		backgroundPaint = component.getBackgroundPaint();
+		foregroundPaint = component.getForegroundPaint();
+		componentBorder = component.getComponentBorder();
+		componentPainter = component.getComponentPainter();
+
+		/* Copy the array so the caller can't change the snapshot afterwards */
+		childSnapshotList = Collections.unmodifiableList(Arrays
+				.asList(childSnapshots == null || childSnapshots.length == 0 ? EMPTY_SNAPSHOTS
+						: childSnapshots.clone()));
+	}
+
+	public Component getComponent()
+	{
+		return component;
+	}
+
+	public double getX()
+	{
+		return x;
+	}
+
+	public double getY()
+	{
+		return y;
+	}
+
+	public double getWidth()
+	{
+		return width;
+	}
+
+	public double getHeight()
+	{
+		return height;
+	}
+
+	public Rectangle2D getBounds()
+	{
+		return new Rectangle2D.Double(x, y, width, height);
+	}
+
+	/**
+	 * Used to get the bounds of the component including its border, in the
+	 * coordinate space of its parent.
+	 *
+	 * @return a new rectangle holding the preferred bounds.
+	 */
+	public Rectangle2D getPreferredBounds()
+	{
+		return new Rectangle2D.Double(preferredX, preferredY, preferredWidth,
+				preferredHeight);
+	}
+
+	public boolean isVisible()
+	{
+		return visible;
+	}
+
+	public boolean isOpaque()
+	{
+		return opaque;
+	}
+
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	public Paint getBackgroundPaint()
+	{
+		return backgroundPaint;
+	}
+
+	public Paint getForegroundPaint()
+	{
+		return foregroundPaint;
+	}
+
+	public ComponentBorder getComponentBorder()
+	{
+		return componentBorder;
+	}
+
+	public ComponentPainter getComponentPainter()
+	{
+		return componentPainter;
+	}
+
+	public int getChildSnapshotCount()
+	{
+		return childSnapshotList.size();
+	}
+
+	public ComponentSnapshot getChildSnapshot(int index)
+	{
+		return childSnapshotList.get(index);
+	}
+
+	/**
+	 * Used to get the snapshots of the children of the component, in index
+	 * order.
+	 *
+	 * @return an unmodifiable list of the child snapshots.
+	 */
+	public List<ComponentSnapshot> getChildSnapshots()
+	{
+		return childSnapshotList;
+	}
+
+	/**
+	 * Used to find the snapshot of <code>component</code> in the subtree of
+	 * this snapshot, e.g. to resolve the end points of a connection.
+	 *
+	 * @param component
+	 *            The component to find the snapshot of.
+	 * @return the snapshot of the component, or <code>null</code> if it isn't
+	 *         part of this subtree.
+	 */
+	public ComponentSnapshot findSnapshot(Component component)
+	{
+		if (this.component == component)
+			return this;
+
+		for (int i = 0, size = childSnapshotList.size(); i < size; i++)
+		{
+			ComponentSnapshot snapshot = childSnapshotList.get(i)
+					.findSnapshot(component);
+
+			if (snapshot != null)
+				return snapshot;
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,101 @@
+package com.kallasoft.avondale.component.snapshot;
+
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.geom.Line2D;
+
+import com.kallasoft.avondale.component.ConnectedComponent;
+import com.kallasoft.avondale.component.connection.Connection;
+
+/**
+ * Class used to hold an immutable copy of a connection, adding the
+ * topology (the components on each end) and the line it is drawn along to
+ * what a <code>ComponentSnapshot</code> holds.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class ConnectionSnapshot extends ComponentSnapshot
+{
+	private final ConnectedComponent sourceComponent;
+	private final ConnectedComponent destinationComponent;
+	private final boolean directed;
+	private final double connectionWidth;
+	private final Stroke connectionStroke;
+	private final Line2D line;
+
+	/**
+	 * Used to take a snapshot of <code>connection</code>, must be called on
+	 * the thread that owns the connection (the event dispatch thread).
+	 *
+	 * @param connection
+	 *            The connection to take the snapshot of.
+	 */
+	public ConnectionSnapshot(Connection connection)
+	{
+		super(connection, null);
+
+		Shape shape = connection.getComponentShape();
+
+		sourceComponent = connection.getSourceComponent();
+		destinationComponent = connection.getDestinationComponent();
+		directed = connection.isDirected();
+		connectionWidth = connection.getConnectionWidth();
+		connectionStroke = connection.getConnectionStroke();
+
+		/* Copy the line, the connection keeps changing its own */
+		if (shape instanceof Line2D)
+		{
+			Line2D connectionLine = (Line2D) shape;
+			line = new Line2D.Double(connectionLine.getX1(), connectionLine
+					.getY1(), connectionLine.getX2(), connectionLine.getY2());
+		}
+		else
+			line = null;
+	}
+
+	/**
+	 * Used to get the source component as an identity handle, use
+	 * <code>findSnapshot</code> on a root snapshot to get its state.
+	 *
+	 * @return the source component, can be <code>null</code>.
+	 */
+	public ConnectedComponent getSourceComponent()
+	{
+		return sourceComponent;
+	}
+
+	public ConnectedComponent getDestinationComponent()
+	{
+		return destinationComponent;
+	}
+
+	public boolean isDirected()
+	{
+		return directed;
+	}
+
+	public double getConnectionWidth()
+	{
+		return connectionWidth;
+	}
+
+	public Stroke getConnectionStroke()
+	{
+		return connectionStroke;
+	}
+
+	/**
+	 * Used to get the line the connection is drawn along, in the coordinate
+	 * space of the <code>ComponentPanel</code>.
+	 *
+	 * @return a new line, or <code>null</code> if the connection wasn't
+	 *         connected on both ends.
+	 */
+	public Line2D getLine()
+	{
+		return (line == null ? null : new Line2D.Double(line.getX1(), line
+				.getY1(), line.getX2(), line.getY2()));
+	}
+}
@@ -3,6 +3,8 @@ package com.kallasoft.avondale.component.util;
 import java.awt.Point;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.swing.SwingUtilities;
 
@@ -147,13 +149,12 @@ public class ComponentUtils
 		if (component == null)
 			return location;
 
-		location = new Point2D.Double(x, y);
-
-		for (ContainerComponent parent = component.getParentComponent(); parent != null; parent = parent
-				.getParentComponent())
-			location.setLocation(location.getX() + parent.getX(), location
-					.getY()
-					+ parent.getY());
+		/*
+		 * The component caches the combined offset of all of its ancestors, so
+		 * there is no need to walk up the hierarchy here.
+		 */
+		location = new Point2D.Double(x + component.getComponentPanelOffsetX(),
+				y + component.getComponentPanelOffsetY());
 
 		return location;
 	}
@@ -212,4 +213,55 @@ public class ComponentUtils
 		return getBoundsOnComponentPanel(component, bounds.getX(), bounds
 				.getY(), bounds.getWidth(), bounds.getHeight());
 	}
+
+	/**
+	 * Used to bring <code>component</code> and every component below it up to
+	 * date before the hierarchy is painted by other threads. Painting
+	 * validates components lazily and fills caches (the offsets on the
+	 * <code>ComponentPanel</code> and the index of the children of a
+	 * container) on demand, all of it is done here instead, in painting order,
+	 * so painting the hierarchy afterwards only reads it.
+	 * <p>
+	 * Must be called on the thread that owns the hierarchy (the event dispatch
+	 * thread for a hierarchy shown in a <code>ComponentPanel</code>).
+	 * 
+	 * @param component
+	 *            The component to validate along with its descendants.
+	 */
+	public static void validateTree(Component component)
+	{
+		/*
+		 * Walk the tree without recursion, trees can be deep. The children are
+		 * pushed last to first so they are validated in painting order.
+		 */
+		List<Component> componentStack = new ArrayList<Component>();
+		componentStack.add(component);
+
+		while (!componentStack.isEmpty())
+		{
+			Component currentComponent = componentStack.remove(componentStack
+					.size() - 1);
+
+			if (!currentComponent.isValid())
+				currentComponent.validate();
+
+			currentComponent.getComponentPanelOffsetX();
+
+			if (!(currentComponent instanceof ContainerComponent))
+				continue;
+
+			ContainerComponent containerComponent = (ContainerComponent) currentComponent;
+			int componentCount = containerComponent.getComponentCount();
+
+			if (componentCount == 0)
+				continue;
+
+			/* Looking a child up rebuilds the index the children are sorted by */
+			containerComponent.getIndexOfComponent(containerComponent
+					.getComponent(0));
+
+			for (int i = componentCount - 1; i >= 0; i--)
+				componentStack.add(containerComponent.getComponent(i));
+		}
+	}
 }
\ No newline at end of file
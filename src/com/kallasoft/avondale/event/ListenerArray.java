@@ -0,0 +1,156 @@
+package com.kallasoft.avondale.event;
+
+import java.lang.reflect.Array;
+
+/**
+ * Class used to hold the listeners of a listener registry as an immutable
+ * array that is copied whenever a listener is added or removed.
+ * <p>
+ * Listeners are added and removed rarely but notified all the time, so a
+ * registry keeps a reference to its current <code>ListenerArray</code>,
+ * replaces it on every change and fires events by iterating over the instance
+ * it read once. A listener that adds or removes listeners while an event is
+ * being delivered only affects the next event. Every empty registry shares the
+ * same instance, so components without listeners don't allocate anything.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public final class ListenerArray<L>
+{
+	private static final ListenerArray<Object> EMPTY_LISTENER_ARRAY = new ListenerArray<Object>(
+			new Object[0]);
+
+	private final Object[] listeners;
+
+	private ListenerArray(Object[] listeners)
+	{
+		this.listeners = listeners;
+	}
+
+	/**
+	 * Used to get the shared, empty listener array.
+	 *
+	 * @return the empty listener array.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <L> ListenerArray<L> empty()
+	{
+		return (ListenerArray<L>) EMPTY_LISTENER_ARRAY;
+	}
+
+	public int size()
+	{
+		return listeners.length;
+	}
+
+	public boolean isEmpty()
+	{
+		return (listeners.length == 0);
+	}
+
+	@SuppressWarnings("unchecked")
+	public L get(int index)
+	{
+		return (L) listeners[index];
+	}
+
+	public int indexOf(Object listener)
+	{
+		for (int i = 0; i < listeners.length; i++)
+		{
+			if (listeners[i] == listener
+					|| (listener != null && listener.equals(listeners[i])))
+				return i;
+		}
+
+		return -1;
+	}
+
+	public boolean contains(Object listener)
+	{
+		return (indexOf(listener) > -1);
+	}
+
+	/**
+	 * Used to get a copy of this array with <code>listener</code> inserted at
+	 * <code>index</code>.
+	 *
+	 * @param index
+	 *            The index to insert the listener at.
+	 * @param listener
+	 *            The listener to insert.
+	 * @return a new listener array holding the listener.
+	 * @throws IndexOutOfBoundsException
+	 *             if <code>index</code> is less than 0 or greater than
+	 *             <code>size()</code>.
+	 */
+	public ListenerArray<L> add(int index, L listener)
+			throws IndexOutOfBoundsException
+	{
+		if (index < 0 || index > listeners.length)
+			throw new IndexOutOfBoundsException("index (" + index
+					+ ") must be between 0 and " + listeners.length);
+
+		Object[] newListeners = new Object[listeners.length + 1];
+		System.arraycopy(listeners, 0, newListeners, 0, index);
+		newListeners[index] = listener;
+		System.arraycopy(listeners, index, newListeners, index + 1,
+				listeners.length - index);
+
+		return new ListenerArray<L>(newListeners);
+	}
+
+	/**
+	 * Used to get a copy of this array without the listener at
+	 * <code>index</code>.
+	 *
+	 * @param index
+	 *            The index of the listener to remove.
+	 * @return a new listener array, or the shared empty array if no listener
+	 *         is left.
+	 * @throws IndexOutOfBoundsException
+	 *             if <code>index</code> is less than 0 or not less than
+	 *             <code>size()</code>.
+	 */
+	public ListenerArray<L> remove(int index) throws IndexOutOfBoundsException
+	{
+		if (index < 0 || index >= listeners.length)
+			throw new IndexOutOfBoundsException("index (" + index
+					+ ") must be between 0 and " + (listeners.length - 1));
+
+		if (listeners.length == 1)
+			return empty();
+
+		Object[] newListeners = new Object[listeners.length - 1];
+		System.arraycopy(listeners, 0, newListeners, 0, index);
+		System.arraycopy(listeners, index + 1, newListeners, index,
+				newListeners.length - index);
+
+		return new ListenerArray<L>(newListeners);
+	}
+
+	/**
+	 * Used to copy the listeners into an array of the right type, following
+	 * the contract of <code>Collection.toArray(Object[])</code>.
+	 *
+	 * @param array
+	 *            The array to copy the listeners into if it is big enough.
+	 * @return an array holding every listener.
+	 */
+	@SuppressWarnings("unchecked")
+	public L[] toArray(L[] array)
+	{
+		if (array.length < listeners.length)
+			array = (L[]) Array.newInstance(array.getClass()
+					.getComponentType(), listeners.length);
+
+		System.arraycopy(listeners, 0, array, 0, listeners.length);
+
+		if (array.length > listeners.length)
+			array[listeners.length] = null;
+
+		return array;
+	}
+}
@@ -0,0 +1,705 @@
+package com.kallasoft.avondale.export;
+
+import java.awt.AlphaComposite;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+
+import com.kallasoft.avondale.component.Component;
+import com.kallasoft.avondale.component.Component.LevelOfDetail;
+import com.kallasoft.avondale.component.snapshot.ComponentSnapshot;
+import com.kallasoft.avondale.component.util.ComponentUtils;
+import com.kallasoft.avondale.panel.ComponentPanel;
+import com.kallasoft.avondale.panel.TileRenderer;
+import com.kallasoft.ext.bean.AbstractPropertyChangeSupport;
+
+/**
+ * Abstract class used to provide a basic implementation of the
+ * <code>Exporter</code> interface.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public abstract class AbstractExporter extends AbstractPropertyChangeSupport
+		implements Exporter
+{
+	private double scale;
+	private int tileSize;
+	private Paint backgroundPaint;
+	private TileRenderer tileRenderer;
+
+	public AbstractExporter()
+	{
+		scale = DEFAULT_SCALE;
+		tileSize = DEFAULT_TILE_SIZE;
+		backgroundPaint = DEFAULT_BACKGROUND_PAINT;
+	}
+
+	public double getScale()
+	{
+		return scale;
+	}
+
+	public void setScale(double scale) throws IllegalArgumentException
+	{
+		if (scale <= 0)
+			throw new IllegalArgumentException("scale (" + scale
+					+ ") must be > 0");
+
+		double oldScale = getScale();
+
+		if (oldScale == scale)
+			return;
+
+		this.scale = scale;
+		firePropertyChangeEvent(this, SCALE_PROPERTY_NAME, oldScale,
+				getScale());
+	}
+
+	public Paint getBackgroundPaint()
+	{
+		return backgroundPaint;
+	}
+
+	public void setBackgroundPaint(Paint backgroundPaint)
+	{
+		Paint oldBackgroundPaint = getBackgroundPaint();
+
+		if (oldBackgroundPaint == backgroundPaint)
+			return;
+
+		this.backgroundPaint = backgroundPaint;
+		firePropertyChangeEvent(this, BACKGROUND_PAINT_PROPERTY_NAME,
+				oldBackgroundPaint, getBackgroundPaint());
+	}
+
+	public int getTileSize()
+	{
+		return tileSize;
+	}
+
+	public void setTileSize(int tileSize) throws IllegalArgumentException
+	{
+		if (tileSize < 1)
+			throw new IllegalArgumentException("tileSize (" + tileSize
+					+ ") must be >= 1");
+
+		int oldTileSize = getTileSize();
+
+		if (oldTileSize == tileSize)
+			return;
+
+		this.tileSize = tileSize;
+		firePropertyChangeEvent(this, TILE_SIZE_PROPERTY_NAME, oldTileSize,
+				getTileSize());
+	}
+
+	public TileRenderer getTileRenderer()
+	{
+		return tileRenderer;
+	}
+
+	public void setTileRenderer(TileRenderer tileRenderer)
+	{
+		TileRenderer oldTileRenderer = getTileRenderer();
+
+		if (oldTileRenderer == tileRenderer)
+			return;
+
+		this.tileRenderer = tileRenderer;
+		firePropertyChangeEvent(this, TILE_RENDERER_PROPERTY_NAME,
+				oldTileRenderer, getTileRenderer());
+	}
+
+	public Rectangle2D getExportBounds(Component[] rootComponents)
+	{
+		Rectangle2D exportBounds = null;
+		Rectangle2D preferredBounds = new Rectangle2D.Double();
+
+		for (int i = 0; i < rootComponents.length; i++)
+		{
+			Component rootComponent = rootComponents[i];
+
+			if (!rootComponent.isVisible())
+				continue;
+
+			/*
+			 * Lay the root component out before taking its size, including the
+			 * layouts still scheduled below it. A diagram shown in a
+			 * ComponentPanel belongs to the event dispatch thread, on any other
+			 * thread it is exported as it was last laid out.
+			 */
+			ComponentPanel componentPanel = rootComponent.getComponentPanel();
+
+			if (componentPanel == null)
+			{
+				if (!rootComponent.isValid())
+					rootComponent.validate();
+			}
+			else if (SwingUtilities.isEventDispatchThread())
+			{
+				componentPanel.validateScheduledLayouts();
+
+				if (!rootComponent.isValid())
+					rootComponent.validate();
+			}
+
+			rootComponent.getPreferredBounds(preferredBounds);
+
+			if (preferredBounds.isEmpty())
+				continue;
+
+			if (exportBounds == null)
+				exportBounds = new Rectangle2D.Double(preferredBounds.getX(),
+						preferredBounds.getY(), preferredBounds.getWidth(),
+						preferredBounds.getHeight());
+			else
+				exportBounds.add(preferredBounds);
+		}
+
+		return (exportBounds == null ? new Rectangle2D.Double()
+				: exportBounds);
+	}
+
+	public Dimension getExportSize(Component[] rootComponents)
+	{
+		return getExportSize(getExportBounds(rootComponents));
+	}
+
+	public void export(final Graphics2D g2d, final Component[] rootComponents)
+	{
+		final Rectangle2D exportBounds = getExportBounds(rootComponents);
+		final Dimension exportSize = getExportSize(exportBounds);
+
+		runPaintTask(rootComponents, new Runnable()
+		{
+			public void run()
+			{
+				paintExport(g2d, rootComponents, exportBounds, 0, 0,
+						exportSize.width, exportSize.height);
+			}
+		});
+	}
+
+	public BufferedImage exportImage(Component[] rootComponents)
+	{
+		return exportImage(rootComponents, getExportBounds(rootComponents));
+	}
+
+	public void exportImage(Component[] rootComponents, String formatName,
+			OutputStream outputStream) throws IOException
+	{
+		exportImage(rootComponents, getExportBounds(rootComponents),
+				formatName, outputStream);
+	}
+
+	public void exportTiles(Component[] rootComponents, TileHandler tileHandler)
+			throws IOException
+	{
+		exportTiles(rootComponents, getExportBounds(rootComponents),
+				tileHandler);
+	}
+
+	public Future<File> submitExport(ExecutorService executorService,
+			Component[] rootComponents, String formatName, File file)
+	{
+		final Component[] exportComponents = rootComponents.clone();
+		FutureTask<Rectangle2D> prepareTask = new FutureTask<Rectangle2D>(
+				new Callable<Rectangle2D>()
+				{
+					public Rectangle2D call() throws Exception
+					{
+						return prepareExport(exportComponents);
+					}
+				});
+
+		/*
+		 * The export runs on another thread, so a diagram shown in a
+		 * ComponentPanel is prepared on the event dispatch thread, which the
+		 * export waits for before it starts.
+		 */
+		if (SwingUtilities.isEventDispatchThread()
+				|| !isShown(exportComponents))
+			prepareTask.run();
+		else
+			SwingUtilities.invokeLater(prepareTask);
+
+		return executorService.submit(new ExportTask(exportComponents,
+				prepareTask, formatName, file));
+	}
+
+	/**
+	 * Used to export the given region of the diagram to an image.
+	 *
+	 * @param rootComponents
+	 *            The root components of the diagram.
+	 * @param exportBounds
+	 *            The exported region of the (unscaled) component space.
+	 * @return a new image holding the export.
+	 */
+	protected BufferedImage exportImage(final Component[] rootComponents,
+			final Rectangle2D exportBounds)
+	{
+		final Dimension exportSize = getExportSize(exportBounds);
+		BufferedImage image = new BufferedImage(exportSize.width,
+				exportSize.height, BufferedImage.TYPE_INT_ARGB);
+		final Graphics2D g2d = image.createGraphics();
+		final TileRenderer tileRenderer = getTileRenderer();
+
+		runPaintTask(rootComponents, new Runnable()
+		{
+			public void run()
+			{
+				if (tileRenderer == null)
+					paintExport(g2d, rootComponents, exportBounds, 0, 0,
+							exportSize.width, exportSize.height);
+				else
+				{
+					/* The background, then the components rendered in parallel */
+					paintExport(g2d, new Component[0], exportBounds, 0, 0,
+							exportSize.width, exportSize.height);
+
+					AffineTransform transform = AffineTransform
+							.getScaleInstance(getScale(), getScale());
+					transform.translate(-exportBounds.getX(), -exportBounds
+							.getY());
+					tileRenderer.paint(g2d, rootComponents, transform);
+				}
+			}
+		});
+
+		g2d.dispose();
+
+		return image;
+	}
+
+	/**
+	 * Used to export the given region of the diagram to
+	 * <code>outputStream</code> in the given <code>ImageIO</code> format.
+	 *
+	 * @param rootComponents
+	 *            The root components of the diagram.
+	 * @param exportBounds
+	 *            The exported region of the (unscaled) component space.
+	 * @param formatName
+	 *            The informal name of the format (e.g. "png").
+	 * @param outputStream
+	 *            The stream to write the image to, it is not closed.
+	 * @throws IOException
+	 *             if there is no writer for the format or writing fails.
+	 */
+	protected void exportImage(Component[] rootComponents,
+			Rectangle2D exportBounds, String formatName,
+			OutputStream outputStream) throws IOException
+	{
+		BufferedImage image = exportImage(rootComponents, exportBounds);
+
+		try
+		{
+			if (!ImageIO.write(image, formatName, outputStream))
+				throw new IOException("No ImageIO writer available for format '"
+						+ formatName + "'");
+		}
+		finally
+		{
+			image.flush();
+		}
+	}
+
+	/**
+	 * Used to render the given region of the diagram one tile at a time,
+	 * handing every tile to <code>tileHandler</code>.
+	 *
+	 * @param rootComponents
+	 *            The root components of the diagram.
+	 * @param exportBounds
+	 *            The exported region of the (unscaled) component space.
+	 * @param tileHandler
+	 *            The receiver of the tiles.
+	 * @throws IOException
+	 *             if the tileHandler fails or the export is interrupted.
+	 */
+	protected void exportTiles(Component[] rootComponents,
+			Rectangle2D exportBounds, TileHandler tileHandler)
+			throws IOException
+	{
+		exportTiles(rootComponents, exportBounds, tileHandler, getTileSize());
+	}
+
+	/**
+	 * Used to render the given region of the diagram one tile of the given
+	 * size at a time, handing every tile to <code>tileHandler</code>.
+	 *
+	 * @param rootComponents
+	 *            The root components of the diagram.
+	 * @param exportBounds
+	 *            The exported region of the (unscaled) component space.
+	 * @param tileHandler
+	 *            The receiver of the tiles.
+	 * @param tileSize
+	 *            The width and height of the tiles, instead of
+	 *            <code>tileSize</code>.
+	 * @throws IOException
+	 *             if the tileHandler fails or the export is interrupted.
+	 */
+	protected void exportTiles(final Component[] rootComponents,
+			final Rectangle2D exportBounds, TileHandler tileHandler,
+			int tileSize) throws IOException
+	{
+		Dimension exportSize = getExportSize(exportBounds);
+		BufferedImage tile = new BufferedImage(tileSize, tileSize,
+				BufferedImage.TYPE_INT_ARGB);
+
+		boolean completed = false;
+
+		try
+		{
+			tileHandler.beginTiles(exportSize.width, exportSize.height,
+					tileSize);
+
+			for (int y = 0; y < exportSize.height; y += tileSize)
+			{
+				for (int x = 0; x < exportSize.width; x += tileSize)
+				{
+					final Graphics2D g2d = tile.createGraphics();
+					final int tileX = x;
+					final int tileY = y;
+					final int width = Math.min(tileSize, exportSize.width - x);
+					final int height = Math.min(tileSize, exportSize.height - y);
+
+					try
+					{
+						/* Clear what was left behind by the previous tile */
+						g2d.setComposite(AlphaComposite.Clear);
+						g2d.fillRect(0, 0, tileSize, tileSize);
+						g2d.setComposite(AlphaComposite.SrcOver);
+
+						runPaintTask(rootComponents, new Runnable()
+						{
+							public void run()
+							{
+								paintExport(g2d, rootComponents, exportBounds,
+										tileX, tileY, width, height);
+							}
+						});
+					}
+					finally
+					{
+						g2d.dispose();
+					}
+
+					if (Thread.currentThread().isInterrupted())
+						throw new InterruptedIOException("Export interrupted");
+
+					tileHandler.handleTile(tile, x, y, width, height);
+				}
+			}
+
+			tileHandler.endTiles();
+			completed = true;
+		}
+		finally
+		{
+			/* Let the handler close its files if the export failed */
+			if (!completed)
+				tileHandler.abortTiles();
+
+			tile.flush();
+		}
+	}
+
+	/**
+	 * Used to bring a diagram up to date before it is exported on another
+	 * thread, called on the event dispatch thread for a diagram shown in a
+	 * <code>ComponentPanel</code>. The whole hierarchy is validated and the
+	 * exported region is taken from the snapshots of the root components, so
+	 * the exporting thread never has to look at the hierarchy for it.
+	 *
+	 * @param rootComponents
+	 *            The root components of the diagram.
+	 * @return the exported region.
+	 */
+	protected Rectangle2D prepareExport(Component[] rootComponents)
+	{
+		Rectangle2D exportBounds = null;
+
+		for (int i = 0; i < rootComponents.length; i++)
+		{
+			Component rootComponent = rootComponents[i];
+			ComponentPanel componentPanel = rootComponent.getComponentPanel();
+
+			if (componentPanel != null)
+				componentPanel.validateScheduledLayouts();
+
+			ComponentUtils.validateTree(rootComponent);
+
+			ComponentSnapshot snapshot = rootComponent.getSnapshot();
+			Rectangle2D preferredBounds = snapshot.getPreferredBounds();
+
+			if (!snapshot.isVisible() || preferredBounds.isEmpty())
+				continue;
+
+			if (exportBounds == null)
+				exportBounds = preferredBounds;
+			else
+				exportBounds.add(preferredBounds);
+		}
+
+		return (exportBounds == null ? new Rectangle2D.Double()
+				: exportBounds);
+	}
+
+	/**
+	 * Used to determine if any of the root components is shown in a
+	 * <code>ComponentPanel</code>, and so belongs to the event dispatch
+	 * thread.
+	 *
+	 * @param rootComponents
+	 *            The root components of the diagram.
+	 * @return <code>true</code> if the diagram is shown, otherwise
+	 *         <code>false</code>.
+	 */
+	protected boolean isShown(Component[] rootComponents)
+	{
+		for (int i = 0; i < rootComponents.length; i++)
+		{
+			if (rootComponents[i].getComponentPanel() != null)
+				return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Used to run a paint pass over the diagram. A diagram shown in a
+	 * <code>ComponentPanel</code> belongs to the event dispatch thread, so
+	 * when this is called on any other thread the pass is run there instead
+	 * and the calling thread waits for it. Only painting is moved, encoding
+	 * and writing the export stays on the calling thread.
+	 * <p>
+	 * If the calling thread is interrupted while waiting, the interrupt
+	 * status is restored and the pass may not have been run.
+	 *
+	 * @param rootComponents
+	 *            The root components of the diagram.
+	 * @param paintTask
+	 *            The paint pass.
+	 */
+	protected void runPaintTask(Component[] rootComponents, Runnable paintTask)
+	{
+		if (SwingUtilities.isEventDispatchThread()
+				|| !isShown(rootComponents))
+		{
+			paintTask.run();
+			return;
+		}
+
+		try
+		{
+			SwingUtilities.invokeAndWait(paintTask);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (InvocationTargetException e)
+		{
+			Throwable cause = e.getCause();
+
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Used to paint one region of the export to <code>g2d</code>, with the
+	 * top left corner of the region at 0,0.
+	 *
+	 * @param g2d
+	 *            The context to paint to.
+	 * @param rootComponents
+	 *            The root components of the diagram.
+	 * @param exportBounds
+	 *            The exported region of the (unscaled) component space.
+	 * @param x
+	 *            The x coordinate, in pixels, of the region in the export.
+	 * @param y
+	 *            The y coordinate of the region.
+	 * @param width
+	 *            The width of the region.
+	 * @param height
+	 *            The height of the region.
+	 */
+	protected void paintExport(Graphics2D g2d, Component[] rootComponents,
+			Rectangle2D exportBounds, int x, int y, int width, int height)
+	{
+		double scale = getScale();
+		Paint backgroundPaint = getBackgroundPaint();
+
+		g2d.clipRect(0, 0, width, height);
+
+		/* Exports are always painted at full detail */
+		g2d.setRenderingHint(LevelOfDetail.RENDERING_HINT_KEY,
+				LevelOfDetail.FULL);
+
+		if (backgroundPaint != null)
+		{
+			Paint oldPaint = g2d.getPaint();
+			g2d.setPaint(backgroundPaint);
+			g2d.fillRect(0, 0, width, height);
+			g2d.setPaint(oldPaint);
+		}
+
+		AffineTransform transform = g2d.getTransform();
+		g2d.translate(-x, -y);
+		g2d.scale(scale, scale);
+		g2d.translate(-exportBounds.getX(), -exportBounds.getY());
+
+		AffineTransform exportTransform = g2d.getTransform();
+
+		for (int i = 0; i < rootComponents.length; i++)
+		{
+			Component rootComponent = rootComponents[i];
+
+			g2d.translate(rootComponent.getX(), rootComponent.getY());
+			rootComponent.paint(g2d);
+			g2d.setTransform(exportTransform);
+		}
+
+		g2d.setTransform(transform);
+	}
+
+	/**
+	 * Used to convert the exported region into a size in pixels.
+	 *
+	 * @param exportBounds
+	 *            The exported region of the (unscaled) component space.
+	 * @return the size of the export, at least 1x1.
+	 */
+	protected Dimension getExportSize(Rectangle2D exportBounds)
+	{
+		double scale = getScale();
+
+		return new Dimension(Math.max(1, (int) Math.ceil(exportBounds
+				.getWidth()
+				* scale)), Math.max(1, (int) Math.ceil(exportBounds
+				.getHeight()
+				* scale)));
+	}
+
+	/**
+	 * Class used to export a single diagram to a file on a thread pool.
+	 */
+	private class ExportTask implements Callable<File>
+	{
+		private Component[] rootComponents;
+		private Future<Rectangle2D> exportBoundsFuture;
+		private String formatName;
+		private File file;
+
+		/**
+		 * @param exportBoundsFuture
+		 *            The preparation of the export, returning the exported
+		 *            region.
+		 */
+		public ExportTask(Component[] rootComponents,
+				Future<Rectangle2D> exportBoundsFuture, String formatName,
+				File file)
+		{
+			this.rootComponents = rootComponents;
+			this.exportBoundsFuture = exportBoundsFuture;
+			this.formatName = formatName;
+			this.file = file;
+		}
+
+		public File call() throws Exception
+		{
+			Rectangle2D exportBounds;
+
+			try
+			{
+				exportBounds = exportBoundsFuture.get();
+			}
+			catch (ExecutionException e)
+			{
+				Throwable cause = e.getCause();
+
+				if (cause instanceof Exception)
+					throw (Exception) cause;
+
+				throw (Error) cause;
+			}
+
+			/*
+			 * TIFF is always written tile by tile, straight into the file. The
+			 * writer owns the file and closes it when the export ends, failed
+			 * or not. TIFF tiles must be a multiple of 16 pixels, the tiles
+			 * past the edges of the export are cleared so rounding up is
+			 * harmless.
+			 */
+			if ("tif".equalsIgnoreCase(formatName)
+					|| "tiff".equalsIgnoreCase(formatName))
+			{
+				int tileSize = getTileSize();
+				int remainder = tileSize % TiffTileWriter.TILE_SIZE_MULTIPLE;
+
+				if (remainder != 0)
+					tileSize += TiffTileWriter.TILE_SIZE_MULTIPLE - remainder;
+
+				exportTiles(rootComponents, exportBounds, new TiffTileWriter(
+						file), tileSize);
+				return file;
+			}
+
+			OutputStream outputStream = new BufferedOutputStream(
+					new FileOutputStream(file));
+
+			try
+			{
+				int tileSize = getTileSize();
+				Dimension exportSize = getExportSize(exportBounds);
+
+				/*
+				 * Stream PNG exports larger than a tile a strip at a time
+				 * instead of allocating an image the size of the canvas.
+				 */
+				if ("png".equalsIgnoreCase(formatName)
+						&& (exportSize.width > tileSize || exportSize.height > tileSize))
+					exportTiles(rootComponents, exportBounds,
+							new PngStripWriter(outputStream));
+				else
+					exportImage(rootComponents, exportBounds, formatName,
+							outputStream);
+			}
+			finally
+			{
+				outputStream.close();
+			}
+
+			return file;
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package com.kallasoft.avondale.export;
+
+/**
+ * Default implementation of the <code>Exporter</code> interface.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class DefaultExporter extends AbstractExporter
+{
+	public DefaultExporter()
+	{
+		/* Default constructor */
+	}
+}
@@ -0,0 +1,207 @@
+package com.kallasoft.avondale.export;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.kallasoft.avondale.component.Component;
+import com.kallasoft.avondale.panel.TileRenderer;
+import com.kallasoft.ext.bean.PropertyChangeSupport;
+
+/**
+ * Interface used to describe an exporter that renders a diagram, given as
+ * the root components of a <code>ComponentPanel</code> (see
+ * <code>ComponentPanel.getRootComponents()</code>), without a
+ * <code>ComponentPanel</code> or any window being shown. Exporting a diagram
+ * that isn't shown never touches the event dispatch thread, which makes it
+ * usable on headless servers and allows many diagrams to be exported in
+ * parallel.
+ * <p>
+ * The export covers the union of the preferred bounds of all the visible
+ * root components, multiplied by <code>scale</code>. Diagrams can be
+ * exported to a <code>BufferedImage</code>, to any format supported by
+ * <code>ImageIO</code>, to any <code>Graphics2D</code> implementation (e.g.
+ * an SVG or PDF writer) or streamed tile by tile to a
+ * <code>TileHandler</code>.
+ * <p>
+ * Components keep painting state of their own, so a diagram that isn't shown
+ * must not be exported by two threads at the same time. Different diagrams
+ * can be exported concurrently. A diagram shown in a
+ * <code>ComponentPanel</code> belongs to the event dispatch thread: exporting
+ * it on any other thread paints it on the event dispatch thread, one tile at
+ * a time for streamed exports, and waits for every paint, so the event
+ * dispatch thread must never wait for such an export. The diagram can be
+ * edited in between, in which case every tile shows it as it was when that
+ * tile was painted.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public interface Exporter extends PropertyChangeSupport
+{
+	public static final String SCALE_PROPERTY_NAME = "scale";
+	public static final String BACKGROUND_PAINT_PROPERTY_NAME = "backgroundPaint";
+	public static final String TILE_SIZE_PROPERTY_NAME = "tileSize";
+	public static final String TILE_RENDERER_PROPERTY_NAME = "tileRenderer";
+
+	public static final double DEFAULT_SCALE = 1.0;
+	public static final int DEFAULT_TILE_SIZE = 1024;
+	public static final Paint DEFAULT_BACKGROUND_PAINT = Color.WHITE;
+
+	public double getScale();
+
+	public void setScale(double scale) throws IllegalArgumentException;
+
+	public Paint getBackgroundPaint();
+
+	/**
+	 * Used to set the paint the background of the export is filled with. A
+	 * <code>null</code> paint leaves the background transparent (for image
+	 * formats that support it).
+	 *
+	 * @param backgroundPaint
+	 *            The background paint, can be <code>null</code>.
+	 */
+	public void setBackgroundPaint(Paint backgroundPaint);
+
+	public int getTileSize();
+
+	/**
+	 * Used to set the width and height of the tiles streamed exports are
+	 * rendered in. TIFF requires a multiple of 16, so "tif" and "tiff" exports
+	 * submitted through
+	 * {@link #submitExport(ExecutorService, Component[], String, File)} round
+	 * it up to the next multiple of 16.
+	 *
+	 * @param tileSize
+	 *            The tile size in pixels, at least 1.
+	 * @throws IllegalArgumentException
+	 *             if <code>tileSize</code> is less than 1.
+	 */
+	public void setTileSize(int tileSize) throws IllegalArgumentException;
+
+	public TileRenderer getTileRenderer();
+
+	/**
+	 * Used to set the renderer {@link #exportImage(Component[])} renders the
+	 * image with, split into tiles that are rendered in parallel. Exports
+	 * streamed through {@link #exportTiles(Component[], TileHandler)} are
+	 * always rendered one tile at a time to keep memory use down.
+	 *
+	 * @param tileRenderer
+	 *            The renderer to use, <code>null</code> renders the image on
+	 *            the calling thread.
+	 */
+	public void setTileRenderer(TileRenderer tileRenderer);
+
+	/**
+	 * Used to get the region of the (unscaled) component space that is
+	 * exported, the union of the preferred bounds of the visible root
+	 * components. The root components are validated first, unless they are
+	 * shown in a <code>ComponentPanel</code> and this isn't called on the
+	 * event dispatch thread.
+	 *
+	 * @param rootComponents
+	 *            The root components of the diagram.
+	 * @return the exported region.
+	 */
+	public Rectangle2D getExportBounds(Component[] rootComponents);
+
+	/**
+	 * Used to get the size, in pixels, of the export of the given diagram at
+	 * the current scale.
+	 *
+	 * @param rootComponents
+	 *            The root components of the diagram.
+	 * @return the size of the export, at least 1x1.
+	 */
+	public Dimension getExportSize(Component[] rootComponents);
+
+	/**
+	 * Used to paint the whole diagram to <code>g2d</code>, with the top left
+	 * corner of the export at 0,0. This is the entry point for vector formats,
+	 * pass the <code>Graphics2D</code> of an SVG or PDF writer sized to
+	 * {@link #getExportSize(Component[])}.
+	 *
+	 * @param g2d
+	 *            The context to paint to.
+	 * @param rootComponents
+	 *            The root components of the diagram.
+	 */
+	public void export(Graphics2D g2d, Component[] rootComponents);
+
+	public BufferedImage exportImage(Component[] rootComponents);
+
+	/**
+	 * Used to export the diagram to <code>outputStream</code> in the given
+	 * <code>ImageIO</code> format. The stream is not closed.
+	 *
+	 * @param rootComponents
+	 *            The root components of the diagram.
+	 * @param formatName
+	 *            The informal name of the format (e.g. "png").
+	 * @param outputStream
+	 *            The stream to write the image to.
+	 * @throws IOException
+	 *             if there is no writer for the format or writing fails.
+	 */
+	public void exportImage(Component[] rootComponents, String formatName,
+			OutputStream outputStream) throws IOException;
+
+	/**
+	 * Used to render the diagram one <code>tileSize</code> tile at a time,
+	 * handing every tile to <code>tileHandler</code>. Only a single tile is
+	 * held in memory at any time.
+	 *
+	 * @param rootComponents
+	 *            The root components of the diagram.
+	 * @param tileHandler
+	 *            The receiver of the tiles.
+	 * @throws IOException
+	 *             if the tileHandler fails.
+	 */
+	public void exportTiles(Component[] rootComponents, TileHandler tileHandler)
+			throws IOException;
+
+	/**
+	 * Used to export the diagram to <code>file</code> on one of the threads
+	 * of <code>executorService</code>. Submitting many diagrams exports them
+	 * in parallel.
+	 * <p>
+	 * "tif" and "tiff" exports are always streamed into a tiled TIFF by a
+	 * {@link TiffTileWriter}, in tiles rounded up to a multiple of 16 pixels,
+	 * and "png" exports larger than a single tile by a {@link PngStripWriter},
+	 * so canvases of any size can be exported without holding the whole image
+	 * in memory.
+	 * <p>
+	 * The diagram is validated, and the exported region taken from the
+	 * snapshots of its root components, before the export starts. For a
+	 * diagram shown in a <code>ComponentPanel</code> that is done on the event
+	 * dispatch thread, right away when called on it and otherwise as soon as
+	 * it gets to it. The snapshots only fix the exported region, the diagram
+	 * itself is painted on the event dispatch thread as the export goes (see
+	 * the class description).
+	 *
+	 * @param executorService
+	 *            The thread pool to export on.
+	 * @param rootComponents
+	 *            The root components of the diagram.
+	 * @param formatName
+	 *            The informal name of the <code>ImageIO</code> format.
+	 * @param file
+	 *            The file to write to.
+	 * @return a <code>Future</code> returning <code>file</code> once it has
+	 *         been written.
+	 */
+	public Future<File> submitExport(ExecutorService executorService,
+			Component[] rootComponents, String formatName, File file);
+}
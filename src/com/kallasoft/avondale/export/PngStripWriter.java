@@ -0,0 +1,249 @@
+package com.kallasoft.avondale.export;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Class used to stream the tiles of an export into a PNG image. PNG stores
+ * the image one scanline after another, so the tiles of a single row of tiles
+ * (a strip <code>tileSize</code> pixels high) are collected and compressed as
+ * soon as the last tile of the row arrives. Peak memory is one strip, not the
+ * whole canvas.
+ * <p>
+ * The image is written as 8 bit RGBA, every scanline using the "Sub" filter.
+ * The stream is not closed.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class PngStripWriter implements TileHandler
+{
+	private static final byte[] SIGNATURE = { (byte) 137, 'P', 'N', 'G', '\r',
+			'\n', 26, '\n' };
+
+	private static final int CHUNK_SIZE = 65536;
+	private static final int FILTER_SUB = 1;
+
+	private OutputStream outputStream;
+	private int compressionLevel;
+
+	private int width;
+	private int tileSize;
+	private int[] strip;
+	private int[] pixels;
+	private byte[] scanline;
+	private byte[] chunk;
+	private int chunkLength;
+	private Deflater deflater;
+	private CRC32 crc;
+
+	public PngStripWriter(OutputStream outputStream)
+			throws IllegalArgumentException
+	{
+		this(outputStream, Deflater.DEFAULT_COMPRESSION);
+	}
+
+	public PngStripWriter(OutputStream outputStream, int compressionLevel)
+			throws IllegalArgumentException
+	{
+		if (outputStream == null)
+			throw new IllegalArgumentException("outputStream cannot be null");
+		if (compressionLevel < Deflater.DEFAULT_COMPRESSION
+				|| compressionLevel > Deflater.BEST_COMPRESSION)
+			throw new IllegalArgumentException("compressionLevel ("
+					+ compressionLevel + ") must be between "
+					+ Deflater.DEFAULT_COMPRESSION + " and "
+					+ Deflater.BEST_COMPRESSION);
+
+		this.outputStream = outputStream;
+		this.compressionLevel = compressionLevel;
+	}
+
+	public OutputStream getOutputStream()
+	{
+		return outputStream;
+	}
+
+	public int getCompressionLevel()
+	{
+		return compressionLevel;
+	}
+
+	public void beginTiles(int width, int height, int tileSize)
+			throws IOException
+	{
+		/* A strip and a scanline must fit in an array */
+		if ((long) width * tileSize > Integer.MAX_VALUE
+				|| 1 + (long) width * 4 > Integer.MAX_VALUE)
+			throw new IOException("A strip of the PNG (" + width + "x"
+					+ tileSize + " pixels) is too large to hold in memory, "
+					+ "use a smaller tileSize");
+
+		this.width = width;
+		this.tileSize = tileSize;
+
+		strip = new int[width * tileSize];
+		pixels = new int[tileSize * tileSize];
+		scanline = new byte[1 + width * 4];
+		chunk = new byte[CHUNK_SIZE];
+		chunkLength = 0;
+		deflater = new Deflater(compressionLevel);
+		crc = new CRC32();
+
+		byte[] header = new byte[13];
+		putInt(header, 0, width);
+		putInt(header, 4, height);
+
+		/* 8 bit, RGBA, deflate, adaptive filtering, no interlace */
+		header[8] = 8;
+		header[9] = 6;
+
+		outputStream.write(SIGNATURE);
+		writeChunk("IHDR", header, header.length);
+	}
+
+	public void handleTile(BufferedImage tile, int x, int y, int width,
+			int height) throws IOException
+	{
+		tile.getRGB(0, 0, width, height, pixels, 0, tileSize);
+
+		for (int row = 0; row < height; row++)
+			System.arraycopy(pixels, row * tileSize, strip, row * this.width
+					+ x, width);
+
+		/* Compress the strip once its last tile is in */
+		if (x + width >= this.width)
+			writeStrip(height);
+	}
+
+	public void endTiles() throws IOException
+	{
+		try
+		{
+			deflater.finish();
+
+			while (!deflater.finished())
+				deflate();
+
+			if (chunkLength > 0)
+				writeChunk("IDAT", chunk, chunkLength);
+
+			writeChunk("IEND", chunk, 0);
+			outputStream.flush();
+		}
+		finally
+		{
+			release();
+		}
+	}
+
+	public void abortTiles()
+	{
+		release();
+	}
+
+	/**
+	 * Used to end the compressor and drop the strip buffers, the stream is
+	 * left open.
+	 */
+	protected void release()
+	{
+		if (deflater != null)
+		{
+			deflater.end();
+			deflater = null;
+		}
+
+		strip = null;
+		pixels = null;
+		scanline = null;
+		chunk = null;
+	}
+
+	/**
+	 * Used to filter and compress the first <code>rows</code> scanlines of
+	 * the strip.
+	 *
+	 * @param rows
+	 *            The number of scanlines in the strip.
+	 * @throws IOException
+	 *             if writing to the stream fails.
+	 */
+	protected void writeStrip(int rows) throws IOException
+	{
+		for (int row = 0; row < rows; row++)
+		{
+			int offset = row * width;
+			int left = 0;
+
+			scanline[0] = FILTER_SUB;
+
+			/* Each byte minus the same byte of the pixel to its left */
+			for (int i = 0, j = 1; i < width; i++)
+			{
+				int argb = strip[offset + i];
+
+				scanline[j++] = (byte) ((argb >> 16) - (left >> 16));
+				scanline[j++] = (byte) ((argb >> 8) - (left >> 8));
+				scanline[j++] = (byte) (argb - left);
+				scanline[j++] = (byte) ((argb >>> 24) - (left >>> 24));
+
+				left = argb;
+			}
+
+			deflater.setInput(scanline);
+
+			while (!deflater.needsInput())
+				deflate();
+		}
+	}
+
+	/**
+	 * Used to append compressed data to the current IDAT chunk, writing the
+	 * chunk out once it is full.
+	 *
+	 * @throws IOException
+	 *             if writing to the stream fails.
+	 */
+	private void deflate() throws IOException
+	{
+		chunkLength += deflater.deflate(chunk, chunkLength, CHUNK_SIZE
+				- chunkLength);
+
+		if (chunkLength == CHUNK_SIZE)
+		{
+			writeChunk("IDAT", chunk, chunkLength);
+			chunkLength = 0;
+		}
+	}
+
+	private void writeChunk(String type, byte[] data, int length)
+			throws IOException
+	{
+		byte[] typeBytes = type.getBytes("US-ASCII");
+		byte[] value = new byte[4];
+
+		crc.reset();
+		crc.update(typeBytes);
+		crc.update(data, 0, length);
+
+		putInt(value, 0, length);
+		outputStream.write(value);
+		outputStream.write(typeBytes);
+		outputStream.write(data, 0, length);
+		putInt(value, 0, (int) crc.getValue());
+		outputStream.write(value);
+	}
+
+	private static void putInt(byte[] bytes, int i, int value)
+	{
+		bytes[i] = (byte) (value >> 24);
+		bytes[i + 1] = (byte) (value >> 16);
+		bytes[i + 2] = (byte) (value >> 8);
+		bytes[i + 3] = (byte) value;
+	}
+}
@@ -0,0 +1,334 @@
+package com.kallasoft.avondale.export;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.zip.Deflater;
+
+/**
+ * Class used to write the tiles of an export straight into a tiled TIFF file
+ * as they are rendered, so only a single tile is ever held in memory no
+ * matter how large the canvas is.
+ * <p>
+ * The file is a little-endian baseline TIFF with 8 bit RGBA samples
+ * (unassociated alpha), optionally compressed with Deflate. The directory
+ * and the tile offset tables are written up front and the offsets filled in
+ * once all the tiles have been written. Classic TIFF limits the file to 4GB,
+ * which compressed covers canvases of several gigapixels.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class TiffTileWriter implements TileHandler
+{
+	/**
+	 * TIFF requires the tile width and height to be a multiple of 16. Exports
+	 * submitted through <code>Exporter.submitExport</code> round the tile
+	 * size up to it, anything else handing tiles to this writer must pass a
+	 * multiple itself.
+	 */
+	public static final int TILE_SIZE_MULTIPLE = 16;
+
+	/**
+	 * Classic TIFF stores offsets as unsigned 32 bit values.
+	 */
+	public static final long MAXIMUM_FILE_SIZE = 0xFFFFFFFFL;
+
+	private static final int BUFFER_SIZE = 65536;
+	private static final int HEADER_SIZE = 8;
+	private static final int ENTRY_COUNT = 12;
+	private static final int IFD_SIZE = 2 + ENTRY_COUNT * 12 + 4;
+
+	private static final short TYPE_SHORT = 3;
+	private static final short TYPE_LONG = 4;
+
+	private static final short COMPRESSION_NONE = 1;
+	private static final short COMPRESSION_DEFLATE = 8;
+
+	private File file;
+	private boolean compressed;
+
+	private RandomAccessFile output;
+	private int tileSize;
+	private int tilesAcross;
+	private long tableOffset;
+	private long[] tileOffsets;
+	private long[] tileByteCounts;
+	private int[] pixels;
+	private byte[] samples;
+	private byte[] buffer;
+	private Deflater deflater;
+
+	public TiffTileWriter(File file) throws IllegalArgumentException
+	{
+		this(file, true);
+	}
+
+	public TiffTileWriter(File file, boolean compressed)
+			throws IllegalArgumentException
+	{
+		if (file == null)
+			throw new IllegalArgumentException("file cannot be null");
+
+		this.file = file;
+		this.compressed = compressed;
+	}
+
+	public File getFile()
+	{
+		return file;
+	}
+
+	public boolean isCompressed()
+	{
+		return compressed;
+	}
+
+	public void beginTiles(int width, int height, int tileSize)
+			throws IOException
+	{
+		if (tileSize % TILE_SIZE_MULTIPLE != 0)
+			throw new IOException("tileSize (" + tileSize
+					+ ") must be a multiple of " + TILE_SIZE_MULTIPLE
+					+ " for TIFF");
+		if ((long) tileSize * tileSize * 4 > Integer.MAX_VALUE)
+			throw new IOException("tileSize (" + tileSize
+					+ ") is too large to hold a tile in memory");
+
+		this.tileSize = tileSize;
+
+		tilesAcross = (width + tileSize - 1) / tileSize;
+		int tileCount = tilesAcross * ((height + tileSize - 1) / tileSize);
+
+		tileOffsets = new long[tileCount];
+		tileByteCounts = new long[tileCount];
+		pixels = new int[tileSize * tileSize];
+		samples = new byte[tileSize * tileSize * 4];
+
+		if (compressed)
+		{
+			buffer = new byte[BUFFER_SIZE];
+			deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+		}
+
+		output = new RandomAccessFile(file, "rw");
+		output.setLength(0);
+
+		/*
+		 * Layout: header, directory, bits per sample, tile offsets, tile byte
+		 * counts and then the tiles themselves.
+		 */
+		long bitsPerSampleOffset = HEADER_SIZE + IFD_SIZE;
+		tableOffset = bitsPerSampleOffset + 8;
+		long byteCountsOffset = tableOffset + tileCount * 4;
+
+		byte[] head = new byte[(int) (byteCountsOffset + tileCount * 4)];
+		int i = 0;
+
+		/* Header */
+		head[i++] = 'I';
+		head[i++] = 'I';
+		i = putShort(head, i, 42);
+		i = putInt(head, i, HEADER_SIZE);
+
+		/* Directory, entries sorted by tag */
+		i = putShort(head, i, ENTRY_COUNT);
+		i = putEntry(head, i, 256, TYPE_LONG, 1, width);
+		i = putEntry(head, i, 257, TYPE_LONG, 1, height);
+		i = putEntry(head, i, 258, TYPE_SHORT, 4, bitsPerSampleOffset);
+		i = putEntry(head, i, 259, TYPE_SHORT, 1,
+				(compressed ? COMPRESSION_DEFLATE : COMPRESSION_NONE));
+		i = putEntry(head, i, 262, TYPE_SHORT, 1, 2);
+		i = putEntry(head, i, 277, TYPE_SHORT, 1, 4);
+		i = putEntry(head, i, 284, TYPE_SHORT, 1, 1);
+		i = putEntry(head, i, 322, TYPE_LONG, 1, tileSize);
+		i = putEntry(head, i, 323, TYPE_LONG, 1, tileSize);
+
+		/* A single value is stored in the entry itself */
+		i = putEntry(head, i, 324, TYPE_LONG, tileCount,
+				(tileCount == 1 ? 0 : tableOffset));
+		i = putEntry(head, i, 325, TYPE_LONG, tileCount,
+				(tileCount == 1 ? 0 : byteCountsOffset));
+		i = putEntry(head, i, 338, TYPE_SHORT, 1, 2);
+		i = putInt(head, i, 0);
+
+		/* Bits per sample */
+		for (int j = 0; j < 4; j++)
+			i = putShort(head, i, 8);
+
+		output.write(head);
+	}
+
+	public void handleTile(BufferedImage tile, int x, int y, int width,
+			int height) throws IOException
+	{
+		try
+		{
+			tile.getRGB(0, 0, tileSize, tileSize, pixels, 0, tileSize);
+
+			for (int i = 0, j = 0; i < pixels.length; i++)
+			{
+				int argb = pixels[i];
+
+				samples[j++] = (byte) (argb >> 16);
+				samples[j++] = (byte) (argb >> 8);
+				samples[j++] = (byte) argb;
+				samples[j++] = (byte) (argb >> 24);
+			}
+
+			int index = (y / tileSize) * tilesAcross + (x / tileSize);
+			tileOffsets[index] = output.getFilePointer();
+
+			if (compressed)
+			{
+				int length = 0;
+
+				deflater.reset();
+				deflater.setInput(samples);
+				deflater.finish();
+
+				while (!deflater.finished())
+				{
+					length = deflater.deflate(buffer);
+					output.write(buffer, 0, length);
+					tileByteCounts[index] += length;
+				}
+			}
+			else
+			{
+				output.write(samples);
+				tileByteCounts[index] = samples.length;
+			}
+
+			if (output.getFilePointer() > MAXIMUM_FILE_SIZE)
+				throw new IOException("TIFF file exceeds "
+						+ MAXIMUM_FILE_SIZE + " bytes");
+		}
+		catch (IOException e)
+		{
+			release();
+			throw e;
+		}
+	}
+
+	public void endTiles() throws IOException
+	{
+		try
+		{
+			int tileCount = tileOffsets.length;
+
+			if (tileCount == 1)
+			{
+				/* Offsets of the value fields of tags 324 and 325 */
+				long entryOffset = HEADER_SIZE + 2 + 9 * 12 + 8;
+
+				output.seek(entryOffset);
+				writeInt(tileOffsets[0]);
+				output.seek(entryOffset + 12);
+				writeInt(tileByteCounts[0]);
+			}
+			else
+			{
+				byte[] table = new byte[tileCount * 8];
+				int i = 0;
+
+				for (int j = 0; j < tileCount; j++)
+					i = putInt(table, i, tileOffsets[j]);
+
+				for (int j = 0; j < tileCount; j++)
+					i = putInt(table, i, tileByteCounts[j]);
+
+				output.seek(tableOffset);
+				output.write(table);
+			}
+		}
+		finally
+		{
+			release();
+		}
+	}
+
+	public void abortTiles()
+	{
+		try
+		{
+			release();
+		}
+		catch (IOException e)
+		{
+			/* The export already failed, that is what gets reported */
+		}
+	}
+
+	/**
+	 * Used to close the file and drop the tile buffers.
+	 *
+	 * @throws IOException
+	 *             if the file could not be closed.
+	 */
+	protected void release() throws IOException
+	{
+		pixels = null;
+		samples = null;
+		buffer = null;
+
+		if (deflater != null)
+		{
+			deflater.end();
+			deflater = null;
+		}
+
+		if (output != null)
+		{
+			RandomAccessFile output = this.output;
+			this.output = null;
+			output.close();
+		}
+	}
+
+	private void writeInt(long value) throws IOException
+	{
+		byte[] bytes = new byte[4];
+		putInt(bytes, 0, value);
+		output.write(bytes);
+	}
+
+	private static int putEntry(byte[] bytes, int i, int tag, short type,
+			int count, long value)
+	{
+		i = putShort(bytes, i, tag);
+		i = putShort(bytes, i, type);
+		i = putInt(bytes, i, count);
+
+		/* Short values are left justified in the value field */
+		if (type == TYPE_SHORT && count == 1)
+		{
+			i = putShort(bytes, i, (int) value);
+			i = putShort(bytes, i, 0);
+		}
+		else
+			i = putInt(bytes, i, value);
+
+		return i;
+	}
+
+	private static int putShort(byte[] bytes, int i, int value)
+	{
+		bytes[i++] = (byte) value;
+		bytes[i++] = (byte) (value >> 8);
+
+		return i;
+	}
+
+	private static int putInt(byte[] bytes, int i, long value)
+	{
+		bytes[i++] = (byte) value;
+		bytes[i++] = (byte) (value >> 8);
+		bytes[i++] = (byte) (value >> 16);
+		bytes[i++] = (byte) (value >> 24);
+
+		return i;
+	}
+}
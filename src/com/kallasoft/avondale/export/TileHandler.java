@@ -0,0 +1,76 @@
+package com.kallasoft.avondale.export;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Interface used to describe the receiver of the tiles of an export that is
+ * streamed in tiles, so canvases far larger than would fit in memory as a
+ * single image can be exported (e.g. straight into a tiled image file).
+ * <p>
+ * Tiles are handed over row by row, left to right. Every export ends with
+ * either {@link #endTiles()} or, if it fails along the way,
+ * {@link #abortTiles()}.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ * @see Exporter#exportTiles(com.kallasoft.avondale.component.Component[],
+ *      TileHandler)
+ */
+public interface TileHandler
+{
+	/**
+	 * Used to announce a new export before any of its tiles are handed over.
+	 *
+	 * @param width
+	 *            The width, in pixels, of the whole export.
+	 * @param height
+	 *            The height, in pixels, of the whole export.
+	 * @param tileSize
+	 *            The width and height of every tile, tiles on the right and
+	 *            bottom edge may be partially outside of the export.
+	 * @throws IOException
+	 *             if the handler cannot accept the export.
+	 */
+	public void beginTiles(int width, int height, int tileSize)
+			throws IOException;
+
+	/**
+	 * Used to hand over a single rendered tile. The image is reused for the
+	 * next tile, so the handler must copy anything it wants to keep.
+	 *
+	 * @param tile
+	 *            The image holding the tile, always
+	 *            <code>tileSize x tileSize</code>.
+	 * @param x
+	 *            The x coordinate of the tile in the export.
+	 * @param y
+	 *            The y coordinate of the tile in the export.
+	 * @param width
+	 *            The width of the part of the tile inside of the export.
+	 * @param height
+	 *            The height of the part of the tile inside of the export.
+	 * @throws IOException
+	 *             if the tile could not be handled.
+	 */
+	public void handleTile(BufferedImage tile, int x, int y, int width,
+			int height) throws IOException;
+
+	/**
+	 * Used to signal that every tile of the export has been handed over.
+	 *
+	 * @throws IOException
+	 *             if the export could not be completed.
+	 */
+	public void endTiles() throws IOException;
+
+	/**
+	 * Used to signal that the export failed before it was completed, the
+	 * handler releases whatever it holds (e.g. open files). Called instead of
+	 * {@link #endTiles()}, also when {@link #beginTiles(int, int, int)} or
+	 * <code>endTiles</code> itself failed, so it must cope with a partially
+	 * started or already released export.
+	 */
+	public void abortTiles();
+}
@@ -0,0 +1,172 @@
+package com.kallasoft.avondale.panel;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.kallasoft.ext.bean.AbstractPropertyChangeSupport;
+
+/**
+ * Abstract class used to provide a basic implementation of the
+ * <code>DirtyRegionManager</code> interface.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public abstract class AbstractDirtyRegionManager extends
+		AbstractPropertyChangeSupport implements DirtyRegionManager
+{
+	private static final Rectangle[] EMPTY_DIRTY_REGIONS = new Rectangle[0];
+
+	private int maxDirtyRegionCount;
+	private List<Rectangle> dirtyRegionList;
+
+	public AbstractDirtyRegionManager(int maxDirtyRegionCount)
+	{
+		dirtyRegionList = new ArrayList<Rectangle>();
+		setMaxDirtyRegionCount(maxDirtyRegionCount);
+	}
+
+	public int getMaxDirtyRegionCount()
+	{
+		return maxDirtyRegionCount;
+	}
+
+	public void setMaxDirtyRegionCount(int maxDirtyRegionCount)
+			throws IllegalArgumentException
+	{
+		if (maxDirtyRegionCount < 1)
+			throw new IllegalArgumentException("maxDirtyRegionCount ("
+					+ maxDirtyRegionCount + ") must be >= 1");
+
+		int oldMaxDirtyRegionCount = getMaxDirtyRegionCount();
+
+		if (oldMaxDirtyRegionCount == maxDirtyRegionCount)
+			return;
+
+		synchronized (this)
+		{
+			this.maxDirtyRegionCount = maxDirtyRegionCount;
+
+			/* Bring the existing regions back under the new cap */
+			if (dirtyRegionList.size() > maxDirtyRegionCount)
+			{
+				Rectangle[] dirtyRegions = dirtyRegionList
+						.toArray(EMPTY_DIRTY_REGIONS);
+				dirtyRegionList.clear();
+
+				for (int i = 0; i < dirtyRegions.length; i++)
+					addDirtyRegion(dirtyRegions[i]);
+			}
+		}
+
+		firePropertyChangeEvent(this, MAX_DIRTY_REGION_COUNT_PROPERTY_NAME,
+				oldMaxDirtyRegionCount, getMaxDirtyRegionCount());
+	}
+
+	public synchronized boolean isEmpty()
+	{
+		return dirtyRegionList.isEmpty();
+	}
+
+	public synchronized int getDirtyRegionCount()
+	{
+		return dirtyRegionList.size();
+	}
+
+	public synchronized void addDirtyRegion(int x, int y, int width,
+			int height)
+	{
+		if (width <= 0 || height <= 0)
+			return;
+
+		addDirtyRegion(new Rectangle(x, y, width, height));
+	}
+
+	public synchronized Rectangle[] removeDirtyRegions()
+	{
+		if (dirtyRegionList.isEmpty())
+			return EMPTY_DIRTY_REGIONS;
+
+		Rectangle[] dirtyRegions = dirtyRegionList.toArray(EMPTY_DIRTY_REGIONS);
+		dirtyRegionList.clear();
+
+		return dirtyRegions;
+	}
+
+	/**
+	 * Used to merge <code>dirtyRegion</code> into the list of dirty regions.
+	 * Any region it overlaps is absorbed into it, and if the list is full it
+	 * is merged into the region whose area grows the least by doing so.
+	 * Callers must hold the lock on this manager.
+	 */
+	private void addDirtyRegion(Rectangle dirtyRegion)
+	{
+		/*
+		 * Absorb every region that overlaps the new one, starting over each
+		 * time it grows as it may now overlap regions it didn't before.
+		 */
+		for (int i = dirtyRegionList.size() - 1; i > -1; i--)
+		{
+			Rectangle region = dirtyRegionList.get(i);
+
+			if (region.contains(dirtyRegion))
+				return;
+
+			if (region.intersects(dirtyRegion))
+			{
+				dirtyRegion.add(region);
+				dirtyRegionList.remove(i);
+				i = dirtyRegionList.size();
+			}
+		}
+
+		if (dirtyRegionList.size() < getMaxDirtyRegionCount())
+		{
+			dirtyRegionList.add(dirtyRegion);
+			return;
+		}
+
+		/*
+		 * The list is full, find the region that grows the least when the new
+		 * region is added to it and merge the two. The merged region is then
+		 * re-added as it may now overlap other regions.
+		 */
+		int bestIndex = 0;
+		long bestGrowth = Long.MAX_VALUE;
+
+		for (int i = 0, size = dirtyRegionList.size(); i < size; i++)
+		{
+			Rectangle region = dirtyRegionList.get(i);
+			long growth = getUnionArea(region, dirtyRegion) - getArea(region);
+
+			if (growth < bestGrowth)
+			{
+				bestGrowth = growth;
+				bestIndex = i;
+			}
+		}
+
+		Rectangle region = dirtyRegionList.remove(bestIndex);
+		region.add(dirtyRegion);
+		addDirtyRegion(region);
+	}
+
+	private static long getArea(Rectangle region)
+	{
+		return (long) region.width * (long) region.height;
+	}
+
+	private static long getUnionArea(Rectangle region1, Rectangle region2)
+	{
+		long width = Math.max(region1.x + region1.width, region2.x
+				+ region2.width)
+				- Math.min(region1.x, region2.x);
+		long height = Math.max(region1.y + region1.height, region2.y
+				+ region2.height)
+				- Math.min(region1.y, region2.y);
+
+		return width * height;
+	}
+}
@@ -0,0 +1,331 @@
+package com.kallasoft.avondale.panel;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.kallasoft.avondale.component.Component;
+
+/**
+ * Abstract class used to provide a basic implementation of the
+ * <code>TileCache</code> interface that keeps the most recently used tiles
+ * and discards the least recently used ones once
+ * <code>maxTileCount</code> is reached.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public abstract class AbstractTileCache implements TileCache
+{
+	private int tileSize;
+	private int maxTileCount;
+	private Map<TileKey, BufferedImage> tileMap;
+	private TileKey lookupKey;
+	private TileRenderer tileRenderer;
+
+	public AbstractTileCache(int tileSize, int maxTileCount)
+	{
+		if (tileSize < 1)
+			throw new IllegalArgumentException("tileSize (" + tileSize
+					+ ") must be >= 1");
+
+		this.tileSize = tileSize;
+		this.lookupKey = new TileKey();
+		this.tileMap = new LinkedHashMap<TileKey, BufferedImage>(16, 0.75f,
+				true)
+		{
+			private static final long serialVersionUID = -3202742374869447165L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<TileKey, BufferedImage> eldest)
+			{
+				return (size() > getMaxTileCount());
+			}
+		};
+
+		setMaxTileCount(maxTileCount);
+	}
+
+	public int getTileSize()
+	{
+		return tileSize;
+	}
+
+	public int getMaxTileCount()
+	{
+		return maxTileCount;
+	}
+
+	public void setMaxTileCount(int maxTileCount)
+			throws IllegalArgumentException
+	{
+		if (maxTileCount < 1)
+			throw new IllegalArgumentException("maxTileCount (" + maxTileCount
+					+ ") must be >= 1");
+
+		this.maxTileCount = maxTileCount;
+
+		/* Trim the cache down to the new size, least recently used first */
+		for (Iterator<TileKey> iterator = tileMap.keySet().iterator(); tileMap
+				.size() > maxTileCount
+				&& iterator.hasNext();)
+		{
+			iterator.next();
+			iterator.remove();
+		}
+	}
+
+	public int getTileCount()
+	{
+		return tileMap.size();
+	}
+
+	public void paintTiles(Graphics2D g2d, Component component, double scale)
+	{
+		Rectangle clipBounds = g2d.getClipBounds();
+
+		/*
+		 * Make sure the component is valid before rendering any tiles, a
+		 * validation that moves things around repaints (and so invalidates)
+		 * the affected tiles and that must happen before they are rendered.
+		 * This includes the layouts still scheduled below the component.
+		 */
+		ComponentPanel componentPanel = component.getComponentPanel();
+
+		if (componentPanel != null)
+			componentPanel.validateScheduledLayouts();
+
+		if (!component.isValid())
+			component.validate();
+
+		/* Without a clip there is no way to know which tiles are needed */
+		if (clipBounds == null)
+		{
+			AffineTransform transform = g2d.getTransform();
+			g2d.scale(scale, scale);
+			g2d.translate(component.getX(), component.getY());
+			component.paint(g2d);
+			g2d.setTransform(transform);
+			return;
+		}
+
+		RenderingHints renderingHints = g2d.getRenderingHints();
+		TileRenderer tileRenderer = getTileRenderer();
+		int firstColumn = (int) Math.floor((double) clipBounds.x / tileSize);
+		int firstRow = (int) Math.floor((double) clipBounds.y / tileSize);
+		int lastColumn = (int) Math.floor((double) (clipBounds.x
+				+ clipBounds.width - 1)
+				/ tileSize);
+		int lastRow = (int) Math.floor((double) (clipBounds.y
+				+ clipBounds.height - 1)
+				/ tileSize);
+
+		int columnCount = lastColumn - firstColumn + 1;
+		BufferedImage[] tiles = new BufferedImage[columnCount
+				* (lastRow - firstRow + 1)];
+		List<Rectangle> missingTileBoundsList = new ArrayList<Rectangle>();
+
+		for (int row = firstRow, i = 0; row <= lastRow; row++)
+		{
+			for (int column = firstColumn; column <= lastColumn; column++, i++)
+			{
+				lookupKey.setKey(scale, column, row);
+				tiles[i] = tileMap.get(lookupKey);
+
+				if (tiles[i] != null)
+					continue;
+
+				/*
+				 * Without a renderer every missing tile is rendered right away,
+				 * otherwise they are collected and rendered in parallel.
+				 */
+				if (tileRenderer == null)
+				{
+					tiles[i] = renderTile(component, scale, column, row,
+							renderingHints);
+					tileMap.put(new TileKey(scale, column, row), tiles[i]);
+				}
+				else
+					missingTileBoundsList.add(new Rectangle(column * tileSize,
+							row * tileSize, tileSize, tileSize));
+			}
+		}
+
+		if (!missingTileBoundsList.isEmpty())
+		{
+			Rectangle[] missingTileBounds = missingTileBoundsList
+					.toArray(new Rectangle[missingTileBoundsList.size()]);
+			BufferedImage[] missingTiles = tileRenderer.renderTiles(
+					new Component[] { component }, AffineTransform
+							.getScaleInstance(scale, scale), missingTileBounds,
+					renderingHints);
+
+			for (int i = 0; i < missingTiles.length; i++)
+			{
+				int column = missingTileBounds[i].x / tileSize;
+				int row = missingTileBounds[i].y / tileSize;
+
+				/* An interrupted render leaves the tile to the next paint */
+				if (missingTiles[i] == null)
+					continue;
+
+				tiles[(row - firstRow) * columnCount + (column - firstColumn)] = missingTiles[i];
+				tileMap.put(new TileKey(scale, column, row), missingTiles[i]);
+			}
+		}
+
+		for (int row = firstRow, i = 0; row <= lastRow; row++)
+		{
+			for (int column = firstColumn; column <= lastColumn; column++, i++)
+			{
+				if (tiles[i] != null)
+					g2d.drawImage(tiles[i], column * tileSize, row * tileSize,
+							null);
+			}
+		}
+	}
+
+	public TileRenderer getTileRenderer()
+	{
+		return tileRenderer;
+	}
+
+	public void setTileRenderer(TileRenderer tileRenderer)
+	{
+		this.tileRenderer = tileRenderer;
+	}
+
+	public void invalidateRegion(double x, double y, double width,
+			double height)
+	{
+		if (tileMap.isEmpty() || width <= 0 || height <= 0)
+			return;
+
+		/*
+		 * Grow the region by a pixel on each side to account for anti-aliased
+		 * edges bleeding outside of the repainted bounds.
+		 */
+		double minX = x - 1;
+		double minY = y - 1;
+		double maxX = x + width + 1;
+		double maxY = y + height + 1;
+
+		for (Iterator<TileKey> iterator = tileMap.keySet().iterator(); iterator
+				.hasNext();)
+		{
+			TileKey key = iterator.next();
+
+			/* The bounds of the tile in the coordinate space of the component */
+			double tileScaledSize = tileSize / key.scale;
+			double tileMinX = key.column * tileScaledSize;
+			double tileMinY = key.row * tileScaledSize;
+
+			if (tileMinX < maxX && tileMinY < maxY
+					&& tileMinX + tileScaledSize > minX
+					&& tileMinY + tileScaledSize > minY)
+				iterator.remove();
+		}
+	}
+
+	public void removeTiles()
+	{
+		tileMap.clear();
+	}
+
+	/**
+	 * Used to render a single tile of <code>component</code>.
+	 *
+	 * @param component
+	 *            The component to render.
+	 * @param scale
+	 *            The scale to render the component at.
+	 * @param column
+	 *            The column of the tile.
+	 * @param row
+	 *            The row of the tile.
+	 * @param renderingHints
+	 *            The rendering hints to render with, can be <code>null</code>.
+	 * @return a new, translucent tile holding the rendering of the component.
+	 */
+	protected BufferedImage renderTile(Component component, double scale,
+			int column, int row, RenderingHints renderingHints)
+	{
+		BufferedImage tile = new BufferedImage(tileSize, tileSize,
+				BufferedImage.TYPE_INT_ARGB_PRE);
+		Graphics2D tileG2D = tile.createGraphics();
+
+		if (renderingHints != null)
+			tileG2D.setRenderingHints(renderingHints);
+
+		/*
+		 * Clip to the tile so the component only paints (and only queries its
+		 * spatial index for) what falls inside of it.
+		 */
+		tileG2D.setClip(0, 0, tileSize, tileSize);
+		tileG2D.translate(-column * tileSize, -row * tileSize);
+		tileG2D.scale(scale, scale);
+		tileG2D.translate(component.getX(), component.getY());
+		component.paint(tileG2D);
+		tileG2D.dispose();
+
+		return tile;
+	}
+
+	/**
+	 * Class used as the key of a tile in the cache.
+	 */
+	private static class TileKey
+	{
+		private double scale;
+		private int column;
+		private int row;
+
+		public TileKey()
+		{
+			/* Default constructor */
+		}
+
+		public TileKey(double scale, int column, int row)
+		{
+			setKey(scale, column, row);
+		}
+
+		public void setKey(double scale, int column, int row)
+		{
+			this.scale = scale;
+			this.column = column;
+			this.row = row;
+		}
+
+		@Override
+		public boolean equals(Object object)
+		{
+			if (this == object)
+				return true;
+
+			if (!(object instanceof TileKey))
+				return false;
+
+			TileKey key = (TileKey) object;
+			return (scale == key.scale && column == key.column && row == key.row);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			long bits = Double.doubleToLongBits(scale);
+			int hashCode = (int) (bits ^ (bits >>> 32));
+			hashCode = 31 * hashCode + column;
+			return 31 * hashCode + row;
+		}
+	}
+}
@@ -0,0 +1,299 @@
+package com.kallasoft.avondale.panel;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.swing.SwingUtilities;
+
+import com.kallasoft.avondale.component.Component;
+import com.kallasoft.avondale.component.util.ComponentUtils;
+
+/**
+ * Abstract class used to provide a basic implementation of the
+ * <code>TileRenderer</code> interface that renders the tiles on the threads
+ * of an <code>ExecutorService</code> (e.g. a fixed thread pool or a
+ * <code>ForkJoinPool</code>).
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public abstract class AbstractTileRenderer implements TileRenderer
+{
+	private int tileSize;
+	private ExecutorService executorService;
+
+	public AbstractTileRenderer(ExecutorService executorService, int tileSize)
+			throws IllegalArgumentException
+	{
+		if (executorService == null)
+			throw new IllegalArgumentException(
+					"executorService cannot be null");
+		if (tileSize < 1)
+			throw new IllegalArgumentException("tileSize (" + tileSize
+					+ ") must be >= 1");
+
+		this.executorService = executorService;
+		this.tileSize = tileSize;
+	}
+
+	public int getTileSize()
+	{
+		return tileSize;
+	}
+
+	public ExecutorService getExecutorService()
+	{
+		return executorService;
+	}
+
+	/**
+	 * Used to render the given tiles in parallel. If the calling thread is
+	 * interrupted while waiting, the interrupt status is restored and the
+	 * tiles that weren't finished are returned as <code>null</code>.
+	 */
+	public BufferedImage[] renderTiles(Component[] rootComponents,
+			AffineTransform transform, Rectangle[] tileBounds,
+			RenderingHints renderingHints) throws IllegalStateException
+	{
+		checkOwnerThread(rootComponents);
+
+		BufferedImage[] tiles = new BufferedImage[tileBounds.length];
+
+		/*
+		 * Validation moves components around and painting would otherwise do
+		 * it lazily, so the whole hierarchy is brought up to date here before
+		 * any of the painting threads look at it.
+		 */
+		for (int i = 0; i < rootComponents.length; i++)
+		{
+			ComponentPanel componentPanel = rootComponents[i]
+					.getComponentPanel();
+
+			/* A valid root can still contain containers waiting for layout */
+			if (componentPanel != null)
+				componentPanel.validateScheduledLayouts();
+
+			ComponentUtils.validateTree(rootComponents[i]);
+		}
+
+		/* A single tile isn't worth handing off to another thread */
+		if (tileBounds.length == 1)
+		{
+			tiles[0] = renderTile(rootComponents, transform, tileBounds[0],
+					renderingHints);
+			return tiles;
+		}
+
+		List<Callable<BufferedImage>> taskList = new ArrayList<Callable<BufferedImage>>(
+				tileBounds.length);
+
+		for (int i = 0; i < tileBounds.length; i++)
+			taskList.add(new RenderTileTask(rootComponents, transform,
+					tileBounds[i], renderingHints));
+
+		try
+		{
+			List<Future<BufferedImage>> futureList = executorService
+					.invokeAll(taskList);
+
+			for (int i = 0; i < tiles.length; i++)
+				tiles[i] = futureList.get(i).get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException e)
+		{
+			Throwable cause = e.getCause();
+
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+
+			throw new IllegalStateException(cause);
+		}
+
+		return tiles;
+	}
+
+	public void paint(Graphics2D g2d, Component[] rootComponents,
+			AffineTransform transform) throws IllegalStateException
+	{
+		checkOwnerThread(rootComponents);
+
+		Rectangle clipBounds = g2d.getClipBounds();
+
+		/* Without a clip there is no region to split up */
+		if (clipBounds == null)
+		{
+			AffineTransform oldTransform = g2d.getTransform();
+			g2d.transform(transform);
+
+			AffineTransform rootTransform = g2d.getTransform();
+
+			for (int i = 0; i < rootComponents.length; i++)
+			{
+				g2d.translate(rootComponents[i].getX(), rootComponents[i]
+						.getY());
+				rootComponents[i].paint(g2d);
+				g2d.setTransform(rootTransform);
+			}
+
+			g2d.setTransform(oldTransform);
+			return;
+		}
+
+		if (clipBounds.isEmpty())
+			return;
+
+		/*
+		 * Tiles are aligned to a fixed grid so the seams between them don't
+		 * move around as the clip changes.
+		 */
+		int firstColumn = (int) Math.floor((double) clipBounds.x / tileSize);
+		int firstRow = (int) Math.floor((double) clipBounds.y / tileSize);
+		int lastColumn = (int) Math.floor((double) (clipBounds.x
+				+ clipBounds.width - 1)
+				/ tileSize);
+		int lastRow = (int) Math.floor((double) (clipBounds.y
+				+ clipBounds.height - 1)
+				/ tileSize);
+		Rectangle[] tileBounds = new Rectangle[(lastColumn - firstColumn + 1)
+				* (lastRow - firstRow + 1)];
+
+		for (int row = firstRow, i = 0; row <= lastRow; row++)
+		{
+			for (int column = firstColumn; column <= lastColumn; column++)
+			{
+				Rectangle bounds = new Rectangle(column * tileSize, row
+						* tileSize, tileSize, tileSize);
+				tileBounds[i++] = bounds.intersection(clipBounds);
+			}
+		}
+
+		BufferedImage[] tiles = renderTiles(rootComponents, transform,
+				tileBounds, g2d.getRenderingHints());
+
+		for (int i = 0; i < tiles.length; i++)
+		{
+			if (tiles[i] != null)
+			{
+				g2d.drawImage(tiles[i], tileBounds[i].x, tileBounds[i].y, null);
+				tiles[i].flush();
+			}
+		}
+	}
+
+	public void dispose()
+	{
+		executorService.shutdown();
+	}
+
+	/**
+	 * Used to render a single tile, called on one of the threads of the
+	 * <code>ExecutorService</code>.
+	 *
+	 * @param rootComponents
+	 *            The root components to render, in painting order.
+	 * @param transform
+	 *            The transform from the coordinate space of the root
+	 *            components into the pixel coordinate space.
+	 * @param tileBounds
+	 *            The bounds of the tile in the pixel coordinate space.
+	 * @param renderingHints
+	 *            The rendering hints to render with, can be <code>null</code>.
+	 * @return a new, translucent image holding the tile.
+	 */
+	protected BufferedImage renderTile(Component[] rootComponents,
+			AffineTransform transform, Rectangle tileBounds,
+			RenderingHints renderingHints)
+	{
+		BufferedImage tile = new BufferedImage(tileBounds.width,
+				tileBounds.height, BufferedImage.TYPE_INT_ARGB_PRE);
+		Graphics2D tileG2D = tile.createGraphics();
+
+		if (renderingHints != null)
+			tileG2D.setRenderingHints(renderingHints);
+
+		/*
+		 * Clip to the tile so the components only paint (and only query their
+		 * spatial index for) what falls inside of it.
+		 */
+		tileG2D.setClip(0, 0, tileBounds.width, tileBounds.height);
+		tileG2D.translate(-tileBounds.x, -tileBounds.y);
+		tileG2D.transform(transform);
+
+		AffineTransform rootTransform = tileG2D.getTransform();
+
+		for (int i = 0; i < rootComponents.length; i++)
+		{
+			tileG2D.translate(rootComponents[i].getX(), rootComponents[i]
+					.getY());
+			rootComponents[i].paint(tileG2D);
+			tileG2D.setTransform(rootTransform);
+		}
+
+		tileG2D.dispose();
+
+		return tile;
+	}
+
+	/**
+	 * Used to make sure root components shown in a <code>ComponentPanel</code>
+	 * are only rendered on the event dispatch thread. The tiles only read the
+	 * hierarchy because that thread is blocked while they are rendered.
+	 */
+	private void checkOwnerThread(Component[] rootComponents)
+			throws IllegalStateException
+	{
+		if (SwingUtilities.isEventDispatchThread())
+			return;
+
+		for (int i = 0; i < rootComponents.length; i++)
+		{
+			if (rootComponents[i].getComponentPanel() != null)
+				throw new IllegalStateException(
+						"Components shown in a ComponentPanel can only be rendered on the event dispatch thread");
+		}
+	}
+
+	/**
+	 * Class used to render a single tile on a thread of the
+	 * <code>ExecutorService</code>.
+	 */
+	private class RenderTileTask implements Callable<BufferedImage>
+	{
+		private Component[] rootComponents;
+		private AffineTransform transform;
+		private Rectangle tileBounds;
+		private RenderingHints renderingHints;
+
+		public RenderTileTask(Component[] rootComponents,
+				AffineTransform transform, Rectangle tileBounds,
+				RenderingHints renderingHints)
+		{
+			this.rootComponents = rootComponents;
+			this.transform = transform;
+			this.tileBounds = tileBounds;
+			this.renderingHints = renderingHints;
+		}
+
+		public BufferedImage call() throws Exception
+		{
+			return renderTile(rootComponents, transform, tileBounds,
+					renderingHints);
+		}
+	}
+}
@@ -0,0 +1,486 @@
+package com.kallasoft.avondale.panel;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseWheelEvent;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+import javax.swing.JViewport;
+import javax.swing.RepaintManager;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import com.kallasoft.avondale.component.ContainerComponent;
+import com.kallasoft.avondale.component.Component.LevelOfDetail;
+import com.kallasoft.ext.bean.AbstractPropertyChangeSupport;
+
+/**
+ * Abstract class used to provide a basic implementation of the
+ * <code>ZoomController</code> interface that drives the animation with a
+ * Swing <code>Timer</code>.
+ * <p>
+ * An animation is described by a point of the (unscaled) component space
+ * that sits at a fixed offset inside the viewport. Zooming keeps that point
+ * where it is while the scale changes, panning moves it from one point to
+ * another. The scale is interpolated geometrically so every frame zooms by
+ * the same factor.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public abstract class AbstractZoomController extends
+		AbstractPropertyChangeSupport implements ZoomController
+{
+	private boolean animating = false;
+	private int animationDuration;
+	private double minimumScale;
+	private double maximumScale;
+	private double wheelZoomFactor;
+	private long animationStartTime;
+
+	private double startScale;
+	private double targetScale;
+	private double startAnchorX;
+	private double startAnchorY;
+	private double targetAnchorX;
+	private double targetAnchorY;
+	private double anchorOffsetX;
+	private double anchorOffsetY;
+
+	private double currentScale;
+	private double currentViewX;
+	private double currentViewY;
+
+	private double snapshotScale;
+	private BufferedImage snapshot;
+	private Rectangle visibleRectangle;
+	private ComponentPanel componentPanel;
+	private Timer timer;
+
+	public AbstractZoomController(ComponentPanel componentPanel)
+	{
+		if (componentPanel == null)
+			throw new IllegalArgumentException("componentPanel cannot be null");
+
+		this.componentPanel = componentPanel;
+		this.animationDuration = DEFAULT_ANIMATION_DURATION;
+		this.minimumScale = DEFAULT_MINIMUM_SCALE;
+		this.maximumScale = DEFAULT_MAXIMUM_SCALE;
+		this.wheelZoomFactor = DEFAULT_WHEEL_ZOOM_FACTOR;
+		this.visibleRectangle = new Rectangle();
+		this.timer = new Timer(DEFAULT_FRAME_DELAY, new AnimationHandler());
+		this.timer.setCoalesce(true);
+	}
+
+	public ComponentPanel getComponentPanel()
+	{
+		return componentPanel;
+	}
+
+	public int getAnimationDuration()
+	{
+		return animationDuration;
+	}
+
+	public void setAnimationDuration(int animationDuration)
+			throws IllegalArgumentException
+	{
+		if (animationDuration < 0)
+			throw new IllegalArgumentException("animationDuration ("
+					+ animationDuration + ") must be >= 0");
+
+		int oldAnimationDuration = getAnimationDuration();
+
+		if (oldAnimationDuration == animationDuration)
+			return;
+
+		this.animationDuration = animationDuration;
+		firePropertyChangeEvent(this, ANIMATION_DURATION_PROPERTY_NAME,
+				oldAnimationDuration, getAnimationDuration());
+	}
+
+	public double getMinimumScale()
+	{
+		return minimumScale;
+	}
+
+	public void setMinimumScale(double minimumScale)
+			throws IllegalArgumentException
+	{
+		if (minimumScale <= 0 || minimumScale > getMaximumScale())
+			throw new IllegalArgumentException("minimumScale (" + minimumScale
+					+ ") must be > 0 and <= maximumScale");
+
+		double oldMinimumScale = getMinimumScale();
+
+		if (oldMinimumScale == minimumScale)
+			return;
+
+		this.minimumScale = minimumScale;
+		firePropertyChangeEvent(this, MINIMUM_SCALE_PROPERTY_NAME,
+				oldMinimumScale, getMinimumScale());
+	}
+
+	public double getMaximumScale()
+	{
+		return maximumScale;
+	}
+
+	public void setMaximumScale(double maximumScale)
+			throws IllegalArgumentException
+	{
+		if (maximumScale < getMinimumScale())
+			throw new IllegalArgumentException("maximumScale (" + maximumScale
+					+ ") must be >= minimumScale");
+
+		double oldMaximumScale = getMaximumScale();
+
+		if (oldMaximumScale == maximumScale)
+			return;
+
+		this.maximumScale = maximumScale;
+		firePropertyChangeEvent(this, MAXIMUM_SCALE_PROPERTY_NAME,
+				oldMaximumScale, getMaximumScale());
+	}
+
+	public double getWheelZoomFactor()
+	{
+		return wheelZoomFactor;
+	}
+
+	public void setWheelZoomFactor(double wheelZoomFactor)
+			throws IllegalArgumentException
+	{
+		if (wheelZoomFactor <= 1)
+			throw new IllegalArgumentException("wheelZoomFactor ("
+					+ wheelZoomFactor + ") must be > 1");
+
+		double oldWheelZoomFactor = getWheelZoomFactor();
+
+		if (oldWheelZoomFactor == wheelZoomFactor)
+			return;
+
+		this.wheelZoomFactor = wheelZoomFactor;
+		firePropertyChangeEvent(this, WHEEL_ZOOM_FACTOR_PROPERTY_NAME,
+				oldWheelZoomFactor, getWheelZoomFactor());
+	}
+
+	public boolean isAnimating()
+	{
+		return animating;
+	}
+
+	public double getTargetScale()
+	{
+		return (isAnimating() ? targetScale : componentPanel.getScale());
+	}
+
+	public void zoomTo(double scale)
+	{
+		Rectangle visibleRectangle = (isAnimating() ? this.visibleRectangle
+				: componentPanel.getVisibleRect());
+
+		zoomTo(scale, visibleRectangle.getCenterX(), visibleRectangle
+				.getCenterY());
+	}
+
+	public void zoomTo(double scale, double anchorX, double anchorY)
+	{
+		scale = Math.max(getMinimumScale(), Math.min(getMaximumScale(), scale));
+
+		/* Nothing is visible, so there is nothing to animate either */
+		if (!beginAnimation())
+		{
+			componentPanel.setScale(scale);
+			return;
+		}
+
+		/*
+		 * The panel itself doesn't move while animating, so the anchor's offset
+		 * inside of the viewport is the same for every frame.
+		 */
+		anchorOffsetX = anchorX - visibleRectangle.x;
+		anchorOffsetY = anchorY - visibleRectangle.y;
+		startAnchorX = (currentViewX + anchorOffsetX) / currentScale;
+		startAnchorY = (currentViewY + anchorOffsetY) / currentScale;
+		targetAnchorX = startAnchorX;
+		targetAnchorY = startAnchorY;
+		startScale = currentScale;
+		targetScale = scale;
+
+		startTimer();
+	}
+
+	public void panTo(double x, double y)
+	{
+		double scale = getTargetScale();
+
+		/* Nothing is visible, so there is nothing to animate either */
+		if (!beginAnimation())
+		{
+			scrollViewport(x, y);
+			return;
+		}
+
+		/* Pan by moving the center of the viewport */
+		anchorOffsetX = visibleRectangle.width / 2.0;
+		anchorOffsetY = visibleRectangle.height / 2.0;
+		startAnchorX = (currentViewX + anchorOffsetX) / currentScale;
+		startAnchorY = (currentViewY + anchorOffsetY) / currentScale;
+		targetAnchorX = (x + anchorOffsetX) / scale;
+		targetAnchorY = (y + anchorOffsetY) / scale;
+		startScale = currentScale;
+		targetScale = scale;
+
+		startTimer();
+	}
+
+	public void stopAnimation()
+	{
+		if (!isAnimating())
+			return;
+
+		timer.stop();
+		animating = false;
+
+		if (snapshot != null)
+			snapshot.flush();
+
+		snapshot = null;
+
+		/* Apply the target of the animation to the panel */
+		componentPanel.setScale(targetScale);
+		scrollViewport(targetAnchorX * targetScale - anchorOffsetX,
+				targetAnchorY * targetScale - anchorOffsetY);
+
+		/*
+		 * Now that the motion has settled repaint the visible region at full
+		 * quality. The request is handed to the RepaintManager directly, the
+		 * region is already in the pixel coordinate space of the panel.
+		 */
+		Rectangle visibleRectangle = componentPanel.getVisibleRect();
+		RepaintManager.currentManager(componentPanel).addDirtyRegion(
+				componentPanel, visibleRectangle.x, visibleRectangle.y,
+				visibleRectangle.width, visibleRectangle.height);
+	}
+
+	public void processMouseWheelEvent(MouseWheelEvent evt)
+	{
+		if (evt == null || evt.isConsumed() || evt.getWheelRotation() == 0)
+			return;
+
+		zoomTo(getTargetScale()
+				* Math.pow(getWheelZoomFactor(), -evt.getWheelRotation()), evt
+				.getX(), evt.getY());
+
+		evt.consume();
+	}
+
+	public boolean paintSnapshot(Graphics2D g2d)
+	{
+		if (!isAnimating() || snapshot == null)
+			return false;
+
+		Color oldColor = g2d.getColor();
+		AffineTransform transform = g2d.getTransform();
+		Object oldInterpolation = g2d
+				.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+
+		g2d.setColor(componentPanel.getBackground());
+		g2d.fill(visibleRectangle);
+		g2d.setColor(oldColor);
+
+		g2d.translate(visibleRectangle.x - currentViewX, visibleRectangle.y
+				- currentViewY);
+		g2d.scale(currentScale / snapshotScale, currentScale / snapshotScale);
+		g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+				RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g2d.drawImage(snapshot, 0, 0, null);
+
+		g2d.setTransform(transform);
+
+		if (oldInterpolation != null)
+			g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+					oldInterpolation);
+
+		return true;
+	}
+
+	/**
+	 * Used to render the snapshot the animation is painted from. The whole
+	 * panel is rendered (without the grid) at the current scale, or less if
+	 * that would make the snapshot larger than
+	 * <code>DEFAULT_MAX_SNAPSHOT_SIZE</code> on either side.
+	 *
+	 * @return the snapshot, or <code>null</code> if the panel has no area.
+	 */
+	protected BufferedImage createSnapshot()
+	{
+		double scale = componentPanel.getScale();
+		double width = componentPanel.getWidth() / scale;
+		double height = componentPanel.getHeight() / scale;
+
+		if (width <= 0 || height <= 0)
+			return null;
+
+		snapshotScale = Math.min(scale, Math.min(DEFAULT_MAX_SNAPSHOT_SIZE
+				/ width, DEFAULT_MAX_SNAPSHOT_SIZE / height));
+
+		BufferedImage snapshot = new BufferedImage(Math.max(1, (int) Math
+				.ceil(width * snapshotScale)), Math.max(1, (int) Math
+				.ceil(height * snapshotScale)), BufferedImage.TYPE_INT_RGB);
+		Graphics2D g2d = snapshot.createGraphics();
+
+		g2d.setColor(componentPanel.getBackground());
+		g2d.fillRect(0, 0, snapshot.getWidth(), snapshot.getHeight());
+		g2d.setClip(0, 0, snapshot.getWidth(), snapshot.getHeight());
+		g2d.setRenderingHint(LevelOfDetail.RENDERING_HINT_KEY, componentPanel
+				.getLevelOfDetail(snapshotScale));
+		g2d.scale(snapshotScale, snapshotScale);
+
+		AffineTransform transform = g2d.getTransform();
+
+		for (int i = 0, size = componentPanel.getRootComponentCount(); i < size; i++)
+		{
+			ContainerComponent rootComponent = componentPanel
+					.getRootComponent(i);
+
+			g2d.translate(rootComponent.getX(), rootComponent.getY());
+			rootComponent.paint(g2d);
+			g2d.setTransform(transform);
+		}
+
+		g2d.dispose();
+
+		return snapshot;
+	}
+
+	/**
+	 * Used to resize the panel for its new scale and scroll the viewport it is
+	 * in (if any) to the given location.
+	 *
+	 * @param x
+	 *            The x coordinate of the new top left corner of the visible
+	 *            region.
+	 * @param y
+	 *            The y coordinate of the new top left corner of the visible
+	 *            region.
+	 */
+	protected void scrollViewport(double x, double y)
+	{
+		JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(
+				JViewport.class, componentPanel);
+
+		if (viewport == null)
+			return;
+
+		/*
+		 * Size the panel right away, like the viewport's layout would, instead
+		 * of waiting for the revalidation so the new location isn't clamped to
+		 * the old size.
+		 */
+		Dimension extentSize = viewport.getExtentSize();
+		Dimension preferredSize = componentPanel.getPreferredSize();
+		int width = Math.max(preferredSize.width, extentSize.width);
+		int height = Math.max(preferredSize.height, extentSize.height);
+
+		componentPanel.setSize(width, height);
+		componentPanel.revalidate();
+
+		viewport.setViewPosition(new Point((int) Math.round(Math.max(0, Math
+				.min(x, width - extentSize.width))), (int) Math.round(Math.max(
+				0, Math.min(y, height - extentSize.height)))));
+	}
+
+	/**
+	 * Used to move the animation to the given time.
+	 *
+	 * @param time
+	 *            The current time in milliseconds.
+	 */
+	protected void updateAnimation(long time)
+	{
+		double fraction = (animationDuration == 0 ? 1
+				: (double) (time - animationStartTime) / animationDuration);
+
+		if (fraction >= 1)
+		{
+			stopAnimation();
+			return;
+		}
+
+		/* Ease in and out so the motion doesn't start or stop abruptly */
+		fraction = fraction * fraction * (3 - 2 * fraction);
+
+		currentScale = startScale
+				* Math.pow(targetScale / startScale, fraction);
+		currentViewX = (startAnchorX + (targetAnchorX - startAnchorX)
+				* fraction)
+				* currentScale - anchorOffsetX;
+		currentViewY = (startAnchorY + (targetAnchorY - startAnchorY)
+				* fraction)
+				* currentScale - anchorOffsetY;
+
+		componentPanel.paintImmediately(visibleRectangle);
+	}
+
+	/**
+	 * Used to take the snapshot and capture the state of the panel when a new
+	 * animation starts. If an animation is already running it is simply
+	 * retargeted from its current state.
+	 *
+	 * @return <code>true</code> if there is something to animate, otherwise
+	 *         <code>false</code>.
+	 */
+	private boolean beginAnimation()
+	{
+		if (isAnimating())
+			return true;
+
+		visibleRectangle.setBounds(componentPanel.getVisibleRect());
+
+		if (visibleRectangle.isEmpty())
+			return false;
+
+		snapshot = createSnapshot();
+
+		if (snapshot == null)
+			return false;
+
+		animating = true;
+		currentScale = componentPanel.getScale();
+		currentViewX = visibleRectangle.x;
+		currentViewY = visibleRectangle.y;
+
+		return true;
+	}
+
+	private void startTimer()
+	{
+		animationStartTime = System.currentTimeMillis();
+
+		if (getAnimationDuration() == 0)
+			stopAnimation();
+		else if (!timer.isRunning())
+			timer.start();
+	}
+
+	/**
+	 * Class used to advance the animation every time the timer fires.
+	 */
+	private class AnimationHandler implements ActionListener
+	{
+		public void actionPerformed(ActionEvent evt)
+		{
+			updateAnimation(System.currentTimeMillis());
+		}
+	}
+}
@@ -10,25 +10,40 @@ import java.awt.Graphics2D;
 import java.awt.Paint;
 import java.awt.Rectangle;
 import java.awt.Stroke;
+import java.awt.TexturePaint;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.JPanel;
 import javax.swing.Scrollable;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 
 import com.kallasoft.avondale.component.Component;
 import com.kallasoft.avondale.component.ContainerComponent;
 import com.kallasoft.avondale.component.RootComponent;
+import com.kallasoft.avondale.component.Component.LevelOfDetail;
+import com.kallasoft.avondale.component.connection.ConnectionTracker;
+import com.kallasoft.avondale.component.connection.DefaultConnectionTracker;
 import com.kallasoft.avondale.component.event.DefaultRootComponentEvent;
 import com.kallasoft.avondale.component.event.RootComponentEvent;
 import com.kallasoft.avondale.component.event.RootComponentListener;
+import com.kallasoft.avondale.component.layout.DefaultLayoutScheduler;
+import com.kallasoft.avondale.component.layout.LayoutScheduler;
+import com.kallasoft.avondale.component.snapshot.ComponentSnapshot;
+import com.kallasoft.avondale.event.ListenerArray;
 import com.kallasoft.avondale.panel.tool.ComponentPanelTool;
 import com.kallasoft.avondale.tooltip.DefaultToolTipManager;
 import com.kallasoft.avondale.tooltip.ToolTipManager;
@@ -53,8 +68,19 @@ public class ComponentPanel extends JPanel implements Scrollable
 	public static final String OVERVIEW_PANEL_PROPERTY_NAME = "overviewPanel";
 	public static final String ACTIVE_COMPONENT_PANEL_TOOL_PROPERTY_NAME = "activeComponentPanelTool";
 	public static final String ROOT_COMPONENT_NOTIFICATION_ENABLED_PROPERTY_NAME = "rootComponentNotificationEnabled";
+	public static final String DIRTY_REGION_MANAGER_PROPERTY_NAME = "dirtyRegionManager";
+	public static final String CONNECTION_TRACKER_PROPERTY_NAME = "connectionTracker";
+	public static final String ROOT_COMPONENT_TILE_CACHE_ENABLED_PROPERTY_NAME = "rootComponentTileCacheEnabled";
+	public static final String LEVEL_OF_DETAIL_ENABLED_PROPERTY_NAME = "levelOfDetailEnabled";
+	public static final String REDUCED_DETAIL_SCALE_PROPERTY_NAME = "reducedDetailScale";
+	public static final String PROXY_DETAIL_SCALE_PROPERTY_NAME = "proxyDetailScale";
+	public static final String ZOOM_CONTROLLER_PROPERTY_NAME = "zoomController";
+	public static final String TILE_RENDERER_PROPERTY_NAME = "tileRenderer";
+	public static final String LAYOUT_SCHEDULER_PROPERTY_NAME = "layoutScheduler";
 
 	public static final double DEFAULT_SCALE = 1.0;
+	public static final double DEFAULT_REDUCED_DETAIL_SCALE = 0.5;
+	public static final double DEFAULT_PROXY_DETAIL_SCALE = 0.25;
 	public static final double DEFAULT_GRID_SPACING = 16;
 	public static final Paint DEFAULT_GRID_PAINT = new Color(230, 230, 230);
 	public static final Stroke DEFAULT_GRID_STROKE = new BasicStroke();
@@ -73,22 +99,35 @@ public class ComponentPanel extends JPanel implements Scrollable
 	private boolean horizontalGridEnabled = true;
 	private boolean verticalGridEnabled = true;
 	private boolean rootComponentNotificationEnabled = true;
+	private boolean levelOfDetailEnabled = true;
 	private double scale = DEFAULT_SCALE;
+	private double reducedDetailScale = DEFAULT_REDUCED_DETAIL_SCALE;
+	private double proxyDetailScale = DEFAULT_PROXY_DETAIL_SCALE;
 	private double horizontalGridSpacing = DEFAULT_GRID_SPACING;
 	private double verticalGridSpacing = DEFAULT_GRID_SPACING;
 	private Paint horizontalGridPaint = DEFAULT_GRID_PAINT;
 	private Paint verticalGridPaint = DEFAULT_GRID_PAINT;
 	private Stroke horizontalGridStroke = DEFAULT_GRID_STROKE;
 	private Stroke verticalGridStroke = DEFAULT_GRID_STROKE;
+	private double gridTextureScale;
 	private Line2D gridLine;
+	private TexturePaint gridTexturePaint;
 	private Dimension preferredSize;
 	private Point2D scaledLocation;
 	private ComponentPanelState componentPanelState;
 	private ToolTipManager toolTipManager;
 	private OverviewPanel overviewPanel;
 	private ComponentPanelTool activeComponentPanelTool;
+	private DirtyRegionManager dirtyRegionManager;
+	private ConnectionTracker connectionTracker;
+	private ZoomController zoomController;
+	private TileRenderer tileRenderer;
+	private LayoutScheduler layoutScheduler;
+	private AtomicBoolean dirtyRegionFlushPending;
+	private Runnable dirtyRegionFlushHandler;
 	private List<ContainerComponent> rootComponentList;
-	private transient List<RootComponentListener> rootComponentListenerList;
+	private Map<ContainerComponent, TileCache> rootComponentTileCacheMap;
+	private transient ListenerArray<RootComponentListener> rootComponentListenerArray;
 
 	public ComponentPanel()
 	{
@@ -97,8 +136,16 @@ public class ComponentPanel extends JPanel implements Scrollable
 		scaledLocation = new Point2D.Double();
 		componentPanelState = new DefaultComponentPanelState();
 		toolTipManager = new DefaultToolTipManager();
+		dirtyRegionFlushPending = new AtomicBoolean(false);
+		dirtyRegionFlushHandler = new DirtyRegionFlushHandler();
+		dirtyRegionManager = new DefaultDirtyRegionManager();
+		connectionTracker = new DefaultConnectionTracker();
+		zoomController = new DefaultZoomController(this);
+		layoutScheduler = new DefaultLayoutScheduler();
 		rootComponentList = new ArrayList<ContainerComponent>(0);
-		rootComponentListenerList = new ArrayList<RootComponentListener>(0);
+		rootComponentTileCacheMap = new HashMap<ContainerComponent, TileCache>(
+				0);
+		rootComponentListenerArray = ListenerArray.empty();
 
 		/* Add all the default rootComponents */
 		addRootComponent(BACKGROUND_ROOT_COMPONENT);
@@ -137,6 +184,9 @@ public class ComponentPanel extends JPanel implements Scrollable
 
 		double value = 0;
 
+		/* Containers can still be waiting to be laid out below a valid root */
+		validateScheduledLayouts();
+
 		for (int i = 0, size = getRootComponentCount(); i < size; i++)
 		{
 			ContainerComponent containerComponent = getRootComponent(i);
@@ -170,14 +220,103 @@ public class ComponentPanel extends JPanel implements Scrollable
 	public void repaint(long tm, int x, int y, int width, int height)
 	{
 		double scale = getScale();
+		DirtyRegionManager dirtyRegionManager = getDirtyRegionManager();
 
 		/*
 		 * Scale the repaint request to Swing based on the current scale of the
 		 * panel.
 		 */
-		super.repaint(tm, (int) Math.floor(scale * x), (int) Math.floor(scale
-				* y), (int) Math.ceil(scale * width), (int) Math.ceil(scale
-				* height));
+		int scaledX = (int) Math.floor(scale * x);
+		int scaledY = (int) Math.floor(scale * y);
+		int scaledWidth = (int) Math.ceil(scale * width);
+		int scaledHeight = (int) Math.ceil(scale * height);
+		OverviewPanel overviewPanel = getOverviewPanel();
+
+		/* Let the overviewPanel re-render the same region of its overview */
+		if (overviewPanel != null && isOverviewPanelUpdateEnabled())
+			overviewPanel.repaintComponentPanelRegion(scaledX, scaledY,
+					scaledWidth, scaledHeight);
+
+		/*
+		 * Without a dirtyRegionManager every request goes straight to Swing,
+		 * otherwise the region is accumulated and handed to Swing once the
+		 * current event has been dispatched.
+		 */
+		if (dirtyRegionManager == null)
+			super.repaint(tm, scaledX, scaledY, scaledWidth, scaledHeight);
+		else
+		{
+			dirtyRegionManager.addDirtyRegion(scaledX, scaledY, scaledWidth,
+					scaledHeight);
+
+			if (dirtyRegionFlushPending.compareAndSet(false, true))
+				SwingUtilities.invokeLater(dirtyRegionFlushHandler);
+		}
+	}
+
+	/**
+	 * Used by root components to request a repaint of one of their regions.
+	 * Any cached tiles of the root component that overlap the region are
+	 * discarded before the region is repainted.
+	 *
+	 * @param rootComponent
+	 *            The root component being repainted.
+	 * @param x
+	 *            The x coordinate of the region, in the (unscaled) coordinate
+	 *            space of the root component.
+	 * @param y
+	 *            The y coordinate of the region.
+	 * @param width
+	 *            The width of the region.
+	 * @param height
+	 *            The height of the region.
+	 */
+	public void repaintRootComponent(Component rootComponent, double x,
+			double y, double width, double height)
+	{
+		TileCache tileCache = rootComponentTileCacheMap.get(rootComponent);
+
+		if (tileCache != null)
+			tileCache.invalidateRegion(x, y, width, height);
+
+		/*
+		 * We use the floor/ceil here to make sure the rouding error from
+		 * double to int doesn't loose important repaint bounds information.
+		 */
+		repaint((int) Math.floor(x), (int) Math.floor(y), (int) Math
+				.ceil(width), (int) Math.ceil(height));
+	}
+
+	/**
+	 * Used to hand all the regions accumulated by the
+	 * <code>DirtyRegionManager</code> to Swing. The regions are scheduled with
+	 * the <code>RepaintManager</code> as their union, like any other repaint,
+	 * so painting stays asynchronous and is done in a single pass no matter
+	 * how many regions there are.
+	 * <p>
+	 * This is called automatically once per event dispatch cycle and should
+	 * only be called from the event dispatch thread.
+	 */
+	public void flushDirtyRegions()
+	{
+		dirtyRegionFlushPending.set(false);
+		DirtyRegionManager dirtyRegionManager = getDirtyRegionManager();
+
+		if (dirtyRegionManager == null)
+			return;
+
+		Rectangle[] dirtyRegions = dirtyRegionManager.removeDirtyRegions();
+
+		if (dirtyRegions.length == 0)
+			return;
+
+		Rectangle dirtyBounds = new Rectangle(dirtyRegions[0]);
+
+		for (int i = 1; i < dirtyRegions.length; i++)
+			dirtyBounds.add(dirtyRegions[i]);
+
+		super.repaint(0, dirtyBounds.x, dirtyBounds.y, dirtyBounds.width,
+				dirtyBounds.height);
 	}
 
 	public boolean getScrollableTracksViewportWidth()
@@ -266,7 +405,8 @@ public class ComponentPanel extends JPanel implements Scrollable
 		firePropertyChange(HORIZONTAL_GRID_ENABLED_PROPERTY_NAME,
 				oldHorizontalGridEnabled, isHorizontalGridEnabled());
 
-		/* Repaint the panel */
+		/* Discard the grid texture and repaint the panel */
+		gridTexturePaint = null;
 		repaint();
 	}
 
@@ -286,7 +426,8 @@ public class ComponentPanel extends JPanel implements Scrollable
 		firePropertyChange(HORIZONTAL_GRID_SPACING_PROPERTY_NAME,
 				oldHorizontalGridSpacing, getHorizontalGridSpacing());
 
-		/* Repaint the panel */
+		/* Discard the grid texture and repaint the panel */
+		gridTexturePaint = null;
 		repaint();
 	}
 
@@ -306,7 +447,8 @@ public class ComponentPanel extends JPanel implements Scrollable
 		firePropertyChange(HORIZONTAL_GRID_PAINT_PROPERTY_NAME,
 				oldHorizontalGridPaint, getHorizontalGridPaint());
 
-		/* Repaint the panel */
+		/* Discard the grid texture and repaint the panel */
+		gridTexturePaint = null;
 		repaint();
 	}
 
@@ -326,7 +468,8 @@ public class ComponentPanel extends JPanel implements Scrollable
 		firePropertyChange(HORIZONTAL_GRID_STROKE_PROPERTY_NAME,
 				oldHorizontalGridStroke, getHorizontalGridStroke());
 
-		/* Repaint the panel */
+		/* Discard the grid texture and repaint the panel */
+		gridTexturePaint = null;
 		repaint();
 	}
 
@@ -346,7 +489,8 @@ public class ComponentPanel extends JPanel implements Scrollable
 		firePropertyChange(VERTICAL_GRID_ENABLED_PROPERTY_NAME,
 				oldVerticalGridEnabled, isVerticalGridEnabled());
 
-		/* Repaint the panel */
+		/* Discard the grid texture and repaint the panel */
+		gridTexturePaint = null;
 		repaint();
 	}
 
@@ -366,7 +510,8 @@ public class ComponentPanel extends JPanel implements Scrollable
 		firePropertyChange(VERTICAL_GRID_SPACING_PROPERTY_NAME,
 				oldVerticalGridSpacing, getVerticalGridSpacing());
 
-		/* Repaint the panel */
+		/* Discard the grid texture and repaint the panel */
+		gridTexturePaint = null;
 		repaint();
 	}
 
@@ -386,7 +531,8 @@ public class ComponentPanel extends JPanel implements Scrollable
 		firePropertyChange(VERTICAL_GRID_PAINT_PROPERTY_NAME,
 				oldVerticleGridPaint, getVerticalGridPaint());
 
-		/* Repaint the panel */
+		/* Discard the grid texture and repaint the panel */
+		gridTexturePaint = null;
 		repaint();
 	}
 
@@ -406,7 +552,8 @@ public class ComponentPanel extends JPanel implements Scrollable
 		firePropertyChange(VERTICAL_GRID_STROKE_PROPERTY_NAME,
 				oldVerticalGridStroke, getVerticalGridStroke());
 
-		/* Repaint the panel */
+		/* Discard the grid texture and repaint the panel */
+		gridTexturePaint = null;
 		repaint();
 	}
 
@@ -429,6 +576,105 @@ public class ComponentPanel extends JPanel implements Scrollable
 		repaint();
 	}
 
+	public boolean isLevelOfDetailEnabled()
+	{
+		return levelOfDetailEnabled;
+	}
+
+	public void setLevelOfDetailEnabled(boolean levelOfDetailEnabled)
+	{
+		boolean oldLevelOfDetailEnabled = isLevelOfDetailEnabled();
+
+		if (oldLevelOfDetailEnabled == levelOfDetailEnabled)
+			return;
+
+		this.levelOfDetailEnabled = levelOfDetailEnabled;
+		firePropertyChange(LEVEL_OF_DETAIL_ENABLED_PROPERTY_NAME,
+				oldLevelOfDetailEnabled, isLevelOfDetailEnabled());
+
+		/* Discard anything rendered at the old level of detail */
+		levelOfDetailChanged();
+	}
+
+	public double getReducedDetailScale()
+	{
+		return reducedDetailScale;
+	}
+
+	/**
+	 * Used to set the scale below which components are painted at the
+	 * <code>REDUCED</code> level of detail.
+	 * 
+	 * @param reducedDetailScale
+	 *            The scale threshold.
+	 * @see LevelOfDetail
+	 */
+	public void setReducedDetailScale(double reducedDetailScale)
+	{
+		double oldReducedDetailScale = getReducedDetailScale();
+
+		if (oldReducedDetailScale == reducedDetailScale)
+			return;
+
+		this.reducedDetailScale = reducedDetailScale;
+		firePropertyChange(REDUCED_DETAIL_SCALE_PROPERTY_NAME,
+				oldReducedDetailScale, getReducedDetailScale());
+
+		/* Discard anything rendered at the old level of detail */
+		levelOfDetailChanged();
+	}
+
+	public double getProxyDetailScale()
+	{
+		return proxyDetailScale;
+	}
+
+	/**
+	 * Used to set the scale below which components are painted at the
+	 * <code>PROXY</code> level of detail.
+	 * 
+	 * @param proxyDetailScale
+	 *            The scale threshold.
+	 * @see LevelOfDetail
+	 */
+	public void setProxyDetailScale(double proxyDetailScale)
+	{
+		double oldProxyDetailScale = getProxyDetailScale();
+
+		if (oldProxyDetailScale == proxyDetailScale)
+			return;
+
+		this.proxyDetailScale = proxyDetailScale;
+		firePropertyChange(PROXY_DETAIL_SCALE_PROPERTY_NAME,
+				oldProxyDetailScale, getProxyDetailScale());
+
+		/* Discard anything rendered at the old level of detail */
+		levelOfDetailChanged();
+	}
+
+	/**
+	 * Used to determine the level of detail components are painted with at
+	 * the given scale.
+	 * 
+	 * @param scale
+	 *            The scale the components are painted at.
+	 * @return the level of detail, always <code>FULL</code> if the level of
+	 *         detail is disabled.
+	 */
+	public LevelOfDetail getLevelOfDetail(double scale)
+	{
+		if (!isLevelOfDetailEnabled())
+			return LevelOfDetail.FULL;
+
+		if (scale < getProxyDetailScale())
+			return LevelOfDetail.PROXY;
+
+		if (scale < getReducedDetailScale())
+			return LevelOfDetail.REDUCED;
+
+		return LevelOfDetail.FULL;
+	}
+
 	public ComponentPanelState getComponentPanelState()
 	{
 		return componentPanelState;
@@ -482,6 +728,15 @@ public class ComponentPanel extends JPanel implements Scrollable
 		this.overviewPanelUpdateEnabled = overviewPanelUpdateEnabled;
 		firePropertyChange(OVERVIEW_PANEL_UPDATE_ENABLED_PROPERTY_NAME,
 				oldOverviewPanelUpdateEnabled, isOverviewPanelUpdateEnabled());
+
+		/* Regions repainted while updates were disabled were never forwarded */
+		OverviewPanel overviewPanel = getOverviewPanel();
+
+		if (overviewPanel != null && isOverviewPanelUpdateEnabled())
+		{
+			overviewPanel.invalidateBuffer();
+			overviewPanel.repaint();
+		}
 	}
 
 	public OverviewPanel getOverviewPanel()
@@ -509,6 +764,226 @@ public class ComponentPanel extends JPanel implements Scrollable
 				getOverviewPanel());
 	}
 
+	public DirtyRegionManager getDirtyRegionManager()
+	{
+		return dirtyRegionManager;
+	}
+
+	public void setDirtyRegionManager(DirtyRegionManager dirtyRegionManager)
+	{
+		DirtyRegionManager oldDirtyRegionManager = getDirtyRegionManager();
+
+		if (oldDirtyRegionManager == dirtyRegionManager)
+			return;
+
+		/* Don't lose any regions accumulated by the old manager */
+		flushDirtyRegions();
+
+		this.dirtyRegionManager = dirtyRegionManager;
+		firePropertyChange(DIRTY_REGION_MANAGER_PROPERTY_NAME,
+				oldDirtyRegionManager, getDirtyRegionManager());
+	}
+
+	public ConnectionTracker getConnectionTracker()
+	{
+		return connectionTracker;
+	}
+
+	public void setConnectionTracker(ConnectionTracker connectionTracker)
+	{
+		ConnectionTracker oldConnectionTracker = getConnectionTracker();
+
+		if (oldConnectionTracker == connectionTracker)
+			return;
+
+		this.connectionTracker = connectionTracker;
+		firePropertyChange(CONNECTION_TRACKER_PROPERTY_NAME,
+				oldConnectionTracker, getConnectionTracker());
+	}
+
+	public ZoomController getZoomController()
+	{
+		return zoomController;
+	}
+
+	/**
+	 * Used to set the controller that animates zooming and panning of this
+	 * panel, including zooming with the mouse wheel. A <code>null</code>
+	 * controller disables wheel zooming.
+	 * 
+	 * @param zoomController
+	 *            The controller, created for this panel.
+	 * @throws IllegalArgumentException
+	 *             if <code>zoomController</code> controls another panel.
+	 */
+	public void setZoomController(ZoomController zoomController)
+			throws IllegalArgumentException
+	{
+		if (zoomController != null
+				&& zoomController.getComponentPanel() != this)
+			throw new IllegalArgumentException(
+					"zoomController must be created for this componentPanel");
+
+		ZoomController oldZoomController = getZoomController();
+
+		if (oldZoomController == zoomController)
+			return;
+
+		/* Settle whatever the old controller was animating */
+		if (oldZoomController != null)
+			oldZoomController.stopAnimation();
+
+		this.zoomController = zoomController;
+		firePropertyChange(ZOOM_CONTROLLER_PROPERTY_NAME, oldZoomController,
+				getZoomController());
+	}
+
+	public TileRenderer getTileRenderer()
+	{
+		return tileRenderer;
+	}
+
+	/**
+	 * Used to set the renderer that paints the visible region of this panel as
+	 * tiles rendered in parallel, which pays off for large and dense
+	 * hierarchies on machines with many cores. The renderer also renders the
+	 * missing tiles of every root component <code>TileCache</code>. The
+	 * renderer is not disposed when it is replaced.
+	 * 
+	 * @param tileRenderer
+	 *            The renderer to use, <code>null</code> paints the root
+	 *            components directly on the event dispatch thread.
+	 */
+	public void setTileRenderer(TileRenderer tileRenderer)
+	{
+		TileRenderer oldTileRenderer = getTileRenderer();
+
+		if (oldTileRenderer == tileRenderer)
+			return;
+
+		this.tileRenderer = tileRenderer;
+
+		for (Iterator<TileCache> iterator = rootComponentTileCacheMap
+				.values().iterator(); iterator.hasNext();)
+			iterator.next().setTileRenderer(tileRenderer);
+
+		firePropertyChange(TILE_RENDERER_PROPERTY_NAME, oldTileRenderer,
+				getTileRenderer());
+		repaint();
+	}
+
+	public LayoutScheduler getLayoutScheduler()
+	{
+		return layoutScheduler;
+	}
+
+	/**
+	 * Used to set the scheduler that collects the containers on this panel
+	 * whose layout became invalid and lays them out bottom-up once per event
+	 * dispatch cycle. Any layouts still scheduled with the old scheduler are
+	 * run first.
+	 * 
+	 * @param layoutScheduler
+	 *            The scheduler to use, <code>null</code> lays every container
+	 *            out as soon as it is validated, recursively laying out its
+	 *            parent when its layout changes.
+	 */
+	public void setLayoutScheduler(LayoutScheduler layoutScheduler)
+	{
+		LayoutScheduler oldLayoutScheduler = getLayoutScheduler();
+
+		if (oldLayoutScheduler == layoutScheduler)
+			return;
+
+		/* Don't leave any container invalid behind a valid root */
+		validateScheduledLayouts();
+
+		this.layoutScheduler = layoutScheduler;
+		firePropertyChange(LAYOUT_SCHEDULER_PROPERTY_NAME, oldLayoutScheduler,
+				getLayoutScheduler());
+	}
+
+	/**
+	 * Used to run every layout scheduled with the <code>LayoutScheduler</code>
+	 * right away, e.g. before reading the bounds of components that were
+	 * changed during the current event. Should only be called from the event
+	 * dispatch thread.
+	 */
+	public void validateScheduledLayouts()
+	{
+		LayoutScheduler layoutScheduler = getLayoutScheduler();
+
+		if (layoutScheduler != null)
+			layoutScheduler.validateScheduledLayouts();
+	}
+
+	public boolean isRootComponentTileCacheEnabled(
+			ContainerComponent rootComponent)
+	{
+		return rootComponentTileCacheMap.containsKey(rootComponent);
+	}
+
+	/**
+	 * Used to enable or disable painting <code>rootComponent</code> through a
+	 * <code>TileCache</code>. This is intended for layers that rarely change
+	 * (e.g. the <code>BACKGROUND_ROOT_COMPONENT</code>), scrolling over them
+	 * then only copies cached images instead of re-rendering the layer.
+	 *
+	 * @param rootComponent
+	 *            The root component of this panel to cache.
+	 * @param rootComponentTileCacheEnabled
+	 *            <code>true</code> to paint the root component from tiles.
+	 */
+	public void setRootComponentTileCacheEnabled(
+			ContainerComponent rootComponent,
+			boolean rootComponentTileCacheEnabled)
+	{
+		if (!containsRootComponent(rootComponent))
+			throw new IllegalArgumentException(
+					"rootComponent is not a root component of this panel");
+
+		boolean oldRootComponentTileCacheEnabled = isRootComponentTileCacheEnabled(rootComponent);
+
+		if (oldRootComponentTileCacheEnabled == rootComponentTileCacheEnabled)
+			return;
+
+		if (rootComponentTileCacheEnabled)
+		{
+			TileCache tileCache = new DefaultTileCache();
+			tileCache.setTileRenderer(getTileRenderer());
+			rootComponentTileCacheMap.put(rootComponent, tileCache);
+		}
+		else
+			rootComponentTileCacheMap.remove(rootComponent);
+
+		firePropertyChange(ROOT_COMPONENT_TILE_CACHE_ENABLED_PROPERTY_NAME,
+				oldRootComponentTileCacheEnabled,
+				isRootComponentTileCacheEnabled(rootComponent));
+	}
+
+	public TileCache getRootComponentTileCache(ContainerComponent rootComponent)
+	{
+		return rootComponentTileCacheMap.get(rootComponent);
+	}
+
+	/**
+	 * Used to discard every tile and overview rendered with the old level of
+	 * detail settings and repaint the panel with the new ones.
+	 */
+	private void levelOfDetailChanged()
+	{
+		for (Iterator<TileCache> iterator = rootComponentTileCacheMap
+				.values().iterator(); iterator.hasNext();)
+			iterator.next().removeTiles();
+
+		OverviewPanel overviewPanel = getOverviewPanel();
+
+		if (overviewPanel != null)
+			overviewPanel.invalidateBuffer();
+
+		repaint();
+	}
+
 	public ComponentPanelTool getActiveComponentPanelTool()
 	{
 		return activeComponentPanelTool;
@@ -585,6 +1060,24 @@ public class ComponentPanel extends JPanel implements Scrollable
 				.toArray(new Component[getRootComponentCount()]);
 	}
 
+	/**
+	 * Used to take an immutable snapshot of every root component, in painting
+	 * order, that background threads can read while the hierarchy keeps
+	 * changing. Must be called on the event dispatch thread.
+	 * 
+	 * @return the snapshots of the root components.
+	 * @see Component#getSnapshot()
+	 */
+	public ComponentSnapshot[] getRootComponentSnapshots()
+	{
+		ComponentSnapshot[] snapshots = new ComponentSnapshot[getRootComponentCount()];
+
+		for (int i = 0; i < snapshots.length; i++)
+			snapshots[i] = getRootComponent(i).getSnapshot();
+
+		return snapshots;
+	}
+
 	public void removeRootComponent(int index)
 	{
 		boolean fireEvent = false;
@@ -592,6 +1085,7 @@ public class ComponentPanel extends JPanel implements Scrollable
 
 		if (rootComponent != null)
 		{
+			rootComponentTileCacheMap.remove(rootComponent);
 			rootComponent.setComponentPanel(null);
 			fireEvent = true;
 		}
@@ -635,7 +1129,7 @@ public class ComponentPanel extends JPanel implements Scrollable
 	public boolean containsRootComponentListener(
 			RootComponentListener rootComponentListener)
 	{
-		return rootComponentListenerList.contains(rootComponentListener);
+		return rootComponentListenerArray.contains(rootComponentListener);
 	}
 
 	public void addRootComponentListener(
@@ -652,34 +1146,35 @@ public class ComponentPanel extends JPanel implements Scrollable
 			return;
 
 		if (!containsRootComponentListener(rootComponentListener))
-			rootComponentListenerList.add(index, rootComponentListener);
+			rootComponentListenerArray = rootComponentListenerArray.add(
+					index, rootComponentListener);
 	}
 
 	public int getRootComponentListenerCount()
 	{
-		return rootComponentListenerList.size();
+		return rootComponentListenerArray.size();
 	}
 
 	public int getIndexOfRootComponentListener(
 			RootComponentListener rootComponentListener)
 	{
-		return rootComponentListenerList.indexOf(rootComponentListener);
+		return rootComponentListenerArray.indexOf(rootComponentListener);
 	}
 
 	public RootComponentListener getRootComponentListener(int index)
 	{
-		return rootComponentListenerList.get(index);
+		return rootComponentListenerArray.get(index);
 	}
 
 	public RootComponentListener[] getRootComponentListeners()
 	{
-		return rootComponentListenerList
-				.toArray(new RootComponentListener[getRootComponentCount()]);
+		return rootComponentListenerArray
+				.toArray(new RootComponentListener[getRootComponentListenerCount()]);
 	}
 
 	public void removeRootComponentListener(int index)
 	{
-		rootComponentListenerList.remove(index);
+		rootComponentListenerArray = rootComponentListenerArray.remove(index);
 	}
 
 	public void removeRootComponentListener(
@@ -696,12 +1191,14 @@ public class ComponentPanel extends JPanel implements Scrollable
 
 	public void removeRootComponentListeners()
 	{
-		rootComponentListenerList.clear();
+		rootComponentListenerArray = ListenerArray.empty();
 	}
 
-	/* TODO: Consider removing this so wheel operations can be used to zoom and
-	 * are processed by the componentPanel, not sure of another application that
-	 * uses wheel for the individual components or what it would even do if it did. */
+	/**
+	 * Overridden to deliver the wheel event to the root components first and,
+	 * if none of them consumed it, let the <code>ZoomController</code> zoom
+	 * in or out on the location of the event.
+	 */
 	@Override
 	protected void processMouseWheelEvent(MouseWheelEvent evt)
 	{
@@ -719,6 +1216,11 @@ public class ComponentPanel extends JPanel implements Scrollable
 	
 		/* Translate the event's coordinates back to their original location */
 		evt.translatePoint(-xDiff, -yDiff);
+
+		ZoomController zoomController = getZoomController();
+
+		if (zoomController != null)
+			zoomController.processMouseWheelEvent(evt);
 	}
 
 	@Override
@@ -776,8 +1278,16 @@ public class ComponentPanel extends JPanel implements Scrollable
 	{
 		super.paintComponent(g);
 
+		/* Bring the whole hierarchy up to date before painting any of it */
+		validateScheduledLayouts();
+
 		double scale = getScale();
 		Graphics2D g2d = (Graphics2D) g;
+		ZoomController zoomController = getZoomController();
+
+		/* While zooming or panning the panel is painted from a snapshot */
+		if (zoomController != null && zoomController.paintSnapshot(g2d))
+			return;
 
 		/* Honor the opaque setting */
 		if (isOpaque())
@@ -789,35 +1299,180 @@ public class ComponentPanel extends JPanel implements Scrollable
 		}
 
 		/* Paint the grid */
-		paintHorizontalGridLines(g2d);
-		paintVerticalGridLines(g2d);
+		paintGrid(g2d);
 
 		/* Remember the Graphic's original transform so it can be restored later */
 		AffineTransform transform = g2d.getTransform();
 
-		/* Scale the graphics appropriately */
-		g2d.scale(scale, scale);
+		/* Let the components know how much detail to paint with */
+		g2d.setRenderingHint(LevelOfDetail.RENDERING_HINT_KEY,
+				getLevelOfDetail(scale));
+
+		/*
+		 * Paint the normal rootComponent hierarchy, root components with a
+		 * tile cache are painted from their (unscaled) tiles, the rest are
+		 * painted directly with the graphics scaled appropriately or rendered
+		 * in parallel by the tileRenderer.
+		 */
+		TileRenderer tileRenderer = getTileRenderer();
 
-		/* Paint the normal rootComponent hierarchy */
 		for (int i = 0, size = getRootComponentCount(); i < size; i++)
-			getRootComponent(i).paint(g2d);
-
-		/* Return the graphics original transform */
-		g2d.setTransform(transform);
-
-		/* Repaint the OverviewPanel. This probably isn't necessary as simply
-		 * dragging a window over the ComponentPanel will cause it to repaint
-		 * but doesn't necessarily mean the OverviewPanel needs to repaint. The
-		 * problem is that we don't want the ComponentPanel listening for
-		 * *ever* possible event that could occur in the component hierarchy to
-		 * know when it should and shouldn't repaint the OverviewPanel. So to 
-		 * play it safe, we repaint it every time the ComponentPanel repaints. */
+		{
+			ContainerComponent rootComponent = getRootComponent(i);
+			TileCache tileCache = rootComponentTileCacheMap.get(rootComponent);
+
+			if (tileCache == null && tileRenderer != null)
+				tileRenderer.paint(g2d, new Component[] { rootComponent },
+						AffineTransform.getScaleInstance(scale, scale));
+			else if (tileCache == null)
+			{
+				g2d.scale(scale, scale);
+				g2d.translate(rootComponent.getX(), rootComponent.getY());
+				rootComponent.paint(g2d);
+			}
+			else
+				tileCache.paintTiles(g2d, rootComponent, scale);
+
+			/* Return the graphics original transform */
+			g2d.setTransform(transform);
+		}
+
+		/*
+		 * Changes to the component hierarchy reach the OverviewPanel through
+		 * repaint, all that is left to do here is let it know in case the
+		 * visible region moved (e.g. the panel was scrolled).
+		 */
 		OverviewPanel overviewPanel = getOverviewPanel();
 
 		if (overviewPanel != null)
-			overviewPanel.repaint();
+			overviewPanel.updateVisibleRegionIndicator();
 	}
 	
+	/**
+	 * Used to paint the horizontal and vertical grid. When both grids use a
+	 * solid <code>BasicStroke</code> a single grid cell is rendered into a
+	 * <code>TexturePaint</code> for the current scale and the visible region
+	 * is filled with it in one call, otherwise every grid line is drawn
+	 * separately.
+	 * 
+	 * @param g2d
+	 *            The (unscaled) context of this panel.
+	 */
+	protected void paintGrid(Graphics2D g2d)
+	{
+		boolean horizontalGridPainted = isGridPainted(isHorizontalGridEnabled(),
+				getHorizontalGridSpacing(), getHorizontalGridPaint(),
+				getHorizontalGridStroke());
+		boolean verticalGridPainted = isGridPainted(isVerticalGridEnabled(),
+				getVerticalGridSpacing(), getVerticalGridPaint(),
+				getVerticalGridStroke());
+
+		if (!horizontalGridPainted && !verticalGridPainted)
+			return;
+
+		/*
+		 * A texture can only reproduce strokes it knows the exact extent of,
+		 * and a dash pattern would restart in every cell.
+		 */
+		if ((horizontalGridPainted && !isTextureStroke(getHorizontalGridStroke()))
+				|| (verticalGridPainted && !isTextureStroke(getVerticalGridStroke())))
+		{
+			paintHorizontalGridLines(g2d);
+			paintVerticalGridLines(g2d);
+			return;
+		}
+
+		double scale = getScale();
+
+		if (gridTexturePaint == null || gridTextureScale != scale)
+		{
+			gridTexturePaint = createGridTexturePaint(scale,
+					horizontalGridPainted, verticalGridPainted);
+			gridTextureScale = scale;
+		}
+
+		Paint oldPaint = g2d.getPaint();
+		Rectangle visibleRectangle = getVisibleRect();
+		g2d.setPaint(gridTexturePaint);
+		g2d.fill(visibleRectangle);
+		g2d.setPaint(oldPaint);
+	}
+
+	/**
+	 * Used to render one cell of the grid at the given scale and wrap it in a
+	 * <code>TexturePaint</code> anchored at the origin of this panel.
+	 * 
+	 * @param scale
+	 *            The scale of the panel.
+	 * @param horizontalGridPainted
+	 *            <code>true</code> if the horizontal grid line is part of the
+	 *            cell.
+	 * @param verticalGridPainted
+	 *            <code>true</code> if the vertical grid line is part of the
+	 *            cell.
+	 * @return the texture of a single grid cell.
+	 */
+	protected TexturePaint createGridTexturePaint(double scale,
+			boolean horizontalGridPainted, boolean verticalGridPainted)
+	{
+		/*
+		 * A disabled grid has no spacing of its own, so the cell simply takes
+		 * the spacing of the other one in that direction.
+		 */
+		double cellWidth = scale
+				* (verticalGridPainted ? getVerticalGridSpacing()
+						: getHorizontalGridSpacing());
+		double cellHeight = scale
+				* (horizontalGridPainted ? getHorizontalGridSpacing()
+						: getVerticalGridSpacing());
+		BufferedImage cellImage = new BufferedImage(Math.max(1, (int) Math
+				.ceil(cellWidth)), Math.max(1, (int) Math.ceil(cellHeight)),
+				BufferedImage.TYPE_INT_ARGB);
+		Graphics2D cellG2D = cellImage.createGraphics();
+
+		/*
+		 * Lines are drawn on both edges of the cell so the part of a wide
+		 * stroke that falls outside of one edge shows up on the opposite edge,
+		 * just like it would on the neighboring cell.
+		 */
+		if (horizontalGridPainted)
+		{
+			cellG2D.setPaint(getHorizontalGridPaint());
+			cellG2D.setStroke(getHorizontalGridStroke());
+			gridLine.setLine(0, 0, cellImage.getWidth(), 0);
+			cellG2D.draw(gridLine);
+			gridLine.setLine(0, cellHeight, cellImage.getWidth(), cellHeight);
+			cellG2D.draw(gridLine);
+		}
+
+		if (verticalGridPainted)
+		{
+			cellG2D.setPaint(getVerticalGridPaint());
+			cellG2D.setStroke(getVerticalGridStroke());
+			gridLine.setLine(0, 0, 0, cellImage.getHeight());
+			cellG2D.draw(gridLine);
+			gridLine.setLine(cellWidth, 0, cellWidth, cellImage.getHeight());
+			cellG2D.draw(gridLine);
+		}
+
+		cellG2D.dispose();
+
+		return new TexturePaint(cellImage, new Rectangle2D.Double(0, 0,
+				cellWidth, cellHeight));
+	}
+
+	private boolean isGridPainted(boolean gridEnabled, double gridSpacing,
+			Paint gridPaint, Stroke gridStroke)
+	{
+		return (gridEnabled && gridSpacing > 0 && gridPaint != null && gridStroke != null);
+	}
+
+	private boolean isTextureStroke(Stroke stroke)
+	{
+		return (stroke instanceof BasicStroke && ((BasicStroke) stroke)
+				.getDashArray() == null);
+	}
+
 	protected void paintHorizontalGridLines(Graphics2D g2d)
 	{
 		Paint gridPaint = getHorizontalGridPaint();
@@ -826,7 +1481,8 @@ public class ComponentPanel extends JPanel implements Scrollable
 		if (isHorizontalGridEnabled() && gridPaint != null
 				&& gridStroke != null)
 		{
-			double horizontalGridSpacing = getHorizontalGridSpacing();
+			double horizontalGridSpacing = getScale()
+					* getHorizontalGridSpacing();
 			Paint oldPaint = g2d.getPaint();
 			Stroke oldStroke = g2d.getStroke();
 			Rectangle visibleRectangle = getVisibleRect();
@@ -864,7 +1520,7 @@ public class ComponentPanel extends JPanel implements Scrollable
 
 		if (isVerticalGridEnabled() && gridPaint != null && gridStroke != null)
 		{
-			double verticalGridSpacing = getVerticalGridSpacing();
+			double verticalGridSpacing = getScale() * getVerticalGridSpacing();
 			Paint oldPaint = g2d.getPaint();
 			Stroke oldStroke = g2d.getStroke();
 			Rectangle visibleRectangle = getVisibleRect();
@@ -900,16 +1556,18 @@ public class ComponentPanel extends JPanel implements Scrollable
 		if (evt == null || !isRootComponentNotificationEnabled())
 			return;
 
-		for (int i = 0, size = getRootComponentListenerCount(); i < size; i++)
+		ListenerArray<RootComponentListener> rootComponentListeners = rootComponentListenerArray;
+
+		for (int i = 0, size = rootComponentListeners.size(); i < size; i++)
 		{
 			switch (evt.getEventType())
 			{
 				case ROOT_COMPONENT_ADDED:
-					getRootComponentListener(i).rootComponentAdded(evt);
+					rootComponentListeners.get(i).rootComponentAdded(evt);
 					break;
 
 				case ROOT_COMPONENT_REMOVED:
-					getRootComponentListener(i).rootComponentRemoved(evt);
+					rootComponentListeners.get(i).rootComponentRemoved(evt);
 					break;
 			}
 		}
@@ -922,4 +1580,16 @@ public class ComponentPanel extends JPanel implements Scrollable
 	
 		return scaledLocation;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Class used to flush the accumulated dirty regions on the event dispatch
+	 * thread.
+	 */
+	private class DirtyRegionFlushHandler implements Runnable
+	{
+		public void run()
+		{
+			flushDirtyRegions();
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package com.kallasoft.avondale.panel;
+
+/**
+ * Default implementation of the <code>DirtyRegionManager</code> interface.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class DefaultDirtyRegionManager extends AbstractDirtyRegionManager
+{
+	public DefaultDirtyRegionManager()
+	{
+		this(DEFAULT_MAX_DIRTY_REGION_COUNT);
+	}
+
+	public DefaultDirtyRegionManager(int maxDirtyRegionCount)
+	{
+		super(maxDirtyRegionCount);
+	}
+}
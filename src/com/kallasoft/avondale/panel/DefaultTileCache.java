@@ -0,0 +1,21 @@
+package com.kallasoft.avondale.panel;
+
+/**
+ * Default implementation of the <code>TileCache</code> interface.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class DefaultTileCache extends AbstractTileCache
+{
+	public DefaultTileCache()
+	{
+		this(DEFAULT_TILE_SIZE, DEFAULT_MAX_TILE_COUNT);
+	}
+
+	public DefaultTileCache(int tileSize, int maxTileCount)
+	{
+		super(tileSize, maxTileCount);
+	}
+}
@@ -0,0 +1,51 @@
+package com.kallasoft.avondale.panel;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Default implementation of the <code>TileRenderer</code> interface. By
+ * default the tiles are rendered on a pool of daemon threads, one for every
+ * available processor.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class DefaultTileRenderer extends AbstractTileRenderer
+{
+	public DefaultTileRenderer()
+	{
+		this(DEFAULT_TILE_SIZE);
+	}
+
+	public DefaultTileRenderer(int tileSize)
+	{
+		this(Executors.newFixedThreadPool(Runtime.getRuntime()
+				.availableProcessors(), new RenderThreadFactory()), tileSize);
+	}
+
+	public DefaultTileRenderer(ExecutorService executorService, int tileSize)
+	{
+		super(executorService, tileSize);
+	}
+
+	/**
+	 * Class used to create the daemon threads of the default thread pool, so
+	 * an undisposed renderer doesn't keep the VM alive.
+	 */
+	private static class RenderThreadFactory implements ThreadFactory
+	{
+		private int threadCount = 0;
+
+		public synchronized Thread newThread(Runnable runnable)
+		{
+			Thread thread = new Thread(runnable, "TileRenderer-"
+					+ (++threadCount));
+			thread.setDaemon(true);
+
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package com.kallasoft.avondale.panel;
+
+/**
+ * Default implementation of the <code>ZoomController</code> interface.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ */
+public class DefaultZoomController extends AbstractZoomController
+{
+	public DefaultZoomController(ComponentPanel componentPanel)
+	{
+		super(componentPanel);
+	}
+}
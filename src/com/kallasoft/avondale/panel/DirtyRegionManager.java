@@ -0,0 +1,53 @@
+package com.kallasoft.avondale.panel;
+
+import java.awt.Rectangle;
+
+import com.kallasoft.ext.bean.PropertyChangeSupport;
+
+/**
+ * Interface used to describe a manager that accumulates the regions of a
+ * <code>ComponentPanel</code> that need to be repainted so they can be
+ * handed to Swing once per event dispatch cycle instead of one repaint
+ * request per component change.
+ * <p>
+ * Regions are kept in the pixel (scaled) coordinate space of the
+ * <code>ComponentPanel</code>. Overlapping regions are always merged, and
+ * once the number of regions reaches <code>maxDirtyRegionCount</code> new
+ * regions are merged into the existing region that grows the least. A
+ * <code>maxDirtyRegionCount</code> of 1 reduces the manager to a single union
+ * rectangle.
+ * <p>
+ * Implementations are expected to be thread safe, as repaint requests can
+ * come from any thread.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ * @see ComponentPanel
+ */
+public interface DirtyRegionManager extends PropertyChangeSupport
+{
+	public static final String MAX_DIRTY_REGION_COUNT_PROPERTY_NAME = "maxDirtyRegionCount";
+
+	public static final int DEFAULT_MAX_DIRTY_REGION_COUNT = 1;
+
+	public int getMaxDirtyRegionCount();
+
+	public void setMaxDirtyRegionCount(int maxDirtyRegionCount)
+			throws IllegalArgumentException;
+
+	public boolean isEmpty();
+
+	public int getDirtyRegionCount();
+
+	public void addDirtyRegion(int x, int y, int width, int height);
+
+	/**
+	 * Used to remove all the accumulated dirty regions from this manager and
+	 * return them, leaving the manager empty.
+	 *
+	 * @return the accumulated dirty regions, or an empty array if there are
+	 *         none.
+	 */
+	public Rectangle[] removeDirtyRegions();
+}
@@ -4,18 +4,22 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Image;
 import java.awt.Paint;
 import java.awt.Rectangle;
 import java.awt.Stroke;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.awt.image.VolatileImage;
 
 import javax.swing.JPanel;
 
-import com.kallasoft.avondale.component.Component;
+import com.kallasoft.avondale.component.ContainerComponent;
+import com.kallasoft.avondale.component.Component.LevelOfDetail;
 
 /*
  * TODO: Possibly look into adding a mechanism that queues up clear events, and
@@ -40,7 +44,11 @@ public class OverviewPanel extends JPanel
 	private Stroke visibleRegionStroke = DEFAULT_VISIBLE_REGION_STROKE;
 	private ComponentPanel componentPanel;
 	private Rectangle2D visibleRegionBounds;
-	private VolatileImage buffer;
+	private Rectangle visibleRectangle;
+	private Rectangle bufferDirtyBounds;
+	private int bufferComponentPanelWidth;
+	private int bufferComponentPanelHeight;
+	private Image buffer;
 
 	public OverviewPanel()
 	{
@@ -50,6 +58,7 @@ public class OverviewPanel extends JPanel
 	public OverviewPanel(ComponentPanel componentPanel)
 	{
 		this.visibleRegionBounds = new Rectangle2D.Double();
+		this.visibleRectangle = new Rectangle();
 		this.mousePressedXYOffsets = new double[2];
 
 		setOpaque(true);
@@ -124,8 +133,17 @@ public class OverviewPanel extends JPanel
 		});
 	}
 
+	/**
+	 * Used to discard the whole buffer so the overview of every root component
+	 * is rendered again the next time this panel is painted.
+	 */
 	public void invalidateBuffer()
 	{
+		bufferDirtyBounds = null;
+
+		if (buffer != null)
+			buffer.flush();
+
 		buffer = null;
 	}
 
@@ -152,6 +170,10 @@ public class OverviewPanel extends JPanel
 
 		firePropertyChange(COMPONENT_PANEL_PROPERTY_NAME, oldComponentPanel,
 				getComponentPanel());
+
+		/* Render the overview of the new componentPanel from scratch */
+		invalidateBuffer();
+		repaint();
 	}
 
 	public boolean isShowVisibleRegion()
@@ -214,12 +236,29 @@ public class OverviewPanel extends JPanel
 		repaint();
 	}
 
+	/**
+	 * Used to re-render and repaint the region of this overview that shows the
+	 * given region of the <code>ComponentPanel</code>. The
+	 * <code>ComponentPanel</code> calls this for every region it repaints, so
+	 * only the parts of the buffer that actually changed are rendered again.
+	 * 
+	 * @param x
+	 *            The x coordinate of the region, in the (scaled) pixel
+	 *            coordinate space of the <code>ComponentPanel</code>.
+	 * @param y
+	 *            The y coordinate of the region.
+	 * @param width
+	 *            The width of the region.
+	 * @param height
+	 *            The height of the region.
+	 */
 	public void repaintComponentPanelRegion(double x, double y, double width,
 			double height)
 	{
 		ComponentPanel componentPanel = getComponentPanel();
 
-		if (componentPanel == null)
+		if (componentPanel == null || componentPanel.getWidth() == 0
+				|| componentPanel.getHeight() == 0)
 			return;
 
 		double xScale = (double) getWidth()
@@ -227,9 +266,31 @@ public class OverviewPanel extends JPanel
 		double yScale = (double) getHeight()
 				/ (double) componentPanel.getHeight();
 
-		repaint((int) Math.floor(xScale * x), (int) Math.floor(yScale * y),
-				(int) Math.ceil(xScale * width), (int) Math.ceil(yScale
-						* height));
+		/*
+		 * Grow the region by a pixel on each side, the anti-aliased edges of
+		 * the scaled down rendering bleed into the neighboring pixels.
+		 */
+		int regionX = (int) Math.floor(xScale * x) - 1;
+		int regionY = (int) Math.floor(yScale * y) - 1;
+		int regionWidth = (int) Math.ceil(xScale * (x + width)) - regionX + 1;
+		int regionHeight = (int) Math.ceil(yScale * (y + height)) - regionY
+				+ 1;
+
+		if (regionWidth <= 0 || regionHeight <= 0)
+			return;
+
+		/* Remember which part of the buffer has to be rendered again */
+		if (buffer != null)
+		{
+			if (bufferDirtyBounds == null)
+				bufferDirtyBounds = new Rectangle(regionX, regionY,
+						regionWidth, regionHeight);
+			else
+				bufferDirtyBounds.add(new Rectangle(regionX, regionY,
+						regionWidth, regionHeight));
+		}
+
+		repaint(regionX, regionY, regionWidth, regionHeight);
 	}
 
 	public void repaintComponentPanelRegion(Rectangle2D regionBounds)
@@ -238,6 +299,28 @@ public class OverviewPanel extends JPanel
 				regionBounds.getWidth(), regionBounds.getHeight());
 	}
 
+	/**
+	 * Used by the <code>ComponentPanel</code> every time it paints to let the
+	 * overview know the visible region may have changed (e.g. because it was
+	 * scrolled). Only when it actually changed is this panel repainted, which
+	 * costs a copy of the buffer and not a rendering of the root components.
+	 */
+	public void updateVisibleRegionIndicator()
+	{
+		ComponentPanel componentPanel = getComponentPanel();
+
+		if (componentPanel == null || !isShowVisibleRegion())
+			return;
+
+		Rectangle newVisibleRectangle = componentPanel.getVisibleRect();
+
+		if (visibleRectangle.equals(newVisibleRectangle))
+			return;
+
+		visibleRectangle.setBounds(newVisibleRectangle);
+		repaint();
+	}
+
 	protected void paintComponent(Graphics g)
 	{
 		super.paintComponent(g);
@@ -248,66 +331,148 @@ public class OverviewPanel extends JPanel
 		 * This overview has nothing to paint if it isn't connected with a
 		 * componentPanel.
 		 */
-		if (componentPanel == null)
+		if (componentPanel == null || getWidth() == 0 || getHeight() == 0
+				|| componentPanel.getWidth() == 0
+				|| componentPanel.getHeight() == 0)
 			return;
 
+		int attempts = 0;
+
+		do
+		{
+			validateBuffer(componentPanel);
+
+			/* Re-render the regions of the buffer that changed */
+			if (bufferDirtyBounds != null)
+			{
+				renderBuffer(componentPanel, bufferDirtyBounds);
+				bufferDirtyBounds = null;
+			}
+
+			g.drawImage(buffer, 0, 0, this);
+
+			/*
+			 * If the contents were lost for some reason start the whole process
+			 * over, but don't try more than 3 times before giving up.
+			 */
+			attempts++;
+		} while (attempts < 3 && buffer instanceof VolatileImage
+				&& ((VolatileImage) buffer).contentsLost());
+
+		/* Paint the indicator showing the current visible region */
+		paintVisibleRegionIndicator((Graphics2D) g);
+	}
+
+	/**
+	 * Used to make sure the buffer exists, is the size of this panel and was
+	 * rendered for the current size of the <code>ComponentPanel</code>. When
+	 * any of those isn't true the buffer is (re)created and marked as dirty in
+	 * its entirety.
+	 * 
+	 * @param componentPanel
+	 *            The componentPanel this is an overview of.
+	 */
+	protected void validateBuffer(ComponentPanel componentPanel)
+	{
+		int width = getWidth();
+		int height = getHeight();
+
 		/*
-		 * Check if the buffer exists, if it does paint it, otherwise we need to
-		 * regenerate it.
+		 * The scale of the overview is relative to the size of the
+		 * componentPanel, if that changed then so did everything in the buffer.
 		 */
-		if (buffer == null || buffer.contentsLost())
+		if (bufferComponentPanelWidth != componentPanel.getWidth()
+				|| bufferComponentPanelHeight != componentPanel.getHeight())
+		{
+			bufferComponentPanelWidth = componentPanel.getWidth();
+			bufferComponentPanelHeight = componentPanel.getHeight();
+			bufferDirtyBounds = new Rectangle(0, 0, width, height);
+		}
+
+		if (buffer instanceof VolatileImage)
+		{
+			int status = ((VolatileImage) buffer)
+					.validate(getGraphicsConfiguration());
+
+			if (status == VolatileImage.IMAGE_INCOMPATIBLE)
+				invalidateBuffer();
+			else if (status == VolatileImage.IMAGE_RESTORED)
+				bufferDirtyBounds = new Rectangle(0, 0, width, height);
+		}
+
+		if (buffer == null || buffer.getWidth(null) != width
+				|| buffer.getHeight(null) != height)
 		{
-			buffer = createVolatileImage(getWidth(), getHeight());
+			invalidateBuffer();
+			buffer = createVolatileImage(width, height);
 
 			/* Unable to create a volatileImage, probably running headless */
 			if (buffer == null)
-				return;
+				buffer = new BufferedImage(width, height,
+						BufferedImage.TYPE_INT_RGB);
 
-			Graphics2D g2d = buffer.createGraphics();
-			g2d.setClip(g.getClip());
+			bufferDirtyBounds = new Rectangle(0, 0, width, height);
+		}
+	}
 
-			/* Honor the opaque setting */
-			if (isOpaque())
-			{
-				Color oldColor = g2d.getColor();
-				g2d.setColor(componentPanel.getBackground());
-				g2d.fill(getVisibleRect());
-				g2d.setColor(oldColor);
-			}
+	/**
+	 * Used to render the overview of every root component that intersects
+	 * <code>regionBounds</code> into the buffer.
+	 * 
+	 * @param componentPanel
+	 *            The componentPanel this is an overview of.
+	 * @param regionBounds
+	 *            The region of the buffer to render.
+	 */
+	protected void renderBuffer(ComponentPanel componentPanel,
+			Rectangle regionBounds)
+	{
+		Graphics2D g2d = (Graphics2D) buffer.getGraphics();
+		g2d.clipRect(regionBounds.x, regionBounds.y, regionBounds.width,
+				regionBounds.height);
 
-			/*
-			 * Calculate relative scale of this overviewPanel's size to the
-			 * componentPanel's size
-			 */
-			double xScale = (double) getWidth()
-					/ (double) componentPanel.getWidth();
-			double yScale = (double) getHeight()
-					/ (double) componentPanel.getHeight();
-			double componentPanelScale = componentPanel.getScale();
-			Component[] rootComponents = componentPanel.getRootComponents();
+		/* Honor the opaque setting */
+		Color oldColor = g2d.getColor();
+		g2d.setColor(isOpaque() ? componentPanel.getBackground()
+				: getBackground());
+		g2d.fill(regionBounds);
+		g2d.setColor(oldColor);
 
-			/*
-			 * Scale the graphics appropriately, if we don't multiply by the
-			 * componentPanel's scale here, the OverviewPanel begins to zoom in
-			 * instead of staying at a constant level.
-			 */
-			g2d.scale(componentPanelScale * xScale, componentPanelScale
-					* yScale);
+		/*
+		 * Calculate relative scale of this overviewPanel's size to the
+		 * componentPanel's size
+		 */
+		double xScale = (double) getWidth()
+				/ (double) componentPanel.getWidth();
+		double yScale = (double) getHeight()
+				/ (double) componentPanel.getHeight();
+		double componentPanelScale = componentPanel.getScale();
 
-			for (int i = 0; i < rootComponents.length; i++)
-				rootComponents[i].paint(g2d);
+		/*
+		 * Scale the graphics appropriately, if we don't multiply by the
+		 * componentPanel's scale here, the OverviewPanel begins to zoom in
+		 * instead of staying at a constant level.
+		 */
+		g2d.scale(componentPanelScale * xScale, componentPanelScale * yScale);
+		AffineTransform transform = g2d.getTransform();
 
-			/* Dispose of the buffer's Graphics2D object */
-			g2d.dispose();
-		}
+		/* The overview is small, so it is usually painted with little detail */
+		g2d.setRenderingHint(LevelOfDetail.RENDERING_HINT_KEY, componentPanel
+				.getLevelOfDetail(componentPanelScale
+						* Math.min(xScale, yScale)));
 
-		if (buffer == null || buffer.contentsLost())
-			return;
+		for (int i = 0, size = componentPanel.getRootComponentCount(); i < size; i++)
+		{
+			ContainerComponent rootComponent = componentPanel
+					.getRootComponent(i);
 
-		g.drawImage(buffer, 0, 0, this);
+			g2d.translate(rootComponent.getX(), rootComponent.getY());
+			rootComponent.paint(g2d);
+			g2d.setTransform(transform);
+		}
 
-		/* Paint the indicator showing the current visible region */
-		paintVisibleRegionIndicator((Graphics2D) g);
+		/* Dispose of the buffer's Graphics2D object */
+		g2d.dispose();
 	}
 
 	protected void paintVisibleRegionIndicator(Graphics2D g2d)
@@ -0,0 +1,84 @@
+package com.kallasoft.avondale.panel;
+
+import java.awt.Graphics2D;
+
+import com.kallasoft.avondale.component.Component;
+
+/**
+ * Interface used to describe a cache of fixed-size image tiles that hold the
+ * rendered output of a (mostly static) root component. Painting the
+ * component from the cache costs a handful of image copies instead of
+ * re-rendering every vector shape in it, which makes scrolling over large
+ * static layers cheap.
+ * <p>
+ * Tiles are laid out in the pixel (scaled) coordinate space of the
+ * <code>ComponentPanel</code> and are keyed by the scale they were rendered
+ * at and their column and row. The cache does not know when the component
+ * changes, the owner is responsible for calling
+ * {@link #invalidateRegion(double, double, double, double)} for every region
+ * of the component that is repainted.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ * @see ComponentPanel#setRootComponentTileCacheEnabled(com.kallasoft.avondale.component.ContainerComponent,
+ *      boolean)
+ */
+public interface TileCache
+{
+	public static final int DEFAULT_TILE_SIZE = 256;
+	public static final int DEFAULT_MAX_TILE_COUNT = 128;
+
+	public int getTileSize();
+
+	public int getMaxTileCount();
+
+	public void setMaxTileCount(int maxTileCount)
+			throws IllegalArgumentException;
+
+	public int getTileCount();
+
+	/**
+	 * Used to paint <code>component</code> to <code>g2d</code> from the
+	 * cached tiles, rendering any tile in the current clip that is missing.
+	 *
+	 * @param g2d
+	 *            The unscaled context of the <code>ComponentPanel</code>.
+	 * @param component
+	 *            The component the tiles hold the rendering of.
+	 * @param scale
+	 *            The scale the component is painted at.
+	 */
+	public void paintTiles(Graphics2D g2d, Component component, double scale);
+
+	public TileRenderer getTileRenderer();
+
+	/**
+	 * Used to set the renderer the missing tiles are rendered with, in
+	 * parallel, when a region is painted.
+	 *
+	 * @param tileRenderer
+	 *            The renderer to use, <code>null</code> renders the tiles one
+	 *            after another on the painting thread.
+	 */
+	public void setTileRenderer(TileRenderer tileRenderer);
+
+	/**
+	 * Used to discard every cached tile, at any scale, that overlaps the given
+	 * region of the component.
+	 *
+	 * @param x
+	 *            The x coordinate of the region in the (unscaled) coordinate
+	 *            space of the component.
+	 * @param y
+	 *            The y coordinate of the region.
+	 * @param width
+	 *            The width of the region.
+	 * @param height
+	 *            The height of the region.
+	 */
+	public void invalidateRegion(double x, double y, double width,
+			double height);
+
+	public void removeTiles();
+}
@@ -0,0 +1,103 @@
+package com.kallasoft.avondale.panel;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+import com.kallasoft.avondale.component.Component;
+
+/**
+ * Interface used to describe a renderer that splits a region into tiles and
+ * renders every tile on its own thread, into its own image, with its own clip.
+ * Rendering a large or dense hierarchy this way scales with the number of
+ * cores instead of being bound to the single thread that paints.
+ * <p>
+ * The tiles never change the component hierarchy: the whole hierarchy is
+ * validated on the calling thread before any tile is handed out (see
+ * <code>ComponentUtils.validateTree(Component)</code>), so painting the tiles
+ * only reads it, and the calling thread is blocked until the last tile is
+ * done. The renderer must be called on the thread that owns the hierarchy
+ * (for a <code>ComponentPanel</code> the event dispatch thread), which keeps
+ * it from being modified while the tiles are being rendered. There is no
+ * other lock, blocking the owning thread is what keeps the hierarchy still.
+ * <p>
+ * The tiles paint the live components rather than their snapshots, as
+ * <code>ComponentPainter</code>s and <code>ComponentBorder</code>s paint a
+ * <code>Component</code>.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ * @see ComponentPanel#setTileRenderer(TileRenderer)
+ * @see TileCache#setTileRenderer(TileRenderer)
+ */
+public interface TileRenderer
+{
+	public static final int DEFAULT_TILE_SIZE = 256;
+
+	/**
+	 * Used to get the size of the tiles {@link #paint(Graphics2D, Component[],
+	 * AffineTransform)} splits the clip into.
+	 *
+	 * @return the width and height of a tile.
+	 */
+	public int getTileSize();
+
+	/**
+	 * Used to render the given tiles in parallel. Must only be called on the
+	 * thread that owns the root components, the event dispatch thread when
+	 * they are shown in a <code>ComponentPanel</code>.
+	 *
+	 * @param rootComponents
+	 *            The root components to render, in painting order.
+	 * @param transform
+	 *            The transform from the coordinate space of the root
+	 *            components into the pixel coordinate space the tile bounds
+	 *            are given in (usually the scale).
+	 * @param tileBounds
+	 *            The bounds of every tile in the pixel coordinate space.
+	 * @param renderingHints
+	 *            The rendering hints to render with, can be <code>null</code>.
+	 * @return a new, translucent image for every tile, in the same order as
+	 *         <code>tileBounds</code>.
+	 * @throws IllegalStateException
+	 *             if the root components are shown in a
+	 *             <code>ComponentPanel</code> and this isn't called on the
+	 *             event dispatch thread.
+	 */
+	public BufferedImage[] renderTiles(Component[] rootComponents,
+			AffineTransform transform, Rectangle[] tileBounds,
+			RenderingHints renderingHints) throws IllegalStateException;
+
+	/**
+	 * Used to paint the root components to the current clip of
+	 * <code>g2d</code> by rendering it as tiles in parallel and compositing
+	 * the tiles in the order they were rendered. Must only be called on the
+	 * thread that owns the root components, like
+	 * {@link #renderTiles(Component[], AffineTransform, Rectangle[],
+	 * RenderingHints)}.
+	 *
+	 * @param g2d
+	 *            The context to paint to, expected to be in the pixel
+	 *            coordinate space (not scaled).
+	 * @param rootComponents
+	 *            The root components to paint, in painting order.
+	 * @param transform
+	 *            The transform from the coordinate space of the root
+	 *            components into the coordinate space of <code>g2d</code>.
+	 * @throws IllegalStateException
+	 *             if the root components are shown in a
+	 *             <code>ComponentPanel</code> and this isn't called on the
+	 *             event dispatch thread.
+	 */
+	public void paint(Graphics2D g2d, Component[] rootComponents,
+			AffineTransform transform) throws IllegalStateException;
+
+	/**
+	 * Used to release the threads owned by this renderer. The renderer cannot
+	 * be used afterwards.
+	 */
+	public void dispose();
+}
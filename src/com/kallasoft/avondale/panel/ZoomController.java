@@ -0,0 +1,144 @@
+package com.kallasoft.avondale.panel;
+
+import java.awt.Graphics2D;
+import java.awt.event.MouseWheelEvent;
+
+import com.kallasoft.ext.bean.PropertyChangeSupport;
+
+/**
+ * Interface used to describe a controller that smoothly animates the scale
+ * and the visible region of a <code>ComponentPanel</code>.
+ * <p>
+ * While an animation runs the <code>ComponentPanel</code> is painted from a
+ * low resolution snapshot taken when the animation started, so every frame
+ * costs a single scaled image copy no matter how many components there are.
+ * The scale and viewport of the panel are only changed, and the panel only
+ * repainted at full quality, once the motion settles.
+ * <p>
+ * All methods are expected to be called from the event dispatch thread.
+ *
+ * @author Riyad Kalla
+ * @version 1.0
+ * @since 1.0
+ * @see ComponentPanel#setZoomController(ZoomController)
+ */
+public interface ZoomController extends PropertyChangeSupport
+{
+	public static final String ANIMATION_DURATION_PROPERTY_NAME = "animationDuration";
+	public static final String MINIMUM_SCALE_PROPERTY_NAME = "minimumScale";
+	public static final String MAXIMUM_SCALE_PROPERTY_NAME = "maximumScale";
+	public static final String WHEEL_ZOOM_FACTOR_PROPERTY_NAME = "wheelZoomFactor";
+
+	public static final int DEFAULT_ANIMATION_DURATION = 250;
+	public static final int DEFAULT_FRAME_DELAY = 15;
+	public static final int DEFAULT_MAX_SNAPSHOT_SIZE = 2048;
+	public static final double DEFAULT_MINIMUM_SCALE = 0.05;
+	public static final double DEFAULT_MAXIMUM_SCALE = 8;
+	public static final double DEFAULT_WHEEL_ZOOM_FACTOR = 1.25;
+
+	public ComponentPanel getComponentPanel();
+
+	public int getAnimationDuration();
+
+	/**
+	 * Used to set how long, in milliseconds, an animation takes. A duration of
+	 * 0 applies every zoom and pan immediately.
+	 *
+	 * @param animationDuration
+	 *            The duration of an animation in milliseconds.
+	 * @throws IllegalArgumentException
+	 *             if <code>animationDuration</code> is negative.
+	 */
+	public void setAnimationDuration(int animationDuration)
+			throws IllegalArgumentException;
+
+	public double getMinimumScale();
+
+	public void setMinimumScale(double minimumScale)
+			throws IllegalArgumentException;
+
+	public double getMaximumScale();
+
+	public void setMaximumScale(double maximumScale)
+			throws IllegalArgumentException;
+
+	public double getWheelZoomFactor();
+
+	public void setWheelZoomFactor(double wheelZoomFactor)
+			throws IllegalArgumentException;
+
+	public boolean isAnimating();
+
+	/**
+	 * Used to get the scale the panel will have once the current animation
+	 * settles.
+	 *
+	 * @return the target scale, or the scale of the panel if nothing is being
+	 *         animated.
+	 */
+	public double getTargetScale();
+
+	/**
+	 * Used to zoom to <code>scale</code> around the center of the visible
+	 * region of the panel.
+	 *
+	 * @param scale
+	 *            The scale to zoom to, clamped to the minimum and maximum
+	 *            scale.
+	 */
+	public void zoomTo(double scale);
+
+	/**
+	 * Used to zoom to <code>scale</code> keeping the point under the given
+	 * anchor in place on screen, like zooming in on the mouse cursor.
+	 *
+	 * @param scale
+	 *            The scale to zoom to, clamped to the minimum and maximum
+	 *            scale.
+	 * @param anchorX
+	 *            The x coordinate of the anchor in the (scaled) pixel
+	 *            coordinate space of the panel.
+	 * @param anchorY
+	 *            The y coordinate of the anchor.
+	 */
+	public void zoomTo(double scale, double anchorX, double anchorY);
+
+	/**
+	 * Used to scroll the visible region of the panel so its top left corner
+	 * ends up at the given location.
+	 *
+	 * @param x
+	 *            The x coordinate, in the (scaled) pixel coordinate space of
+	 *            the panel at the target scale.
+	 * @param y
+	 *            The y coordinate.
+	 */
+	public void panTo(double x, double y);
+
+	/**
+	 * Used to end the current animation immediately, applying its target
+	 * scale and location.
+	 */
+	public void stopAnimation();
+
+	/**
+	 * Used to zoom in or out by <code>wheelZoomFactor</code> for every notch
+	 * the wheel was rotated, anchored on the location of the event.
+	 *
+	 * @param evt
+	 *            The wheel event in the (scaled) pixel coordinate space of the
+	 *            panel.
+	 */
+	public void processMouseWheelEvent(MouseWheelEvent evt);
+
+	/**
+	 * Used by the <code>ComponentPanel</code> to paint the current frame of
+	 * the animation.
+	 *
+	 * @param g2d
+	 *            The (unscaled) context of the panel.
+	 * @return <code>true</code> if a frame was painted and the panel
+	 *         shouldn't paint its components, otherwise <code>false</code>.
+	 */
+	public boolean paintSnapshot(Graphics2D g2d);
+}